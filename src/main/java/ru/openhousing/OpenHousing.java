@@ -14,6 +14,7 @@ import ru.openhousing.database.DatabaseManager;
 import ru.openhousing.coding.CodeManager;
 import ru.openhousing.housing.House;
 import ru.openhousing.housing.HousingManager;
+import ru.openhousing.housing.TeleportMetrics;
 import org.bukkit.World;
 import ru.openhousing.listeners.*;
 import ru.openhousing.coding.listeners.CodeListener;
@@ -66,9 +67,17 @@ public class OpenHousing extends JavaPlugin {
         // Сохраняем все миры домов
         if (housingManager != null) {
             getLogger().info("Saving all house worlds...");
+            housingManager.getWorldManager().stop();
+            housingManager.getWorldPool().stop();
+            housingManager.getAreaOperations().shutdown();
+            TeleportMetrics teleportMetrics = housingManager.getTeleporter().getMetrics();
+            if (teleportMetrics.getCompleted() + teleportMetrics.getFailed() > 0) {
+                getLogger().info("House teleports: " + teleportMetrics);
+            }
+            java.util.Set<String> savedWorlds = new java.util.HashSet<>(); // Участки делят один мир
             for (House house : housingManager.getAllHouses()) {
-                World world = house.getWorld();
-                if (world != null) {
+                World world = house.getLoadedWorld(); // Выгруженные миры уже сохранены
+                if (world != null && savedWorlds.add(world.getName())) {
                     world.save();
                     getLogger().info("Saved world: " + world.getName());
                 }
@@ -77,6 +86,7 @@ public class OpenHousing extends JavaPlugin {
         
         // Сохраняем все активные коды
         if (codeManager != null) {
+            codeManager.shutdown();
             getLogger().info("Saving all code blocks...");
             codeManager.saveAllCodes();
         }
@@ -208,11 +218,13 @@ public class OpenHousing extends JavaPlugin {
             housingManager.initialize();
             if (debugMode) getLogger().info("[DEBUG] HousingManager initialized successfully");
             
-            // Загружаем миры домов с задержкой для стабильности
-            getServer().getScheduler().runTaskLater(this, () -> {
-                if (debugMode) getLogger().info("[DEBUG] Starting delayed world loading...");
-                loadHouseWorlds();
-            }, 100L); // 5 секунд задержки
+            // Загружаем миры домов с задержкой для стабильности (если миры не загружаются по требованию)
+            if (!housingManager.getWorldManager().isEnabled()) {
+                getServer().getScheduler().runTaskLater(this, () -> {
+                    if (debugMode) getLogger().info("[DEBUG] Starting delayed world loading...");
+                    loadHouseWorlds();
+                }, 100L); // 5 секунд задержки
+            }
             
             // Менеджер кода
             if (debugMode) getLogger().info("[DEBUG] Initializing CodeManager...");
@@ -2,16 +2,22 @@ package ru.openhousing.coding;
 
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
+import org.bukkit.scheduler.BukkitTask;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.blocks.control.AsyncRepeatBlock;
 import ru.openhousing.coding.blocks.events.PlayerEventBlock;
 import ru.openhousing.coding.blocks.events.EntityEventBlock;
 import ru.openhousing.coding.events.OptimizedEventManager;
 import ru.openhousing.coding.gui.CodeEditorGUI;
+import ru.openhousing.coding.scheduler.ScriptScheduler;
+import ru.openhousing.coding.trace.ScriptTracer;
 import ru.openhousing.coding.script.CodeScript;
 import ru.openhousing.coding.script.CodeLine;
+import ru.openhousing.coding.script.ScriptPrefetcher;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -23,12 +29,18 @@ public class CodeManager {
     private final Map<UUID, CodeScript> playerScripts;
     private final Map<UUID, CodeEditorGUI> openEditors;
     private final OptimizedEventManager eventManager;
+    private final ScriptScheduler scriptScheduler;
+    private final ScriptTracer scriptTracer;
+    private BukkitTask bodyUnloadTask;
+    private ScriptPrefetcher scriptPrefetcher;
     
     public CodeManager(OpenHousing plugin) {
         this.plugin = plugin;
         this.playerScripts = new ConcurrentHashMap<>();
         this.openEditors = new ConcurrentHashMap<>();
         this.eventManager = new OptimizedEventManager(plugin);
+        this.scriptScheduler = new ScriptScheduler(plugin);
+        this.scriptTracer = new ScriptTracer(plugin);
     }
     
     /**
@@ -40,6 +52,10 @@ public class CodeManager {
         try {
             if (debugMode) plugin.getLogger().info("[DEBUG] OptimizedEventManager initialized successfully");
             
+            scriptScheduler.start(plugin);
+            startBodyUnloading();
+            startPrefetcher();
+            
             if (debugMode) plugin.getLogger().info("[DEBUG] CodeManager playerScripts map size: " + playerScripts.size());
             if (debugMode) plugin.getLogger().info("[DEBUG] CodeManager openEditors map size: " + openEditors.size());
             
@@ -222,7 +238,20 @@ public class CodeManager {
     }
     
     /**
-     * Загрузка скрипта игрока из базы данных
+     * Предзагрузка скрипта игрока до входа (вызывается из AsyncPlayerPreLoginEvent, не в основном потоке)
+     */
+    public void prefetchScript(UUID playerId) {
+        if (scriptPrefetcher != null && playerId != null) {
+            scriptPrefetcher.prefetch(playerId);
+        }
+    }
+    
+    /**
+     * Загрузка скрипта игрока из базы данных.
+     *
+     * Основной поток не ждет базу: предзагруженный скрипт регистрируется сразу
+     * (до обработчиков PlayerJoinEvent с приоритетом MONITOR), иначе регистрация
+     * выполняется в основном потоке по завершении загрузки.
      */
     public void loadScript(Player player) {
         boolean debugMode = plugin.getConfigManager().getMainConfig().getBoolean("general.debug", false);
@@ -232,25 +261,40 @@ public class CodeManager {
             return;
         }
         
-        try {
-            if (debugMode) plugin.getLogger().info("[DEBUG] Loading script for player: " + player.getName());
-            
-            CodeScript script = plugin.getDatabaseManager().loadCodeScript(player.getUniqueId());
-            if (script != null) {
-                playerScripts.put(player.getUniqueId(), script);
-                if (eventManager != null) {
-                    eventManager.registerPlayer(player, script);
-                    if (debugMode) plugin.getLogger().info("[DEBUG] Script loaded and registered for player: " + player.getName());
-                } else {
-                    plugin.getLogger().warning("[WARNING] OptimizedEventManager is null during script load");
-                }
-            } else {
-                if (debugMode) plugin.getLogger().info("[DEBUG] No script found in database for player: " + player.getName());
+        if (scriptPrefetcher == null) {
+            plugin.getDatabaseManager().loadCodeScriptAsync(player.getUniqueId(), script -> applyLoadedScript(player, script));
+            return;
+        }
+        
+        CompletableFuture<CodeScript> future = scriptPrefetcher.take(player.getUniqueId());
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            if (debugMode) plugin.getLogger().info("[DEBUG] Using prefetched script for player: " + player.getName());
+            applyLoadedScript(player, future.join());
+            return;
+        }
+        
+        future.whenComplete((script, error) -> {
+            if (error != null || !plugin.isEnabled()) {
+                return; // Ошибка уже записана в лог загрузчиком
             }
-        } catch (Exception e) {
-            plugin.getLogger().severe("[ERROR] Failed to load script for player " + player.getName() + ": " + e.getMessage());
-            e.printStackTrace();
+            org.bukkit.Bukkit.getScheduler().runTask(plugin, () -> applyLoadedScript(player, script));
+        });
+    }
+    
+    /**
+     * Регистрация загруженного скрипта в основном потоке
+     */
+    private void applyLoadedScript(Player player, CodeScript script) {
+        boolean debugMode = plugin.getConfigManager().getMainConfig().getBoolean("general.debug", false);
+        
+        if (script == null) {
+            if (debugMode) plugin.getLogger().info("[DEBUG] No script found in database for player: " + player.getName());
+            return;
+        }
+        if (!player.isOnline()) {
+            return; // Игрок вышел, пока скрипт загружался
         }
+        registerScript(player, script);
     }
     
     /**
@@ -284,7 +328,9 @@ public class CodeManager {
     public void executeScript(Player player) {
         CodeScript script = getScript(player);
         if (script != null) {
-            script.execute(new CodeBlock.ExecutionContext(player));
+            CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(player);
+            scriptTracer.begin(context, script.getPlayerId());
+            script.execute(context);
         }
     }
     
@@ -301,13 +347,17 @@ public class CodeManager {
      * Очистка данных при отключении игрока
      */
     public void onPlayerQuit(Player player) {
+        if (scriptPrefetcher != null) {
+            scriptPrefetcher.invalidate(player.getUniqueId());
+        }
         closeCodeEditor(player);
         eventManager.unregisterPlayer(player);
+        scriptScheduler.cancelAll(player.getUniqueId());
         
         // Сохраняем скрипт перед удалением из памяти
         CodeScript script = playerScripts.get(player.getUniqueId());
         if (script != null) {
-            plugin.getDatabaseManager().saveCodeScriptAsync(script, () -> {});
+            plugin.getDatabaseManager().queueCodeScript(script);
         }
         
         playerScripts.remove(player.getUniqueId());
@@ -360,12 +410,85 @@ public class CodeManager {
             UUID playerId = entry.getKey();
             CodeScript script = entry.getValue();
             
-            // Асинхронное сохранение в базу данных
-            plugin.getDatabaseManager().saveCodeScriptAsync(script, () -> {});
+            // Постановка в очередь записи (повторные сохранения объединяются)
+            plugin.getDatabaseManager().queueCodeScript(script);
         }
         plugin.getLogger().info("Saved " + playerScripts.size() + " code scripts to database");
     }
     
+    /**
+     * Остановка выполнения скриптов при выключении плагина
+     */
+    public void shutdown() {
+        AsyncRepeatBlock.stopAllLoops();
+        scriptScheduler.shutdown();
+        if (bodyUnloadTask != null) {
+            bodyUnloadTask.cancel();
+            bodyUnloadTask = null;
+        }
+        if (scriptPrefetcher != null) {
+            scriptPrefetcher.shutdown();
+            scriptPrefetcher = null;
+        }
+    }
+    
+    /**
+     * Запуск пула предзагрузки скриптов
+     */
+    private void startPrefetcher() {
+        int threads = plugin.getConfigManager().getMainConfig().getInt("coding.prefetch.threads", 2);
+        long ttlMillis = plugin.getConfigManager().getMainConfig().getLong("coding.prefetch.ttl-seconds", 30) * 1000L;
+        scriptPrefetcher = new ScriptPrefetcher(plugin.getLogger(),
+                playerId -> plugin.getDatabaseManager().loadCodeScript(playerId), threads, ttlMillis);
+    }
+    
+    /**
+     * Периодическая выгрузка тел обработчиков событий, которые давно не срабатывали
+     */
+    private void startBodyUnloading() {
+        if (!plugin.getConfigManager().getMainConfig().getBoolean("coding.lazy-loading.enabled", true)) {
+            return;
+        }
+        long idleMillis = plugin.getConfigManager().getMainConfig().getLong("coding.lazy-loading.unload-after-minutes", 10) * 60_000L;
+        if (idleMillis <= 0) {
+            return;
+        }
+        bodyUnloadTask = org.bukkit.Bukkit.getScheduler().runTaskTimer(plugin, () -> unloadIdleBodies(idleMillis), 1200L, 1200L);
+    }
+    
+    /**
+     * Выгрузка неиспользуемых тел обработчиков (скрипты с открытым редактором не трогаются)
+     */
+    private void unloadIdleBodies(long idleMillis) {
+        if (plugin.getDatabaseManager() == null) {
+            return;
+        }
+        long idleBefore = System.currentTimeMillis() - idleMillis;
+        int unloaded = 0;
+        for (Map.Entry<UUID, CodeScript> entry : playerScripts.entrySet()) {
+            if (!openEditors.containsKey(entry.getKey())) {
+                unloaded += plugin.getDatabaseManager().getScriptSerializer().unloadIdleBodies(entry.getValue(), idleBefore);
+            }
+        }
+        if (unloaded > 0 && plugin.getConfigManager().getMainConfig().getBoolean("general.debug", false)) {
+            plugin.getLogger().info("[DEBUG] Unloaded " + unloaded + " idle event bodies");
+        }
+    }
+    
+    /**
+     * Получение планировщика отложенного выполнения скриптов
+     */
+    public ScriptScheduler getScriptScheduler() {
+        return scriptScheduler;
+    }
+    
+    /**
+     * Получение трассировщика выполнения скриптов
+     */
+    public ScriptTracer getScriptTracer() {
+        return scriptTracer;
+    }
+    
     /**
      * Получение OptimizedEventManager для внешнего использования
      */
@@ -2,8 +2,16 @@ package ru.openhousing.coding.blocks;
 
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
+import ru.openhousing.coding.compiler.Continuation;
+import ru.openhousing.coding.scheduler.ExecutionBudget;
+import ru.openhousing.coding.script.LayeredVariables;
+import ru.openhousing.coding.script.TextTemplate;
+import ru.openhousing.coding.script.VariableRef;
+import ru.openhousing.coding.script.VariableTable;
+import ru.openhousing.coding.trace.TraceSession;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Базовый класс для блока кода
@@ -13,15 +21,37 @@ public abstract class CodeBlock {
     protected final UUID id;
     protected final BlockType type;
     protected final Map<String, Object> parameters;
-    protected final List<CodeBlock> childBlocks;
+    private volatile List<CodeBlock> childBlocks;           // Заменяется целиком при загрузке/выгрузке тела
+    private volatile DeferredChildren deferredChildren;     // Незагруженное тело (null - дочерние блоки в памяти)
+    private long lastUsed;                                  // Последнее выполнение обработчика (для выгрузки)
     protected CodeBlock parentBlock;
     protected Location location;
+    private transient Map<String, TextTemplate> templates; // Разобранные тексты параметров
+    
+    private static final int MAX_CACHED_TEMPLATES = 32;
     
     public CodeBlock(BlockType type) {
         this.id = UUID.randomUUID();
         this.type = type;
         this.parameters = new HashMap<>();
         this.childBlocks = new ArrayList<>();
+        this.lastUsed = System.currentTimeMillis();  // Новый блок не выгружается до первого простоя
+    }
+    
+    /**
+     * Отложенные дочерние блоки: тело хранится в сериализованном виде
+     * и разбирается при первом обращении к дочерним блокам
+     */
+    public interface DeferredChildren {
+        /**
+         * Количество дочерних блоков (без разбора)
+         */
+        int size();
+        
+        /**
+         * Разбор дочерних блоков
+         */
+        List<CodeBlock> load();
     }
     
     /**
@@ -46,6 +76,27 @@ public abstract class CodeBlock {
         return false; // По умолчанию не соответствует
     }
     
+    /**
+     * Блок только выполняет дочерние блоки (execute == executeChildren).
+     * Компилятор скриптов разворачивает такие блоки в плоскую программу.
+     */
+    public boolean executesChildrenOnly() {
+        return false;
+    }
+    
+    /**
+     * Привязка имен переменных блока к слотам таблицы символов скрипта.
+     * Вызывается компилятором: текстовые параметры с %переменными% разбираются заранее.
+     * Блоки, работающие с переменными в циклах, дополняют метод.
+     */
+    public void resolveVariables(VariableTable symbols) {
+        for (Object value : parameters.values()) {
+            if (value instanceof String && ((String) value).indexOf('%') >= 0) {
+                getTemplate((String) value).resolveVariables(symbols);
+            }
+        }
+    }
+    
     /**
      * Клонирование блока
      */
@@ -58,7 +109,7 @@ public abstract class CodeBlock {
             cloned.parameters.putAll(this.parameters);
             
             // Копируем дочерние блоки
-            for (CodeBlock child : this.childBlocks) {
+            for (CodeBlock child : children()) {
                 CodeBlock clonedChild = child.clone();
                 clonedChild.parentBlock = cloned;
                 cloned.childBlocks.add(clonedChild);
@@ -104,7 +155,7 @@ public abstract class CodeBlock {
      * Добавление дочернего блока
      */
     public void addChild(CodeBlock child) {
-        childBlocks.add(child);
+        children().add(child);
         child.setParent(this);
     }
     
@@ -112,7 +163,7 @@ public abstract class CodeBlock {
      * Удаление дочернего блока
      */
     public void removeChild(CodeBlock child) {
-        childBlocks.remove(child);
+        children().remove(child);
         child.setParent(null);
     }
     
@@ -120,7 +171,10 @@ public abstract class CodeBlock {
      * Выполнение всех дочерних блоков
      */
     protected ExecutionResult executeChildren(ExecutionContext context) {
-        for (CodeBlock child : childBlocks) {
+        for (CodeBlock child : children()) {
+            if (!context.getBudget().consumeBlock()) {
+                return ExecutionResult.error("Выполнение прервано: " + context.getBudget().getExhaustedReason());
+            }
             ExecutionResult result = child.execute(context);
             
             // Обработка результатов
@@ -161,7 +215,70 @@ public abstract class CodeBlock {
     }
     
     public List<CodeBlock> getChildBlocks() {
-        return new ArrayList<>(childBlocks);
+        return new ArrayList<>(children());
+    }
+    
+    /**
+     * Количество дочерних блоков (незагруженное тело не разбирается)
+     */
+    public int getChildCount() {
+        DeferredChildren deferred = deferredChildren;
+        return deferred != null ? deferred.size() : childBlocks.size();
+    }
+    
+    /**
+     * Дочерние блоки с загрузкой отложенного тела
+     */
+    private List<CodeBlock> children() {
+        if (deferredChildren != null) {
+            materializeChildren();
+        }
+        return childBlocks;
+    }
+    
+    private synchronized void materializeChildren() {
+        DeferredChildren deferred = deferredChildren;
+        if (deferred == null) {
+            return;
+        }
+        // Ошибка разбора пробрасывается, а тело остается отложенным и не теряется при сохранении
+        List<CodeBlock> loaded = new ArrayList<>(deferred.load());
+        for (CodeBlock child : loaded) {
+            child.setParent(this);
+        }
+        childBlocks = loaded;
+        deferredChildren = null;
+    }
+    
+    /**
+     * Замена дочерних блоков отложенным телом.
+     * Текущий список не изменяется, поэтому уже идущее выполнение его дочерних блоков не прерывается.
+     */
+    public synchronized void deferChildren(DeferredChildren deferred) {
+        this.childBlocks = new ArrayList<>();
+        this.deferredChildren = deferred;
+    }
+    
+    public boolean hasDeferredChildren() {
+        return deferredChildren != null;
+    }
+    
+    /**
+     * Отложенное тело (null - дочерние блоки загружены)
+     */
+    public DeferredChildren getDeferredChildren() {
+        return deferredChildren;
+    }
+    
+    /**
+     * Отметка использования тела (выполнение обработчика события)
+     */
+    public void markUsed() {
+        lastUsed = System.currentTimeMillis();
+    }
+    
+    public long getLastUsed() {
+        return lastUsed;
     }
     
     public CodeBlock getParentBlock() {
@@ -184,22 +301,32 @@ public abstract class CodeBlock {
      * Замена переменных в строке
      */
     protected String replaceVariables(String text, ExecutionContext context) {
-        if (text == null || context == null) {
+        if (text == null || context == null || text.indexOf('%') < 0) {
             return text;
         }
         
-        String result = text;
-        
-        // Заменяем переменные в формате %variableName%
-        for (String varName : context.getVariables().keySet()) {
-            Object value = context.getVariable(varName);
-            String placeholder = "%" + varName + "%";
-            if (result.contains(placeholder)) {
-                result = result.replace(placeholder, value != null ? value.toString() : "");
+        // Текст разбирается один раз, переменные %variableName% подставляются по слотам
+        return getTemplate(text).render(context);
+    }
+    
+    /**
+     * Разобранный текст параметра (кэшируется в блоке)
+     */
+    protected TextTemplate getTemplate(String text) {
+        Map<String, TextTemplate> cache = templates;
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            templates = cache;
+        }
+        TextTemplate template = cache.get(text);
+        if (template == null) {
+            if (cache.size() >= MAX_CACHED_TEMPLATES) {
+                cache.clear(); // Текст собирается динамически - не копим разборы
             }
+            template = TextTemplate.compile(text);
+            cache.put(text, template);
         }
-        
-        return result;
+        return template;
     }
     
     /**
@@ -211,7 +338,8 @@ public abstract class CodeBlock {
             ERROR,      // Ошибка
             BREAK,      // Прерывание цикла
             CONTINUE,   // Продолжение цикла
-            RETURN      // Возврат из функции
+            RETURN,     // Возврат из функции
+            SUSPENDED   // Блок продолжит выполнение в планировщике, остаток кода ждет его завершения
         }
         
         private final Type type;
@@ -248,6 +376,13 @@ public abstract class CodeBlock {
             return new ExecutionResult(Type.RETURN, null, value);
         }
         
+        /**
+         * Блок приостановлен: остаток строки или обработчика выполнится через continuation
+         */
+        public static ExecutionResult suspended(Continuation continuation) {
+            return new ExecutionResult(Type.SUSPENDED, null, continuation);
+        }
+        
         public Type getType() {
             return type;
         }
@@ -267,6 +402,14 @@ public abstract class CodeBlock {
         public boolean isError() {
             return type == Type.ERROR;
         }
+        
+        public boolean isSuspended() {
+            return type == Type.SUSPENDED;
+        }
+        
+        public Continuation getContinuation() {
+            return type == Type.SUSPENDED ? (Continuation) value : null;
+        }
     }
     
     /**
@@ -274,20 +417,26 @@ public abstract class CodeBlock {
      */
     public static class ExecutionContext {
         private final Player player;
-        private final Map<String, Object> localVariables;      // Локальные переменные (только для текущего контекста)
+        private final ExecutionContext parent;                // Родительский контекст (для вызовов функций)
+        private final LayeredVariables localVariables;        // Локальные переменные (изменения поверх переменных скрипта)
         private final Map<String, Object> globalVariables;     // Глобальные переменные (сохраняются между вызовами)
         private final Map<String, Object> systemVariables;     // Системные переменные (read-only)
-        private final Map<String, CodeBlock> functions;
+        private final Map<String, CodeBlock> functions;        // Функции, добавленные в этом контексте
+        private Map<String, CodeBlock> sharedFunctions = Collections.emptyMap(); // Таблица функций программы (по ссылке)
         private final List<String> executionLog;              // Лог выполнения для отладки
         private final long startTime;                         // Время начала выполнения
         private Object target;
         private boolean debugMode = false;
         private int executionDepth = 0;                       // Глубина вложенности вызовов
         private String currentBlockId = "unknown";            // ID текущего выполняемого блока
+        private ExecutionBudget budget = ExecutionBudget.Limits.UNLIMITED.newBudget(); // Лимиты выполнения
+        private TraceSession traceSession;                    // Трассировка запуска (null - не трассируется)
+        private CodeBlock suspendableBlock;                   // Блок, вызванный интерпретатором напрямую
         
         public ExecutionContext(Player player) {
             this.player = player;
-            this.localVariables = new HashMap<>();
+            this.parent = null;
+            this.localVariables = new LayeredVariables();
             this.globalVariables = new HashMap<>();
             this.systemVariables = new HashMap<>();
             this.functions = new HashMap<>();
@@ -298,6 +447,22 @@ public abstract class CodeBlock {
             initializeSystemVariables();
         }
         
+        /**
+         * Дочерний контекст: локальные переменные - слой поверх родительских,
+         * глобальные, системные переменные и функции общие с родителем
+         */
+        private ExecutionContext(ExecutionContext parent) {
+            this.player = parent.player;
+            this.parent = parent;
+            this.localVariables = new LayeredVariables(parent.localVariables);
+            this.globalVariables = parent.globalVariables;
+            this.systemVariables = parent.systemVariables;
+            this.functions = parent.functions;
+            this.sharedFunctions = parent.sharedFunctions;
+            this.executionLog = parent.executionLog;
+            this.startTime = parent.startTime;
+        }
+        
         /**
          * Инициализация системных переменных (read-only)
          */
@@ -351,6 +516,102 @@ public abstract class CodeBlock {
             }
         }
         
+        // === ДОСТУП ПО СЛОТАМ ===
+        
+        /**
+         * Номер слота переменной в кадре контекста (-1 - доступ только по имени)
+         */
+        private int slotOf(VariableRef variable) {
+            return parent == null ? variable.resolve(localVariables.getTable()) : -1;
+        }
+        
+        /**
+         * Номер уже назначенного слота для чтения (чтение не назначает новых слотов)
+         */
+        private int findSlot(VariableRef variable) {
+            return parent == null ? variable.find(localVariables.getTable()) : -1;
+        }
+        
+        /**
+         * Получение переменной по ссылке блока (без поиска по имени, если у скрипта есть таблица символов)
+         */
+        public Object getVariable(VariableRef variable) {
+            int slot = findSlot(variable);
+            if (slot >= 0) {
+                Object value = localVariables.getSlot(slot);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return getVariable(variable.getName());
+        }
+        
+        /**
+         * Числовое значение переменной без упаковки
+         *
+         * @return значение или defaultValue, если переменной нет или она не число
+         */
+        public double getNumber(VariableRef variable, double defaultValue) {
+            int slot = findSlot(variable);
+            if (slot >= 0 && localVariables.isNumber(slot)) {
+                return localVariables.getDouble(slot);
+            }
+            Object value = getVariable(variable);
+            return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+        }
+        
+        /**
+         * Установка дробной локальной переменной без упаковки
+         */
+        public void setNumber(VariableRef variable, double value) {
+            int slot = slotOf(variable);
+            if (slot < 0) {
+                setLocalVariable(variable.getName(), value);
+                return;
+            }
+            localVariables.setDouble(slot, value);
+            if (debugMode) {
+                logExecution("SET_LOCAL", variable.getName() + " = " + value);
+            }
+        }
+        
+        /**
+         * Установка целой локальной переменной без упаковки (счетчики циклов)
+         */
+        public void setLong(VariableRef variable, long value) {
+            int slot = slotOf(variable);
+            if (slot < 0) {
+                setLocalVariable(variable.getName(), value);
+                return;
+            }
+            localVariables.setLong(slot, value);
+            if (debugMode) {
+                logExecution("SET_LOCAL", variable.getName() + " = " + value);
+            }
+        }
+        
+        /**
+         * Установка локальной переменной по ссылке блока
+         */
+        public void setVariable(VariableRef variable, Object value) {
+            int slot = slotOf(variable);
+            if (slot < 0) {
+                setLocalVariable(variable.getName(), value);
+                return;
+            }
+            localVariables.setSlot(slot, value);
+            if (debugMode) {
+                logExecution("SET_LOCAL", variable.getName() + " = " + value);
+            }
+        }
+        
+        /**
+         * Установка системной переменной (данные события, не сохраняются в скрипт)
+         */
+        public void setSystemVariable(String name, Object value) {
+            systemVariables.put(name, value);
+        }
+        
         /**
          * Проверка существования переменной
          */
@@ -490,16 +751,52 @@ public abstract class CodeBlock {
          * Создание дочернего контекста для функций
          */
         public ExecutionContext createChildContext() {
-            ExecutionContext child = new ExecutionContext(player);
-            child.globalVariables.putAll(this.globalVariables); // Копируем глобальные переменные
-            child.systemVariables.putAll(this.systemVariables); // Копируем системные переменные
-            child.functions.putAll(this.functions);            // Копируем функции
+            ExecutionContext child = new ExecutionContext(this); // Без копирования переменных
             child.target = this.target;                       // Копируем цель
             child.debugMode = this.debugMode;                 // Копируем режим отладки
             child.executionDepth = this.executionDepth + 1;   // Увеличиваем глубину
+            child.budget = this.budget;                       // Бюджет общий на весь запуск
+            child.traceSession = this.traceSession;           // Трассировка общая на весь запуск
             return child;
         }
         
+        /**
+         * Привязка переменных и функций скрипта по ссылке, без копирования.
+         * Изменения переменных копятся в контексте до commitVariables.
+         * Переменные из таблицы символов хранятся в кадре со слотами.
+         */
+        public void bindScript(Map<String, Object> scriptVariables, Map<String, CodeBlock> functionTable,
+                               VariableTable symbols) {
+            localVariables.bindShared(scriptVariables, symbols);
+            sharedFunctions = functionTable != null ? functionTable : Collections.emptyMap();
+        }
+        
+        /**
+         * Запись в переменные скрипта только измененных в контексте значений
+         */
+        public void commitVariables(Map<String, Object> scriptVariables) {
+            localVariables.commitTo(scriptVariables);
+        }
+        
+        /**
+         * Запись измененных значений в переменные скрипта, к которому привязан контекст.
+         * Нужна отложенным циклам: они продолжают работу после сохранения основного запуска.
+         */
+        public void commitBoundVariables() {
+            localVariables.commitShared();
+        }
+        
+        /**
+         * Количество переменных, измененных в контексте и еще не записанных
+         */
+        public int getChangedVariableCount() {
+            return localVariables.getChangeCount();
+        }
+        
+        public ExecutionContext getParent() {
+            return parent;
+        }
+        
         // === СТАРЫЕ МЕТОДЫ ДЛЯ ОБРАТНОЙ СОВМЕСТИМОСТИ ===
         
         @Deprecated
@@ -519,7 +816,8 @@ public abstract class CodeBlock {
         }
         
         public CodeBlock getFunction(String name) {
-            return functions.get(name);
+            CodeBlock function = functions.get(name);
+            return function != null ? function : sharedFunctions.get(name);
         }
         
         public void setFunction(String name, CodeBlock function) {
@@ -553,6 +851,36 @@ public abstract class CodeBlock {
             return currentBlockId;
         }
         
+        public ExecutionBudget getBudget() {
+            return budget;
+        }
+        
+        public void setBudget(ExecutionBudget budget) {
+            this.budget = budget;
+        }
+        
+        public TraceSession getTraceSession() {
+            return traceSession;
+        }
+        
+        public void setTraceSession(TraceSession traceSession) {
+            this.traceSession = traceSession;
+        }
+        
+        /**
+         * Может ли блок приостановить выполнение (вернуть SUSPENDED).
+         * Только блок, вызванный интерпретатором напрямую: остаток его строки или обработчика
+         * известен интерпретатору. Вложенный блок (тело условия, цикла, функции) выполняется
+         * обходом дерева, и продолжение после него сохранить нельзя.
+         */
+        public boolean canSuspend(CodeBlock block) {
+            return block != null && suspendableBlock == block;
+        }
+        
+        public void setSuspendableBlock(CodeBlock block) {
+            this.suspendableBlock = block;
+        }
+        
         public long getStartTime() {
             return startTime;
         }
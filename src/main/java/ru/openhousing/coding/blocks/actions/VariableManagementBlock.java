@@ -13,6 +13,8 @@ import ru.openhousing.coding.blocks.CodeBlock.ExecutionResult;
 import ru.openhousing.coding.blocks.BlockVariable;
 import ru.openhousing.coding.blocks.BlockVariableAdapter;
 import ru.openhousing.coding.blocks.BlockVariableManager;
+import ru.openhousing.coding.script.VariableRef;
+import ru.openhousing.coding.script.VariableTable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,6 +56,7 @@ public class VariableManagementBlock extends CodeBlock {
     private final Map<String, VariableBackup> variableBackups = new ConcurrentHashMap<>();
     private final Queue<VariableOperation> pendingOperations = new LinkedList<>();
     private final Map<String, Long> lastSyncTime = new ConcurrentHashMap<>();
+    private VariableRef targetRef; // Слот целевой переменной для числовых операций
     
     public enum VariableOperationType {
         SET("Установить", "Устанавливает значение переменной"),
@@ -268,10 +271,40 @@ public class VariableManagementBlock extends CodeBlock {
         return ExecutionResult.success("Переменная '" + variableName + "' установлена");
     }
     
+    /**
+     * Ссылка на целевую переменную (пересоздается при смене имени)
+     */
+    private VariableRef targetRef(String variableName) {
+        targetRef = VariableRef.of(targetRef, variableName);
+        return targetRef;
+    }
+    
+    @Override
+    public void resolveVariables(VariableTable symbols) {
+        super.resolveVariables(symbols);
+        String variableName = getStringValue(targetVariableVar);
+        if (variableName != null && !variableName.isEmpty()) {
+            targetRef(variableName).resolve(symbols);
+        }
+    }
+    
     /**
      * Операция ADD
      */
     private ExecutionResult executeAddOperation(String variableName, Object value, ExecutionContext context) {
+        // Числовая переменная изменяется в слоте без упаковки
+        if (value instanceof Number) {
+            VariableRef ref = targetRef(variableName);
+            double current = context.getNumber(ref, Double.NaN);
+            if (Double.isNaN(current) && context.getVariable(ref) == null) {
+                current = 0.0;
+            }
+            if (!Double.isNaN(current)) {
+                context.setNumber(ref, current + ((Number) value).doubleValue());
+                return ExecutionResult.success("К переменной '" + variableName + "' добавлено: " + value);
+            }
+        }
+        
         Object currentValue = context.getVariable(variableName);
         if (currentValue == null) {
             currentValue = 0.0;
@@ -294,13 +327,13 @@ public class VariableManagementBlock extends CodeBlock {
      * Операция MULTIPLY
      */
     private ExecutionResult executeMultiplyOperation(String variableName, Object value, ExecutionContext context) {
-        Object currentValue = context.getVariable(variableName);
-        if (currentValue == null || !(currentValue instanceof Number) || !(value instanceof Number)) {
+        VariableRef ref = targetRef(variableName);
+        double current = context.getNumber(ref, Double.NaN);
+        if (Double.isNaN(current) || !(value instanceof Number)) {
             return ExecutionResult.error("Обе переменные должны быть числами для операции MULTIPLY");
         }
         
-        double result = ((Number) currentValue).doubleValue() * ((Number) value).doubleValue();
-        context.setVariable(variableName, result);
+        context.setNumber(ref, current * ((Number) value).doubleValue());
         return ExecutionResult.success("Переменная '" + variableName + "' умножена на: " + value);
     }
     
@@ -308,8 +341,9 @@ public class VariableManagementBlock extends CodeBlock {
      * Операция DIVIDE
      */
     private ExecutionResult executeDivideOperation(String variableName, Object value, ExecutionContext context) {
-        Object currentValue = context.getVariable(variableName);
-        if (currentValue == null || !(currentValue instanceof Number) || !(value instanceof Number)) {
+        VariableRef ref = targetRef(variableName);
+        double current = context.getNumber(ref, Double.NaN);
+        if (Double.isNaN(current) || !(value instanceof Number)) {
             return ExecutionResult.error("Обе переменные должны быть числами для операции DIVIDE");
         }
         
@@ -318,8 +352,7 @@ public class VariableManagementBlock extends CodeBlock {
             return ExecutionResult.error("Деление на ноль невозможно");
         }
         
-        double result = ((Number) currentValue).doubleValue() / divisor;
-        context.setVariable(variableName, result);
+        context.setNumber(ref, current / divisor);
         return ExecutionResult.success("Переменная '" + variableName + "' разделена на: " + value);
     }
     
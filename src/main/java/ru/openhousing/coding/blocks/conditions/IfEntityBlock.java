@@ -447,7 +447,7 @@ public class IfEntityBlock extends CodeBlock {
             "§7Условие: §f" + (conditionType != null ? conditionType.getDisplayName() : "Не выбрано"),
             "§7Значение: §f" + (value != null && !value.isEmpty() ? value : "Не указано"),
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
 }
@@ -364,7 +364,7 @@ public class IfPlayerBlock extends CodeBlock {
             "§7Условие: §f" + (conditionType != null ? conditionType.getDisplayName() : "Не выбрано"),
             "§7Значение: §f" + (value != null ? value : "Не указано"),
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
 }
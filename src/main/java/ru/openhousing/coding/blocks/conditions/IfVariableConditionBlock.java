@@ -3,6 +3,10 @@ package ru.openhousing.coding.blocks.conditions;
 import org.bukkit.entity.Player;
 import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.VariableRef;
+import ru.openhousing.coding.script.VariableTable;
+import ru.openhousing.coding.trace.TraceEvent;
+import ru.openhousing.coding.trace.TraceSession;
 
 import java.util.Arrays;
 import java.util.List;
@@ -48,6 +52,8 @@ public class IfVariableConditionBlock extends CodeBlock {
         }
     }
     
+    private VariableRef variableRef; // Слот проверяемой переменной
+    
     public IfVariableConditionBlock() {
         super(BlockType.IF_VARIABLE);
         setParameter("variableName", "test_var");
@@ -106,11 +112,25 @@ public class IfVariableConditionBlock extends CodeBlock {
             boolean returnOnFalse = (Boolean) getParameter("returnOnFalse");
             Object returnValue = getParameter("returnValue");
             
-            // Получаем значение переменной
-            Object variableValue = getVariableValue(context, variableName, checkGlobal, checkLocal, checkSystem, defaultValue);
+            VariableRef ref = variableRef(variableName);
+            boolean needsValue = showDebug || logResult || (customMessage != null && !customMessage.trim().isEmpty());
+            Object variableValue = null;
+            boolean result;
             
-            // Выполняем сравнение
-            boolean result = performComparison(variableValue, compareValue, comparisonType, caseSensitive, useRegex, regexPattern);
+            // Числовая переменная сравнивается из слота без упаковки и разбора строки
+            double number = checkLocal && isNumericComparison(comparisonType) ? context.getNumber(ref, Double.NaN) : Double.NaN;
+            if (!Double.isNaN(number) && compareValue != null) {
+                result = compareNumber(number, compareValue, comparisonType);
+                if (needsValue) {
+                    variableValue = context.getVariable(ref);
+                }
+            } else {
+                // Получаем значение переменной
+                variableValue = getVariableValue(context, ref, checkGlobal, checkLocal, checkSystem, defaultValue);
+                
+                // Выполняем сравнение
+                result = performComparison(variableValue, compareValue, comparisonType, caseSensitive, useRegex, regexPattern);
+            }
             
             // Инвертируем результат если нужно
             if (negateResult) {
@@ -123,8 +143,8 @@ public class IfVariableConditionBlock extends CodeBlock {
             }
             
             // Логируем результат
-            if (logResult) {
-                logConditionResult(player, variableName, variableValue, compareValue, comparisonType, result);
+            if (logResult && context.getTraceSession() != null) {
+                logConditionResult(context.getTraceSession(), variableName, variableValue, compareValue, comparisonType, result);
             }
             
             // Сохраняем результат в переменную
@@ -171,12 +191,13 @@ public class IfVariableConditionBlock extends CodeBlock {
     /**
      * Получить значение переменной
      */
-    private Object getVariableValue(ExecutionContext context, String variableName, boolean checkGlobal, boolean checkLocal, boolean checkSystem, Object defaultValue) {
+    private Object getVariableValue(ExecutionContext context, VariableRef variable, boolean checkGlobal, boolean checkLocal, boolean checkSystem, Object defaultValue) {
         Object value = null;
+        String variableName = variable.getName();
         
         // Проверяем локальные переменные
         if (checkLocal) {
-            value = context.getVariable(variableName);
+            value = context.getVariable(variable);
         }
         
         // Проверяем глобальные переменные
@@ -304,6 +325,45 @@ public class IfVariableConditionBlock extends CodeBlock {
         }
     }
     
+    /**
+     * Ссылка на проверяемую переменную (пересоздается при смене имени)
+     */
+    private VariableRef variableRef(String variableName) {
+        variableRef = VariableRef.of(variableRef, variableName);
+        return variableRef;
+    }
+    
+    private static boolean isNumericComparison(ComparisonType comparisonType) {
+        return comparisonType == ComparisonType.GREATER_THAN || comparisonType == ComparisonType.LESS_THAN ||
+               comparisonType == ComparisonType.GREATER_EQUALS || comparisonType == ComparisonType.LESS_EQUALS;
+    }
+    
+    /**
+     * Сравнить число из слота со значением для сравнения
+     */
+    private boolean compareNumber(double number, Object compareValue, ComparisonType comparisonType) {
+        int comparison;
+        try {
+            double other = compareValue instanceof Number
+                ? ((Number) compareValue).doubleValue()
+                : Double.parseDouble(String.valueOf(compareValue));
+            comparison = Double.compare(number, other);
+        } catch (NumberFormatException e) {
+            comparison = 0;
+        }
+        
+        switch (comparisonType) {
+            case GREATER_THAN:
+                return comparison > 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case GREATER_EQUALS:
+                return comparison >= 0;
+            default:
+                return comparison <= 0;
+        }
+    }
+    
     /**
      * Сравнить числа
      */
@@ -339,12 +399,11 @@ public class IfVariableConditionBlock extends CodeBlock {
     }
     
     /**
-     * Логировать результат условия
+     * Логировать результат условия в трассировку запуска
      */
-    private void logConditionResult(Player player, String variableName, Object variableValue, Object compareValue, ComparisonType comparisonType, boolean result) {
+    private void logConditionResult(TraceSession trace, String variableName, Object variableValue, Object compareValue, ComparisonType comparisonType, boolean result) {
         String logMessage = String.format(
-            "[CONDITION] Player %s: Variable %s %s %s = %s (Value: %s)",
-            player.getName(),
+            "%s %s %s = %s (значение: %s)",
             variableName,
             comparisonType.getSymbol(),
             compareValue,
@@ -352,7 +411,16 @@ public class IfVariableConditionBlock extends CodeBlock {
             variableValue
         );
         
-        System.out.println(logMessage);
+        trace.record(TraceEvent.Type.CONDITION, logMessage);
+    }
+    
+    @Override
+    public void resolveVariables(VariableTable symbols) {
+        super.resolveVariables(symbols);
+        Object variableName = getParameter("variableName");
+        if (variableName instanceof String) {
+            variableRef((String) variableName).resolve(symbols);
+        }
     }
     
     @Override
@@ -1,11 +1,12 @@
 package ru.openhousing.coding.blocks.control;
 
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.constants.BlockParams;
+import ru.openhousing.coding.scheduler.ScriptFrame;
+import ru.openhousing.coding.scheduler.ScriptScheduler;
 
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -79,7 +80,12 @@ public class AsyncRepeatBlock extends CodeBlock {
             );
             
             activeLoops.put(player.getUniqueId(), loopTask);
-            loopTask.start();
+            try {
+                loopTask.start();
+            } catch (IllegalStateException e) {
+                activeLoops.remove(player.getUniqueId(), loopTask);
+                throw e;
+            }
             
             return ExecutionResult.success("Цикл запущен асинхронно");
             
@@ -154,7 +160,7 @@ public class AsyncRepeatBlock extends CodeBlock {
     /**
      * Асинхронная задача выполнения цикла
      */
-    private static class AsyncLoopTask {
+    private static class AsyncLoopTask extends ScriptFrame {
         private final AsyncRepeatBlock block;
         private final ExecutionContext context;
         private final RepeatType repeatType;
@@ -164,11 +170,12 @@ public class AsyncRepeatBlock extends CodeBlock {
         
         private final Player player;
         private final UUID playerId;
-        private boolean running = false;
+        private volatile boolean running = false;
         private int currentIteration = 0;
         
         public AsyncLoopTask(AsyncRepeatBlock block, ExecutionContext context, 
                            RepeatType repeatType, String value, int maxIterations, int delayTicks) {
+            super(context.getPlayer().getUniqueId());
             this.block = block;
             this.context = context;
             this.repeatType = repeatType;
@@ -181,24 +188,40 @@ public class AsyncRepeatBlock extends CodeBlock {
         
         public void start() {
             if (running) return;
-            running = true;
             
-            // Запускаем первую итерацию
-            Bukkit.getScheduler().runTask(OpenHousing.getInstance(), this::executeNextIteration);
+            OpenHousing plugin = OpenHousing.getInstance();
+            ScriptScheduler scheduler = plugin != null && plugin.getCodeManager() != null
+                ? plugin.getCodeManager().getScriptScheduler() : null;
+            
+            // Флаг ставим до постановки в очередь: первый шаг может начаться сразу
+            running = true;
+            if (scheduler == null || !scheduler.submit(this)) {
+                running = false;
+                throw new IllegalStateException("планировщик скриптов недоступен или перегружен");
+            }
         }
         
         public void stop() {
             running = false;
-            activeLoops.remove(playerId);
+            activeLoops.remove(playerId, this);
         }
         
-        private void executeNextIteration() {
-            if (!running || !player.isOnline()) {
-                stop();
-                return;
-            }
-            
+        @Override
+        public boolean isAlive() {
+            return running && player.isOnline();
+        }
+        
+        @Override
+        public void cancel() {
+            stop();
+        }
+        
+        @Override
+        public long resume() {
             try {
+                // Каждая итерация - отдельный отрезок выполнения со своим бюджетом
+                context.getBudget().startSlice();
+                
                 // Выполняем текущую итерацию
                 ExecutionResult result = executeCurrentIteration();
                 
@@ -206,30 +229,30 @@ public class AsyncRepeatBlock extends CodeBlock {
                 if (result.getType() == CodeBlock.ExecutionResult.Type.BREAK) {
                     // Выход из цикла
                     stop();
-                    return;
+                    return DONE;
                 } else if (result.getType() == CodeBlock.ExecutionResult.Type.ERROR) {
                     // Ошибка - останавливаем цикл
                     player.sendMessage("§cОшибка в цикле: " + result.getMessage());
                     stop();
-                    return;
+                    return DONE;
                 }
                 
                 // Проверяем, нужно ли продолжать
                 if (shouldContinue()) {
-                    // Планируем следующую итерацию
-                    Bukkit.getScheduler().runTaskLater(
-                        OpenHousing.getInstance(), 
-                        this::executeNextIteration, 
-                        delayTicks
-                    );
-                } else {
-                    // Цикл завершен
-                    stop();
+                    // Следующая итерация - не раньше следующего тика
+                    return Math.max(1, delayTicks);
                 }
+                // Цикл завершен
+                stop();
+                return DONE;
                 
             } catch (Exception e) {
                 player.sendMessage("§cОшибка выполнения цикла: " + e.getMessage());
                 stop();
+                return DONE;
+            } finally {
+                // Запуск, создавший цикл, уже сохранил свои переменные - итерация сохраняет свои сама
+                context.commitBoundVariables();
             }
         }
         
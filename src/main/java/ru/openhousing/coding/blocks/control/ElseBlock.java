@@ -26,6 +26,11 @@ public class ElseBlock extends CodeBlock {
         return executeChildren(context);
     }
     
+    @Override
+    public boolean executesChildrenOnly() {
+        return true;
+    }
+    
     @Override
     public boolean validate() {
         // Блок "Иначе" всегда валиден
@@ -40,7 +45,7 @@ public class ElseBlock extends CodeBlock {
             "§6Иначе",
             "§7" + (description != null ? description : "Альтернативная ветка выполнения"),
             "",
-            "§8Дочерних блоков: " + childBlocks.size(),
+            "§8Дочерних блоков: " + getChildCount(),
             "§8Выполняется если предыдущее условие было ложным"
         );
     }
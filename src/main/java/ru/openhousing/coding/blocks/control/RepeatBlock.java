@@ -1,8 +1,16 @@
 package ru.openhousing.coding.blocks.control;
 
 import org.bukkit.entity.Player;
+import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.compiler.Continuation;
+import ru.openhousing.coding.scheduler.ScriptFrame;
+import ru.openhousing.coding.scheduler.ScriptScheduler;
+import ru.openhousing.coding.script.VariableRef;
+import ru.openhousing.coding.script.VariableTable;
+import ru.openhousing.coding.trace.TraceEvent;
+import ru.openhousing.coding.trace.TraceSession;
 
 import java.util.Arrays;
 import java.util.List;
@@ -36,6 +44,12 @@ public class RepeatBlock extends CodeBlock {
         }
     }
     
+    // Переменные счетчиков (слоты привязываются при компиляции скрипта)
+    private VariableRef iterationRef;
+    private VariableRef totalIterationsRef;
+    private VariableRef remainingIterationsRef;
+    private VariableRef executionTimeRef;
+    
     public RepeatBlock() {
         super(BlockType.REPEAT);
         setParameter("repeatType", RepeatType.TIMES);
@@ -72,34 +86,130 @@ public class RepeatBlock extends CodeBlock {
         }
         
         try {
-            RepeatType repeatType = (RepeatType) getParameter("repeatType");
-            Integer repeatCount = (Integer) getParameter("repeatCount");
-            String condition = (String) getParameter("condition");
+            LoopState state = new LoopState(context);
             Integer delayBetween = (Integer) getParameter("delayBetween");
-            Integer maxIterations = (Integer) getParameter("maxIterations");
-            boolean breakOnError = (Boolean) getParameter("breakOnError");
-            boolean continueOnError = (Boolean) getParameter("continueOnError");
-            boolean logIterations = (Boolean) getParameter("logIterations");
-            boolean showProgress = (Boolean) getParameter("showProgress");
-            String progressMessage = (String) getParameter("progressMessage");
-            boolean saveIterationCount = (Boolean) getParameter("saveIterationCount");
-            String iterationVariable = (String) getParameter("iterationVariable");
-            String totalIterationsVariable = (String) getParameter("totalIterationsVariable");
-            String remainingIterationsVariable = (String) getParameter("remainingIterationsVariable");
-            String executionTimeVariable = (String) getParameter("executionTimeVariable");
-            boolean addEffects = (Boolean) getParameter("addEffects");
-            String effects = (String) getParameter("effects");
-            boolean spawnParticles = (Boolean) getParameter("spawnParticles");
-            String particleType = (String) getParameter("particleType");
-            Integer particleCount = (Integer) getParameter("particleCount");
-            boolean playSound = (Boolean) getParameter("playSound");
-            String soundType = (String) getParameter("soundType");
-            boolean broadcastProgress = (Boolean) getParameter("broadcastProgress");
-            String broadcastMessage = (String) getParameter("broadcastMessage");
             
-            long startTime = System.currentTimeMillis();
-            int currentIteration = 0;
-            int totalIterations = 0;
+            // Цикл с задержкой выполняется планировщиком по тикам, не блокируя поток сервера.
+            // Остаток строки или обработчика приостанавливается и выполняется после цикла;
+            // вложенный цикл (в условии, другом цикле, функции) приостановить нельзя - он идет параллельно
+            if (delayBetween != null && delayBetween > 0) {
+                ScriptScheduler scheduler = getScriptScheduler();
+                if (scheduler != null) {
+                    Continuation continuation = context.canSuspend(this) ? new Continuation(context) : null;
+                    if (!scheduler.submit(new RepeatFrame(state, ScriptFrame.millisToTicks(delayBetween), continuation))) {
+                        return ExecutionResult.error("Превышен лимит отложенных циклов");
+                    }
+                    return continuation != null ? ExecutionResult.suspended(continuation) : ExecutionResult.success();
+                }
+            }
+            
+            ExecutionResult result;
+            while ((result = state.step()) == null) {
+                // Итерации без задержки выполняются сразу
+            }
+            return result;
+            
+        } catch (Exception e) {
+            return ExecutionResult.error("Ошибка выполнения цикла: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Обновление ссылок на переменные счетчиков по текущим параметрам
+     */
+    private void updateVariableRefs() {
+        iterationRef = VariableRef.of(iterationRef, (String) getParameter("iterationVariable"));
+        totalIterationsRef = VariableRef.of(totalIterationsRef, (String) getParameter("totalIterationsVariable"));
+        remainingIterationsRef = VariableRef.of(remainingIterationsRef, (String) getParameter("remainingIterationsVariable"));
+        executionTimeRef = VariableRef.of(executionTimeRef, (String) getParameter("executionTimeVariable"));
+    }
+    
+    @Override
+    public void resolveVariables(VariableTable symbols) {
+        super.resolveVariables(symbols);
+        updateVariableRefs();
+        for (VariableRef ref : new VariableRef[] {iterationRef, totalIterationsRef, remainingIterationsRef, executionTimeRef}) {
+            if (ref != null) {
+                ref.resolve(symbols);
+            }
+        }
+    }
+    
+    /**
+     * Планировщик скриптов (null, если плагин не запущен)
+     */
+    private ScriptScheduler getScriptScheduler() {
+        OpenHousing plugin = OpenHousing.getInstance();
+        if (plugin == null || plugin.getCodeManager() == null) {
+            return null;
+        }
+        return plugin.getCodeManager().getScriptScheduler();
+    }
+    
+    /**
+     * Состояние цикла между итерациями
+     */
+    private class LoopState {
+        private final ExecutionContext context;
+        private final Player player;
+        
+        private final RepeatType repeatType;
+        private final Integer repeatCount;
+        private final String condition;
+        private final Integer maxIterations;
+        private final boolean breakOnError;
+        private final boolean continueOnError;
+        private final TraceSession trace; // Логирование итераций идет в трассировку запуска
+        private final boolean showProgress;
+        private final String progressMessage;
+        private final boolean saveIterationCount;
+        private final VariableRef iterationVariable;
+        private final VariableRef remainingIterationsVariable;
+        private final VariableRef executionTimeVariable;
+        private final boolean addEffects;
+        private final String effects;
+        private final boolean spawnParticles;
+        private final String particleType;
+        private final Integer particleCount;
+        private final boolean playSound;
+        private final String soundType;
+        private final boolean broadcastProgress;
+        private final String broadcastMessage;
+        
+        private final long startTime = System.currentTimeMillis();
+        private int currentIteration = 0;
+        private int totalIterations = 0;
+        private boolean iterationSkipped = false;
+        
+        LoopState(ExecutionContext context) {
+            this.context = context;
+            this.player = context.getPlayer();
+            
+            repeatType = (RepeatType) getParameter("repeatType");
+            repeatCount = (Integer) getParameter("repeatCount");
+            condition = (String) getParameter("condition");
+            maxIterations = (Integer) getParameter("maxIterations");
+            breakOnError = (Boolean) getParameter("breakOnError");
+            continueOnError = (Boolean) getParameter("continueOnError");
+            boolean logIterations = (Boolean) getParameter("logIterations");
+            trace = logIterations ? context.getTraceSession() : null;
+            showProgress = (Boolean) getParameter("showProgress");
+            progressMessage = (String) getParameter("progressMessage");
+            saveIterationCount = (Boolean) getParameter("saveIterationCount");
+            updateVariableRefs();
+            iterationVariable = iterationRef;
+            VariableRef totalIterationsVariable = totalIterationsRef;
+            remainingIterationsVariable = remainingIterationsRef;
+            executionTimeVariable = executionTimeRef;
+            addEffects = (Boolean) getParameter("addEffects");
+            effects = (String) getParameter("effects");
+            spawnParticles = (Boolean) getParameter("spawnParticles");
+            particleType = (String) getParameter("particleType");
+            particleCount = (Integer) getParameter("particleCount");
+            playSound = (Boolean) getParameter("playSound");
+            soundType = (String) getParameter("soundType");
+            broadcastProgress = (Boolean) getParameter("broadcastProgress");
+            broadcastMessage = (String) getParameter("broadcastMessage");
             
             // Определяем общее количество итераций
             switch (repeatType) {
@@ -118,128 +228,179 @@ public class RepeatBlock extends CodeBlock {
             
             // Сохраняем общее количество итераций
             if (saveIterationCount && totalIterationsVariable != null) {
-                context.setVariable(totalIterationsVariable, totalIterations);
+                context.setLong(totalIterationsVariable, totalIterations);
             }
+        }
+        
+        /**
+         * Выполнение одной итерации
+         *
+         * @return null, если цикл продолжается, иначе итоговый результат цикла
+         */
+        ExecutionResult step() {
+            iterationSkipped = false;
             
-            // Основной цикл
-            while (shouldContinue(repeatType, currentIteration, repeatCount, condition, context)) {
-                currentIteration++;
-                
-                // Проверяем максимальное количество итераций
-                if (maxIterations != null && currentIteration > maxIterations) {
-                    if (logIterations) {
-                        System.out.println("[REPEAT] Достигнуто максимальное количество итераций: " + maxIterations);
-                    }
-                    break;
-                }
-                
-                // Сохраняем текущую итерацию
-                if (saveIterationCount && iterationVariable != null) {
-                    context.setVariable(iterationVariable, currentIteration);
-                }
-                
-                if (saveIterationCount && remainingIterationsVariable != null) {
-                    context.setVariable(remainingIterationsVariable, totalIterations - currentIteration);
-                }
-                
-                // Показываем прогресс
-                if (showProgress && progressMessage != null) {
-                    String message = replaceVariables(progressMessage, context);
-                    message = message.replace("%current%", String.valueOf(currentIteration));
-                    message = message.replace("%total%", String.valueOf(totalIterations));
-                    message = message.replace("%remaining%", String.valueOf(totalIterations - currentIteration));
-                    player.sendMessage(message);
-                }
-                
-                // Трансляция прогресса
-                if (broadcastProgress && broadcastMessage != null) {
-                    String message = replaceVariables(broadcastMessage, context);
-                    message = message.replace("%current%", String.valueOf(currentIteration));
-                    message = message.replace("%total%", String.valueOf(totalIterations));
-                    player.getServer().broadcastMessage(message);
-                }
-                
-                // Логирование итераций
-                if (logIterations) {
-                    System.out.println("[REPEAT] Итерация " + currentIteration + " из " + totalIterations);
+            if (!shouldContinue(repeatType, currentIteration, repeatCount, condition, context)) {
+                return finish();
+            }
+            currentIteration++;
+            
+            // Проверяем максимальное количество итераций
+            if (maxIterations != null && currentIteration > maxIterations) {
+                if (trace != null) {
+                    trace.record(TraceEvent.Type.LOOP, "Достигнуто максимальное количество итераций: " + maxIterations);
                 }
-                
-                // Выполняем дочерние блоки
-                ExecutionResult childResult = executeChildren(context);
-                
-                // Обрабатываем результат выполнения
-                switch (childResult.getType()) {
-                    case BREAK:
-                        if (logIterations) {
-                            System.out.println("[REPEAT] Цикл прерван командой break");
-                        }
-                        return ExecutionResult.success();
-                        
-                    case RETURN:
-                        if (logIterations) {
-                            System.out.println("[REPEAT] Цикл прерван командой return");
+                return finish();
+            }
+            
+            // Итерации расходуют общий бюджет выполнения, поэтому бесконечный цикл будет прерван
+            if (!context.getBudget().consumeIteration()) {
+                return ExecutionResult.error("Цикл прерван: " + context.getBudget().getExhaustedReason());
+            }
+            
+            // Сохраняем текущую итерацию
+            if (saveIterationCount && iterationVariable != null) {
+                context.setLong(iterationVariable, currentIteration);
+            }
+            
+            if (saveIterationCount && remainingIterationsVariable != null) {
+                context.setLong(remainingIterationsVariable, totalIterations - currentIteration);
+            }
+            
+            // Показываем прогресс
+            if (showProgress && progressMessage != null) {
+                String message = replaceVariables(progressMessage, context);
+                message = message.replace("%current%", String.valueOf(currentIteration));
+                message = message.replace("%total%", String.valueOf(totalIterations));
+                message = message.replace("%remaining%", String.valueOf(totalIterations - currentIteration));
+                player.sendMessage(message);
+            }
+            
+            // Трансляция прогресса
+            if (broadcastProgress && broadcastMessage != null) {
+                String message = replaceVariables(broadcastMessage, context);
+                message = message.replace("%current%", String.valueOf(currentIteration));
+                message = message.replace("%total%", String.valueOf(totalIterations));
+                player.getServer().broadcastMessage(message);
+            }
+            
+            // Логирование итераций
+            if (trace != null) {
+                trace.record(TraceEvent.Type.LOOP, "Итерация " + currentIteration + " из " + totalIterations);
+            }
+            
+            // Выполняем дочерние блоки
+            ExecutionResult childResult = executeChildren(context);
+            
+            // Обрабатываем результат выполнения
+            switch (childResult.getType()) {
+                case BREAK:
+                    if (trace != null) {
+                        trace.record(TraceEvent.Type.LOOP, "Цикл прерван командой break");
+                    }
+                    return ExecutionResult.success();
+                    
+                case RETURN:
+                    if (trace != null) {
+                        trace.record(TraceEvent.Type.LOOP, "Цикл прерван командой return");
+                    }
+                    return childResult;
+                    
+                case ERROR:
+                    if (breakOnError) {
+                        if (trace != null) {
+                            trace.record(TraceEvent.Type.LOOP, "Цикл прерван из-за ошибки: " + childResult.getMessage());
                         }
                         return childResult;
-                        
-                    case ERROR:
-                        if (breakOnError) {
-                            if (logIterations) {
-                                System.out.println("[REPEAT] Цикл прерван из-за ошибки: " + childResult.getMessage());
-                            }
-                            return childResult;
-                        } else if (!continueOnError) {
-                            if (logIterations) {
-                                System.out.println("[REPEAT] Пропускаем итерацию из-за ошибки: " + childResult.getMessage());
-                            }
-                            continue;
+                    } else if (!continueOnError) {
+                        if (trace != null) {
+                            trace.record(TraceEvent.Type.LOOP, "Пропускаем итерацию из-за ошибки: " + childResult.getMessage());
                         }
-                        break;
-                        
-                    case SUCCESS:
-                    default:
-                        break;
-                }
-                
-                // Добавляем эффекты
-                if (addEffects && effects != null) {
-                    addRepeatEffects(player, effects);
-                }
-                
-                // Создаем частицы
-                if (spawnParticles && particleType != null && particleCount != null) {
-                    spawnRepeatParticles(player, particleType, particleCount);
-                }
-                
-                // Воспроизводим звук
-                if (playSound && soundType != null) {
-                    playRepeatSound(player, soundType);
-                }
-                
-                // Задержка между итерациями
-                if (delayBetween != null && delayBetween > 0) {
-                    try {
-                        Thread.sleep(delayBetween);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        return ExecutionResult.error("Цикл прерван");
+                        iterationSkipped = true;
+                        return null;
                     }
-                }
+                    break;
+                    
+                case SUCCESS:
+                default:
+                    break;
+            }
+            
+            // Добавляем эффекты
+            if (addEffects && effects != null) {
+                addRepeatEffects(player, effects);
+            }
+            
+            // Создаем частицы
+            if (spawnParticles && particleType != null && particleCount != null) {
+                spawnRepeatParticles(player, particleType, particleCount);
+            }
+            
+            // Воспроизводим звук
+            if (playSound && soundType != null) {
+                playRepeatSound(player, soundType);
             }
             
+            return null;
+        }
+        
+        private ExecutionResult finish() {
             // Сохраняем время выполнения
             if (saveIterationCount && executionTimeVariable != null) {
                 long executionTime = System.currentTimeMillis() - startTime;
-                context.setVariable(executionTimeVariable, executionTime);
+                context.setLong(executionTimeVariable, executionTime);
             }
             
-            if (logIterations) {
-                System.out.println("[REPEAT] Цикл завершен. Выполнено итераций: " + currentIteration);
+            if (trace != null) {
+                trace.record(TraceEvent.Type.LOOP, "Цикл завершен. Выполнено итераций: " + currentIteration);
             }
             
             return ExecutionResult.success();
-            
-        } catch (Exception e) {
-            return ExecutionResult.error("Ошибка выполнения цикла: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Кадр планировщика для цикла с задержкой между итерациями.
+     * После последней итерации выполняет приостановленный остаток кода (если он есть)
+     */
+    private static class RepeatFrame extends ScriptFrame {
+        private final LoopState state;
+        private final long delayTicks;
+        private final Continuation continuation;
+        
+        RepeatFrame(LoopState state, long delayTicks, Continuation continuation) {
+            super(state.player.getUniqueId());
+            this.state = state;
+            this.delayTicks = delayTicks;
+            this.continuation = continuation;
+        }
+        
+        @Override
+        public long resume() {
+            // Каждый шаг кадра - отдельный отрезок выполнения со своим бюджетом
+            state.context.getBudget().startSlice();
+            try {
+                ExecutionResult result = state.step();
+                if (result != null) {
+                    if (result.isError()) {
+                        state.player.sendMessage("§cОшибка в цикле: " + result.getMessage());
+                    }
+                    if (continuation != null) {
+                        continuation.resume(result);
+                    }
+                    return DONE;
+                }
+                // Пропущенная из-за ошибки итерация не ждет задержки, как и при синхронном выполнении
+                return state.iterationSkipped ? CONTINUE : delayTicks;
+            } finally {
+                // Запуск, создавший кадр, уже сохранил свои переменные - шаг сохраняет свои сам
+                state.context.commitBoundVariables();
+            }
+        }
+        
+        @Override
+        public boolean isAlive() {
+            return state.player.isOnline();
         }
     }
     
@@ -416,7 +577,13 @@ public class RepeatBlock extends CodeBlock {
             "§7• Сохранение переменных",
             "§7• Эффекты и частицы",
             "§7• Звуки",
-            "§7• Трансляция прогресса"
+            "§7• Трансляция прогресса",
+            "",
+            "§eЗадержка между итерациями:",
+            "§7Блоки после цикла ждут его завершения.",
+            "§7Цикл внутри условия, другого цикла или",
+            "§7функции идет параллельно: следующие",
+            "§7за ним блоки выполняются сразу"
         );
     }
     
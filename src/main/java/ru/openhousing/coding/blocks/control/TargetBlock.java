@@ -125,13 +125,7 @@ public class TargetBlock extends CodeBlock {
             case SPECIFIC_PLAYER:
                 if (targetValue != null && !targetValue.trim().isEmpty()) {
                     // Обработка переменных в имени
-                    String processedName = targetValue;
-                    for (String variable : context.getVariables().keySet()) {
-                        Object value = context.getVariable(variable);
-                        if (value != null) {
-                            processedName = processedName.replace("%" + variable + "%", String.valueOf(value));
-                        }
-                    }
+                    String processedName = replaceVariables(targetValue, context);
                     return org.bukkit.Bukkit.getPlayer(processedName);
                 }
                 return null;
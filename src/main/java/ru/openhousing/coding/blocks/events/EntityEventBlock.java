@@ -68,6 +68,11 @@ public class EntityEventBlock extends CodeBlock {
         return executeChildren(context);
     }
     
+    @Override
+    public boolean executesChildrenOnly() {
+        return true;
+    }
+    
     @Override
     public boolean validate() {
         return getParameter("eventType") != null;
@@ -96,7 +101,7 @@ public class EntityEventBlock extends CodeBlock {
             "§7Тип существа: §f" + (entityType != null && !entityType.isEmpty() ? entityType : "Любое"),
             "§7Описание: §f" + (eventType != null ? eventType.getDescription() : ""),
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
     
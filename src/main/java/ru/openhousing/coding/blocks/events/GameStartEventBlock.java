@@ -21,6 +21,11 @@ public class GameStartEventBlock extends CodeBlock {
         return executeChildren(context);
     }
     
+    @Override
+    public boolean executesChildrenOnly() {
+        return true;
+    }
+    
     @Override
     public boolean validate() {
         // Этот блок всегда валиден
@@ -33,7 +38,7 @@ public class GameStartEventBlock extends CodeBlock {
             "§6Начало игры",
             "§7Срабатывает при запуске игры командой /play",
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
     
@@ -76,6 +76,11 @@ public class PlayerEventBlock extends CodeBlock {
         return executeChildren(context);
     }
     
+    @Override
+    public boolean executesChildrenOnly() {
+        return true;
+    }
+    
     @Override
     public boolean validate() {
         return getParameter(ru.openhousing.coding.constants.BlockParams.EVENT_TYPE) != null;
@@ -101,7 +106,7 @@ public class PlayerEventBlock extends CodeBlock {
             "§7Тип: §f" + (eventType != null ? eventType.getDisplayName() : "Не выбран"),
             "§7Описание: §f" + (eventType != null ? eventType.getDescription() : ""),
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
     
@@ -85,6 +85,11 @@ public class WorldEventBlock extends CodeBlock {
         return executeChildren(context);
     }
     
+    @Override
+    public boolean executesChildrenOnly() {
+        return true;
+    }
+    
     @Override
     public boolean validate() {
         return getParameter("eventType") != null;
@@ -115,7 +120,7 @@ public class WorldEventBlock extends CodeBlock {
             "§7Мир: §f" + (world != null && !world.isEmpty() ? world : "Любой"),
             "§7Описание: §f" + (eventType != null ? eventType.getDescription() : ""),
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
     
@@ -48,6 +48,12 @@ public class CallFunctionBlock extends CodeBlock {
                                        ". Ожидается: " + expectedParams + ", получено: " + args.length);
         }
         
+        // Глубина вызовов ограничена бюджетом (защита от бесконечной рекурсии)
+        if (!context.getBudget().enterCall()) {
+            return ExecutionResult.error("Вызов функции " + functionName + " прерван: " +
+                                       context.getBudget().getExhaustedReason());
+        }
+        
         // Вызываем функцию
         try {
             // Устанавливаем аргументы в контекст
@@ -59,6 +65,8 @@ public class CallFunctionBlock extends CodeBlock {
             return function.execute(context);
         } catch (Exception e) {
             return ExecutionResult.error("Ошибка выполнения функции " + functionName + ": " + e.getMessage());
+        } finally {
+            context.getBudget().exitCall();
         }
     }
     
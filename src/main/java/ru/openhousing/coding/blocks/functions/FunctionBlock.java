@@ -3,6 +3,8 @@ package ru.openhousing.coding.blocks.functions;
 import org.bukkit.entity.Player;
 import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.trace.TraceEvent;
+import ru.openhousing.coding.trace.TraceSession;
 
 import java.util.Arrays;
 import java.util.List;
@@ -102,8 +104,8 @@ public class FunctionBlock extends CodeBlock {
             }
             
             // Логирование вызова
-            if (logCalls) {
-                logFunctionCall(player, functionName, parameters);
+            if (logCalls && context.getTraceSession() != null) {
+                logFunctionCall(context.getTraceSession(), functionName, parameters);
             }
             
             // Показ отладочной информации
@@ -120,7 +122,7 @@ public class FunctionBlock extends CodeBlock {
             
             // Сохранение истории вызовов
             if (saveCallHistory && maxHistorySize != null) {
-                saveCallHistory(player, functionName, parameters, maxHistorySize);
+                saveCallHistory(context.getTraceSession(), functionName, parameters, maxHistorySize);
             }
             
             // Добавление эффектов
@@ -151,12 +153,12 @@ public class FunctionBlock extends CodeBlock {
             
             // Сохранение в базу данных
             if (saveToDatabase) {
-                saveFunctionToDatabase(player, functionName, description, parameters, returnValue, isPublic, shareGlobally);
+                saveFunctionToDatabase(context.getTraceSession(), player, functionName, description, parameters, returnValue, isPublic, shareGlobally);
             }
             
             // Кэширование результата
             if (cacheResult && cacheTimeout != null) {
-                cacheFunctionResult(player, functionName, childResult, cacheTimeout);
+                cacheFunctionResult(context.getTraceSession(), functionName, childResult, cacheTimeout);
             }
             
             // Возврат значения
@@ -173,17 +175,10 @@ public class FunctionBlock extends CodeBlock {
     }
     
     /**
-     * Логировать вызов функции
+     * Логировать вызов функции в трассировку запуска
      */
-    private void logFunctionCall(Player player, String functionName, String parameters) {
-        String logMessage = String.format(
-            "[FUNCTION] Player %s called function %s with parameters: %s",
-            player.getName(),
-            functionName,
-            parameters
-        );
-        
-        System.out.println(logMessage);
+    private void logFunctionCall(TraceSession trace, String functionName, String parameters) {
+        trace.record(TraceEvent.Type.FUNCTION, "вызов " + functionName + " (параметры: " + parameters + ")");
     }
     
     /**
@@ -202,13 +197,11 @@ public class FunctionBlock extends CodeBlock {
     /**
      * Сохранить историю вызовов
      */
-    private void saveCallHistory(Player player, String functionName, String parameters, Integer maxHistorySize) {
-        String historyVar = "function_history_" + functionName;
-        Object history = player.getServer().getPluginManager().getPlugin("OpenHousing")
-            .getConfig().get(historyVar);
-        
+    private void saveCallHistory(TraceSession trace, String functionName, String parameters, Integer maxHistorySize) {
         // Здесь можно добавить логику сохранения истории
-        System.out.println("[FUNCTION_HISTORY] Saving call history for " + functionName);
+        if (trace != null) {
+            trace.record(TraceEvent.Type.FUNCTION, "история вызовов " + functionName);
+        }
     }
     
     /**
@@ -261,17 +254,21 @@ public class FunctionBlock extends CodeBlock {
     /**
      * Сохранить функцию в базу данных
      */
-    private void saveFunctionToDatabase(Player player, String functionName, String description, String parameters, String returnValue, boolean isPublic, boolean shareGlobally) {
+    private void saveFunctionToDatabase(TraceSession trace, Player player, String functionName, String description, String parameters, String returnValue, boolean isPublic, boolean shareGlobally) {
         // Здесь можно добавить сохранение в базу данных
-        System.out.println("[FUNCTION_DB] Saving function: " + functionName + " by " + player.getName());
+        if (trace != null) {
+            trace.record(TraceEvent.Type.FUNCTION, "сохранение функции " + functionName + " (" + player.getName() + ")");
+        }
     }
     
     /**
      * Кэшировать результат функции
      */
-    private void cacheFunctionResult(Player player, String functionName, ExecutionResult result, Integer cacheTimeout) {
+    private void cacheFunctionResult(TraceSession trace, String functionName, ExecutionResult result, Integer cacheTimeout) {
         // Здесь можно добавить кэширование результата
-        System.out.println("[FUNCTION_CACHE] Caching result for function: " + functionName);
+        if (trace != null) {
+            trace.record(TraceEvent.Type.FUNCTION, "кэширование результата " + functionName);
+        }
     }
     
     /**
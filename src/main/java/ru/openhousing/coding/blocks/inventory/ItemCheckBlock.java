@@ -158,7 +158,7 @@ public class ItemCheckBlock extends CodeBlock {
             "§7Предмет: §f" + item,
             "§7Количество: §f" + amount,
             "",
-            "§8Дочерних блоков: " + childBlocks.size()
+            "§8Дочерних блоков: " + getChildCount()
         );
     }
 }
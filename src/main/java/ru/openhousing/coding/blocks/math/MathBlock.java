@@ -2,6 +2,8 @@ package ru.openhousing.coding.blocks.math;
 
 import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.VariableRef;
+import ru.openhousing.coding.script.VariableTable;
 import ru.openhousing.coding.values.NumberValue;
 import ru.openhousing.coding.values.Value;
 import ru.openhousing.coding.values.ValueType;
@@ -58,6 +60,7 @@ public class MathBlock extends CodeBlock {
     private Value operand1;
     private Value operand2; // Не используется для унарных операций
     private String resultVariable;
+    private VariableRef resultRef;
     
     public MathBlock() {
         super(BlockType.MATH); // Нужно добавить в BlockType
@@ -65,6 +68,7 @@ public class MathBlock extends CodeBlock {
         this.operand1 = new NumberValue("0");
         this.operand2 = new NumberValue("0");
         this.resultVariable = "result";
+        this.resultRef = new VariableRef(resultVariable);
         
         setParameter("operation", operation.name());
         setParameter("operand1", operand1.getRawValue());
@@ -116,7 +120,7 @@ public class MathBlock extends CodeBlock {
                 result = Math.signum(result) * 1e15;
             }
             
-            context.setVariable(resultVariable, result);
+            context.setNumber(resultRef, result);
             
             if (context.getPlayer() != null) {
                 context.getPlayer().sendMessage("§a[OpenHousing] Результат операции " + operation.getDisplayName() + ": " + result);
@@ -205,6 +209,14 @@ public class MathBlock extends CodeBlock {
      * Получение числового значения из Value
      */
     private double getNumberValue(Value value, ExecutionContext context) throws Exception {
+        // Числовая переменная читается из слота без упаковки
+        if (value instanceof VariableValue) {
+            double number = context.getNumber(((VariableValue) value).getRef(), Double.NaN);
+            if (!Double.isNaN(number)) {
+                return number;
+            }
+        }
+        
         Object result = value.getValue(context.getPlayer(), context);
         
         if (result instanceof Number) {
@@ -231,6 +243,20 @@ public class MathBlock extends CodeBlock {
                operation == MathOperation.CEIL;
     }
     
+    @Override
+    public void resolveVariables(VariableTable symbols) {
+        super.resolveVariables(symbols);
+        if (resultRef != null) {
+            resultRef.resolve(symbols);
+        }
+        if (operand1 instanceof VariableValue) {
+            ((VariableValue) operand1).getRef().resolve(symbols);
+        }
+        if (operand2 instanceof VariableValue) {
+            ((VariableValue) operand2).getRef().resolve(symbols);
+        }
+    }
+    
     @Override
     public boolean validate() {
         return operation != null && operand1 != null && 
@@ -271,6 +297,7 @@ public class MathBlock extends CodeBlock {
     
     public void setResultVariable(String resultVariable) {
         this.resultVariable = resultVariable;
+        this.resultRef = VariableRef.of(resultRef, resultVariable);
         setParameter("resultVariable", resultVariable);
     }
     
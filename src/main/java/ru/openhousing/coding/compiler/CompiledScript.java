@@ -0,0 +1,81 @@
+package ru.openhousing.coding.compiler;
+
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.CodeLine;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Неизменяемая скомпилированная программа скрипта.
+ * Содержит плоский массив инструкций, точки входа строк и событий
+ * и заранее собранную таблицу функций.
+ */
+public final class CompiledScript {
+
+    private final Instruction[] instructions;
+    private final Map<CodeLine, Integer> lineEntries;     // Строка -> адрес первой инструкции
+    private final Map<CodeBlock, Integer> eventEntries;   // Блок события -> адрес развернутых дочерних блоков
+    private final Map<String, CodeBlock> functions;
+    private final long sourceVersion;                     // lastModified скрипта на момент компиляции
+
+    CompiledScript(Instruction[] instructions, IdentityHashMap<CodeLine, Integer> lineEntries,
+                   IdentityHashMap<CodeBlock, Integer> eventEntries, Map<String, CodeBlock> functions,
+                   long sourceVersion) {
+        this.instructions = instructions;
+        this.lineEntries = lineEntries;
+        this.eventEntries = eventEntries;
+        this.functions = Collections.unmodifiableMap(functions);
+        this.sourceVersion = sourceVersion;
+    }
+
+    /**
+     * Выполнение строки кода
+     */
+    public CodeBlock.ExecutionResult executeLine(CodeLine line, CodeBlock.ExecutionContext context) {
+        Integer entry = lineEntries.get(line);
+        if (entry == null) {
+            // Строка добавлена в обход скрипта - выполняем напрямую
+            line.execute(context);
+            return CodeBlock.ExecutionResult.success();
+        }
+        return ScriptInterpreter.run(this, entry, context);
+    }
+
+    /**
+     * Выполнение обработчика события (дочерних блоков блока события)
+     */
+    public CodeBlock.ExecutionResult executeEvent(CodeBlock eventBlock, CodeBlock.ExecutionContext context) {
+        eventBlock.markUsed();
+        Integer entry = eventEntries.get(eventBlock);
+        if (entry == null) {
+            // Тело не загружено или блок добавлен после компиляции - выполняем напрямую
+            return eventBlock.execute(context);
+        }
+        return ScriptInterpreter.run(this, entry, context);
+    }
+
+    /**
+     * Проверка, скомпилирована ли программа из указанной версии скрипта
+     */
+    public boolean isUpToDate(long lastModified) {
+        return sourceVersion == lastModified;
+    }
+
+    Instruction[] getInstructions() {
+        return instructions;
+    }
+
+    public int getInstructionCount() {
+        return instructions.length;
+    }
+
+    public Map<String, CodeBlock> getFunctions() {
+        return functions;
+    }
+
+    public long getSourceVersion() {
+        return sourceVersion;
+    }
+}
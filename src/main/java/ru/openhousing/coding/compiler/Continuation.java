@@ -0,0 +1,73 @@
+package ru.openhousing.coding.compiler;
+
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.blocks.CodeBlock.ExecutionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Продолжение приостановленного запуска скрипта.
+ *
+ * Блок, который выполняется в планировщике по тикам (например, цикл с задержкой), создает
+ * продолжение и возвращает ExecutionResult.suspended. Интерпретатор запоминает в нем адрес
+ * блока, а вызывающий код (выполнение строк скрипта, обработчик события) добавляет шаги,
+ * которые раньше выполнялись после возврата из программы. Когда блок завершится, resume
+ * продолжает программу с его итоговым результатом, затем выполняет шаги по порядку.
+ * Если продолжение само приостановится, оставшиеся шаги переходят к новому продолжению.
+ */
+public final class Continuation {
+
+    private final CodeBlock.ExecutionContext context;
+    private final List<Function<ExecutionResult, ExecutionResult>> steps = new ArrayList<>();
+    private CompiledScript program;  // null - блок приостановлен вне интерпретатора
+    private int pc;
+    private boolean condition;
+    private ExecutionResult pending;
+
+    public Continuation(CodeBlock.ExecutionContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Адрес приостановленного блока в программе (вызывается интерпретатором)
+     */
+    void capture(CompiledScript program, int pc, boolean condition, ExecutionResult pending) {
+        this.program = program;
+        this.pc = pc;
+        this.condition = condition;
+        this.pending = pending;
+    }
+
+    /**
+     * Шаг, выполняемый после программы: получает ее результат и возвращает свой
+     */
+    public void then(Function<ExecutionResult, ExecutionResult> step) {
+        steps.add(step);
+    }
+
+    /**
+     * Продолжение выполнения после завершения приостановленного блока
+     *
+     * @param result итоговый результат блока
+     * @return результат запуска или SUSPENDED, если он снова приостановлен
+     */
+    public ExecutionResult resume(ExecutionResult result) {
+        ExecutionResult current = program != null
+                ? ScriptInterpreter.resume(program, pc, condition, pending, result, context)
+                : result;
+        for (int i = 0; i < steps.size(); i++) {
+            if (current.isSuspended()) {
+                current.getContinuation().steps.addAll(steps.subList(i, steps.size()));
+                return current;
+            }
+            current = steps.get(i).apply(current);
+        }
+        return current;
+    }
+
+    public CodeBlock.ExecutionContext getContext() {
+        return context;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.openhousing.coding.compiler;
+
+import ru.openhousing.coding.blocks.CodeBlock;
+
+/**
+ * Инструкция скомпилированной программы скрипта.
+ * Все операнды разрешены на этапе компиляции, поэтому интерпретатору
+ * не нужно обходить дерево блоков и искать параметры по строковым ключам.
+ */
+public final class Instruction {
+
+    /**
+     * Коды операций
+     */
+    public enum OpCode {
+        EXEC,           // Выполнить блок строки; ERROR -> переход на конец строки
+        TEST,           // Выполнить условный блок и запомнить результат условия
+        SKIP_IF_TRUE,   // Переход, если последнее условие истинно (ветка ELSE)
+        CHILD,          // Выполнить дочерний блок; BREAK/RETURN/ERROR -> выход из контейнера
+        END_CONTAINER,  // Конец развернутого контейнера внутри строки
+        END_LINE,       // Конец строки
+        RETURN          // Конец точки входа события
+    }
+
+    /** Нет обработчика исключений - исключение пробрасывается вызывающему */
+    public static final int NO_HANDLER = -1;
+
+    private final OpCode opCode;
+    private final CodeBlock block;
+    private final int target;
+    private final int handler;
+    private final int lineNumber;
+
+    Instruction(OpCode opCode, CodeBlock block, int target, int handler, int lineNumber) {
+        this.opCode = opCode;
+        this.block = block;
+        this.target = target;
+        this.handler = handler;
+        this.lineNumber = lineNumber;
+    }
+
+    public OpCode getOpCode() {
+        return opCode;
+    }
+
+    public CodeBlock getBlock() {
+        return block;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public int getHandler() {
+        return handler;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return opCode + (block != null ? " " + block.getType() : "") +
+               (target >= 0 ? " -> " + target : "") +
+               (handler >= 0 ? " !" + handler : "");
+    }
+}
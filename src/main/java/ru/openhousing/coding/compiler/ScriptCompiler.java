@@ -0,0 +1,199 @@
+package ru.openhousing.coding.compiler;
+
+import ru.openhousing.coding.blocks.BlockType;
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.compiler.Instruction.OpCode;
+import ru.openhousing.coding.constants.BlockParams;
+import ru.openhousing.coding.script.CodeLine;
+import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.coding.script.VariableTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компилятор скриптов в плоскую программу инструкций.
+ *
+ * Строки компилируются в последовательность EXEC/TEST, ветки ELSE - в условный
+ * переход, а блоки, которые только выполняют дочерние блоки (события, ELSE),
+ * разворачиваются в инструкции CHILD. Остальные блоки вызываются напрямую.
+ * Блоки с незагруженным телом не разворачиваются и не получают точку входа:
+ * тело загружается при первом выполнении, после чего программа компилируется заново.
+ */
+public final class ScriptCompiler {
+
+    private static final int MAX_INLINE_DEPTH = 32; // Защита от слишком глубокой вложенности
+
+    private final List<Emitted> code = new ArrayList<>();
+    private final IdentityHashMap<CodeLine, Integer> lineEntries = new IdentityHashMap<>();
+    private final IdentityHashMap<CodeBlock, Integer> eventEntries = new IdentityHashMap<>();
+
+    private ScriptCompiler() {
+    }
+
+    /**
+     * Компиляция скрипта
+     */
+    public static CompiledScript compile(CodeScript script) {
+        // Версию берем до компиляции: если скрипт изменится во время компиляции, программа устареет
+        long version = script.getLastModified();
+        ScriptCompiler compiler = new ScriptCompiler();
+        Map<String, CodeBlock> functions = new HashMap<>();
+
+        List<CodeLine> lines = script.getLines();
+        VariableTable symbols = script.getVariableTable();
+        for (CodeLine line : lines) {
+            compiler.compileLine(line);
+
+            for (CodeBlock block : line.getBlocks()) {
+                resolveVariables(block, symbols, 0);
+                if (block.getType() == BlockType.FUNCTION) {
+                    Object name = block.getParameter(BlockParams.FUNCTION_NAME);
+                    if (name instanceof String && !((String) name).isEmpty()) {
+                        functions.putIfAbsent((String) name, block);
+                    }
+                }
+            }
+        }
+
+        // Явно зарегистрированные функции имеют приоритет
+        functions.putAll(script.getFunctions());
+
+        // Точки входа событий: обработчик события выполняет только дочерние блоки
+        for (CodeLine line : lines) {
+            for (CodeBlock block : line.getBlocks()) {
+                if (block.executesChildrenOnly() && !block.hasDeferredChildren()
+                        && !compiler.eventEntries.containsKey(block)) {
+                    compiler.compileEventEntry(block, line.getLineNumber());
+                }
+            }
+        }
+
+        return new CompiledScript(compiler.build(), compiler.lineEntries, compiler.eventEntries, functions, version);
+    }
+
+    /**
+     * Привязка переменных блока и его дочерних блоков к слотам таблицы символов
+     */
+    private static void resolveVariables(CodeBlock block, VariableTable symbols, int depth) {
+        block.resolveVariables(symbols);
+        if (depth < MAX_INLINE_DEPTH && !block.hasDeferredChildren()) {
+            for (CodeBlock child : block.getChildBlocks()) {
+                resolveVariables(child, symbols, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Компиляция строки с поддержкой IF-ELSE логики
+     */
+    private void compileLine(CodeLine line) {
+        int lineNumber = line.getLineNumber();
+        lineEntries.put(line, code.size());
+        List<Emitted> lineExits = new ArrayList<>();
+
+        for (CodeBlock block : line.getBlocks()) {
+            boolean isElse = block.getType() == BlockType.ELSE;
+
+            if (isElse || block.executesChildrenOnly()) {
+                Emitted skip = isElse ? emit(OpCode.SKIP_IF_TRUE, null, lineNumber) : null;
+                List<Emitted> exits = new ArrayList<>();
+
+                if (block.executesChildrenOnly() && !block.hasDeferredChildren()) {
+                    emitChildren(block, lineNumber, exits, 0);
+                } else {
+                    exits.add(emit(OpCode.CHILD, block, lineNumber));
+                }
+
+                int end = code.size();
+                Emitted endContainer = emit(OpCode.END_CONTAINER, block, lineNumber);
+                lineExits.add(endContainer);
+
+                if (skip != null) {
+                    skip.target = end;
+                }
+                for (Emitted exit : exits) {
+                    exit.target = end;
+                    exit.handler = end + 1;
+                }
+                continue;
+            }
+
+            OpCode opCode = CodeLine.isConditionalBlock(block.getType()) ? OpCode.TEST : OpCode.EXEC;
+            Emitted insn = emit(opCode, block, lineNumber);
+            insn.handler = code.size();
+            lineExits.add(insn);
+        }
+
+        int end = code.size();
+        emit(OpCode.END_LINE, null, lineNumber);
+        for (Emitted exit : lineExits) {
+            exit.target = end;
+        }
+    }
+
+    /**
+     * Компиляция точки входа события
+     */
+    private void compileEventEntry(CodeBlock eventBlock, int lineNumber) {
+        eventEntries.put(eventBlock, code.size());
+        List<Emitted> exits = new ArrayList<>();
+        emitChildren(eventBlock, lineNumber, exits, 0);
+
+        int end = code.size();
+        emit(OpCode.RETURN, eventBlock, lineNumber);
+        for (Emitted exit : exits) {
+            exit.target = end;
+        }
+    }
+
+    /**
+     * Разворачивание дочерних блоков контейнера.
+     * BREAK/RETURN/ERROR вложенного контейнера сразу завершают и внешний,
+     * поэтому все выходы ведут на конец внешнего контейнера.
+     */
+    private void emitChildren(CodeBlock container, int lineNumber, List<Emitted> exits, int depth) {
+        for (CodeBlock child : container.getChildBlocks()) {
+            if (child.executesChildrenOnly() && depth < MAX_INLINE_DEPTH && !child.hasDeferredChildren()) {
+                emitChildren(child, lineNumber, exits, depth + 1);
+            } else {
+                exits.add(emit(OpCode.CHILD, child, lineNumber));
+            }
+        }
+    }
+
+    private Emitted emit(OpCode opCode, CodeBlock block, int lineNumber) {
+        Emitted insn = new Emitted(opCode, block, lineNumber);
+        code.add(insn);
+        return insn;
+    }
+
+    private Instruction[] build() {
+        Instruction[] instructions = new Instruction[code.size()];
+        for (int i = 0; i < instructions.length; i++) {
+            Emitted insn = code.get(i);
+            instructions[i] = new Instruction(insn.opCode, insn.block, insn.target, insn.handler, insn.lineNumber);
+        }
+        return instructions;
+    }
+
+    /**
+     * Инструкция на этапе компиляции (адреса переходов еще не известны)
+     */
+    private static class Emitted {
+        private final OpCode opCode;
+        private final CodeBlock block;
+        private final int lineNumber;
+        private int target = -1;
+        private int handler = Instruction.NO_HANDLER;
+
+        Emitted(OpCode opCode, CodeBlock block, int lineNumber) {
+            this.opCode = opCode;
+            this.block = block;
+            this.lineNumber = lineNumber;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.openhousing.coding.compiler;
+
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.blocks.CodeBlock.ExecutionResult;
+import ru.openhousing.coding.scheduler.ExecutionBudget;
+
+/**
+ * Интерпретатор скомпилированной программы скрипта.
+ * Повторяет семантику CodeLine.execute (IF-ELSE) и CodeBlock.executeChildren
+ * без рекурсивного обхода дерева блоков.
+ * Каждый вызов блока расходует бюджет контекста; при его исчерпании программа
+ * завершается с ошибкой сразу, минуя обработчики строки.
+ * Блок, вернувший SUSPENDED, получает продолжение с адресом своей инструкции:
+ * после его завершения программа продолжается с того же места (resume).
+ */
+public final class ScriptInterpreter {
+
+    private ScriptInterpreter() {
+    }
+
+    /**
+     * Выполнение программы с указанного адреса до END_LINE или RETURN
+     */
+    public static ExecutionResult run(CompiledScript program, int entry, CodeBlock.ExecutionContext context) {
+        return execute(program, entry, new Registers(), context);
+    }
+
+    /**
+     * Продолжение программы после приостановленного блока
+     *
+     * @param pc      адрес инструкции приостановленного блока
+     * @param result  итоговый результат блока - обрабатывается так же, как если бы блок вернул его сразу
+     */
+    static ExecutionResult resume(CompiledScript program, int pc, boolean condition, ExecutionResult pending,
+                                  ExecutionResult result, CodeBlock.ExecutionContext context) {
+        Registers registers = new Registers();
+        registers.condition = condition;
+        registers.pending = pending;
+        int next = complete(program.getInstructions()[pc], pc, result, registers);
+        return execute(program, next, registers, context);
+    }
+
+    private static ExecutionResult execute(CompiledScript program, int entry, Registers registers,
+                                           CodeBlock.ExecutionContext context) {
+        Instruction[] code = program.getInstructions();
+        int pc = entry;
+        ExecutionBudget budget = context.getBudget();
+
+        while (true) {
+            Instruction insn = code[pc];
+            try {
+                switch (insn.getOpCode()) {
+                    case EXEC:
+                    case TEST:
+                    case CHILD: {
+                        if (!budget.consumeBlock()) {
+                            return exhausted(budget);
+                        }
+                        ExecutionResult result = call(insn.getBlock(), context);
+                        if (result.isSuspended()) {
+                            // Остаток программы выполнится после завершения блока
+                            result.getContinuation().capture(program, pc, registers.condition, registers.pending);
+                            return result;
+                        }
+                        pc = complete(insn, pc, result, registers);
+                        break;
+                    }
+                    case SKIP_IF_TRUE:
+                        pc = registers.condition ? insn.getTarget() : pc + 1;
+                        break;
+                    case END_CONTAINER: {
+                        ExecutionResult result = registers.pending;
+                        registers.pending = null;
+                        registers.condition = false;
+                        pc = result != null && result.isError() ? insn.getTarget() : pc + 1;
+                        break;
+                    }
+                    case END_LINE:
+                        // Ошибка блока не прерывает скрипт, а исчерпанный бюджет - прерывает
+                        return budget.isExhausted() ? exhausted(budget) : ExecutionResult.success();
+                    case RETURN:
+                        return registers.pending != null ? registers.pending : ExecutionResult.success();
+                    default:
+                        throw new IllegalStateException("Неизвестная инструкция: " + insn.getOpCode());
+                }
+            } catch (RuntimeException e) {
+                if (insn.getHandler() == Instruction.NO_HANDLER) {
+                    throw e;
+                }
+                // Как и CodeLine.execute: логируем ошибку блока и продолжаем строку
+                System.err.println("Ошибка выполнения блока в строке " + insn.getLineNumber() + ": " + e.getMessage());
+                registers.pending = null;
+                pc = insn.getHandler();
+            }
+        }
+    }
+
+    /**
+     * Вызов блока; только он может приостановить выполнение
+     */
+    private static ExecutionResult call(CodeBlock block, CodeBlock.ExecutionContext context) {
+        context.setSuspendableBlock(block);
+        try {
+            return block.execute(context);
+        } finally {
+            context.setSuspendableBlock(null);
+        }
+    }
+
+    /**
+     * Обработка результата блока EXEC, TEST или CHILD
+     *
+     * @return адрес следующей инструкции
+     */
+    private static int complete(Instruction insn, int pc, ExecutionResult result, Registers registers) {
+        switch (insn.getOpCode()) {
+            case TEST:
+                registers.condition = result.getType() == ExecutionResult.Type.SUCCESS;
+                return result.getType() == ExecutionResult.Type.ERROR ? insn.getTarget() : pc + 1;
+            case CHILD:
+                switch (result.getType()) {
+                    case BREAK:
+                    case RETURN:
+                    case ERROR:
+                        registers.pending = result;
+                        return insn.getTarget();
+                    default:
+                        return pc + 1;
+                }
+            case EXEC:
+            default:
+                registers.condition = false;
+                return result.getType() == ExecutionResult.Type.ERROR ? insn.getTarget() : pc + 1;
+        }
+    }
+
+    private static ExecutionResult exhausted(ExecutionBudget budget) {
+        return ExecutionResult.error("Выполнение прервано: " + budget.getExhaustedReason());
+    }
+
+    /**
+     * Состояние интерпретатора, переносимое через приостановку
+     */
+    private static final class Registers {
+        private boolean condition;       // Результат последнего условного блока строки
+        private ExecutionResult pending; // Результат, с которым завершился развернутый контейнер
+    }
+}
@@ -338,20 +338,20 @@ public class EventManager implements Listener {
 
             // 3. Создаем контекст С ПЕРЕМЕННЫМИ ИЗ СКРИПТА
             CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(player);
-            context.getVariables().putAll(script.getGlobalVariables());
-            context.getFunctions().putAll(script.getFunctions());
+            script.bindContext(context, script.getCompiledProgram());
 
             // 4. Добавляем информацию о событии в уже существующий контекст
-            context.setVariable("event_type", event.getClass().getSimpleName());
+            context.setSystemVariable("event_type", event.getClass().getSimpleName());
             if (event instanceof org.bukkit.event.player.PlayerEvent) {
-                context.setVariable("player", ((org.bukkit.event.player.PlayerEvent) event).getPlayer());
+                context.setSystemVariable("player", ((org.bukkit.event.player.PlayerEvent) event).getPlayer());
             }
 
-            // 5. Выполняем блок
+            // 5. Выполняем блок (отметка использования удерживает тело в памяти)
+            eventBlock.markUsed();
             eventBlock.execute(context);
 
             // 6. Сохраняем измененные переменные обратно в скрипт
-            script.getGlobalVariables().putAll(context.getVariables());
+            script.commitContext(context);
             
             // 7. Обновляем статистику
             String eventType = event.getClass().getSimpleName();
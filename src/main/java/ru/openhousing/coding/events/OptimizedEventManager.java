@@ -1,6 +1,7 @@
 package ru.openhousing.coding.events;
 
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
@@ -17,7 +18,12 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.plugin.RegisteredListener;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.compiler.CompiledScript;
+import ru.openhousing.coding.scheduler.ExecutionBudget;
 import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.coding.trace.TraceEvent;
+import ru.openhousing.coding.trace.TraceSession;
+import ru.openhousing.housing.House;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,15 +40,18 @@ public class OptimizedEventManager implements Listener {
     // Оптимизированное хранение скриптов игроков
     private final ConcurrentHashMap<UUID, CodeScript> playerScripts = new ConcurrentHashMap<>();
     
-    // Кэш обработчиков событий для быстрого поиска
-    private final Map<Class<? extends Event>, List<EventHandlerInfo>> eventHandlersCache = new ConcurrentHashMap<>();
+    // Индекс обработчиков: класс события -> UUID игрока -> обработчики игрока (copy-on-write)
+    private final Map<Class<? extends Event>, Map<UUID, PlayerHandlers>> handlerIndex = new ConcurrentHashMap<>();
+    
+    // Классы событий, в которых проиндексирован игрок (для удаления без полного обхода)
+    private final Map<UUID, Set<Class<? extends Event>>> indexedEventClasses = new ConcurrentHashMap<>();
     
     // Статистика производительности
     private final Map<String, AtomicLong> executionStats = new ConcurrentHashMap<>();
     private final Map<String, AtomicLong> eventStats = new ConcurrentHashMap<>();
     
     // Лимиты производительности
-    private static final int MAX_EXECUTION_TIME_MS = 50; // Максимум 50ms на выполнение скрипта
+    private final ExecutionBudget.Limits executionLimits; // Бюджет одного запуска обработчика (coding.* в config.yml)
     private static final int MAX_EVENTS_PER_TICK = 100; // Максимум 100 событий в тик
     private static final int MAX_SCRIPTS_PER_PLAYER = 5; // Максимум 5 скриптов на игрока
     
@@ -52,6 +61,8 @@ public class OptimizedEventManager implements Listener {
     
     public OptimizedEventManager(OpenHousing plugin) {
         this.plugin = plugin;
+        this.executionLimits = ExecutionBudget.Limits.fromConfig(
+            plugin.getConfigManager().getMainConfig().getConfigurationSection("coding"));
         
         // Запускаем задачу сброса счетчиков каждый тик
         Bukkit.getScheduler().runTaskTimer(plugin, () -> {
@@ -251,10 +262,12 @@ public class OptimizedEventManager implements Listener {
         }
         
         playerScripts.put(player.getUniqueId(), script);
-        updateEventHandlersCache();
+        // Компилируем заранее, чтобы первое событие не платило за компиляцию
+        script.getCompiledProgram();
+        int handlerCount = indexScript(player.getUniqueId(), script);
         
         plugin.getLogger().info("Зарегистрирован скрипт для игрока " + player.getName() + 
-                              " (блоков: " + script.getAllBlocks().size() + ")");
+                              " (блоков: " + script.getBlockCount() + ", обработчиков: " + handlerCount + ")");
     }
     
     /**
@@ -263,7 +276,7 @@ public class OptimizedEventManager implements Listener {
     public void unregisterPlayer(Player player) {
         CodeScript removed = playerScripts.remove(player.getUniqueId());
         if (removed != null) {
-            updateEventHandlersCache();
+            removeFromIndex(player.getUniqueId());
             plugin.getLogger().info("Отменена регистрация скрипта для игрока " + player.getName());
         }
     }
@@ -276,37 +289,101 @@ public class OptimizedEventManager implements Listener {
     }
     
     /**
-     * Обновление кэша обработчиков событий
+     * Индексация обработчиков одного скрипта.
+     * Затрагивает только записи этого игрока, остальные массивы не пересобираются.
+     *
+     * @return количество проиндексированных обработчиков
      */
-    private void updateEventHandlersCache() {
-        eventHandlersCache.clear();
+    private int indexScript(UUID playerId, CodeScript script) {
+        removeFromIndex(playerId);
+        if (!script.isEnabled()) {
+            return 0;
+        }
         
-        for (CodeScript script : playerScripts.values()) {
-            if (!script.isEnabled()) continue;
-            
-            for (CodeBlock block : script.getAllBlocks()) {
-                if (block instanceof ru.openhousing.coding.blocks.events.PlayerEventBlock) {
-                    ru.openhousing.coding.blocks.events.PlayerEventBlock eventBlock = (ru.openhousing.coding.blocks.events.PlayerEventBlock) block;
-                    Object eventTypeParam = eventBlock.getParameter(ru.openhousing.coding.constants.BlockParams.EVENT_TYPE);
-                    if (eventTypeParam instanceof ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType) {
-                        ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType eventType = 
-                            (ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType) eventTypeParam;
-                        Class<? extends Event> eventClass = getEventClass(eventType);
-                        if (eventClass != null) {
-                            eventHandlersCache.computeIfAbsent(eventClass, k -> new ArrayList<>())
-                                .add(new EventHandlerInfo(script, eventBlock));
-                        }
+        Map<Class<? extends Event>, List<CodeBlock>> collected = new HashMap<>();
+        for (CodeBlock block : script.getAllBlocks()) {
+            if (block instanceof ru.openhousing.coding.blocks.events.PlayerEventBlock) {
+                ru.openhousing.coding.blocks.events.PlayerEventBlock eventBlock = (ru.openhousing.coding.blocks.events.PlayerEventBlock) block;
+                Object eventTypeParam = eventBlock.getParameter(ru.openhousing.coding.constants.BlockParams.EVENT_TYPE);
+                if (eventTypeParam instanceof ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType) {
+                    ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType eventType = 
+                        (ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType) eventTypeParam;
+                    Class<? extends Event> eventClass = getEventClass(eventType);
+                    if (eventClass != null) {
+                        collected.computeIfAbsent(eventClass, k -> new ArrayList<>()).add(eventBlock);
                     }
                 }
-                // Добавить поддержку других типов событий
             }
+            // Добавить поддержку других типов событий
+        }
+        
+        // Привязка к миру и лимиты общие для всех обработчиков игрока
+        WorldBinding worldBinding = new WorldBinding(script);
+        HouseLimits limits = new HouseLimits(resolveHouse(playerId, script));
+        int handlerCount = 0;
+        for (Map.Entry<Class<? extends Event>, List<CodeBlock>> entry : collected.entrySet()) {
+            // Публикуем новый массив целиком - читатели никогда не видят частично заполненный
+            PlayerHandlers handlers = new PlayerHandlers(script, worldBinding, limits,
+                entry.getValue().toArray(new CodeBlock[0]));
+            handlerIndex.compute(entry.getKey(), (eventClass, byPlayer) -> {
+                Map<UUID, PlayerHandlers> map = byPlayer != null ? byPlayer : new ConcurrentHashMap<>();
+                map.put(playerId, handlers);
+                return map;
+            });
+            handlerCount += handlers.eventBlocks.length;
+        }
+        
+        if (!collected.isEmpty()) {
+            indexedEventClasses.put(playerId, new HashSet<>(collected.keySet()));
+        }
+        return handlerCount;
+    }
+    
+    /**
+     * Дом, настройки которого задают лимиты скрипта: дом, к миру которого привязан скрипт
+     * (или первый дом владельца); null - действуют лимиты сервера
+     */
+    private House resolveHouse(UUID playerId, CodeScript script) {
+        if (plugin.getHousingManager() == null) {
+            return null;
+        }
+        List<House> houses = plugin.getHousingManager().getPlayerHouses(playerId);
+        if (houses.isEmpty()) {
+            return null;
+        }
+        
+        House house = houses.get(0);
+        String boundWorld = script.getBoundWorld();
+        if (boundWorld != null) {
+            for (House candidate : houses) {
+                if (boundWorld.equalsIgnoreCase(candidate.getWorldName())) {
+                    house = candidate;
+                    break;
+                }
+            }
+        }
+        return house;
+    }
+    
+    /**
+     * Удаление обработчиков игрока из индекса
+     */
+    private void removeFromIndex(UUID playerId) {
+        Set<Class<? extends Event>> eventClasses = indexedEventClasses.remove(playerId);
+        if (eventClasses == null) {
+            return;
         }
         
-        plugin.getLogger().info("Обновлен кэш обработчиков событий: " + eventHandlersCache.size() + " типов событий");
+        for (Class<? extends Event> eventClass : eventClasses) {
+            handlerIndex.computeIfPresent(eventClass, (k, byPlayer) -> {
+                byPlayer.remove(playerId);
+                return byPlayer.isEmpty() ? null : byPlayer;
+            });
+        }
     }
     
     /**
-     * Оптимизированная обработка событий с предварительной фильтрацией
+     * Обработка события: два поиска в индексе и обход только обработчиков этого игрока, без аллокаций
      */
     public void processEvent(Event event, Player player) {
         // Проверка лимитов производительности
@@ -314,86 +391,77 @@ public class OptimizedEventManager implements Listener {
             return; // Пропускаем событие, если превышен лимит
         }
         
-        // Быстрая проверка - есть ли скрипты для этого игрока
-        if (!playerScripts.containsKey(player.getUniqueId())) {
+        // Получаем обработчики игрока из индекса
+        Map<UUID, PlayerHandlers> handlersByPlayer = handlerIndex.get(event.getClass());
+        if (handlersByPlayer == null) {
             return;
         }
-        
-        // Получаем обработчики из кэша
-        List<EventHandlerInfo> handlers = eventHandlersCache.get(event.getClass());
-        if (handlers == null || handlers.isEmpty()) {
+        PlayerHandlers handlers = handlersByPlayer.get(player.getUniqueId());
+        if (handlers == null) {
             return;
         }
         
-        // Фильтруем обработчики по игроку и условиям
-        List<EventHandlerInfo> validHandlers = filterValidHandlers(handlers, player, event);
-        
-        // Выполняем валидные обработчики
-        for (EventHandlerInfo handler : validHandlers) {
-            executeEventHandler(player, handler.getEventBlock(), event);
+        // Привязка к миру одна на скрипт - проверяем один раз, а не для каждого обработчика
+        if (!handlers.worldBinding.matches(player.getWorld())) {
+            return;
         }
-    }
-    
-    /**
-     * Фильтрация валидных обработчиков
-     */
-    private List<EventHandlerInfo> filterValidHandlers(List<EventHandlerInfo> handlers, Player player, Event event) {
-        List<EventHandlerInfo> validHandlers = new ArrayList<>();
         
-        for (EventHandlerInfo handler : handlers) {
-            CodeScript script = handler.getScript();
-            
-            // Проверяем, принадлежит ли скрипт этому игроку
-            if (!script.getPlayerId().equals(player.getUniqueId())) {
-                continue;
-            }
-            
-            // Проверяем привязку к миру
-            if (script.getBoundWorld() != null) {
-                String currentWorld = player.getWorld().getName();
-                if (!currentWorld.equalsIgnoreCase(script.getBoundWorld())) {
-                    continue;
-                }
-            }
-            
-            // Проверяем, соответствует ли событие блоку
-            if (handler.getEventBlock().matchesEvent(event)) {
-                validHandlers.add(handler);
+        // Выполняем обработчики, соответствующие событию
+        for (CodeBlock eventBlock : handlers.eventBlocks) {
+            if (eventBlock.matchesEvent(event)) {
+                executeEventHandler(player, handlers.script, handlers.limits.get(), eventBlock, event);
             }
         }
-        
-        return validHandlers;
     }
     
     /**
      * Оптимизированное выполнение обработчика события
      */
-    private void executeEventHandler(Player player, CodeBlock eventBlock, Event event) {
+    private void executeEventHandler(Player player, CodeScript script, ExecutionBudget.Limits limits,
+                                     CodeBlock eventBlock, Event event) {
         long startTime = System.currentTimeMillis();
         
         try {
-            // Получаем скрипт игрока
-            CodeScript script = playerScripts.get(player.getUniqueId());
-            if (script == null || !script.isEnabled()) {
+            if (!script.isEnabled()) {
                 return;
             }
             
-            // Создаем контекст с переменными из скрипта
+            // Скомпилированная программа (перекомпилируется только после изменения скрипта)
+            CompiledScript program = script.getCompiledProgram();
+            
+            // Создаем контекст поверх переменных скрипта (без копирования)
             CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(player);
-            context.getVariables().putAll(script.getGlobalVariables());
-            context.getFunctions().putAll(script.getFunctions());
+            context.setBudget(limits.newBudget());
+            plugin.getCodeManager().getScriptTracer().begin(context, script.getPlayerId());
+            script.bindContext(context, program);
             
-            // Добавляем информацию о событии
-            context.setVariable("event_type", event.getClass().getSimpleName());
+            // Добавляем информацию о событии (не сохраняется в переменные скрипта)
+            context.setSystemVariable("event_type", event.getClass().getSimpleName());
             if (event instanceof PlayerEvent) {
-                context.setVariable("player", ((PlayerEvent) event).getPlayer());
+                context.setSystemVariable("player", ((PlayerEvent) event).getPlayer());
             }
             
-            // Выполняем блок с контролем времени
-            CodeBlock.ExecutionResult result = executeWithTimeout(eventBlock, context, MAX_EXECUTION_TIME_MS);
+            TraceSession trace = context.getTraceSession();
+            if (trace != null) {
+                trace.record(TraceEvent.Type.SCRIPT_START, "событие " + event.getClass().getSimpleName());
+            }
             
-            // Сохраняем измененные переменные
-            script.getGlobalVariables().putAll(context.getVariables());
+            // Выполняем блок в пределах бюджета
+            CodeBlock.ExecutionResult result = executeWithBudget(program, eventBlock, context);
+            
+            // Сохраняем только измененные переменные
+            script.commitContext(context);
+            
+            if (result.isSuspended()) {
+                // Обработчик ждет цикла с задержкой: завершим запуск после него
+                result.getContinuation().then(resumed -> {
+                    finishEventHandler(script, context, resumed);
+                    return resumed;
+                });
+            } else if (trace != null) {
+                trace.record(TraceEvent.Type.SCRIPT_END, "результат " + result.getType() +
+                    ", блоков: " + context.getBudget().getBlocksExecuted());
+            }
             
             // Обновляем статистику
             updateExecutionStats(event.getClass().getSimpleName(), result, System.currentTimeMillis() - startTime);
@@ -408,23 +476,35 @@ public class OptimizedEventManager implements Listener {
     }
     
     /**
-     * Выполнение блока с ограничением времени
+     * Завершение обработчика, продолженного после приостановки
      */
-    private CodeBlock.ExecutionResult executeWithTimeout(CodeBlock block, CodeBlock.ExecutionContext context, int maxTimeMs) {
-        long startTime = System.currentTimeMillis();
-        
-        // Создаем задачу выполнения
-        ExecutionTask task = new ExecutionTask(block, context);
+    private void finishEventHandler(CodeScript script, CodeBlock.ExecutionContext context, CodeBlock.ExecutionResult result) {
+        if (context.getTraceSession() != null) {
+            context.getTraceSession().record(TraceEvent.Type.SCRIPT_END, "результат " + result.getType() +
+                ", блоков: " + context.getBudget().getBlocksExecuted());
+        }
+        script.commitContext(context);
+    }
+    
+    /**
+     * Выполнение блока с ограничением по бюджету.
+     * Бюджет проверяется во время выполнения, поэтому зациклившийся скрипт прерывается,
+     * а не только попадает в лог после завершения.
+     */
+    private CodeBlock.ExecutionResult executeWithBudget(CompiledScript program, CodeBlock block, CodeBlock.ExecutionContext context) {
+        ExecutionTask task = new ExecutionTask(program, block, context);
         
         try {
-            // Выполняем блок
             CodeBlock.ExecutionResult result = task.execute();
             
-            // Проверяем время выполнения
-            long executionTime = System.currentTimeMillis() - startTime;
-            if (executionTime > maxTimeMs) {
-                plugin.getLogger().warning("Блок " + block.getClass().getSimpleName() + 
-                                         " выполнился за " + executionTime + "ms (лимит: " + maxTimeMs + "ms)");
+            ExecutionBudget budget = context.getBudget();
+            if (budget.isExhausted()) {
+                eventStats.computeIfAbsent("budget_exceeded", k -> new AtomicLong(0)).incrementAndGet();
+                plugin.getLogger().warning("Скрипт игрока " + context.getPlayer().getName() + 
+                                         " прерван: " + budget.getExhaustedReason());
+                if (context.getTraceSession() != null) {
+                    context.getTraceSession().record(TraceEvent.Type.BUDGET, budget.getExhaustedReason());
+                }
             }
             
             return result;
@@ -465,6 +545,7 @@ public class OptimizedEventManager implements Listener {
         
         // Общая статистика
         stats.put("active_scripts", playerScripts.size());
+        stats.put("indexed_event_types", handlerIndex.size());
         stats.put("events_this_tick", eventsThisTick.get());
         stats.put("last_tick_time", lastTickTime.get());
         
@@ -476,7 +557,8 @@ public class OptimizedEventManager implements Listener {
      */
     public void cleanup() {
         playerScripts.clear();
-        eventHandlersCache.clear();
+        handlerIndex.clear();
+        indexedEventClasses.clear();
         executionStats.clear();
         eventStats.clear();
         HandlerList.unregisterAll(this);
@@ -484,30 +566,107 @@ public class OptimizedEventManager implements Listener {
     
     // Вспомогательные классы и методы
     
-    private static class EventHandlerInfo {
+    /**
+     * Обработчики одного игрока для одного класса события
+     */
+    private static final class PlayerHandlers {
         private final CodeScript script;
-        private final CodeBlock eventBlock;
+        private final WorldBinding worldBinding;
+        private final HouseLimits limits;
+        private final CodeBlock[] eventBlocks;
         
-        public EventHandlerInfo(CodeScript script, CodeBlock eventBlock) {
+        PlayerHandlers(CodeScript script, WorldBinding worldBinding, HouseLimits limits,
+                       CodeBlock[] eventBlocks) {
             this.script = script;
-            this.eventBlock = eventBlock;
+            this.worldBinding = worldBinding;
+            this.limits = limits;
+            this.eventBlocks = eventBlocks;
         }
+    }
+    
+    /**
+     * Привязка скрипта к миру. Имя мира сравнивается только при первом совпадении,
+     * дальше проверка идет по UUID мира. Смена boundWorld в скрипте сбрасывает кэш.
+     */
+    private static final class WorldBinding {
+        private final CodeScript script;
+        private volatile String resolvedName;
+        private volatile UUID resolvedWorldId;
         
-        public CodeScript getScript() { return script; }
-        public CodeBlock getEventBlock() { return eventBlock; }
+        WorldBinding(CodeScript script) {
+            this.script = script;
+        }
+        
+        boolean matches(World world) {
+            String boundWorld = script.getBoundWorld();
+            if (boundWorld == null) {
+                return true;
+            }
+            if (world == null) {
+                return false;
+            }
+            
+            // resolvedName читается первым: он записывается после resolvedWorldId
+            if (boundWorld == resolvedName) {
+                UUID worldId = resolvedWorldId;
+                if (worldId != null) {
+                    return worldId.equals(world.getUID());
+                }
+            }
+            
+            if (world.getName().equalsIgnoreCase(boundWorld)) {
+                resolvedWorldId = world.getUID();
+                resolvedName = boundWorld;
+                return true;
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Лимиты выполнения скрипта: лимиты сервера с переопределениями из настроек дома.
+     * Пересчитываются, когда меняется версия настроек дома, поэтому новые лимиты
+     * действуют со следующего запуска без повторной регистрации скрипта.
+     */
+    private final class HouseLimits {
+        private final House house;
+        // limits записывается до settingsVersion: прочитав версию, поток видит лимиты не старее нее
+        private volatile ExecutionBudget.Limits limits;
+        private volatile int settingsVersion;
+        
+        HouseLimits(House house) {
+            this.house = house;
+        }
+        
+        ExecutionBudget.Limits get() {
+            if (house == null) {
+                return executionLimits;
+            }
+            int version = house.getSettingsVersion();
+            boolean current = version == settingsVersion;
+            ExecutionBudget.Limits cached = limits;
+            if (cached == null || !current) {
+                cached = executionLimits.withOverrides(house.getSettings());
+                limits = cached;
+                settingsVersion = version;
+            }
+            return cached;
+        }
     }
     
     private static class ExecutionTask {
+        private final CompiledScript program;
         private final CodeBlock block;
         private final CodeBlock.ExecutionContext context;
         
-        public ExecutionTask(CodeBlock block, CodeBlock.ExecutionContext context) {
+        public ExecutionTask(CompiledScript program, CodeBlock block, CodeBlock.ExecutionContext context) {
+            this.program = program;
             this.block = block;
             this.context = context;
         }
         
         public CodeBlock.ExecutionResult execute() {
-            return block.execute(context);
+            return program.executeEvent(block, context);
         }
     }
     
@@ -4,16 +4,14 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.values.Value;
+import ru.openhousing.gui.GuiIcon;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -38,6 +36,14 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
     protected static final int CANCEL_SLOT = 45;
     protected static final int BACK_SLOT = 49;
     
+    // Навигационные кнопки общие для всех конфигураторов
+    private static final GuiIcon SAVE_ICON = navigationIcon(Material.EMERALD,
+        ChatColor.GREEN + "Сохранить", ChatColor.GRAY + "Сохранить изменения и закрыть");
+    private static final GuiIcon CANCEL_ICON = navigationIcon(Material.BARRIER,
+        ChatColor.RED + "Отмена", ChatColor.GRAY + "Закрыть без сохранения");
+    private static final GuiIcon BACK_ICON = navigationIcon(Material.ARROW,
+        ChatColor.YELLOW + "Назад", ChatColor.GRAY + "Вернуться к основному меню");
+    
     public BaseBlockConfigGUI(OpenHousing plugin, Player player, CodeBlock block, Runnable onSaveCallback) {
         this.plugin = plugin;
         this.player = player;
@@ -49,7 +55,6 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
     public void open() {
         setupInventory();
         player.openInventory(inventory);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
     
     @Override
@@ -59,7 +64,6 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
     
     @Override
     public void close() {
-        HandlerList.unregisterAll(this);
         if (onSaveCallback != null) {
             onSaveCallback.run();
         }
@@ -74,29 +78,20 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
      * Создать базовые навигационные элементы
      */
     protected void setupNavigationItems() {
-        // Кнопка сохранения
-        ItemStack saveItem = new ItemStack(Material.EMERALD);
-        ItemMeta saveMeta = saveItem.getItemMeta();
-        saveMeta.setDisplayName(ChatColor.GREEN + "Сохранить");
-        saveMeta.setLore(Arrays.asList(ChatColor.GRAY + "Сохранить изменения и закрыть"));
-        saveItem.setItemMeta(saveMeta);
-        inventory.setItem(SAVE_SLOT, saveItem);
-        
-        // Кнопка отмены
-        ItemStack cancelItem = new ItemStack(Material.BARRIER);
-        ItemMeta cancelMeta = cancelItem.getItemMeta();
-        cancelMeta.setDisplayName(ChatColor.RED + "Отмена");
-        cancelMeta.setLore(Arrays.asList(ChatColor.GRAY + "Закрыть без сохранения"));
-        cancelItem.setItemMeta(cancelMeta);
-        inventory.setItem(CANCEL_SLOT, cancelItem);
-        
-        // Кнопка назад
-        ItemStack backItem = new ItemStack(Material.ARROW);
-        ItemMeta backMeta = backItem.getItemMeta();
-        backMeta.setDisplayName(ChatColor.YELLOW + "Назад");
-        backMeta.setLore(Arrays.asList(ChatColor.GRAY + "Вернуться к основному меню"));
-        backItem.setItemMeta(backMeta);
-        inventory.setItem(BACK_SLOT, backItem);
+        inventory.setItem(SAVE_SLOT, SAVE_ICON.get());
+        inventory.setItem(CANCEL_SLOT, CANCEL_ICON.get());
+        inventory.setItem(BACK_SLOT, BACK_ICON.get());
+    }
+    
+    private static GuiIcon navigationIcon(Material material, String name, String description) {
+        return new GuiIcon(() -> {
+            ItemStack item = new ItemStack(material);
+            ItemMeta meta = item.getItemMeta();
+            meta.setDisplayName(name);
+            meta.setLore(Arrays.asList(description));
+            item.setItemMeta(meta);
+            return item;
+        });
     }
     
     /**
@@ -140,11 +135,9 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
                 close();
                 return true;
             case CANCEL_SLOT:
-                HandlerList.unregisterAll(this);
                 player.closeInventory();
                 return true;
             case BACK_SLOT:
-                HandlerList.unregisterAll(this);
                 new BlockConfigGUI(plugin, player, block, (updatedBlock) -> {
                     onSaveCallback.run();
                 }).open();
@@ -162,7 +155,6 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
         
         if (isRightClick) {
             // Открыть селектор переменных
-            HandlerList.unregisterAll(this);
             new VariableSelectorGUI(plugin, player, (variable) -> {
                 block.setParameter(parameterName, variable.getRawValue());
                 open(); // Переоткрыть GUI с обновленными данными
@@ -183,7 +175,6 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
      * Открыть ввод текста для параметра
      */
     protected void openTextInput(String parameterName, String prompt) {
-        HandlerList.unregisterAll(this);
         player.closeInventory();
         
         Object currentValue = block.getParameter(parameterName);
@@ -197,7 +188,7 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
         });
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!isValidInventory(event.getInventory()) || !event.getWhoClicked().equals(player)) {
             return;
@@ -226,11 +217,4 @@ public abstract class BaseBlockConfigGUI implements IBlockConfigurationGUI {
      * Обработка специфических кликов для конкретного типа блока
      */
     protected abstract void handleSpecificClick(int slot, boolean isRightClick, boolean isShiftClick);
-    
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        if (isValidInventory(event.getInventory()) && event.getPlayer().equals(player)) {
-            HandlerList.unregisterAll(this);
-        }
-    }
 }
@@ -3,8 +3,6 @@ package ru.openhousing.coding.gui;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -13,6 +11,10 @@ import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.gui.helpers.AnvilGUIHelper;
 import ru.openhousing.coding.values.VariableValue;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
+import ru.openhousing.gui.GuiIcon;
+import ru.openhousing.gui.SlotRenderer;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -23,7 +25,17 @@ import java.util.function.Consumer;
 /**
  * GUI для настройки параметров блока кода
  */
-public class BlockConfigGUI implements Listener {
+public class BlockConfigGUI implements GuiHandler {
+    
+    private static final GuiIcon SAVE_ICON = new GuiIcon(() -> new ItemBuilder(Material.EMERALD_BLOCK)
+        .name("§aСохранить")
+        .lore("§7Сохранить изменения")
+        .build());
+    
+    private static final GuiIcon CANCEL_ICON = new GuiIcon(() -> new ItemBuilder(Material.REDSTONE_BLOCK)
+        .name("§cОтмена")
+        .lore("§7Отменить изменения")
+        .build());
     
     private final OpenHousing plugin;
     private final Player player;
@@ -31,6 +43,7 @@ public class BlockConfigGUI implements Listener {
     private final CodeEditorGUI editorGUI;
     private final Consumer<CodeBlock> onSave;
     private Inventory inventory;
+    private SlotRenderer slots;
     
     public BlockConfigGUI(OpenHousing plugin, Player player, CodeBlock block, CodeEditorGUI editorGUI) {
         this.plugin = plugin;
@@ -38,10 +51,8 @@ public class BlockConfigGUI implements Listener {
         this.block = block;
         this.editorGUI = editorGUI;
         this.onSave = null;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройка блока: " + block.getType().getDisplayName());
-        
-        // Регистрируем листенер
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройка блока: " + block.getType().getDisplayName());
+        this.slots = new SlotRenderer(inventory);
     }
     
     public BlockConfigGUI(OpenHousing plugin, Player player, CodeBlock block, Consumer<CodeBlock> onSave) {
@@ -50,10 +61,8 @@ public class BlockConfigGUI implements Listener {
         this.block = block;
         this.editorGUI = null;
         this.onSave = onSave;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройка блока: " + block.getType().getDisplayName());
-        
-        // Регистрируем листенер
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройка блока: " + block.getType().getDisplayName());
+        this.slots = new SlotRenderer(inventory);
     }
     
     /**
@@ -115,9 +124,6 @@ public class BlockConfigGUI implements Listener {
      * Открывает специализированный GUI для блока
      */
     private void openSpecializedGUI() {
-        // Отменяем регистрацию текущего листенера
-        org.bukkit.event.HandlerList.unregisterAll(this);
-        
         Runnable saveCallback = () -> {
             if (onSave != null) {
                 onSave.accept(block);
@@ -233,18 +239,10 @@ public class BlockConfigGUI implements Listener {
     }
     
     private void setupInventory() {
-        inventory.clear();
+        slots.begin();
         
         // Информация о блоке
-        inventory.setItem(4, new ItemBuilder(block.getType().getMaterial())
-            .name("§6" + block.getType().getDisplayName())
-            .lore(Arrays.asList(
-                "§7Категория: §f" + block.getType().getCategory().getDisplayName(),
-                "§7Описание: §f" + block.getType().getDescription(),
-                "",
-                "§7Настройте параметры блока ниже"
-            ))
-            .build());
+        slots.set(4, GuiIcons.blockInfo(block.getType()));
         
         // Настройки в зависимости от типа блока
         if (block.getType().name().startsWith("PLAYER_") && block.getType().getCategory() == BlockType.BlockCategory.EVENT) {
@@ -278,15 +276,11 @@ public class BlockConfigGUI implements Listener {
         }
         
         // Кнопки управления
-        inventory.setItem(48, new ItemBuilder(Material.EMERALD_BLOCK)
-            .name("§aСохранить")
-            .lore("§7Сохранить изменения")
-            .build());
-            
-        inventory.setItem(49, new ItemBuilder(Material.REDSTONE_BLOCK)
-            .name("§cОтмена")
-            .lore("§7Отменить изменения")
-            .build());
+        slots.set(48, SAVE_ICON.get());
+        slots.set(49, CANCEL_ICON.get());
+        
+        // При повторной настройке клиенту уходят только изменившиеся слоты
+        slots.commit();
     }
     
     /**
@@ -302,7 +296,7 @@ public class BlockConfigGUI implements Listener {
                 "§7Клик для изменения"
             ))
             .build();
-        inventory.setItem(startSlot, eventType);
+        slots.set(startSlot, eventType);
         
         // Дополнительные условия
         ItemStack conditions = new ItemBuilder(Material.PAPER)
@@ -313,21 +307,21 @@ public class BlockConfigGUI implements Listener {
                 "§7Клик для настройки"
             ))
             .build();
-        inventory.setItem(startSlot + 1, conditions);
+        slots.set(startSlot + 1, conditions);
     }
     
     /**
      * Настройки остальных типов блоков (заглушки)
      */
     private void setupEntityEventSettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.EGG)
+        slots.set(startSlot, new ItemBuilder(Material.EGG)
             .name("§eТип события сущности")
             .lore("§7Клик для настройки")
             .build());
     }
     
     private void setupWorldEventSettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.GRASS_BLOCK)
+        slots.set(startSlot, new ItemBuilder(Material.GRASS_BLOCK)
             .name("§eТип события мира")
             .lore("§7Клик для настройки")
             .build());
@@ -336,7 +330,7 @@ public class BlockConfigGUI implements Listener {
         updateVariableSlot(startSlot + 1, "value", block.getParameter("value"));
             
         // Оператор сравнения
-        inventory.setItem(startSlot + 2, new ItemBuilder(Material.REDSTONE_TORCH)
+        slots.set(startSlot + 2, new ItemBuilder(Material.REDSTONE_TORCH)
             .name("§eОператор сравнения")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("operator"),
@@ -348,7 +342,7 @@ public class BlockConfigGUI implements Listener {
     
     private void setupPlayerActionSettings(int startSlot) {
         // Тип действия
-        inventory.setItem(startSlot, new ItemBuilder(Material.GOLDEN_SWORD)
+        slots.set(startSlot, new ItemBuilder(Material.GOLDEN_SWORD)
             .name("§eТип действия игрока")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + getActionTypeDisplay(),
@@ -367,7 +361,7 @@ public class BlockConfigGUI implements Listener {
     
     private void setupEntityActionSettings(int startSlot) {
         // Тип действия
-        inventory.setItem(startSlot, new ItemBuilder(Material.ZOMBIE_HEAD)
+        slots.set(startSlot, new ItemBuilder(Material.ZOMBIE_HEAD)
             .name("§eТип действия сущности")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + getEntityActionTypeDisplay(),
@@ -377,7 +371,7 @@ public class BlockConfigGUI implements Listener {
             .build());
             
         // Основное значение
-        inventory.setItem(startSlot + 1, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot + 1, new ItemBuilder(Material.BOOK)
             .name("§eОсновное значение")
             .lore(Arrays.asList(
                 "§7Текущее: §f" + block.getParameter("value"),
@@ -387,7 +381,7 @@ public class BlockConfigGUI implements Listener {
             .build());
             
         // Дополнительный параметр 1
-        inventory.setItem(startSlot + 2, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot + 2, new ItemBuilder(Material.BOOK)
             .name("§eДоп. параметр 1")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("extra1"),
@@ -397,7 +391,7 @@ public class BlockConfigGUI implements Listener {
             .build());
             
         // Дополнительный параметр 2
-        inventory.setItem(startSlot + 3, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot + 3, new ItemBuilder(Material.BOOK)
             .name("§eДоп. параметр 2")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("extra2"),
@@ -409,7 +403,7 @@ public class BlockConfigGUI implements Listener {
     
     private void setupWorldActionSettings(int startSlot) {
         // Тип действия
-        inventory.setItem(startSlot, new ItemBuilder(Material.TNT)
+        slots.set(startSlot, new ItemBuilder(Material.TNT)
             .name("§eТип действия мира")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + getWorldActionTypeDisplay(),
@@ -419,7 +413,7 @@ public class BlockConfigGUI implements Listener {
             .build());
             
         // Основное значение
-        inventory.setItem(startSlot + 1, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot + 1, new ItemBuilder(Material.BOOK)
             .name("§eОсновное значение")
             .lore(Arrays.asList(
                 "§7Текущее: §f" + block.getParameter("value"),
@@ -429,7 +423,7 @@ public class BlockConfigGUI implements Listener {
             .build());
             
         // Дополнительный параметр 1
-        inventory.setItem(startSlot + 2, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot + 2, new ItemBuilder(Material.BOOK)
             .name("§eДоп. параметр 1")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("extra1"),
@@ -439,7 +433,7 @@ public class BlockConfigGUI implements Listener {
             .build());
             
         // Дополнительный параметр 2
-        inventory.setItem(startSlot + 3, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot + 3, new ItemBuilder(Material.BOOK)
             .name("§eДоп. параметр 2")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("extra2"),
@@ -451,7 +445,7 @@ public class BlockConfigGUI implements Listener {
     
     private void setupIfPlayerSettings(int startSlot) {
         // Тип условия
-        inventory.setItem(startSlot, new ItemBuilder(Material.COMPARATOR)
+        slots.set(startSlot, new ItemBuilder(Material.COMPARATOR)
             .name("§eТип условия")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("conditionType"),
@@ -464,7 +458,7 @@ public class BlockConfigGUI implements Listener {
         updateVariableSlot(startSlot + 1, "value", block.getParameter("value"));
             
         // Оператор сравнения
-        inventory.setItem(startSlot + 2, new ItemBuilder(Material.REDSTONE_TORCH)
+        slots.set(startSlot + 2, new ItemBuilder(Material.REDSTONE_TORCH)
             .name("§eОператор сравнения")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("operator"),
@@ -475,7 +469,7 @@ public class BlockConfigGUI implements Listener {
     }
     
     private void setupIfEntitySettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.COMPARATOR)
+        slots.set(startSlot, new ItemBuilder(Material.COMPARATOR)
             .name("§eУсловие сущности")
             .lore("§7Клик для настройки")
             .build());
@@ -490,14 +484,14 @@ public class BlockConfigGUI implements Listener {
     }
     
     private void setupFunctionSettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.ENCHANTED_BOOK)
+        slots.set(startSlot, new ItemBuilder(Material.ENCHANTED_BOOK)
             .name("§eИмя функции")
             .lore("§7Клик для настройки")
             .build());
     }
     
     private void setupCallFunctionSettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.BOOK)
+        slots.set(startSlot, new ItemBuilder(Material.BOOK)
             .name("§eВызов функции")
             .lore("§7Клик для настройки")
             .build());
@@ -505,7 +499,7 @@ public class BlockConfigGUI implements Listener {
     
     private void setupVariableActionSettings(int startSlot) {
         // Тип действия с переменной
-        inventory.setItem(startSlot, new ItemBuilder(Material.NAME_TAG)
+        slots.set(startSlot, new ItemBuilder(Material.NAME_TAG)
             .name("§eДействие с переменной")
             .lore(Arrays.asList(
                 "§7Текущий: §f" + block.getParameter("actionType"),
@@ -523,7 +517,7 @@ public class BlockConfigGUI implements Listener {
     
     private void setupMathSettings(int startSlot) {
         // Операция
-        inventory.setItem(startSlot, new ItemBuilder(Material.REDSTONE)
+        slots.set(startSlot, new ItemBuilder(Material.REDSTONE)
             .name("§eМатематическая операция")
             .lore(Arrays.asList(
                 "§7Текущая: §f" + block.getParameter("operation"),
@@ -543,20 +537,20 @@ public class BlockConfigGUI implements Listener {
     }
     
     private void setupTextOperationSettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.PAPER)
+        slots.set(startSlot, new ItemBuilder(Material.PAPER)
             .name("§eТекстовая операция")
             .lore("§7Клик для настройки")
             .build());
     }
     
     private void setupGenericSettings(int startSlot) {
-        inventory.setItem(startSlot, new ItemBuilder(Material.STONE)
+        slots.set(startSlot, new ItemBuilder(Material.STONE)
             .name("§eОбщие настройки")
             .lore("§7Этот блок пока не имеет настроек")
             .build());
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (event.getView().getTopInventory() != inventory) return;
         if (event.getClickedInventory() == null) return;
@@ -679,7 +673,7 @@ public class BlockConfigGUI implements Listener {
     private void updateVariableSlot(int slot, String paramName, Object value) {
         if (value == null) {
             // Пустой слот
-            inventory.setItem(slot, new ItemBuilder(Material.GRAY_STAINED_GLASS_PANE)
+            slots.set(slot, new ItemBuilder(Material.GRAY_STAINED_GLASS_PANE)
                 .name("§7" + paramName)
             .lore(Arrays.asList(
                     "§7Перетащите переменную сюда",
@@ -695,7 +689,7 @@ public class BlockConfigGUI implements Listener {
                 displayValue = ((VariableValue) value).getVariableName();
             }
             
-            inventory.setItem(slot, new ItemBuilder(Material.EMERALD)
+            slots.set(slot, new ItemBuilder(Material.EMERALD)
                 .name("§a" + paramName + " = " + displayValue)
             .lore(Arrays.asList(
                     "§7Текущее значение",
@@ -836,7 +830,7 @@ public class BlockConfigGUI implements Listener {
      * Открыть GUI настройки условий
      */
     private void openConditionSettingsGUI() {
-        Inventory conditionInventory = Bukkit.createInventory(null, 27, "§6Настройка условий");
+        Inventory conditionInventory = GuiHolder.createInventory(this, 27, "§6Настройка условий");
         
         // Добавить условие
         conditionInventory.setItem(10, new ItemBuilder(Material.LIME_DYE)
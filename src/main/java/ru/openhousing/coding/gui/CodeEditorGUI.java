@@ -4,9 +4,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
@@ -18,22 +15,134 @@ import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.script.CodeScript;
 import ru.openhousing.coding.script.CodeLine;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
+import ru.openhousing.gui.GuiIcon;
+import ru.openhousing.gui.SlotRenderer;
 import ru.openhousing.utils.ItemBuilder;
 import ru.openhousing.utils.AnvilGUIHelper;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * GUI редактора кода
  */
-public class CodeEditorGUI implements InventoryHolder, Listener {
+public class CodeEditorGUI implements InventoryHolder, GuiHandler {
+    
+    // Статичные кнопки меню, общие для всех редакторов
+    private static final GuiIcon ADD_BLOCK_ICON = new GuiIcon(() -> new ItemBuilder(Material.COMMAND_BLOCK)
+        .name("§aДобавить блок")
+        .lore(Arrays.asList(
+            "§7Добавьте новый блок в ваш код",
+            "",
+            "§eНажмите, чтобы открыть категории"
+        ))
+        .build());
+    
+    private static final GuiIcon RUN_ENABLED_ICON = runIcon("§aКод включен");
+    private static final GuiIcon RUN_DISABLED_ICON = runIcon("§cКод отключен");
+    private static final GuiIcon SETTINGS_ENABLED_ICON = settingsIcon("§aВключен");
+    private static final GuiIcon SETTINGS_DISABLED_ICON = settingsIcon("§cОтключен");
+    
+    private static final GuiIcon SEARCH_ICON = new GuiIcon(() -> new ItemBuilder(Material.SPYGLASS)
+        .name("§eПоиск блоков")
+        .lore(Arrays.asList(
+            "§7Быстрый поиск блоков",
+            "§7по названию или типу",
+            "",
+            "§eНажмите для поиска"
+        ))
+        .build());
+    
+    private static final GuiIcon SHARE_ICON = new GuiIcon(() -> new ItemBuilder(Material.PAPER)
+        .name("§bПоделиться кодом")
+        .lore(Arrays.asList(
+            "§7Поделитесь своим кодом с другими игроками",
+            "",
+            "§eНажмите, чтобы создать ссылку"
+        ))
+        .build());
+    
+    private static final GuiIcon IMPORT_ICON = new GuiIcon(() -> new ItemBuilder(Material.WRITTEN_BOOK)
+        .name("§9Импорт кода")
+        .lore(Arrays.asList(
+            "§7Импортируйте код от другого игрока",
+            "",
+            "§eНажмите, чтобы ввести код"
+        ))
+        .build());
+    
+    private static final GuiIcon CLEAR_ICON = new GuiIcon(() -> new ItemBuilder(Material.BARRIER)
+        .name("§cОчистить код")
+        .lore(Arrays.asList(
+            "§7Удалить все блоки из кода",
+            "",
+            "§c⚠ Это действие нельзя отменить!",
+            "",
+            "§eНажмите, чтобы очистить"
+        ))
+        .build());
+    
+    private static final GuiIcon HELP_ICON = new GuiIcon(() -> new ItemBuilder(Material.ENCHANTED_BOOK)
+        .name("§eСправка")
+        .lore(Arrays.asList(
+            "§7Руководство по использованию",
+            "§7визуального редактора кода",
+            "",
+            "§eНажмите, чтобы открыть справку"
+        ))
+        .build());
+    
+    private static final GuiIcon ADD_LINE_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_DYE)
+        .name("§aДобавить строку")
+        .lore(Arrays.asList(
+            "§7Создать новую строку кода",
+            "",
+            "§eКлик для создания"
+        ))
+        .build());
+    
+    private static final GuiIcon LINE_SEARCH_ICON = new GuiIcon(() -> new ItemBuilder(Material.COMPASS)
+        .name("§6Поиск блоков")
+        .lore(Arrays.asList(
+            "§7Поиск блоков по типу",
+            "§7или параметрам",
+            "",
+            "§eВ разработке"
+        ))
+        .build());
+    
+    private static final GuiIcon NO_TARGET_ICON = new GuiIcon(() -> new ItemBuilder(Material.GRAY_CONCRETE)
+        .name("§7Выбрать целевую строку")
+        .lore(Arrays.asList(
+            "§7Выберите строку для добавления",
+            "§7новых блоков",
+            "",
+            "§eКлик для выбора"
+        ))
+        .build());
+    
+    private static final GuiIcon SAVE_BLOCK_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_DYE)
+        .name("§aСохранить изменения")
+        .build());
+    
+    private static final GuiIcon DELETE_BLOCK_ICON = new GuiIcon(() -> new ItemBuilder(Material.RED_DYE)
+        .name("§cУдалить блок")
+        .build());
+    
+    // Список типов блоков категории не меняется во время работы сервера
+    private static final Map<BlockType.BlockCategory, List<BlockType>> BLOCKS_BY_CATEGORY =
+        new EnumMap<>(BlockType.BlockCategory.class);
     
     private final OpenHousing plugin;
     private final Player player;
     private final CodeScript script;
     private final Inventory inventory;
+    private final SlotRenderer slots;
     
     // Состояние GUI
     private EditorMode mode;
@@ -50,11 +159,40 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         BLOCK_EDIT      // Редактирование блока
     }
     
+    private static GuiIcon runIcon(String status) {
+        return new GuiIcon(() -> new ItemBuilder(Material.REPEATING_COMMAND_BLOCK)
+            .name("§2Выполнить код")
+            .lore(Arrays.asList(
+                "§7Запустить выполнение вашего кода",
+                "",
+                status,
+                "",
+                "§eНажмите, чтобы выполнить"
+            ))
+            .build());
+    }
+    
+    private static GuiIcon settingsIcon(String status) {
+        return new GuiIcon(() -> new ItemBuilder(Material.REDSTONE)
+            .name("§6Настройки кода")
+            .lore(Arrays.asList(
+                "§7Статус: " + status,
+                "",
+                "§7Включить/выключить код",
+                "§7Очистить код",
+                "§7Статистика и диагностика",
+                "",
+                "§eНажмите, чтобы открыть"
+            ))
+            .build());
+    }
+    
     public CodeEditorGUI(OpenHousing plugin, Player player, CodeScript script) {
         this.plugin = plugin;
         this.player = player;
         this.script = script;
         this.inventory = Bukkit.createInventory(this, 54, "§6OpenHousing §8| §fРедактор кода");
+        this.slots = new SlotRenderer(inventory);
         this.mode = EditorMode.MAIN;
         this.page = 0;
         
@@ -67,14 +205,12 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
     public void open() {
         player.openInventory(inventory);
         plugin.getSoundEffects().playOpenGUI(player);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
     
     /**
      * Закрытие GUI
      */
     public void close() {
-        HandlerList.unregisterAll(this);
         player.closeInventory();
         plugin.getSoundEffects().playCloseGUI(player);
     }
@@ -111,7 +247,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         
         try {
             if (debugMode) plugin.getLogger().info("[DEBUG] Updating inventory for mode: " + mode);
-            inventory.clear();
+            slots.begin();
             
             switch (mode) {
                 case MAIN:
@@ -138,12 +274,9 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
             if (debugMode) plugin.getLogger().info("[DEBUG] Adding navigation items...");
             addNavigationItems();
             
-            if (debugMode) plugin.getLogger().info("[DEBUG] Inventory update completed successfully");
-                
-            // Принудительно обновляем инвентарь для игрока
-            if (player.getOpenInventory().getTopInventory().equals(inventory)) {
-                player.updateInventory();
-            }
+            // В инвентарь записываются только изменившиеся слоты, сервер сам отправит их клиенту
+            int changed = slots.commit();
+            if (debugMode) plugin.getLogger().info("[DEBUG] Inventory update completed, changed slots: " + changed);
         } catch (Exception e) {
             plugin.getLogger().severe("Error updating inventory: " + e.getMessage());
             e.printStackTrace();
@@ -153,7 +286,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
     /**
      * Обработчик кликов в инвентаре
      */
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!event.getWhoClicked().equals(player)) return;
@@ -184,7 +317,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
     /**
      * Обработчик закрытия инвентаря
      */
-    @EventHandler
+    @Override
     public void onInventoryClose(InventoryCloseEvent event) {
         if (event.getInventory().equals(inventory) && event.getPlayer().equals(player)) {
             close();
@@ -198,7 +331,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         // Информация о коде
         CodeScript.ScriptStats stats = script.getStats();
         
-        inventory.setItem(10, new ItemBuilder(Material.BOOK)
+        slots.set(10, new ItemBuilder(Material.BOOK)
             .name("§6Мой код")
             .lore(Arrays.asList(
                 "§7Блоков: §f" + stats.getTotalBlocks(),
@@ -215,94 +348,28 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
             .build());
         
         // Добавить блок
-        inventory.setItem(12, new ItemBuilder(Material.COMMAND_BLOCK)
-            .name("§aДобавить блок")
-            .lore(Arrays.asList(
-                "§7Добавьте новый блок в ваш код",
-                "",
-                "§eНажмите, чтобы открыть категории"
-            ))
-            .build());
+        slots.set(12, ADD_BLOCK_ICON.get());
         
         // Выполнить код
-        inventory.setItem(14, new ItemBuilder(Material.REPEATING_COMMAND_BLOCK)
-            .name("§2Выполнить код")
-            .lore(Arrays.asList(
-                "§7Запустить выполнение вашего кода",
-                "",
-                script.isEnabled() ? "§aКод включен" : "§cКод отключен",
-                "",
-                "§eНажмите, чтобы выполнить"
-            ))
-            .build());
+        slots.set(14, (script.isEnabled() ? RUN_ENABLED_ICON : RUN_DISABLED_ICON).get());
         
         // Поиск блоков
-        inventory.setItem(16, new ItemBuilder(Material.SPYGLASS)
-            .name("§eПоиск блоков")
-            .lore(Arrays.asList(
-                "§7Быстрый поиск блоков",
-                "§7по названию или типу",
-                "",
-                "§eНажмите для поиска"
-            ))
-            .build());
+        slots.set(16, SEARCH_ICON.get());
             
         // Настройки
-        inventory.setItem(28, new ItemBuilder(Material.REDSTONE)
-            .name("§6Настройки кода")
-            .lore(Arrays.asList(
-                "§7Статус: " + (script.isEnabled() ? "§aВключен" : "§cОтключен"),
-                "",
-                "§7Включить/выключить код",
-                "§7Очистить код",
-                "§7Статистика и диагностика",
-                "",
-                "§eНажмите, чтобы открыть"
-            ))
-            .build());
+        slots.set(28, (script.isEnabled() ? SETTINGS_ENABLED_ICON : SETTINGS_DISABLED_ICON).get());
         
         // Поделиться кодом
-        inventory.setItem(30, new ItemBuilder(Material.PAPER)
-            .name("§bПоделиться кодом")
-            .lore(Arrays.asList(
-                "§7Поделитесь своим кодом с другими игроками",
-                "",
-                "§eНажмите, чтобы создать ссылку"
-            ))
-            .build());
+        slots.set(30, SHARE_ICON.get());
         
         // Импорт кода
-        inventory.setItem(32, new ItemBuilder(Material.WRITTEN_BOOK)
-            .name("§9Импорт кода")
-            .lore(Arrays.asList(
-                "§7Импортируйте код от другого игрока",
-                "",
-                "§eНажмите, чтобы ввести код"
-            ))
-            .build());
+        slots.set(32, IMPORT_ICON.get());
         
         // Очистить код
-        inventory.setItem(33, new ItemBuilder(Material.BARRIER)
-            .name("§cОчистить код")
-            .lore(Arrays.asList(
-                "§7Удалить все блоки из кода",
-                "",
-                "§c⚠ Это действие нельзя отменить!",
-                "",
-                "§eНажмите, чтобы очистить"
-            ))
-            .build());
+        slots.set(33, CLEAR_ICON.get());
         
         // Справка
-        inventory.setItem(35, new ItemBuilder(Material.ENCHANTED_BOOK)
-            .name("§eСправка")
-            .lore(Arrays.asList(
-                "§7Руководство по использованию",
-                "§7визуального редактора кода",
-                "",
-                "§eНажмите, чтобы открыть справку"
-            ))
-            .build());
+        slots.set(35, HELP_ICON.get());
     }
     
     /**
@@ -312,14 +379,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         int slot = 10;
         
         for (BlockType.BlockCategory category : BlockType.BlockCategory.values()) {
-            inventory.setItem(slot, new ItemBuilder(category.getMaterial())
-                .name("§6" + category.getDisplayName())
-                .lore(Arrays.asList(
-                    "§7" + category.getDescription(),
-                    "",
-                    "§eНажмите, чтобы просмотреть блоки"
-                ))
-                .build());
+            slots.set(slot, GuiIcons.category(category));
             
             slot += 2;
             if (slot > 16) {
@@ -335,12 +395,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
     private void setupBlocksMenu() {
         if (selectedCategory == null) return;
         
-        List<BlockType> blocksInCategory = new ArrayList<>();
-        for (BlockType blockType : BlockType.values()) {
-            if (blockType.getCategory() == selectedCategory) {
-                blocksInCategory.add(blockType);
-            }
-        }
+        List<BlockType> blocksInCategory = getBlocksInCategory(selectedCategory);
         
         int startIndex = page * 28;
         int endIndex = Math.min(startIndex + 28, blocksInCategory.size());
@@ -349,15 +404,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         for (int i = startIndex; i < endIndex; i++) {
             BlockType blockType = blocksInCategory.get(i);
             
-            inventory.setItem(slot, new ItemBuilder(blockType.getMaterial())
-                .name("§6" + blockType.getDisplayName())
-                .lore(Arrays.asList(
-                    "§7" + blockType.getDescription(),
-                    "",
-                    "§eЛевый клик - добавить в код",
-                    "§eПравый клик - предварительный просмотр"
-                ))
-                .build());
+            slots.set(slot, GuiIcons.blockType(blockType));
             
             slot++;
             if (slot == 17) slot = 19;
@@ -368,15 +415,11 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         
         // Навигация по страницам
         if (page > 0) {
-            inventory.setItem(45, new ItemBuilder(Material.ARROW)
-                .name("§7Предыдущая страница")
-                .build());
+            slots.set(45, GuiIcons.PREVIOUS_PAGE.get());
         }
         
         if (endIndex < blocksInCategory.size()) {
-            inventory.setItem(53, new ItemBuilder(Material.ARROW)
-                .name("§7Следующая страница")
-                .build());
+            slots.set(53, GuiIcons.NEXT_PAGE.get());
         }
     }
     
@@ -386,7 +429,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
     private void setupScriptMenu() {
         // Статистика кода
         CodeScript.ScriptStats stats = script.getStats();
-        inventory.setItem(4, new ItemBuilder(Material.BOOK)
+        slots.set(4, new ItemBuilder(Material.BOOK)
             .name("§6Статистика кода")
             .lore(Arrays.asList(
                 "§7Всего строк: §e" + script.getLines().size(),
@@ -400,49 +443,26 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
             .build());
         
         // Кнопка добавления новой строки
-        inventory.setItem(1, new ItemBuilder(Material.LIME_DYE)
-            .name("§aДобавить строку")
-            .lore(Arrays.asList(
-                "§7Создать новую строку кода",
-                "",
-                "§eКлик для создания"
-            ))
-            .build());
+        slots.set(1, ADD_LINE_ICON.get());
             
         // Кнопка поиска блоков
-        inventory.setItem(7, new ItemBuilder(Material.COMPASS)
-            .name("§6Поиск блоков")
-            .lore(Arrays.asList(
-                "§7Поиск блоков по типу",
-                "§7или параметрам",
-                "",
-                "§eВ разработке"
-            ))
-            .build());
+        slots.set(7, LINE_SEARCH_ICON.get());
             
         // Кнопка выбора целевой строки
-        Material targetMaterial = currentTargetLine != null ? Material.GREEN_CONCRETE : Material.GRAY_CONCRETE;
-        String targetName = currentTargetLine != null ? 
-            "§aЦелевая строка: " + currentTargetLine.getLineNumber() : 
-            "§7Выбрать целевую строку";
-        List<String> targetLore = new ArrayList<>();
         if (currentTargetLine != null) {
-            targetLore.add("§7Текущая цель: §e" + currentTargetLine.getName());
-            targetLore.add("§7Блоков в строке: §e" + currentTargetLine.getBlockCount());
-            targetLore.add("");
-            targetLore.add("§eКлик для сброса");
+            slots.set(3, new ItemBuilder(Material.GREEN_CONCRETE)
+                .name("§aЦелевая строка: " + currentTargetLine.getLineNumber())
+                .lore(Arrays.asList(
+                    "§7Текущая цель: §e" + currentTargetLine.getName(),
+                    "§7Блоков в строке: §e" + currentTargetLine.getBlockCount(),
+                    "",
+                    "§eКлик для сброса"
+                ))
+                .build());
         } else {
-            targetLore.add("§7Выберите строку для добавления");
-            targetLore.add("§7новых блоков");
-            targetLore.add("");
-            targetLore.add("§eКлик для выбора");
+            slots.set(3, NO_TARGET_ICON.get());
         }
         
-        inventory.setItem(3, new ItemBuilder(targetMaterial)
-            .name(targetName)
-            .lore(targetLore)
-            .build());
-        
         // Отображение строк с пагинацией
         List<CodeLine> lines = script.getLines();
         int maxLines = 21; // 3 ряда по 7 строк
@@ -491,7 +511,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
                 .lore(lore)
                 .build();
             
-            inventory.setItem(slot, lineItem);
+            slots.set(slot, lineItem);
             slot++;
             
             // Пропускаем границы инвентаря
@@ -502,15 +522,11 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         
         // Навигация по страницам
         if (page > 0) {
-            inventory.setItem(45, new ItemBuilder(Material.ARROW)
-                .name("§7Предыдущая страница")
-                .build());
+            slots.set(45, GuiIcons.PREVIOUS_PAGE.get());
         }
         
         if (endIndex < lines.size()) {
-            inventory.setItem(53, new ItemBuilder(Material.ARROW)
-                .name("§7Следующая страница")
-                .build());
+            slots.set(53, GuiIcons.NEXT_PAGE.get());
         }
     }
     
@@ -521,7 +537,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         if (selectedBlock == null) return;
         
         // Информация о блоке
-        inventory.setItem(4, new ItemBuilder(selectedBlock.getType().getMaterial())
+        slots.set(4, new ItemBuilder(selectedBlock.getType().getMaterial())
             .name("§6" + selectedBlock.getType().getDisplayName())
             .lore(selectedBlock.getDescription())
             .build());
@@ -531,7 +547,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         for (String paramKey : selectedBlock.getParameters().keySet()) {
             Object value = selectedBlock.getParameter(paramKey);
             
-            inventory.setItem(slot, new ItemBuilder(Material.NAME_TAG)
+            slots.set(slot, new ItemBuilder(Material.NAME_TAG)
                 .name("§e" + paramKey)
                 .lore(Arrays.asList(
                     "§7Значение: §f" + (value != null ? value.toString() : "не установлено"),
@@ -545,13 +561,9 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
         }
         
         // Действия
-        inventory.setItem(40, new ItemBuilder(Material.LIME_DYE)
-            .name("§aСохранить изменения")
-            .build());
+        slots.set(40, SAVE_BLOCK_ICON.get());
         
-        inventory.setItem(42, new ItemBuilder(Material.RED_DYE)
-            .name("§cУдалить блок")
-            .build());
+        slots.set(42, DELETE_BLOCK_ICON.get());
     }
     
     /**
@@ -559,42 +571,26 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
      */
     private void addNavigationItems() {
         // Назад
-        inventory.setItem(0, new ItemBuilder(Material.ARROW)
-            .name("§cНазад")
-            .lore("§7Вернуться назад")
-            .build());
+        slots.set(0, GuiIcons.BACK.get());
             
         // Переменные (железный слиток в 9 слот)
-        inventory.setItem(8, new ItemBuilder(Material.IRON_INGOT)
-            .name("§6Переменные")
-            .lore(Arrays.asList(
-                "§7Получить переменную для",
-                "§7использования в коде",
-                "",
-                "§eКлик для открытия"
-            ))
-            .build());
+        slots.set(8, GuiIcons.VARIABLES.get());
         
         // Домой
-        inventory.setItem(17, new ItemBuilder(Material.BARRIER)
-            .name("§cЗакрыть")
-            .lore("§7Закрыть редактор")
-            .build());
+        slots.set(17, GuiIcons.CLOSE_EDITOR.get());
             
         // Разделители
-        ItemStack glass = new ItemBuilder(Material.GRAY_STAINED_GLASS_PANE)
-            .name(" ")
-            .build();
+        ItemStack glass = GuiIcons.FILLER.get();
         
         for (int i = 1; i < 8; i++) {
-            if (inventory.getItem(i) == null) {
-                inventory.setItem(i, glass);
+            if (slots.get(i) == null) {
+                slots.set(i, glass);
             }
         }
         
         for (int i = 45; i < 54; i++) {
-            if (inventory.getItem(i) == null) {
-                inventory.setItem(i, glass);
+            if (slots.get(i) == null) {
+                slots.set(i, glass);
             }
         }
     }
@@ -734,7 +730,9 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
      */
     public void executeScript() {
         try {
-            script.execute(new CodeBlock.ExecutionContext(player));
+            CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(player);
+            plugin.getCodeManager().getScriptTracer().begin(context, script.getPlayerId());
+            script.execute(context);
             player.sendMessage("§aКод выполнен успешно!");
         } catch (Exception e) {
             player.sendMessage("§cОшибка выполнения кода: " + e.getMessage());
@@ -831,7 +829,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
             }
             
             // Сохраняем скрипт
-            plugin.getDatabaseManager().saveCodeScriptAsync(script, () -> {});
+            plugin.getDatabaseManager().queueCodeScript(script);
             
             // Возвращаемся к просмотру скрипта
             mode = EditorMode.SCRIPT;
@@ -846,14 +844,16 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
     /**
      * Получение блоков в категории
      */
-    private List<BlockType> getBlocksInCategory(BlockType.BlockCategory category) {
-        List<BlockType> blocks = new ArrayList<>();
-        for (BlockType type : BlockType.values()) {
-            if (type.getCategory() == category) {
-                blocks.add(type);
+    private static List<BlockType> getBlocksInCategory(BlockType.BlockCategory category) {
+        return BLOCKS_BY_CATEGORY.computeIfAbsent(category, c -> {
+            List<BlockType> blocks = new ArrayList<>();
+            for (BlockType type : BlockType.values()) {
+                if (type.getCategory() == c) {
+                    blocks.add(type);
+                }
             }
-        }
-        return blocks;
+            return List.copyOf(blocks);
+        });
     }
     
     /**
@@ -890,7 +890,7 @@ public class CodeEditorGUI implements InventoryHolder, Listener {
      * Показать результаты поиска блоков
      */
     public void showSearchResults(List<BlockType> foundBlocks, String searchTerm) {
-        Inventory searchInventory = Bukkit.createInventory(null, 54, "§6Результаты поиска: " + searchTerm);
+        Inventory searchInventory = GuiHolder.createInventory(this, 54, "§6Результаты поиска: " + searchTerm);
         
         int slot = 10;
         for (BlockType blockType : foundBlocks) {
@@ -1,11 +1,8 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
@@ -17,6 +14,7 @@ import ru.openhousing.coding.blocks.CodeBlock.ExecutionContext;
 import ru.openhousing.coding.gui.VariablesViewerGUI;
 import ru.openhousing.coding.gui.ExecutionLogViewerGUI;
 import ru.openhousing.coding.gui.StatsViewerGUI;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.Arrays;
 
@@ -48,7 +46,6 @@ public class DebugGUI implements IBlockConfigurationGUI {
     public void open() {
         setupInventory();
         player.openInventory(inventory);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
     
     @Override
@@ -58,7 +55,7 @@ public class DebugGUI implements IBlockConfigurationGUI {
     
     @Override
     public void close() {
-        HandlerList.unregisterAll(this);
+        // Обработчик привязан к инвентарю и освобождается вместе с ним
     }
     
     @Override
@@ -68,7 +65,7 @@ public class DebugGUI implements IBlockConfigurationGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Отладка кода");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Отладка кода");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -160,7 +157,7 @@ public class DebugGUI implements IBlockConfigurationGUI {
         inventory.setItem(CLOSE_SLOT, closeItem);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!isValidInventory(event.getInventory())) return;
         event.setCancelled(true);
@@ -193,7 +190,7 @@ public class DebugGUI implements IBlockConfigurationGUI {
         }
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClose(InventoryCloseEvent event) {
         if (isValidInventory(event.getInventory())) {
             close();
@@ -1,15 +1,14 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.actions.EntityActionBlock;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -18,7 +17,7 @@ import java.util.function.Consumer;
 /**
  * GUI для выбора типа действия сущности
  */
-public class EntityActionSelectorGUI implements Listener {
+public class EntityActionSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -29,9 +28,7 @@ public class EntityActionSelectorGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.onSelect = onSelect;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Выбор действия сущности");
-        
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Выбор действия сущности");
     }
     
     public void open() {
@@ -130,7 +127,7 @@ public class EntityActionSelectorGUI implements Listener {
         }
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
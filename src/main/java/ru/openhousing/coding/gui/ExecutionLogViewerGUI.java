@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
@@ -13,6 +10,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.blocks.CodeBlock.ExecutionContext;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.*;
 
@@ -45,7 +43,6 @@ public class ExecutionLogViewerGUI implements IBlockConfigurationGUI {
     public void open() {
         setupInventory();
         player.openInventory(inventory);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
     
     @Override
@@ -55,7 +52,7 @@ public class ExecutionLogViewerGUI implements IBlockConfigurationGUI {
     
     @Override
     public void close() {
-        HandlerList.unregisterAll(this);
+        // Обработчик привязан к инвентарю и освобождается вместе с ним
     }
     
     @Override
@@ -65,7 +62,7 @@ public class ExecutionLogViewerGUI implements IBlockConfigurationGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Лог выполнения");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Лог выполнения");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -230,7 +227,7 @@ public class ExecutionLogViewerGUI implements IBlockConfigurationGUI {
         return context.getExecutionLog().size();
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!isValidInventory(event.getInventory())) return;
         event.setCancelled(true);
@@ -293,7 +290,7 @@ public class ExecutionLogViewerGUI implements IBlockConfigurationGUI {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClose(InventoryCloseEvent event) {
         if (isValidInventory(event.getInventory())) {
             close();
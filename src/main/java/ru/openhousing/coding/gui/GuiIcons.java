@@ -0,0 +1,104 @@
+package ru.openhousing.coding.gui;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import ru.openhousing.coding.blocks.BlockType;
+import ru.openhousing.gui.GuiIcon;
+import ru.openhousing.utils.ItemBuilder;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Кэш статичных иконок редактора кода.
+ *
+ * Иконки типов блоков, категорий и навигации не зависят от игрока и состояния GUI,
+ * поэтому ItemMeta для них строится один раз, а GUI кладут в инвентарь общие шаблоны.
+ * Для каждого просмотра рисуются только динамические части: статистика, строки, параметры.
+ */
+public final class GuiIcons {
+
+    public static final GuiIcon FILLER = new GuiIcon(() -> new ItemBuilder(Material.GRAY_STAINED_GLASS_PANE)
+        .name(" ")
+        .build());
+
+    public static final GuiIcon BACK = new GuiIcon(() -> new ItemBuilder(Material.ARROW)
+        .name("§cНазад")
+        .lore("§7Вернуться назад")
+        .build());
+
+    public static final GuiIcon CLOSE_EDITOR = new GuiIcon(() -> new ItemBuilder(Material.BARRIER)
+        .name("§cЗакрыть")
+        .lore("§7Закрыть редактор")
+        .build());
+
+    public static final GuiIcon VARIABLES = new GuiIcon(() -> new ItemBuilder(Material.IRON_INGOT)
+        .name("§6Переменные")
+        .lore(Arrays.asList(
+            "§7Получить переменную для",
+            "§7использования в коде",
+            "",
+            "§eКлик для открытия"
+        ))
+        .build());
+
+    public static final GuiIcon PREVIOUS_PAGE = new GuiIcon(() -> new ItemBuilder(Material.ARROW)
+        .name("§7Предыдущая страница")
+        .build());
+
+    public static final GuiIcon NEXT_PAGE = new GuiIcon(() -> new ItemBuilder(Material.ARROW)
+        .name("§7Следующая страница")
+        .build());
+
+    private static final Map<BlockType, ItemStack> BLOCK_TYPES = new EnumMap<>(BlockType.class);
+    private static final Map<BlockType, ItemStack> BLOCK_INFO = new EnumMap<>(BlockType.class);
+    private static final Map<BlockType.BlockCategory, ItemStack> CATEGORIES = new EnumMap<>(BlockType.BlockCategory.class);
+
+    private GuiIcons() {
+    }
+
+    /**
+     * Иконка типа блока в каталоге блоков
+     */
+    public static ItemStack blockType(BlockType type) {
+        return BLOCK_TYPES.computeIfAbsent(type, t -> new ItemBuilder(t.getMaterial())
+            .name("§6" + t.getDisplayName())
+            .lore(Arrays.asList(
+                "§7" + t.getDescription(),
+                "",
+                "§eЛевый клик - добавить в код",
+                "§eПравый клик - предварительный просмотр"
+            ))
+            .build());
+    }
+
+    /**
+     * Заголовок окна настройки блока
+     */
+    public static ItemStack blockInfo(BlockType type) {
+        return BLOCK_INFO.computeIfAbsent(type, t -> new ItemBuilder(t.getMaterial())
+            .name("§6" + t.getDisplayName())
+            .lore(Arrays.asList(
+                "§7Категория: §f" + t.getCategory().getDisplayName(),
+                "§7Описание: §f" + t.getDescription(),
+                "",
+                "§7Настройте параметры блока ниже"
+            ))
+            .build());
+    }
+
+    /**
+     * Иконка категории блоков
+     */
+    public static ItemStack category(BlockType.BlockCategory category) {
+        return CATEGORIES.computeIfAbsent(category, c -> new ItemBuilder(c.getMaterial())
+            .name("§6" + c.getDisplayName())
+            .lore(Arrays.asList(
+                "§7" + c.getDescription(),
+                "",
+                "§eНажмите, чтобы просмотреть блоки"
+            ))
+            .build());
+    }
+}
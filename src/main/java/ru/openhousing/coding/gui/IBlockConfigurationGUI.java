@@ -1,12 +1,12 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.event.Listener;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.gui.GuiHandler;
 
 /**
  * Интерфейс для модульных конфигурационных GUI блоков кода
  */
-public interface IBlockConfigurationGUI extends Listener {
+public interface IBlockConfigurationGUI extends GuiHandler {
     
     /**
      * Открыть GUI для игрока
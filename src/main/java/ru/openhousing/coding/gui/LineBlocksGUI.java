@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -12,6 +9,8 @@ import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.script.CodeLine;
 import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -20,7 +19,7 @@ import java.util.List;
 /**
  * Простой просмотр блоков в строке
  */
-public class LineBlocksGUI implements Listener {
+public class LineBlocksGUI implements GuiHandler {
 
     private final OpenHousing plugin;
     private final Player player;
@@ -33,10 +32,7 @@ public class LineBlocksGUI implements Listener {
         this.player = player;
         this.script = script;
         this.line = line;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Блоки строки: " + line.getName());
-        
-        // Регистрируем listener
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Блоки строки: " + line.getName());
         
         setupGUI();
     }
@@ -99,7 +95,7 @@ public class LineBlocksGUI implements Listener {
         player.openInventory(inventory);
     }
 
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -1,12 +1,8 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
@@ -14,6 +10,8 @@ import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.script.CodeLine;
 import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.AnvilGUIHelper;
 import ru.openhousing.utils.ItemBuilder;
 import ru.openhousing.utils.MessageUtil;
@@ -23,7 +21,7 @@ import java.util.*;
 /**
  * GUI для выбора строки при добавлении блока
  */
-public class LineSelectorGUI implements Listener {
+public class LineSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -38,10 +36,9 @@ public class LineSelectorGUI implements Listener {
         this.player = player;
         this.script = script;
         this.blockTypeToAdd = blockTypeToAdd;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Выбор строки для блока");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Выбор строки для блока");
         
         setupGUI();
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
     
     /**
@@ -204,7 +201,7 @@ public class LineSelectorGUI implements Listener {
             .build());
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -554,29 +551,15 @@ public class LineSelectorGUI implements Listener {
         }
     }
     
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        String title = null;
-        try {
-            title = event.getView().getTitle();
-        } catch (NoSuchMethodError e) {
-            return; // Пропускаем если не можем получить title
-        }
-        
-        if (title != null && title.equals("§6Выбор строки для блока") && 
-            event.getPlayer().equals(player)) {
-            // Отменяем регистрацию листенера
-            InventoryClickEvent.getHandlerList().unregister(this);
-            InventoryCloseEvent.getHandlerList().unregister(this);
-        }
-    }
-    
     /**
      * Открытие редактора строки
      */
     private void openLineEditor(CodeLine line) {
+        List<CodeBlock> blocks = line.getBlocks();
+        
         // Создаем простое GUI для редактирования строки
-        Inventory editor = Bukkit.createInventory(null, 27, "§6Редактор строки: " + line.getName());
+        Inventory editor = GuiHolder.createInventory(event -> handleLineEditorClick(event, line, blocks),
+            27, "§6Редактор строки: " + line.getName());
         
         // Кнопка переименования
         editor.setItem(10, new ItemBuilder(Material.NAME_TAG)
@@ -599,7 +582,6 @@ public class LineSelectorGUI implements Listener {
             .build());
         
         // Показать блоки в строке
-        List<CodeBlock> blocks = line.getBlocks();
         if (!blocks.isEmpty()) {
             editor.setItem(13, new ItemBuilder(Material.BOOK)
                 .name("§aБлоки в строке")
@@ -618,49 +600,44 @@ public class LineSelectorGUI implements Listener {
             .build());
         
         player.openInventory(editor);
+    }
+    
+    /**
+     * Обработка кликов в редакторе строки
+     */
+    private void handleLineEditorClick(InventoryClickEvent event, CodeLine line, List<CodeBlock> blocks) {
+        if (!(event.getWhoClicked() instanceof Player)) return;
+        if (!event.getWhoClicked().equals(player)) return;
         
-        // Регистрируем временный листенер для редактора
-        plugin.getServer().getPluginManager().registerEvents(new Listener() {
-            @EventHandler
-            public void onEditorClick(InventoryClickEvent event) {
-                if (!event.getInventory().equals(editor)) return;
-                if (!(event.getWhoClicked() instanceof Player)) return;
-                if (!event.getWhoClicked().equals(player)) return;
-                
-                event.setCancelled(true);
-                
-                int slot = event.getRawSlot();
-                
-                if (slot == 10) { // Переименование
-                    player.closeInventory();
-                    AnvilGUIHelper.openTextInput(plugin, player, "Введите новое имя строки:", line.getName(), newName -> {
-                        if (newName != null && !newName.trim().isEmpty()) {
-                            line.setName(newName.trim());
-                            plugin.getCodeManager().saveScript(player, script);
-                            player.sendMessage("§aСтрока переименована в: " + newName.trim());
-                        }
-                        // Возвращаемся к выбору строки
-                        open();
-                    });
-                } else if (slot == 16) { // Удаление
-                    player.closeInventory();
-                    player.sendMessage("§cСтрока удалена!");
-                    script.removeLine(line.getLineNumber());
+        event.setCancelled(true);
+        
+        int slot = event.getRawSlot();
+        
+        if (slot == 10) { // Переименование
+            player.closeInventory();
+            AnvilGUIHelper.openTextInput(plugin, player, "Введите новое имя строки:", line.getName(), newName -> {
+                if (newName != null && !newName.trim().isEmpty()) {
+                    line.setName(newName.trim());
                     plugin.getCodeManager().saveScript(player, script);
-                    // Возвращаемся к выбору строки
-                    open();
-                } else if (slot == 13 && !blocks.isEmpty()) { // Просмотр блоков
-                    player.closeInventory();
-                    showLineBlocks(line);
-                } else if (slot == 22) { // Назад
-                    player.closeInventory();
-                    open();
+                    player.sendMessage("§aСтрока переименована в: " + newName.trim());
                 }
-                
-                // Отменяем регистрацию листенера
-                InventoryClickEvent.getHandlerList().unregister(this);
-            }
-        }, plugin);
+                // Возвращаемся к выбору строки
+                open();
+            });
+        } else if (slot == 16) { // Удаление
+            player.closeInventory();
+            player.sendMessage("§cСтрока удалена!");
+            script.removeLine(line.getLineNumber());
+            plugin.getCodeManager().saveScript(player, script);
+            // Возвращаемся к выбору строки
+            open();
+        } else if (slot == 13 && !blocks.isEmpty()) { // Просмотр блоков
+            player.closeInventory();
+            showLineBlocks(line);
+        } else if (slot == 22) { // Назад
+            player.closeInventory();
+            open();
+        }
     }
     
     /**
@@ -674,7 +651,8 @@ public class LineSelectorGUI implements Listener {
             return;
         }
         
-        Inventory blocksGUI = Bukkit.createInventory(null, 54, "§6Блоки в строке: " + line.getName());
+        Inventory blocksGUI = GuiHolder.createInventory(event -> handleLineBlocksClick(event, line, blocks),
+            54, "§6Блоки в строке: " + line.getName());
         
         for (int i = 0; i < Math.min(blocks.size(), 45); i++) {
             CodeBlock block = blocks.get(i);
@@ -696,33 +674,28 @@ public class LineSelectorGUI implements Listener {
             .build());
         
         player.openInventory(blocksGUI);
+    }
+    
+    /**
+     * Обработка кликов в списке блоков строки
+     */
+    private void handleLineBlocksClick(InventoryClickEvent event, CodeLine line, List<CodeBlock> blocks) {
+        if (!(event.getWhoClicked() instanceof Player)) return;
+        if (!event.getWhoClicked().equals(player)) return;
         
-        // Регистрируем временный листенер
-        plugin.getServer().getPluginManager().registerEvents(new Listener() {
-            @EventHandler
-            public void onBlocksClick(InventoryClickEvent event) {
-                if (!event.getInventory().equals(blocksGUI)) return;
-                if (!(event.getWhoClicked() instanceof Player)) return;
-                if (!event.getWhoClicked().equals(player)) return;
-                
-                event.setCancelled(true);
-                
-                int slot = event.getRawSlot();
-                
-                if (slot == 49) { // Назад
-                    player.closeInventory();
-                    openLineEditor(line);
-                } else if (slot >= 0 && slot < blocks.size()) { // Настройка блока
-                    CodeBlock block = blocks.get(slot);
-                    player.closeInventory();
-                    BlockConfigGUI configGUI = new BlockConfigGUI(plugin, player, block, (CodeEditorGUI) null);
-                    configGUI.open();
-                }
-                
-                // Отменяем регистрацию листенера
-                InventoryClickEvent.getHandlerList().unregister(this);
-            }
-        }, plugin);
+        event.setCancelled(true);
+        
+        int slot = event.getRawSlot();
+        
+        if (slot == 49) { // Назад
+            player.closeInventory();
+            openLineEditor(line);
+        } else if (slot >= 0 && slot < blocks.size()) { // Настройка блока
+            CodeBlock block = blocks.get(slot);
+            player.closeInventory();
+            BlockConfigGUI configGUI = new BlockConfigGUI(plugin, player, block, (CodeEditorGUI) null);
+            configGUI.open();
+        }
     }
     
     /**
@@ -1,18 +1,16 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.script.CodeLine;
 import ru.openhousing.coding.script.CodeScript;
 import ru.openhousing.coding.gui.helpers.AnvilGUIHelper;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 import ru.openhousing.utils.MessageUtil;
 
@@ -21,7 +19,7 @@ import java.util.Arrays;
 /**
  * GUI для настройки строк кода
  */
-public class LineSettingsGUI implements Listener {
+public class LineSettingsGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -34,10 +32,9 @@ public class LineSettingsGUI implements Listener {
         this.player = player;
         this.script = script;
         this.line = line;
-        this.inventory = Bukkit.createInventory(null, 45, "§6Настройки строки: " + line.getName());
+        this.inventory = GuiHolder.createInventory(this, 45, "§6Настройки строки: " + line.getName());
         
         setupGUI();
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
     
     /**
@@ -172,7 +169,7 @@ public class LineSettingsGUI implements Listener {
             .build());
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -336,25 +333,9 @@ public class LineSettingsGUI implements Listener {
      */
     private void saveAndClose() {
         // Сохраняем код
-        plugin.getDatabaseManager().saveCodeScript(script);
+        plugin.getDatabaseManager().queueCodeScript(script);
         MessageUtil.send(player, "&aНастройки строки сохранены!");
         player.closeInventory();
     }
     
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        String title = null;
-        try {
-            title = event.getView().getTitle();
-        } catch (NoSuchMethodError e) {
-            return; // Пропускаем если не можем получить title
-        }
-        
-        if (title != null && title.startsWith("§6Настройки строки:") && 
-            event.getPlayer().equals(player)) {
-            // Отменяем регистрацию листенера
-            InventoryClickEvent.getHandlerList().unregister(this);
-            InventoryCloseEvent.getHandlerList().unregister(this);
-        }
-    }
 }
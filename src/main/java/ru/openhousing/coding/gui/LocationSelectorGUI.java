@@ -1,16 +1,15 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.values.LocationValue;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.AnvilGUIHelper;
 import ru.openhousing.utils.ItemBuilder;
 
@@ -20,7 +19,7 @@ import java.util.function.Consumer;
 /**
  * Профессиональный GUI для выбора локаций
  */
-public class LocationSelectorGUI implements Listener {
+public class LocationSelectorGUI implements GuiHandler {
 
     private final OpenHousing plugin;
     private final Player player;
@@ -31,9 +30,8 @@ public class LocationSelectorGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.callback = callback;
-        this.inventory = Bukkit.createInventory(null, 45, "§6Выбор локации");
+        this.inventory = GuiHolder.createInventory(this, 45, "§6Выбор локации");
 
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
         setupGUI();
     }
 
@@ -168,7 +166,7 @@ public class LocationSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
 
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -1,15 +1,15 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.HandlerList;
+import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.blocks.actions.PlayerActionBlock;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.Arrays;
 
@@ -30,7 +30,7 @@ public class PlayerActionBlockConfigGUI extends BaseBlockConfigGUI {
     
     @Override
     public void setupInventory() {
-        inventory = Bukkit.createInventory(null, 54, ChatColor.DARK_BLUE + "Настройка действия игрока");
+        inventory = GuiHolder.createInventory(this, 54, ChatColor.DARK_BLUE + "Настройка действия игрока");
         
         setupNavigationItems();
         setupActionTypeSelector();
@@ -247,13 +247,13 @@ public class PlayerActionBlockConfigGUI extends BaseBlockConfigGUI {
     }
     
     private void openActionTypeSelector() {
-        HandlerList.unregisterAll(this);
+        PlayerActionBlock.PlayerActionType[] types = PlayerActionBlock.PlayerActionType.values();
         
         // Создаем GUI для выбора типа действия
-        org.bukkit.inventory.Inventory actionSelector = Bukkit.createInventory(null, 54, 
+        org.bukkit.inventory.Inventory actionSelector = GuiHolder.createInventory(
+            event -> handleActionTypeClick(event, types), 54,
             ChatColor.DARK_BLUE + "Выберите тип действия");
         
-        PlayerActionBlock.PlayerActionType[] types = PlayerActionBlock.PlayerActionType.values();
         for (int i = 0; i < types.length && i < 45; i++) {
             PlayerActionBlock.PlayerActionType type = types[i];
             ItemStack item = new ItemStack(getActionTypeMaterial(type));
@@ -272,74 +272,29 @@ public class PlayerActionBlockConfigGUI extends BaseBlockConfigGUI {
         actionSelector.setItem(53, backItem);
         
         player.openInventory(actionSelector);
+    }
+    
+    /**
+     * Обработка кликов в селекторе типа действия
+     */
+    private void handleActionTypeClick(InventoryClickEvent event, PlayerActionBlock.PlayerActionType[] types) {
+        if (!event.getWhoClicked().equals(player)) {
+            return;
+        }
         
-        // Регистрируем временный обработчик
-        new org.bukkit.event.Listener() {
-            @org.bukkit.event.EventHandler
-            public void onInventoryClick(org.bukkit.event.inventory.InventoryClickEvent event) {
-                if (!event.getInventory().equals(actionSelector) || !event.getWhoClicked().equals(player)) {
-                    return;
-                }
-                
-                event.setCancelled(true);
-                int clickedSlot = event.getSlot();
-                
-                if (clickedSlot == 53) {
-                    // Назад
-                    HandlerList.unregisterAll(this);
-                    PlayerActionBlockConfigGUI.this.open();
-                    return;
-                }
-                
-                if (clickedSlot < types.length) {
-                    PlayerActionBlock.PlayerActionType selectedType = types[clickedSlot];
-                    block.setParameter("actionType", selectedType);
-                    
-                    HandlerList.unregisterAll(this);
-                    PlayerActionBlockConfigGUI.this.open();
-                }
-            }
-            
-            @org.bukkit.event.EventHandler
-            public void onInventoryClose(org.bukkit.event.inventory.InventoryCloseEvent event) {
-                if (event.getInventory().equals(actionSelector) && event.getPlayer().equals(player)) {
-                    HandlerList.unregisterAll(this);
-                }
-            }
-        };
+        event.setCancelled(true);
+        int clickedSlot = event.getSlot();
         
-        Bukkit.getPluginManager().registerEvents(new org.bukkit.event.Listener() {
-            @org.bukkit.event.EventHandler
-            public void onInventoryClick(org.bukkit.event.inventory.InventoryClickEvent event) {
-                if (!event.getInventory().equals(actionSelector) || !event.getWhoClicked().equals(player)) {
-                    return;
-                }
-                
-                event.setCancelled(true);
-                int clickedSlot = event.getSlot();
-                
-                if (clickedSlot == 53) {
-                    // Назад
-                    HandlerList.unregisterAll(this);
-                    PlayerActionBlockConfigGUI.this.open();
-                    return;
-                }
-                
-                if (clickedSlot < types.length) {
-                    PlayerActionBlock.PlayerActionType selectedType = types[clickedSlot];
-                    block.setParameter("actionType", selectedType);
-                    
-                    HandlerList.unregisterAll(this);
-                    PlayerActionBlockConfigGUI.this.open();
-                }
-            }
-            
-            @org.bukkit.event.EventHandler
-            public void onInventoryClose(org.bukkit.event.inventory.InventoryCloseEvent event) {
-                if (event.getInventory().equals(actionSelector) && event.getPlayer().equals(player)) {
-                    HandlerList.unregisterAll(this);
-                }
-            }
-        }, plugin);
+        if (clickedSlot == 53) {
+            // Назад
+            open();
+            return;
+        }
+        
+        if (clickedSlot < types.length) {
+            PlayerActionBlock.PlayerActionType selectedType = types[clickedSlot];
+            block.setParameter("actionType", selectedType);
+            open();
+        }
     }
 }
@@ -1,15 +1,14 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.actions.PlayerActionBlock;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -18,7 +17,7 @@ import java.util.function.Consumer;
 /**
  * GUI для выбора типа действия игрока
  */
-public class PlayerActionSelectorGUI implements Listener {
+public class PlayerActionSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -29,10 +28,7 @@ public class PlayerActionSelectorGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.onSelect = onSelect;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Выбор действия игрока");
-        
-        // Регистрируем listener
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Выбор действия игрока");
         
         setupGUI();
     }
@@ -107,7 +103,7 @@ public class PlayerActionSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -1,15 +1,14 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.events.PlayerEventBlock;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -18,7 +17,7 @@ import java.util.function.Consumer;
 /**
  * GUI для выбора типа события игрока
  */
-public class PlayerEventSelectorGUI implements Listener {
+public class PlayerEventSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -29,10 +28,7 @@ public class PlayerEventSelectorGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.onSelect = onSelect;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Выбор события игрока");
-        
-        // Регистрируем listener
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Выбор события игрока");
         
         setupGUI();
     }
@@ -112,7 +108,7 @@ public class PlayerEventSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
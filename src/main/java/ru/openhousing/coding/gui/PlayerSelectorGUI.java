@@ -3,12 +3,12 @@ package ru.openhousing.coding.gui;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.AnvilGUIHelper;
 import ru.openhousing.utils.ItemBuilder;
 
@@ -18,7 +18,7 @@ import java.util.function.Consumer;
 /**
  * Специализированный GUI для выбора игроков
  */
-public class PlayerSelectorGUI implements Listener {
+public class PlayerSelectorGUI implements GuiHandler {
 
     private final OpenHousing plugin;
     private final Player player;
@@ -29,9 +29,8 @@ public class PlayerSelectorGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.callback = callback;
-        this.inventory = Bukkit.createInventory(null, 45, "§6Выбор игрока");
+        this.inventory = GuiHolder.createInventory(this, 45, "§6Выбор игрока");
 
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
         setupGUI();
     }
 
@@ -132,7 +131,7 @@ public class PlayerSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
 
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -200,7 +199,7 @@ public class PlayerSelectorGUI implements Listener {
 
     private void showOnlinePlayers() {
         // Создаем новый инвентарь для онлайн игроков
-        Inventory onlineInventory = Bukkit.createInventory(null, 54, "§6Онлайн игроки");
+        Inventory onlineInventory = GuiHolder.createInventory(this, 54, "§6Онлайн игроки");
 
         int slot = 10;
         for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
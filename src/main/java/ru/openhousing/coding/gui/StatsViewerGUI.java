@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
@@ -14,6 +11,7 @@ import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.blocks.CodeBlock.ExecutionContext;
 import ru.openhousing.coding.blocks.CodeBlock.ExecutionContext.ExecutionStats;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.*;
 
@@ -42,7 +40,6 @@ public class StatsViewerGUI implements IBlockConfigurationGUI {
     public void open() {
         setupInventory();
         player.openInventory(inventory);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
     
     @Override
@@ -52,7 +49,7 @@ public class StatsViewerGUI implements IBlockConfigurationGUI {
     
     @Override
     public void close() {
-        HandlerList.unregisterAll(this);
+        // Обработчик привязан к инвентарю и освобождается вместе с ним
     }
     
     @Override
@@ -62,7 +59,7 @@ public class StatsViewerGUI implements IBlockConfigurationGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Статистика выполнения");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Статистика выполнения");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -325,7 +322,7 @@ public class StatsViewerGUI implements IBlockConfigurationGUI {
         return String.format("%.2f", frequency);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!isValidInventory(event.getInventory())) return;
         event.setCancelled(true);
@@ -349,7 +346,7 @@ public class StatsViewerGUI implements IBlockConfigurationGUI {
         }
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClose(InventoryCloseEvent event) {
         if (isValidInventory(event.getInventory())) {
             close();
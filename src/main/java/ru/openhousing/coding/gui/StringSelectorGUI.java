@@ -1,14 +1,13 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -18,7 +17,7 @@ import java.util.function.Consumer;
 /**
  * GUI для выбора строкового значения из списка
  */
-public class StringSelectorGUI implements Listener {
+public class StringSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -33,9 +32,7 @@ public class StringSelectorGUI implements Listener {
         this.title = title;
         this.options = options;
         this.onSelect = onSelect;
-        this.inventory = Bukkit.createInventory(null, 54, "§6" + title);
-        
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6" + title);
     }
     
     public void open() {
@@ -66,7 +63,7 @@ public class StringSelectorGUI implements Listener {
             .build());
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String eventTitle = null;
         try {
@@ -1,15 +1,14 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.values.ValueType;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 import ru.openhousing.utils.AnvilGUIHelper;
 
@@ -19,7 +18,7 @@ import java.util.function.Consumer;
 /**
  * Универсальный GUI для выбора значений
  */
-public class ValueSelectorGUI implements Listener {
+public class ValueSelectorGUI implements GuiHandler {
 
     private final OpenHousing plugin;
     private final Player player;
@@ -34,9 +33,8 @@ public class ValueSelectorGUI implements Listener {
         this.title = title;
         this.allowedTypes = allowedTypes;
         this.callback = callback;
-        this.inventory = Bukkit.createInventory(null, 54, "§6" + title);
+        this.inventory = GuiHolder.createInventory(this, 54, "§6" + title);
 
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
         setupGUI();
     }
 
@@ -95,7 +93,7 @@ public class ValueSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
 
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String eventTitle = null;
         try {
@@ -205,7 +203,7 @@ public class ValueSelectorGUI implements Listener {
 
     private void openItemSelector() {
         // Создаем GUI для выбора предметов
-        Inventory itemInventory = Bukkit.createInventory(null, 45, "§6Выбор предмета");
+        Inventory itemInventory = GuiHolder.createInventory(this, 45, "§6Выбор предмета");
 
         // Предмет в руке
         ItemStack inHand = player.getInventory().getItemInMainHand();
@@ -1,16 +1,14 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.values.VariableValue;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.AnvilGUIHelper;
 import ru.openhousing.utils.ItemBuilder;
 
@@ -20,7 +18,7 @@ import java.util.function.Consumer;
 /**
  * Профессиональный GUI для работы с переменными
  */
-public class VariableSelectorGUI implements Listener {
+public class VariableSelectorGUI implements GuiHandler {
 
     private final OpenHousing plugin;
     private final Player player;
@@ -33,9 +31,8 @@ public class VariableSelectorGUI implements Listener {
         this.player = player;
         this.callback = callback;
         this.isForSetting = isForSetting;
-        this.inventory = Bukkit.createInventory(null, 45, isForSetting ? "§6Установить переменную" : "§6Выбор переменной");
+        this.inventory = GuiHolder.createInventory(this, 45, isForSetting ? "§6Установить переменную" : "§6Выбор переменной");
 
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
         setupGUI();
     }
 
@@ -169,11 +166,9 @@ public class VariableSelectorGUI implements Listener {
      */
     public void close() {
         player.closeInventory();
-        // Отписываемся от событий
-        org.bukkit.event.HandlerList.unregisterAll(this);
     }
 
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = isForSetting ? "§6Установить переменную" : "§6Выбор переменной";
         String eventTitle = null;
@@ -274,18 +269,9 @@ public class VariableSelectorGUI implements Listener {
                 break;
         }
     }
-    
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        if (event.getPlayer().getUniqueId().equals(player.getUniqueId()) && 
-            event.getInventory().equals(inventory)) {
-            // Отписываемся от событий при закрытии
-            org.bukkit.event.HandlerList.unregisterAll(this);
-        }
-    }
 
     private void showSystemVariables() {
-        Inventory systemInventory = Bukkit.createInventory(null, 54, "§6Системные переменные");
+        Inventory systemInventory = GuiHolder.createInventory(this, 54, "§6Системные переменные");
 
         // Системные переменные
         systemInventory.setItem(10, new ItemBuilder(Material.CLOCK)
@@ -340,7 +326,7 @@ public class VariableSelectorGUI implements Listener {
     }
 
     private void showPlayerVariables() {
-        Inventory playerInventory = Bukkit.createInventory(null, 54, "§6Игровые переменные");
+        Inventory playerInventory = GuiHolder.createInventory(this, 54, "§6Игровые переменные");
 
         playerInventory.setItem(10, new ItemBuilder(Material.PLAYER_HEAD)
             .name("§eplayer:name")
@@ -387,7 +373,7 @@ public class VariableSelectorGUI implements Listener {
     }
 
     private void showTimeVariables() {
-        Inventory timeInventory = Bukkit.createInventory(null, 54, "§6Временные переменные");
+        Inventory timeInventory = GuiHolder.createInventory(this, 54, "§6Временные переменные");
 
         timeInventory.setItem(10, new ItemBuilder(Material.CLOCK)
             .name("§etime:hour")
@@ -425,7 +411,7 @@ public class VariableSelectorGUI implements Listener {
     }
 
     private void showWorldVariables() {
-        Inventory worldInventory = Bukkit.createInventory(null, 54, "§6Мировые переменные");
+        Inventory worldInventory = GuiHolder.createInventory(this, 54, "§6Мировые переменные");
 
         worldInventory.setItem(10, new ItemBuilder(Material.GRASS_BLOCK)
             .name("§eworld:spawn_x")
@@ -463,7 +449,7 @@ public class VariableSelectorGUI implements Listener {
     }
 
     private void showRecentVariables() {
-        Inventory recentInventory = Bukkit.createInventory(null, 54, "§6Недавние переменные");
+        Inventory recentInventory = GuiHolder.createInventory(this, 54, "§6Недавние переменные");
         
         // Получаем недавние переменные из конфигурации игрока
         java.util.List<String> recentVars = getRecentVariables(player);
@@ -544,7 +530,7 @@ public class VariableSelectorGUI implements Listener {
     }
 
     private void showMathConstants() {
-        Inventory mathInventory = Bukkit.createInventory(null, 54, "§6Математические константы");
+        Inventory mathInventory = GuiHolder.createInventory(this, 54, "§6Математические константы");
 
         mathInventory.setItem(10, new ItemBuilder(Material.COMPASS)
             .name("§emath:pi")
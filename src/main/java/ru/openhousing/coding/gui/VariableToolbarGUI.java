@@ -1,15 +1,14 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.variables.VariableType;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -19,7 +18,7 @@ import java.util.function.Consumer;
  * GUI для получения переменных (железный слиток в 9 слоте)
  * Согласно википедии: "Переменную можно получить нажав по железному слитку"
  */
-public class VariableToolbarGUI implements Listener {
+public class VariableToolbarGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -30,9 +29,8 @@ public class VariableToolbarGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.onVariableSelected = onVariableSelected;
-        this.inventory = Bukkit.createInventory(null, 27, "§6Получить переменную");
+        this.inventory = GuiHolder.createInventory(this, 27, "§6Получить переменную");
         
-        Bukkit.getPluginManager().registerEvents(this, plugin);
         setupInventory();
     }
     
@@ -112,7 +110,7 @@ public class VariableToolbarGUI implements Listener {
     /**
      * Обработка кликов в инвентаре
      */
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
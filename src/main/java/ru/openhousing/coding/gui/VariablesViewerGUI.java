@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
@@ -13,6 +10,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.blocks.CodeBlock.ExecutionContext;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.*;
 
@@ -44,7 +42,6 @@ public class VariablesViewerGUI implements IBlockConfigurationGUI {
     public void open() {
         setupInventory();
         player.openInventory(inventory);
-        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
     
     @Override
@@ -54,7 +51,7 @@ public class VariablesViewerGUI implements IBlockConfigurationGUI {
     
     @Override
     public void close() {
-        HandlerList.unregisterAll(this);
+        // Обработчик привязан к инвентарю и освобождается вместе с ним
     }
     
     @Override
@@ -64,7 +61,7 @@ public class VariablesViewerGUI implements IBlockConfigurationGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Переменные");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Переменные");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -256,7 +253,7 @@ public class VariablesViewerGUI implements IBlockConfigurationGUI {
                context.getSystemVariables().size();
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!isValidInventory(event.getInventory())) return;
         event.setCancelled(true);
@@ -325,7 +322,7 @@ public class VariablesViewerGUI implements IBlockConfigurationGUI {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClose(InventoryCloseEvent event) {
         if (isValidInventory(event.getInventory())) {
             close();
@@ -1,6 +1,5 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -14,6 +13,7 @@ import ru.openhousing.coding.constants.BlockParams;
 import ru.openhousing.coding.gui.BaseBlockConfigGUI;
 import ru.openhousing.coding.gui.ValueSelectorGUI;
 import ru.openhousing.coding.values.Value;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.Arrays;
 
@@ -34,7 +34,7 @@ public class AsyncRepeatConfigGUI extends BaseBlockConfigGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Настройка асинхронного цикла");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Настройка асинхронного цикла");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -172,7 +172,7 @@ public class AsyncRepeatConfigGUI extends BaseBlockConfigGUI {
      * Открытие селектора типа повторения
      */
     private void openRepeatTypeSelector() {
-        Inventory selector = Bukkit.createInventory(null, 54, "§8Выберите тип цикла");
+        Inventory selector = GuiHolder.createInventory(this, 54, "§8Выберите тип цикла");
         
         // Заполняем фон
         for (int i = 0; i < selector.getSize(); i++) {
@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
@@ -12,6 +9,9 @@ import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.variables.VariableType;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
+import ru.openhousing.gui.GuiIcon;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -21,7 +21,36 @@ import java.util.Map;
 /**
  * Уникальное GUI для настройки действий с существами
  */
-public class EntityActionConfigGUI implements Listener {
+public class EntityActionConfigGUI implements GuiHandler {
+    
+    // Статичные кнопки окна
+    private static final GuiIcon HEADER_ICON = new GuiIcon(() -> new ItemBuilder(Material.ZOMBIE_HEAD)
+        .name("§6Действие с существом")
+        .lore(Arrays.asList(
+            "§7Настройте действие для существ",
+            "§7Поддерживает все типы мобов",
+            "",
+            "§eDrag-n-drop переменных поддерживается"
+        ))
+        .build());
+    
+    private static final GuiIcon SAVE_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_DYE)
+        .name("§aСохранить действие")
+        .build());
+    
+    private static final GuiIcon TEST_ICON = new GuiIcon(() -> new ItemBuilder(Material.REDSTONE_TORCH)
+        .name("§eТестировать действие")
+        .lore(Arrays.asList(
+            "§7Проверить действие с текущими",
+            "§7параметрами на ближайшем существе",
+            "",
+            "§eКлик для теста"
+        ))
+        .build());
+    
+    private static final GuiIcon CANCEL_ICON = new GuiIcon(() -> new ItemBuilder(Material.RED_DYE)
+        .name("§cОтмена")
+        .build());
     
     private final OpenHousing plugin;
     private final Player player;
@@ -33,23 +62,14 @@ public class EntityActionConfigGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.block = block;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Действие с существом");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Действие с существом");
         
-        Bukkit.getPluginManager().registerEvents(this, plugin);
         setupInventory();
     }
     
     private void setupInventory() {
         // Заголовок
-        inventory.setItem(4, new ItemBuilder(Material.ZOMBIE_HEAD)
-            .name("§6Действие с существом")
-            .lore(Arrays.asList(
-                "§7Настройте действие для существ",
-                "§7Поддерживает все типы мобов",
-                "",
-                "§eDrag-n-drop переменных поддерживается"
-            ))
-            .build());
+        inventory.setItem(4, HEADER_ICON.get());
         
         setupEntityParameters();
         setupVariableSlots();
@@ -161,25 +181,13 @@ public class EntityActionConfigGUI implements Listener {
     
     private void setupControlButtons() {
         // Сохранить
-        inventory.setItem(45, new ItemBuilder(Material.LIME_DYE)
-            .name("§aСохранить действие")
-            .build());
+        inventory.setItem(45, SAVE_ICON.get());
         
         // Тест действия
-        inventory.setItem(49, new ItemBuilder(Material.REDSTONE_TORCH)
-            .name("§eТестировать действие")
-            .lore(Arrays.asList(
-                "§7Проверить действие с текущими",
-                "§7параметрами на ближайшем существе",
-                "",
-                "§eКлик для теста"
-            ))
-            .build());
+        inventory.setItem(49, TEST_ICON.get());
         
         // Отмена
-        inventory.setItem(53, new ItemBuilder(Material.RED_DYE)
-            .name("§cОтмена")
-            .build());
+        inventory.setItem(53, CANCEL_ICON.get());
     }
     
     private String getVariableValue(String parameterName) {
@@ -191,7 +199,7 @@ public class EntityActionConfigGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
@@ -225,7 +233,7 @@ public class EntityActionConfigGUI implements Listener {
         }
     }
     
-    @EventHandler
+    @Override
     public void onInventoryDrag(InventoryDragEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
@@ -12,6 +9,9 @@ import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.variables.VariableType;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
+import ru.openhousing.gui.GuiIcon;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -21,7 +21,49 @@ import java.util.Map;
 /**
  * Уникальное GUI для настройки событий с поддержкой переменных
  */
-public class EventConfigGUI implements Listener {
+public class EventConfigGUI implements GuiHandler {
+    
+    // Статичные кнопки окна
+    private static final GuiIcon HEADER_ICON = new GuiIcon(() -> new ItemBuilder(Material.REDSTONE_TORCH)
+        .name("§6Событие")
+        .lore(Arrays.asList(
+            "§7Настройте параметры события",
+            "§7События автоматически срабатывают",
+            "§7при выполнении условий",
+            "",
+            "§eПоддерживает drag-n-drop переменных"
+        ))
+        .build());
+    
+    private static final GuiIcon SAVE_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_DYE)
+        .name("§aСохранить настройки")
+        .lore("§7Применить все изменения к событию")
+        .build());
+    
+    private static final GuiIcon CANCEL_ICON = new GuiIcon(() -> new ItemBuilder(Material.RED_DYE)
+        .name("§cОтмена")
+        .lore("§7Закрыть без сохранения")
+        .build());
+    
+    private static final GuiIcon PREVIEW_ICON = new GuiIcon(() -> new ItemBuilder(Material.SPYGLASS)
+        .name("§eПредварительный просмотр")
+        .lore(Arrays.asList(
+            "§7Посмотреть настройки события",
+            "§7и проверить корректность",
+            "",
+            "§eКлик для просмотра"
+        ))
+        .build());
+    
+    private static final GuiIcon TEST_ICON = new GuiIcon(() -> new ItemBuilder(Material.REDSTONE_TORCH)
+        .name("§bИмитация события")
+        .lore(Arrays.asList(
+            "§7Вручную вызвать событие",
+            "§7для тестирования кода",
+            "",
+            "§eКлик для теста"
+        ))
+        .build());
     
     private final OpenHousing plugin;
     private final Player player;
@@ -33,24 +75,14 @@ public class EventConfigGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.block = block;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройка события");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройка события");
         
-        Bukkit.getPluginManager().registerEvents(this, plugin);
         setupInventory();
     }
     
     private void setupInventory() {
         // Заголовок
-        inventory.setItem(4, new ItemBuilder(Material.REDSTONE_TORCH)
-            .name("§6Событие")
-            .lore(Arrays.asList(
-                "§7Настройте параметры события",
-                "§7События автоматически срабатывают",
-                "§7при выполнении условий",
-                "",
-                "§eПоддерживает drag-n-drop переменных"
-            ))
-            .build());
+        inventory.setItem(4, HEADER_ICON.get());
         
         // Основные параметры события
         setupEventParameters();
@@ -198,38 +230,16 @@ public class EventConfigGUI implements Listener {
      */
     private void setupControlButtons() {
         // Сохранить
-        inventory.setItem(45, new ItemBuilder(Material.LIME_DYE)
-            .name("§aСохранить настройки")
-            .lore("§7Применить все изменения к событию")
-            .build());
+        inventory.setItem(45, SAVE_ICON.get());
         
         // Отмена
-        inventory.setItem(53, new ItemBuilder(Material.RED_DYE)
-            .name("§cОтмена")
-            .lore("§7Закрыть без сохранения")
-            .build());
+        inventory.setItem(53, CANCEL_ICON.get());
         
         // Предварительный просмотр
-        inventory.setItem(49, new ItemBuilder(Material.SPYGLASS)
-            .name("§eПредварительный просмотр")
-            .lore(Arrays.asList(
-                "§7Посмотреть настройки события",
-                "§7и проверить корректность",
-                "",
-                "§eКлик для просмотра"
-            ))
-            .build());
+        inventory.setItem(49, PREVIEW_ICON.get());
         
         // Тест события
-        inventory.setItem(47, new ItemBuilder(Material.REDSTONE_TORCH)
-            .name("§bИмитация события")
-            .lore(Arrays.asList(
-                "§7Вручную вызвать событие",
-                "§7для тестирования кода",
-                "",
-                "§eКлик для теста"
-            ))
-            .build());
+        inventory.setItem(47, TEST_ICON.get());
     }
     
     /**
@@ -262,7 +272,7 @@ public class EventConfigGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
@@ -305,7 +315,7 @@ public class EventConfigGUI implements Listener {
     /**
      * Обработка drag-n-drop переменных
      */
-    @EventHandler
+    @Override
     public void onInventoryDrag(InventoryDragEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
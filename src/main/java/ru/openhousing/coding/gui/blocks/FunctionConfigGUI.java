@@ -1,16 +1,16 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
+import ru.openhousing.gui.GuiIcon;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -20,7 +20,36 @@ import java.util.Map;
 /**
  * GUI для настройки функций
  */
-public class FunctionConfigGUI implements Listener {
+public class FunctionConfigGUI implements GuiHandler {
+    
+    // Статичные кнопки окна
+    private static final GuiIcon HEADER_ICON = new GuiIcon(() -> new ItemBuilder(Material.BOOK)
+        .name("§6Настройка функции")
+        .lore(Arrays.asList(
+            "§7Создайте пользовательскую функцию",
+            "§7с параметрами и возвращаемым значением",
+            "",
+            "§eDrag-n-drop переменных поддерживается"
+        ))
+        .build());
+    
+    private static final GuiIcon SAVE_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_DYE)
+        .name("§aСохранить функцию")
+        .build());
+    
+    private static final GuiIcon TEST_ICON = new GuiIcon(() -> new ItemBuilder(Material.REDSTONE_TORCH)
+        .name("§eТестировать функцию")
+        .lore(Arrays.asList(
+            "§7Проверить функцию с тестовыми",
+            "§7параметрами",
+            "",
+            "§eКлик для теста"
+        ))
+        .build());
+    
+    private static final GuiIcon CANCEL_ICON = new GuiIcon(() -> new ItemBuilder(Material.RED_DYE)
+        .name("§cОтмена")
+        .build());
     
     private final OpenHousing plugin;
     private final Player player;
@@ -32,23 +61,14 @@ public class FunctionConfigGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.block = block;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройка функции");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройка функции");
         
-        Bukkit.getPluginManager().registerEvents(this, plugin);
         setupInventory();
     }
     
     private void setupInventory() {
         // Заголовок
-        inventory.setItem(4, new ItemBuilder(Material.BOOK)
-            .name("§6Настройка функции")
-            .lore(Arrays.asList(
-                "§7Создайте пользовательскую функцию",
-                "§7с параметрами и возвращаемым значением",
-                "",
-                "§eDrag-n-drop переменных поддерживается"
-            ))
-            .build());
+        inventory.setItem(4, HEADER_ICON.get());
         
         setupFunctionParameters();
         setupVariableSlots();
@@ -153,25 +173,13 @@ public class FunctionConfigGUI implements Listener {
     
     private void setupControlButtons() {
         // Сохранить
-        inventory.setItem(45, new ItemBuilder(Material.LIME_DYE)
-            .name("§aСохранить функцию")
-            .build());
+        inventory.setItem(45, SAVE_ICON.get());
         
         // Тест функции
-        inventory.setItem(49, new ItemBuilder(Material.REDSTONE_TORCH)
-            .name("§eТестировать функцию")
-            .lore(Arrays.asList(
-                "§7Проверить функцию с тестовыми",
-                "§7параметрами",
-                "",
-                "§eКлик для теста"
-            ))
-            .build());
+        inventory.setItem(49, TEST_ICON.get());
         
         // Отмена
-        inventory.setItem(53, new ItemBuilder(Material.RED_DYE)
-            .name("§cОтмена")
-            .build());
+        inventory.setItem(53, CANCEL_ICON.get());
     }
     
     private String getVariableValue(String parameterName) {
@@ -183,7 +191,7 @@ public class FunctionConfigGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
@@ -220,7 +228,7 @@ public class FunctionConfigGUI implements Listener {
         }
     }
     
-    @EventHandler
+    @Override
     public void onInventoryDrag(InventoryDragEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
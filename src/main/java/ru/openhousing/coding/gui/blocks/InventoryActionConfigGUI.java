@@ -9,6 +9,7 @@ import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.blocks.inventory.InventoryActionBlock;
 import ru.openhousing.coding.constants.BlockParams;
+import ru.openhousing.gui.GuiIcon;
 import ru.openhousing.utils.ItemBuilder;
 import ru.openhousing.utils.MessageUtil;
 
@@ -20,6 +21,39 @@ import java.util.List;
  */
 public class InventoryActionConfigGUI {
     
+    // Статичные кнопки окна
+    private static final GuiIcon HEADER_ICON = new GuiIcon(() -> new ItemBuilder(Material.CHEST)
+        .name("§6§lДействия с инвентарем")
+        .lore(
+            "§7Настройте параметры блока",
+            "§7для работы с инвентарем игрока"
+        )
+        .build());
+    
+    private static final GuiIcon SAVE_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_CONCRETE)
+        .name("§a§lСохранить")
+        .lore(
+            "§7Сохранить настройки",
+            "§7и закрыть GUI"
+        )
+        .build());
+    
+    private static final GuiIcon CANCEL_ICON = new GuiIcon(() -> new ItemBuilder(Material.RED_CONCRETE)
+        .name("§c§lОтмена")
+        .lore(
+            "§7Отменить изменения",
+            "§7и закрыть GUI"
+        )
+        .build());
+    
+    private static final GuiIcon RESET_ICON = new GuiIcon(() -> new ItemBuilder(Material.ORANGE_CONCRETE)
+        .name("§6§lСброс")
+        .lore(
+            "§7Сбросить к значениям",
+            "§7по умолчанию"
+        )
+        .build());
+    
     private final OpenHousing plugin;
     private final Player player;
     private final CodeBlock block;
@@ -53,13 +87,7 @@ public class InventoryActionConfigGUI {
         }
         
         // Заголовок
-        inventory.setItem(4, new ItemBuilder(Material.CHEST)
-            .name("§6§lДействия с инвентарем")
-            .lore(
-                "§7Настройте параметры блока",
-                "§7для работы с инвентарем игрока"
-            )
-            .build());
+        inventory.setItem(4, HEADER_ICON.get());
         
         // Выбор действия
         setupActionSelector();
@@ -216,31 +244,13 @@ public class InventoryActionConfigGUI {
      */
     private void setupControlButtons() {
         // Кнопка сохранения
-        inventory.setItem(49, new ItemBuilder(Material.LIME_CONCRETE)
-            .name("§a§lСохранить")
-            .lore(
-                "§7Сохранить настройки",
-                "§7и закрыть GUI"
-            )
-            .build());
+        inventory.setItem(49, SAVE_ICON.get());
         
         // Кнопка отмены
-        inventory.setItem(51, new ItemBuilder(Material.RED_CONCRETE)
-            .name("§c§lОтмена")
-            .lore(
-                "§7Отменить изменения",
-                "§7и закрыть GUI"
-            )
-            .build());
+        inventory.setItem(51, CANCEL_ICON.get());
         
         // Кнопка сброса
-        inventory.setItem(47, new ItemBuilder(Material.ORANGE_CONCRETE)
-            .name("§6§lСброс")
-            .lore(
-                "§7Сбросить к значениям",
-                "§7по умолчанию"
-            )
-            .build());
+        inventory.setItem(47, RESET_ICON.get());
     }
     
     /**
@@ -1,6 +1,5 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -12,6 +11,7 @@ import ru.openhousing.coding.blocks.math.MathBlock;
 import ru.openhousing.coding.blocks.math.MathBlock.MathOperation;
 import ru.openhousing.coding.constants.BlockParams;
 import ru.openhousing.coding.gui.BaseBlockConfigGUI;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.Arrays;
 
@@ -33,7 +33,7 @@ public class MathConfigGUI extends BaseBlockConfigGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Настройка математической операции");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Настройка математической операции");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -172,7 +172,7 @@ public class MathConfigGUI extends BaseBlockConfigGUI {
      * Открытие селектора операции
      */
     private void openOperationSelector() {
-        Inventory selector = Bukkit.createInventory(null, 54, "§8Выберите операцию");
+        Inventory selector = GuiHolder.createInventory(this, 54, "§8Выберите операцию");
         
         // Заполняем фон
         for (int i = 0; i < selector.getSize(); i++) {
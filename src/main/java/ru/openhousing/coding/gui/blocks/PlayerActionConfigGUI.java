@@ -1,10 +1,7 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
@@ -12,6 +9,9 @@ import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.variables.VariableType;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
+import ru.openhousing.gui.GuiIcon;
 import ru.openhousing.utils.ItemBuilder;
 
 import java.util.Arrays;
@@ -21,7 +21,38 @@ import java.util.Map;
 /**
  * Уникальное GUI для настройки действий игрока с поддержкой переменных
  */
-public class PlayerActionConfigGUI implements Listener {
+public class PlayerActionConfigGUI implements GuiHandler {
+    
+    // Статичные кнопки окна
+    private static final GuiIcon HEADER_ICON = new GuiIcon(() -> new ItemBuilder(Material.PLAYER_HEAD)
+        .name("§6Действие игрока")
+        .lore(Arrays.asList(
+            "§7Настройте параметры действия",
+            "§7Перетащите переменные в слоты",
+            "",
+            "§eПоддерживает drag-n-drop переменных"
+        ))
+        .build());
+    
+    private static final GuiIcon SAVE_ICON = new GuiIcon(() -> new ItemBuilder(Material.LIME_DYE)
+        .name("§aСохранить настройки")
+        .lore("§7Применить все изменения к блоку")
+        .build());
+    
+    private static final GuiIcon CANCEL_ICON = new GuiIcon(() -> new ItemBuilder(Material.RED_DYE)
+        .name("§cОтмена")
+        .lore("§7Закрыть без сохранения")
+        .build());
+    
+    private static final GuiIcon PREVIEW_ICON = new GuiIcon(() -> new ItemBuilder(Material.SPYGLASS)
+        .name("§eПредварительный просмотр")
+        .lore(Arrays.asList(
+            "§7Посмотреть как будет выглядеть",
+            "§7выполнение этого действия",
+            "",
+            "§eКлик для просмотра"
+        ))
+        .build());
     
     private final OpenHousing plugin;
     private final Player player;
@@ -33,23 +64,14 @@ public class PlayerActionConfigGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.block = block;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройка действия игрока");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройка действия игрока");
         
-        Bukkit.getPluginManager().registerEvents(this, plugin);
         setupInventory();
     }
     
     private void setupInventory() {
         // Заголовок
-        inventory.setItem(4, new ItemBuilder(Material.PLAYER_HEAD)
-            .name("§6Действие игрока")
-            .lore(Arrays.asList(
-                "§7Настройте параметры действия",
-                "§7Перетащите переменные в слоты",
-                "",
-                "§eПоддерживает drag-n-drop переменных"
-            ))
-            .build());
+        inventory.setItem(4, HEADER_ICON.get());
         
         // Основные параметры действия
         setupActionParameters();
@@ -174,27 +196,13 @@ public class PlayerActionConfigGUI implements Listener {
      */
     private void setupControlButtons() {
         // Сохранить
-        inventory.setItem(45, new ItemBuilder(Material.LIME_DYE)
-            .name("§aСохранить настройки")
-            .lore("§7Применить все изменения к блоку")
-            .build());
+        inventory.setItem(45, SAVE_ICON.get());
         
         // Отмена
-        inventory.setItem(53, new ItemBuilder(Material.RED_DYE)
-            .name("§cОтмена")
-            .lore("§7Закрыть без сохранения")
-            .build());
+        inventory.setItem(53, CANCEL_ICON.get());
         
         // Предварительный просмотр
-        inventory.setItem(49, new ItemBuilder(Material.SPYGLASS)
-            .name("§eПредварительный просмотр")
-            .lore(Arrays.asList(
-                "§7Посмотреть как будет выглядеть",
-                "§7выполнение этого действия",
-                "",
-                "§eКлик для просмотра"
-            ))
-            .build());
+        inventory.setItem(49, PREVIEW_ICON.get());
     }
     
     /**
@@ -212,7 +220,7 @@ public class PlayerActionConfigGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
@@ -249,7 +257,7 @@ public class PlayerActionConfigGUI implements Listener {
     /**
      * Обработка drag-n-drop переменных
      */
-    @EventHandler
+    @Override
     public void onInventoryDrag(InventoryDragEvent event) {
         if (!event.getInventory().equals(inventory)) return;
         if (!(event.getWhoClicked() instanceof Player)) return;
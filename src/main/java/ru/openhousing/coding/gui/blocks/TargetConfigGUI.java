@@ -1,6 +1,5 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -11,6 +10,7 @@ import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.control.TargetBlock;
 import ru.openhousing.coding.blocks.control.TargetBlock.TargetType;
 import ru.openhousing.coding.gui.BaseBlockConfigGUI;
+import ru.openhousing.gui.GuiHolder;
 
 import java.util.Arrays;
 
@@ -31,7 +31,7 @@ public class TargetConfigGUI extends BaseBlockConfigGUI {
     
     @Override
     public void setupInventory() {
-        this.inventory = Bukkit.createInventory(null, 36, "§8Настройка цели");
+        this.inventory = GuiHolder.createInventory(this, 36, "§8Настройка цели");
         
         // Заполняем фон
         for (int i = 0; i < inventory.getSize(); i++) {
@@ -150,7 +150,7 @@ public class TargetConfigGUI extends BaseBlockConfigGUI {
      * Открытие селектора типа цели
      */
     private void openTargetTypeSelector() {
-        Inventory selector = Bukkit.createInventory(null, 54, "§8Выберите тип цели");
+        Inventory selector = GuiHolder.createInventory(this, 54, "§8Выберите тип цели");
         
         // Заполняем фон
         for (int i = 0; i < selector.getSize(); i++) {
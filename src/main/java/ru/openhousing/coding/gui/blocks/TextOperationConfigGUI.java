@@ -1,15 +1,14 @@
 package ru.openhousing.coding.gui.blocks;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.constants.BlockParams;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 import ru.openhousing.utils.ItemBuilder;
 import ru.openhousing.utils.MessageUtil;
 
@@ -19,7 +18,7 @@ import java.util.function.Consumer;
 /**
  * GUI для настройки операций с текстом
  */
-public class TextOperationConfigGUI implements Listener {
+public class TextOperationConfigGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -36,10 +35,9 @@ public class TextOperationConfigGUI implements Listener {
         this.player = player;
         this.block = block;
         this.onSave = onSave;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройка операций с текстом");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройка операций с текстом");
         
         setupGUI();
-        registerListener();
     }
     
     /**
@@ -203,13 +201,6 @@ public class TextOperationConfigGUI implements Listener {
         }
     }
     
-    /**
-     * Регистрация слушателя
-     */
-    private void registerListener() {
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
     /**
      * Открытие GUI
      */
@@ -217,7 +208,7 @@ public class TextOperationConfigGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getView().getTitle().equals("§6Настройка операций с текстом") || 
             !event.getWhoClicked().equals(player)) {
@@ -267,7 +258,8 @@ public class TextOperationConfigGUI implements Listener {
      * Открытие селектора типа операции
      */
     private void openOperationTypeSelector() {
-        Inventory selector = Bukkit.createInventory(null, 36, "§6Выбор типа операции");
+        Inventory selector = new InventorySelector(player, 36, "§6Выбор типа операции",
+            this::selectOperationType).getInventory();
         
         selector.setItem(10, new ItemBuilder(Material.BOOK)
             .name("§aВерхний регистр")
@@ -309,26 +301,30 @@ public class TextOperationConfigGUI implements Listener {
             .lore(Arrays.asList("§7Объединяет элементы с разделителем"))
             .build());
         
-        // Временный слушатель для селектора
-        new InventorySelector(plugin, player, selector, (selectedSlot) -> {
-            String newOperationType = null;
-            switch (selectedSlot) {
-                case 10: newOperationType = "UPPERCASE"; break;
-                case 11: newOperationType = "LOWERCASE"; break;
-                case 12: newOperationType = "REVERSE"; break;
-                case 13: newOperationType = "LENGTH"; break;
-                case 14: newOperationType = "SUBSTRING"; break;
-                case 15: newOperationType = "REPLACE"; break;
-                case 16: newOperationType = "SPLIT"; break;
-                case 17: newOperationType = "JOIN"; break;
-            }
-            
-            if (newOperationType != null) {
-                block.setParameter(BlockParams.OPERATION, newOperationType);
-                setupGUI(); // Обновляем GUI
-                open();
-            }
-        });
+        player.openInventory(selector);
+    }
+    
+    /**
+     * Применение типа операции, выбранного в селекторе
+     */
+    private void selectOperationType(int selectedSlot) {
+        String newOperationType = null;
+        switch (selectedSlot) {
+            case 10: newOperationType = "UPPERCASE"; break;
+            case 11: newOperationType = "LOWERCASE"; break;
+            case 12: newOperationType = "REVERSE"; break;
+            case 13: newOperationType = "LENGTH"; break;
+            case 14: newOperationType = "SUBSTRING"; break;
+            case 15: newOperationType = "REPLACE"; break;
+            case 16: newOperationType = "SPLIT"; break;
+            case 17: newOperationType = "JOIN"; break;
+        }
+        
+        if (newOperationType != null) {
+            block.setParameter(BlockParams.OPERATION, newOperationType);
+            setupGUI(); // Обновляем GUI
+            open();
+        }
     }
     
     /**
@@ -426,29 +422,27 @@ public class TextOperationConfigGUI implements Listener {
      */
     private void close() {
         player.closeInventory();
-        InventoryClickEvent.getHandlerList().unregister(this);
     }
     
     /**
      * Вспомогательный класс для селекторов
      */
-    private static class InventorySelector implements Listener {
-        private final OpenHousing plugin;
+    private static class InventorySelector implements GuiHandler {
         private final Player player;
         private final Inventory inventory;
         private final Consumer<Integer> callback;
         
-        public InventorySelector(OpenHousing plugin, Player player, Inventory inventory, Consumer<Integer> callback) {
-            this.plugin = plugin;
+        public InventorySelector(Player player, int size, String title, Consumer<Integer> callback) {
             this.player = player;
-            this.inventory = inventory;
             this.callback = callback;
-            
-            Bukkit.getPluginManager().registerEvents(this, plugin);
-            player.openInventory(inventory);
+            this.inventory = GuiHolder.createInventory(this, size, title);
+        }
+        
+        public Inventory getInventory() {
+            return inventory;
         }
         
-        @EventHandler
+        @Override
         public void onInventoryClick(InventoryClickEvent event) {
             if (!event.getView().getTitle().equals("§6Выбор типа операции") || 
                 !event.getWhoClicked().equals(player)) {
@@ -461,7 +455,6 @@ public class TextOperationConfigGUI implements Listener {
             if (slot >= 10 && slot <= 17) {
                 callback.accept(slot);
                 player.closeInventory();
-                InventoryClickEvent.getHandlerList().unregister(this);
             }
         }
     }
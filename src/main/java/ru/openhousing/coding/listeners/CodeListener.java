@@ -31,12 +31,20 @@ public class CodeListener implements Listener {
     
     // ========== СОБЫТИЯ ИГРОКА ==========
     
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Загрузка скрипта начинается до входа игрока, в потоке предзагрузки
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            codeManager.prefetchScript(event.getUniqueId());
+        }
+    }
+    
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         codeManager.handleEvent(event, player);
         
-        // Загружаем скрипт игрока при подключении
+        // Регистрируем предзагруженный скрипт (основной поток не ждет базу)
         codeManager.loadScript(player);
     }
     
@@ -6,11 +6,13 @@ import org.bukkit.event.Event;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.ProjectileHitEvent;
+import ru.openhousing.coding.script.TextTemplate;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Обработчик плейсхолдеров согласно википедии
@@ -19,6 +21,8 @@ public class PlaceholderProcessor {
     
     private static final Random random = new Random();
     private static final Map<String, PlaceholderInfo> placeholders = new HashMap<>();
+    private static final Map<String, TextTemplate> templates = new ConcurrentHashMap<>(); // Разобранные тексты
+    private static final int MAX_CACHED_TEMPLATES = 256;
     
     static {
         initializePlaceholders();
@@ -95,20 +99,31 @@ public class PlaceholderProcessor {
     public static String processPlaceholders(String text, Event event, Player defaultPlayer) {
         if (text == null) return text;
         
-        String result = text;
+        // Текст разбирается один раз, затем подставляются только найденные в нем плейсхолдеры
+        TextTemplate template = getTemplate(text);
+        if (!template.hasPlaceholders()) {
+            return text;
+        }
         
         // Извлекаем контекст из события
         PlaceholderContext context = extractContextFromEvent(event, defaultPlayer);
         
-        // Обрабатываем все плейсхолдеры
-        for (String placeholder : placeholders.keySet()) {
-            if (result.contains(placeholder)) {
-                String replacement = getPlaceholderValue(placeholder, context);
-                result = result.replace(placeholder, replacement);
+        return template.render(null, name -> getPlaceholderValue(name, context));
+    }
+    
+    /**
+     * Разобранный текст (кэшируется)
+     */
+    private static TextTemplate getTemplate(String text) {
+        TextTemplate template = templates.get(text);
+        if (template == null) {
+            if (templates.size() >= MAX_CACHED_TEMPLATES) {
+                templates.clear();
             }
+            template = TextTemplate.compile(text);
+            templates.put(text, template);
         }
-        
-        return result;
+        return template;
     }
     
     /**
@@ -144,42 +159,44 @@ public class PlaceholderProcessor {
     }
     
     /**
-     * Получение значения плейсхолдера
+     * Получение значения плейсхолдера по имени без %
+     *
+     * @return значение или null, если плейсхолдер неизвестен (остается в тексте как есть)
      */
-    private static String getPlaceholderValue(String placeholder, PlaceholderContext context) {
-        switch (placeholder) {
-            case "%player%":
+    private static String getPlaceholderValue(String name, PlaceholderContext context) {
+        switch (name) {
+            case "player":
                 return context.defaultPlayer != null ? context.defaultPlayer.getName() : "Unknown";
                 
-            case "%damager%":
+            case "damager":
                 return getEntityName(context.damager);
                 
-            case "%victim%":
+            case "victim":
                 return getEntityName(context.victim);
                 
-            case "%killer%":
+            case "killer":
                 return getEntityName(context.killer);
                 
-            case "%selected%":
+            case "selected":
                 return getEntityName(context.selectedEntity);
                 
-            case "%selection%":
+            case "selection":
                 return getSelectionString(context.selectedEntities);
                 
-            case "%shooter%":
-                return getEntityName((Entity) context.shooter);
+            case "shooter":
+                return getEntityName(context.shooter);
                 
-            case "%default%":
+            case "default":
                 return getEntityName(context.defaultEntity);
                 
-            case "%entity%":
+            case "entity":
                 return getEntityName(context.entity);
                 
-            case "%random%":
+            case "random":
                 return getRandomPlayerName();
                 
             default:
-                return placeholder; // Возвращаем как есть, если не найден
+                return null;
         }
     }
     
@@ -0,0 +1,237 @@
+package ru.openhousing.coding.scheduler;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бюджет выполнения скрипта.
+ *
+ * Считает выполненные блоки, итерации циклов и глубину вызовов функций.
+ * Как только один из лимитов превышен, бюджет считается исчерпанным и выполнение
+ * прерывается в ближайшей точке проверки. Время проверяется не на каждом блоке,
+ * а раз в TIME_CHECK_INTERVAL операций, поэтому основной лимит - детерминированный счетчик.
+ */
+public final class ExecutionBudget {
+
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    private final Limits limits;
+    private long startNanos;
+    private int blocks;
+    private int iterations;
+    private int callDepth;
+    private int operationsSinceTimeCheck;
+    private String exhaustedReason;
+
+    private ExecutionBudget(Limits limits) {
+        this.limits = limits;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Учет выполнения блока
+     *
+     * @return false, если бюджет исчерпан
+     */
+    public boolean consumeBlock() {
+        if (exhaustedReason != null) {
+            return false;
+        }
+        if (++blocks > limits.maxBlocks) {
+            return exhaust("превышен лимит блоков (" + limits.maxBlocks + ")");
+        }
+        return checkTime();
+    }
+
+    /**
+     * Учет итерации цикла
+     *
+     * @return false, если бюджет исчерпан
+     */
+    public boolean consumeIteration() {
+        if (exhaustedReason != null) {
+            return false;
+        }
+        if (++iterations > limits.maxLoopIterations) {
+            return exhaust("превышен лимит итераций циклов (" + limits.maxLoopIterations + ")");
+        }
+        return checkTime();
+    }
+
+    /**
+     * Вход в вызов функции
+     *
+     * @return false, если превышена глубина вызовов (exitCall вызывать не нужно)
+     */
+    public boolean enterCall() {
+        if (exhaustedReason != null) {
+            return false;
+        }
+        if (callDepth + 1 > limits.maxCallDepth) {
+            return exhaust("превышена глубина вызовов (" + limits.maxCallDepth + ")");
+        }
+        callDepth++;
+        return true;
+    }
+
+    /**
+     * Выход из вызова функции
+     */
+    public void exitCall() {
+        if (callDepth > 0) {
+            callDepth--;
+        }
+    }
+
+    /**
+     * Новый отрезок выполнения для кадра планировщика: счетчики блоков, итераций
+     * и времени начинаются заново, исчерпанный бюджет снова доступен
+     */
+    public void startSlice() {
+        startNanos = System.nanoTime();
+        blocks = 0;
+        iterations = 0;
+        operationsSinceTimeCheck = 0;
+        exhaustedReason = null;
+    }
+
+    private boolean checkTime() {
+        if (limits.maxTimeNanos <= 0 || ++operationsSinceTimeCheck < TIME_CHECK_INTERVAL) {
+            return true;
+        }
+        operationsSinceTimeCheck = 0;
+        if (System.nanoTime() - startNanos > limits.maxTimeNanos) {
+            return exhaust("превышено время выполнения ("
+                + TimeUnit.NANOSECONDS.toMillis(limits.maxTimeNanos) + "ms)");
+        }
+        return true;
+    }
+
+    private boolean exhaust(String reason) {
+        exhaustedReason = reason;
+        return false;
+    }
+
+    public boolean isExhausted() {
+        return exhaustedReason != null;
+    }
+
+    public String getExhaustedReason() {
+        return exhaustedReason;
+    }
+
+    public int getBlocksExecuted() {
+        return blocks;
+    }
+
+    public int getLoopIterations() {
+        return iterations;
+    }
+
+    public int getCallDepth() {
+        return callDepth;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Лимиты выполнения скрипта (неизменяемые, общие для всех запусков)
+     */
+    public static final class Limits {
+
+        /** Без ограничений (скрипты, запущенные не из событий) */
+        public static final Limits UNLIMITED = new Limits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+
+        private final int maxBlocks;
+        private final int maxLoopIterations;
+        private final int maxCallDepth;
+        private final long maxTimeNanos;
+
+        /**
+         * @param maxTimeMs лимит времени в миллисекундах, 0 - без ограничения
+         */
+        public Limits(int maxBlocks, int maxLoopIterations, int maxCallDepth, long maxTimeMs) {
+            this.maxBlocks = maxBlocks;
+            this.maxLoopIterations = maxLoopIterations;
+            this.maxCallDepth = maxCallDepth;
+            this.maxTimeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxTimeMs));
+        }
+
+        /**
+         * Лимиты из секции coding конфигурации
+         */
+        public static Limits fromConfig(ConfigurationSection coding) {
+            if (coding == null) {
+                return UNLIMITED;
+            }
+            return new Limits(
+                coding.getInt("max-blocks-per-execution", 10000),
+                coding.getInt("max-loop-iterations", 10000),
+                coding.getInt("max-nesting-depth", 20),
+                coding.getLong("max-execution-time", 50)
+            );
+        }
+
+        /**
+         * Лимиты с переопределениями из настроек дома.
+         * Дом может только ужесточить лимиты сервера, но не ослабить их.
+         */
+        public Limits withOverrides(Map<String, Object> settings) {
+            if (settings == null || settings.isEmpty()) {
+                return this;
+            }
+            int blocks = Math.min(maxBlocks, intSetting(settings, "max-blocks-per-execution", maxBlocks));
+            int loops = Math.min(maxLoopIterations, intSetting(settings, "max-loop-iterations", maxLoopIterations));
+            int depth = Math.min(maxCallDepth, intSetting(settings, "max-nesting-depth", maxCallDepth));
+
+            long timeMs = getMaxTimeMs();
+            int houseTimeMs = intSetting(settings, "max-execution-time", 0);
+            if (houseTimeMs > 0 && (timeMs == 0 || houseTimeMs < timeMs)) {
+                timeMs = houseTimeMs;
+            }
+            return new Limits(blocks, loops, depth, timeMs);
+        }
+
+        private static int intSetting(Map<String, Object> settings, String key, int def) {
+            Object value = settings.get(key);
+            if (value instanceof Number) {
+                return ((Number) value).intValue();
+            }
+            if (value instanceof String) {
+                try {
+                    return Integer.parseInt((String) value);
+                } catch (NumberFormatException e) {
+                    return def;
+                }
+            }
+            return def;
+        }
+
+        /**
+         * Новый бюджет для одного запуска скрипта
+         */
+        public ExecutionBudget newBudget() {
+            return new ExecutionBudget(this);
+        }
+
+        public int getMaxBlocks() {
+            return maxBlocks;
+        }
+
+        public int getMaxLoopIterations() {
+            return maxLoopIterations;
+        }
+
+        public int getMaxCallDepth() {
+            return maxCallDepth;
+        }
+
+        public long getMaxTimeMs() {
+            return TimeUnit.NANOSECONDS.toMillis(maxTimeNanos);
+        }
+    }
+}
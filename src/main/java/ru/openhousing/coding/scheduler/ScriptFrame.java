@@ -0,0 +1,55 @@
+package ru.openhousing.coding.scheduler;
+
+import java.util.UUID;
+
+/**
+ * Приостанавливаемый кадр выполнения скрипта.
+ * Кадр хранит состояние (например, номер итерации цикла) между тиками,
+ * а планировщик вызывает resume() до тех пор, пока кадр не завершится.
+ */
+public abstract class ScriptFrame {
+
+    /** Кадр завершен */
+    public static final long DONE = -1L;
+
+    /** Продолжить при первой возможности (в этом же тике, если хватит бюджета) */
+    public static final long CONTINUE = 0L;
+
+    private final UUID ownerId;
+    long wakeTick; // Тик, в который кадр нужно разбудить (управляется планировщиком)
+
+    protected ScriptFrame(UUID ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Выполнение одного шага кадра
+     *
+     * @return DONE, CONTINUE или задержка до следующего шага в тиках
+     */
+    public abstract long resume();
+
+    /**
+     * Может ли кадр продолжать выполнение (например, игрок еще онлайн)
+     */
+    public boolean isAlive() {
+        return true;
+    }
+
+    /**
+     * Вызывается, когда кадр снимается с планировщика до завершения
+     */
+    public void cancel() {
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Перевод задержки в миллисекундах в тики (не меньше одного тика)
+     */
+    public static long millisToTicks(long millis) {
+        return Math.max(1L, (millis + 49L) / 50L);
+    }
+}
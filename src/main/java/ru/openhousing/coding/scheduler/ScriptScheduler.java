@@ -0,0 +1,240 @@
+package ru.openhousing.coding.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import ru.openhousing.OpenHousing;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Кооперативный планировщик скриптов.
+ *
+ * Задержка в скрипте не блокирует поток: кадр выполнения возвращает количество тиков,
+ * через которое его нужно продолжить. Каждый тик планировщик тратит не больше
+ * заданного бюджета времени на все дома и обходит игроков по кругу, выполняя
+ * по одному шагу кадра за ход, чтобы один игрок не мог занять весь тик.
+ */
+public class ScriptScheduler {
+
+    private final long tickBudgetNanos;
+    private final int maxFramesPerPlayer;
+
+    // Новые кадры могут приходить из асинхронных событий (чат), поэтому сначала попадают сюда
+    private final Queue<ScriptFrame> incoming = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, AtomicInteger> framesPerPlayer = new ConcurrentHashMap<>();
+
+    // Состояние ниже меняется только в потоке сервера внутри tick()
+    private final Map<UUID, ArrayDeque<ScriptFrame>> readyByPlayer = new HashMap<>();
+    private final ArrayDeque<UUID> rotation = new ArrayDeque<>();
+    private final PriorityQueue<ScriptFrame> sleeping =
+        new PriorityQueue<>((a, b) -> Long.compare(a.wakeTick, b.wakeTick));
+    private final Queue<UUID> cancelRequests = new ConcurrentLinkedQueue<>();
+
+    private long currentTick = 0;
+    private long framesResumed = 0;
+    private BukkitTask task;
+
+    public ScriptScheduler(OpenHousing plugin) {
+        this(TimeUnit.MILLISECONDS.toNanos(
+                plugin.getConfigManager().getMainConfig().getLong("coding.scheduler.tick-budget-ms", 5L)),
+             plugin.getConfigManager().getMainConfig().getInt("coding.scheduler.max-frames-per-player", 100));
+    }
+
+    public ScriptScheduler(long tickBudgetNanos, int maxFramesPerPlayer) {
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.maxFramesPerPlayer = maxFramesPerPlayer;
+    }
+
+    /**
+     * Запуск планировщика (каждый тик в потоке сервера)
+     */
+    public void start(OpenHousing plugin) {
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Остановка планировщика с отменой всех кадров
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        ScriptFrame frame;
+        while ((frame = incoming.poll()) != null) {
+            frame.cancel();
+        }
+        for (ArrayDeque<ScriptFrame> frames : readyByPlayer.values()) {
+            frames.forEach(ScriptFrame::cancel);
+        }
+        sleeping.forEach(ScriptFrame::cancel);
+        readyByPlayer.clear();
+        rotation.clear();
+        sleeping.clear();
+        framesPerPlayer.clear();
+    }
+
+    /**
+     * Постановка кадра в очередь. Первый шаг выполнится в ближайший тик.
+     *
+     * @return false, если игрок превысил лимит одновременных кадров
+     */
+    public boolean submit(ScriptFrame frame) {
+        AtomicInteger count = framesPerPlayer.computeIfAbsent(frame.getOwnerId(), id -> new AtomicInteger());
+        if (count.incrementAndGet() > maxFramesPerPlayer) {
+            count.decrementAndGet();
+            return false;
+        }
+        incoming.add(frame);
+        return true;
+    }
+
+    /**
+     * Отмена всех кадров игрока (выполняется в следующем тике)
+     */
+    public void cancelAll(UUID playerId) {
+        cancelRequests.add(playerId);
+    }
+
+    /**
+     * Один тик планировщика
+     */
+    public void tick() {
+        currentTick++;
+        long deadline = System.nanoTime() + tickBudgetNanos;
+
+        processCancelRequests();
+
+        ScriptFrame frame;
+        while ((frame = incoming.poll()) != null) {
+            makeReady(frame);
+        }
+        while (!sleeping.isEmpty() && sleeping.peek().wakeTick <= currentTick) {
+            makeReady(sleeping.poll());
+        }
+
+        // Круговой обход: один шаг кадра на игрока за ход
+        while (!rotation.isEmpty() && System.nanoTime() < deadline) {
+            UUID playerId = rotation.poll();
+            ArrayDeque<ScriptFrame> frames = readyByPlayer.get(playerId);
+            ScriptFrame current = frames.poll();
+
+            long next = resume(current);
+            if (next == ScriptFrame.DONE) {
+                finish(current);
+            } else if (next == ScriptFrame.CONTINUE) {
+                frames.add(current);
+            } else {
+                current.wakeTick = currentTick + next;
+                sleeping.add(current);
+            }
+
+            if (frames.isEmpty()) {
+                readyByPlayer.remove(playerId);
+            } else {
+                rotation.add(playerId);
+            }
+        }
+    }
+
+    private long resume(ScriptFrame frame) {
+        if (!frame.isAlive()) {
+            frame.cancel();
+            return ScriptFrame.DONE;
+        }
+        framesResumed++;
+        try {
+            return frame.resume();
+        } catch (RuntimeException e) {
+            System.err.println("[OpenHousing] Ошибка выполнения отложенного скрипта: " + e.getMessage());
+            return ScriptFrame.DONE;
+        }
+    }
+
+    private void makeReady(ScriptFrame frame) {
+        ArrayDeque<ScriptFrame> frames = readyByPlayer.get(frame.getOwnerId());
+        if (frames == null) {
+            frames = new ArrayDeque<>();
+            readyByPlayer.put(frame.getOwnerId(), frames);
+            rotation.add(frame.getOwnerId());
+        }
+        frames.add(frame);
+    }
+
+    private void finish(ScriptFrame frame) {
+        AtomicInteger count = framesPerPlayer.get(frame.getOwnerId());
+        if (count != null && count.decrementAndGet() <= 0) {
+            framesPerPlayer.remove(frame.getOwnerId(), count);
+        }
+    }
+
+    private void processCancelRequests() {
+        UUID playerId;
+        while ((playerId = cancelRequests.poll()) != null) {
+            final UUID target = playerId;
+
+            ArrayDeque<ScriptFrame> frames = readyByPlayer.remove(target);
+            if (frames != null) {
+                frames.forEach(ScriptFrame::cancel);
+                rotation.remove(target);
+            }
+
+            Iterator<ScriptFrame> it = sleeping.iterator();
+            while (it.hasNext()) {
+                ScriptFrame frame = it.next();
+                if (frame.getOwnerId().equals(target)) {
+                    frame.cancel();
+                    it.remove();
+                }
+            }
+
+            incoming.removeIf(frame -> {
+                if (frame.getOwnerId().equals(target)) {
+                    frame.cancel();
+                    return true;
+                }
+                return false;
+            });
+            framesPerPlayer.remove(target);
+        }
+    }
+
+    /**
+     * Количество активных кадров (готовых и ожидающих)
+     */
+    public int getActiveFrameCount() {
+        int count = 0;
+        for (AtomicInteger value : framesPerPlayer.values()) {
+            count += value.get();
+        }
+        return count;
+    }
+
+    /**
+     * Количество активных кадров игрока
+     */
+    public int getActiveFrameCount(UUID playerId) {
+        AtomicInteger count = framesPerPlayer.get(playerId);
+        return count != null ? count.get() : 0;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public long getFramesResumed() {
+        return framesResumed;
+    }
+}
@@ -15,6 +15,7 @@ public class CodeLine {
     private final List<CodeBlock> blocks;
     private boolean enabled;
     private final Map<String, Object> metadata;
+    private CodeScript owner; // скрипт, которому принадлежит строка
     
     public CodeLine(int lineNumber) {
         this.lineNumber = lineNumber;
@@ -39,6 +40,7 @@ public class CodeLine {
      */
     public void addBlock(CodeBlock block) {
         blocks.add(block);
+        markModified();
     }
     
     /**
@@ -47,6 +49,7 @@ public class CodeLine {
     public void addBlock(int index, CodeBlock block) {
         if (index >= 0 && index <= blocks.size()) {
             blocks.add(index, block);
+            markModified();
         }
     }
     
@@ -54,7 +57,11 @@ public class CodeLine {
      * Удаление блока
      */
     public boolean removeBlock(CodeBlock block) {
-        return blocks.remove(block);
+        boolean removed = blocks.remove(block);
+        if (removed) {
+            markModified();
+        }
+        return removed;
     }
     
     /**
@@ -62,7 +69,9 @@ public class CodeLine {
      */
     public CodeBlock removeBlock(int index) {
         if (index >= 0 && index < blocks.size()) {
-            return blocks.remove(index);
+            CodeBlock removed = blocks.remove(index);
+            markModified();
+            return removed;
         }
         return null;
     }
@@ -75,6 +84,7 @@ public class CodeLine {
             toIndex >= 0 && toIndex < blocks.size()) {
             CodeBlock block = blocks.remove(fromIndex);
             blocks.add(toIndex, block);
+            markModified();
             return true;
         }
         return false;
@@ -96,6 +106,7 @@ public class CodeLine {
     public boolean replaceBlock(int index, CodeBlock newBlock) {
         if (index >= 0 && index < blocks.size()) {
             blocks.set(index, newBlock);
+            markModified();
             return true;
         }
         return false;
@@ -106,6 +117,7 @@ public class CodeLine {
      */
     public void clearBlocks() {
         blocks.clear();
+        markModified();
     }
     
     /**
@@ -168,10 +180,23 @@ public class CodeLine {
         }
     }
     
+    /**
+     * Привязка строки к скрипту, чтобы изменения строки обновляли lastModified скрипта
+     */
+    void attachTo(CodeScript script) {
+        this.owner = script;
+    }
+    
+    private void markModified() {
+        if (owner != null) {
+            owner.updateModified();
+        }
+    }
+    
     /**
      * Проверяет, является ли блок условным
      */
-    private boolean isConditionalBlock(ru.openhousing.coding.blocks.BlockType blockType) {
+    public static boolean isConditionalBlock(ru.openhousing.coding.blocks.BlockType blockType) {
         return blockType.name().startsWith("IF_PLAYER") ||
                blockType.name().startsWith("IF_ENTITY") ||
                blockType.name().startsWith("IF_VARIABLE") ||
@@ -219,6 +244,7 @@ public class CodeLine {
     
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        markModified();
     }
     
     public Map<String, Object> getMetadata() {
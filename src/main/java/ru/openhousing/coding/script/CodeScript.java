@@ -1,8 +1,13 @@
 package ru.openhousing.coding.script;
 
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.compiler.CompiledScript;
+import ru.openhousing.coding.compiler.ScriptCompiler;
+import ru.openhousing.coding.trace.TraceEvent;
+import ru.openhousing.coding.trace.TraceSession;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Код игрока с системой строк
@@ -12,18 +17,20 @@ public class CodeScript {
     private final UUID playerId;
     private String playerName;
     private final Map<Integer, CodeLine> lines; // Номер строки -> строка
-    private final Map<String, Object> globalVariables;
+    private final Map<String, Object> globalVariables; // Общие для всех запусков, контексты читают их по ссылке
     private final Map<String, CodeBlock> functions;
     private long lastModified;
     private boolean enabled;
     private int nextLineNumber;
     private String boundWorld; // мир/дом, к которому привязан код
+    private transient volatile CompiledScript compiledProgram; // перекомпилируется при изменении lastModified
+    private final transient VariableTable variableTable = new VariableTable(); // слоты переменных, общие для всех компиляций
     
     public CodeScript(UUID playerId, String playerName) {
         this.playerId = playerId;
         this.playerName = playerName;
         this.lines = new LinkedHashMap<>();
-        this.globalVariables = new HashMap<>();
+        this.globalVariables = new ConcurrentHashMap<>();
         this.functions = new HashMap<>();
         this.lastModified = System.currentTimeMillis();
         this.enabled = true;
@@ -35,64 +42,115 @@ public class CodeScript {
      * Выполнение кода
      */
     public CodeBlock.ExecutionResult execute(CodeBlock.ExecutionContext context) {
+        // Трассировка строится только для запусков, попавших в выборку
+        TraceSession trace = context.getTraceSession();
+        
         if (!enabled) {
-            System.out.println("[OpenHousing] Код отключен для игрока: " + playerName);
+            if (trace != null) {
+                trace.record(TraceEvent.Type.SCRIPT_END, "код отключен");
+            }
             return CodeBlock.ExecutionResult.error("Код отключен");
         }
         
-        System.out.println("[OpenHousing] Начинаем выполнение кода игрока: " + playerName);
-        System.out.println("[OpenHousing] Количество строк кода: " + lines.size());
-        System.out.println("[OpenHousing] Количество блоков: " + getAllBlocks().size());
-        
-        // Добавляем глобальные переменные в контекст
-        context.getVariables().putAll(globalVariables);
-        System.out.println("[OpenHousing] Загружено глобальных переменных: " + globalVariables.size());
+        if (trace != null) {
+            trace.record(TraceEvent.Type.SCRIPT_START, "игрок " + playerName + ", строк: " + lines.size() +
+                ", блоков: " + getAllBlocks().size() + ", глобальных переменных: " + globalVariables.size());
+        }
         
-        // Добавляем функции в контекст
-        context.getFunctions().putAll(functions);
-        System.out.println("[OpenHousing] Загружено функций: " + functions.size());
+        // Переменные и функции скрипта доступны контексту по ссылке
+        CompiledScript program = getCompiledProgram();
+        bindContext(context, program);
         
+        return executeLines(new ArrayList<>(lines.values()), 0, 0, program, context, trace);
+    }
+    
+    /**
+     * Выполнение строк начиная с from. Строка, приостановленная циклом с задержкой,
+     * получает продолжение: остальные строки выполнятся после ее завершения
+     */
+    private CodeBlock.ExecutionResult executeLines(List<CodeLine> order, int from, int executedLines,
+                                                   CompiledScript program, CodeBlock.ExecutionContext context,
+                                                   TraceSession trace) {
         try {
-            int executedLines = 0;
-            int executedBlocks = 0;
-            
             // Выполняем все строки в порядке их номеров
-            for (CodeLine line : lines.values()) {
-                if (line.isEnabled()) {
-                    System.out.println("[OpenHousing] Выполняем строку " + line.getLineNumber() + ": " + line.getName());
-                    System.out.println("[OpenHousing] Блоков в строке: " + line.getBlocks().size());
-                    
-                    line.execute(context);
-                    executedLines++;
-                    executedBlocks += line.getBlocks().size();
-                    
-                    System.out.println("[OpenHousing] Строка " + line.getLineNumber() + " выполнена успешно");
-                } else {
-                    System.out.println("[OpenHousing] Строка " + line.getLineNumber() + " отключена, пропускаем");
+            for (int i = from; i < order.size(); i++) {
+                CodeLine line = order.get(i);
+                if (!line.isEnabled()) {
+                    continue;
+                }
+                if (trace != null) {
+                    trace.record(TraceEvent.Type.LINE, line.getLineNumber(),
+                        line.getName() + " (блоков: " + line.getBlocks().size() + ")");
+                }
+                
+                CodeBlock.ExecutionResult lineResult = program.executeLine(line, context);
+                if (lineResult.isSuspended()) {
+                    int next = i + 1;
+                    int executed = executedLines + 1;
+                    lineResult.getContinuation().then(result -> isBudgetExhausted(line, context, trace)
+                        ? result : executeLines(order, next, executed, program, context, trace));
+                    // Изменения до приостановки сохраняем сразу
+                    commitContext(context);
+                    return lineResult;
+                }
+                if (isBudgetExhausted(line, context, trace)) {
+                    return lineResult;
                 }
+                executedLines++;
             }
             
-            // Сохраняем обновленные глобальные переменные
-            globalVariables.putAll(context.getVariables());
+            if (trace != null) {
+                trace.record(TraceEvent.Type.SCRIPT_END, "выполнено строк: " + executedLines +
+                    ", изменено переменных: " + context.getChangedVariableCount());
+            }
             
-            System.out.println("[OpenHousing] Выполнение завершено успешно!");
-            System.out.println("[OpenHousing] Выполнено строк: " + executedLines);
-            System.out.println("[OpenHousing] Выполнено блоков: " + executedBlocks);
-            System.out.println("[OpenHousing] Итоговых переменных: " + context.getVariables().size());
+            // Сохраняем только измененные переменные
+            commitContext(context);
             
             return CodeBlock.ExecutionResult.success();
         } catch (Exception e) {
-            System.out.println("[OpenHousing] КРИТИЧЕСКАЯ ОШИБКА при выполнении кода: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("[OpenHousing] Ошибка выполнения кода игрока " + playerName + ": " + e.getMessage());
+            if (trace != null) {
+                trace.record(TraceEvent.Type.ERROR, String.valueOf(e));
+            }
             return CodeBlock.ExecutionResult.error("Ошибка выполнения кода: " + e.getMessage());
         }
     }
     
+    /**
+     * Исчерпанный бюджет останавливает запуск после строки (переменные сохраняются)
+     */
+    private boolean isBudgetExhausted(CodeLine line, CodeBlock.ExecutionContext context, TraceSession trace) {
+        if (!context.getBudget().isExhausted()) {
+            return false;
+        }
+        if (trace != null) {
+            trace.record(TraceEvent.Type.BUDGET, line.getLineNumber(), context.getBudget().getExhaustedReason());
+        }
+        commitContext(context);
+        return true;
+    }
+    
+    /**
+     * Привязка контекста к переменным и функциям скрипта (без копирования)
+     */
+    public void bindContext(CodeBlock.ExecutionContext context, CompiledScript program) {
+        context.bindScript(globalVariables, program.getFunctions(), variableTable);
+    }
+    
+    /**
+     * Сохранение переменных, измененных в контексте
+     */
+    public void commitContext(CodeBlock.ExecutionContext context) {
+        context.commitVariables(globalVariables);
+    }
+    
     /**
      * Создание новой строки
      */
     public CodeLine createLine(String name) {
         CodeLine line = new CodeLine(nextLineNumber++, name);
+        line.attachTo(this);
         lines.put(line.getLineNumber(), line);
         updateModified();
         return line;
@@ -309,8 +367,36 @@ public class CodeScript {
         return clone;
     }
     
-    private void updateModified() {
-        this.lastModified = System.currentTimeMillis();
+    void updateModified() {
+        // Строго возрастает, чтобы два изменения в одну миллисекунду не скрыли перекомпиляцию
+        this.lastModified = Math.max(System.currentTimeMillis(), lastModified + 1);
+    }
+    
+    /**
+     * Получение скомпилированной программы (компилируется заново только при изменении lastModified)
+     */
+    public CompiledScript getCompiledProgram() {
+        CompiledScript program = compiledProgram;
+        if (program == null || !program.isUpToDate(lastModified)) {
+            program = ScriptCompiler.compile(this);
+            compiledProgram = program;
+        }
+        return program;
+    }
+    
+    /**
+     * Сброс скомпилированной программы без изменения lastModified
+     * (после загрузки или выгрузки отложенного тела блока)
+     */
+    public void invalidateCompiledProgram() {
+        compiledProgram = null;
+    }
+    
+    /**
+     * Таблица символов переменных скрипта
+     */
+    public VariableTable getVariableTable() {
+        return variableTable;
     }
     
     // Геттеры и сеттеры
@@ -335,7 +421,11 @@ public class CodeScript {
     }
     
     public void setGlobalVariable(String name, Object value) {
-        globalVariables.put(name, value);
+        if (value == null) {
+            globalVariables.remove(name);
+        } else {
+            globalVariables.put(name, value);
+        }
         updateModified();
     }
     
@@ -498,6 +588,7 @@ public class CodeScript {
         
         // Добавляем новую строку
         newLines.put(position, line);
+        line.attachTo(this);
         
         // Заменяем карту строк
         lines.clear();
@@ -505,7 +596,7 @@ public class CodeScript {
         
         // Обновляем nextLineNumber
         nextLineNumber = Math.max(nextLineNumber, lines.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1);
-        lastModified = System.currentTimeMillis();
+        updateModified();
     }
     
     /**
@@ -527,7 +618,7 @@ public class CodeScript {
         lines.put(lineNumber - 1, currentLine);
         lines.put(lineNumber, previousLine);
         
-        lastModified = System.currentTimeMillis();
+        updateModified();
         return true;
     }
     
@@ -546,7 +637,7 @@ public class CodeScript {
         lines.put(lineNumber, nextLine);
         lines.put(lineNumber + 1, currentLine);
         
-        lastModified = System.currentTimeMillis();
+        updateModified();
         return true;
     }
     
@@ -568,6 +659,7 @@ public class CodeScript {
      * Добавить строку в скрипт
      */
     public void addLine(CodeLine line) {
+        line.attachTo(this);
         lines.put(line.getLineNumber(), line);
         if (line.getLineNumber() >= nextLineNumber) {
             nextLineNumber = line.getLineNumber() + 1;
@@ -0,0 +1,326 @@
+package ru.openhousing.coding.script;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Слой переменных поверх родительского слоя или общей карты переменных.
+ *
+ * Чтение проходит сверху вниз: свои изменения -> родительский слой -> общая карта.
+ * Запись попадает только в изменения этого слоя, нижние слои не копируются и не меняются
+ * до явного commitTo. Удаление переменной нижнего слоя запоминается отметкой REMOVED.
+ *
+ * Если к корневому слою привязана таблица символов скрипта, переменные со слотами
+ * хранятся в кадре (VariableFrame) и доступны по номеру слота без поиска по имени,
+ * а числа - без упаковки. Остальные переменные хранятся в карте изменений.
+ */
+public final class LayeredVariables extends AbstractMap<String, Object> {
+
+    private static final Object REMOVED = new Object();
+
+    private final LayeredVariables parent;
+    private Map<String, Object> shared;  // Общая карта (глобальные переменные скрипта), только чтение
+    private Map<String, Object> changes; // Создается при первой записи
+    private VariableTable table;         // Таблица символов скрипта (только у корневого слоя)
+    private VariableFrame frame;
+    private boolean bound;               // Общая карта привязана и принимает commitShared
+
+    public LayeredVariables() {
+        this(null, Collections.emptyMap());
+    }
+
+    /**
+     * Дочерний слой: видит переменные родителя, записи остаются в дочернем слое
+     */
+    public LayeredVariables(LayeredVariables parent) {
+        this(parent, Collections.emptyMap());
+    }
+
+    private LayeredVariables(LayeredVariables parent, Map<String, Object> shared) {
+        this.parent = parent;
+        this.shared = shared;
+    }
+
+    /**
+     * Привязка общей карты переменных (по ссылке, без копирования).
+     * Уже сделанные в слое изменения сохраняются поверх нее.
+     */
+    public void bindShared(Map<String, Object> shared) {
+        this.shared = shared != null ? shared : Collections.emptyMap();
+        this.bound = shared != null;
+    }
+
+    /**
+     * Привязка общей карты переменных и таблицы символов скрипта.
+     * Изменения переменных, у которых есть слот, переносятся в кадр.
+     */
+    public void bindShared(Map<String, Object> shared, VariableTable table) {
+        bindShared(shared);
+        if (parent != null || table == null) {
+            return;
+        }
+        this.table = table;
+        this.frame = new VariableFrame(table.size());
+        if (changes != null) {
+            changes.entrySet().removeIf(entry -> {
+                int slot = table.find(entry.getKey());
+                if (slot < 0) {
+                    return false;
+                }
+                if (entry.getValue() == REMOVED) {
+                    frame.remove(slot);
+                } else {
+                    frame.set(slot, entry.getValue());
+                }
+                return true;
+            });
+        }
+    }
+
+    // === ДОСТУП ПО СЛОТАМ ===
+
+    /**
+     * Таблица символов, по которой адресуются слоты (null - слотов нет)
+     */
+    public VariableTable getTable() {
+        return table;
+    }
+
+    /**
+     * Значение переменной по слоту (null - переменной нет в слое и общей карте)
+     */
+    public Object getSlot(int slot) {
+        return frame.get(loaded(slot));
+    }
+
+    /**
+     * Хранится ли в слоте число
+     */
+    public boolean isNumber(int slot) {
+        byte state = frame.state(loaded(slot));
+        return state == VariableFrame.LONG || state == VariableFrame.DOUBLE;
+    }
+
+    /**
+     * Число из слота без упаковки (только после проверки isNumber)
+     */
+    public double getDouble(int slot) {
+        return frame.getDouble(slot);
+    }
+
+    public long getLong(int slot) {
+        return frame.getLong(slot);
+    }
+
+    public void setSlot(int slot, Object value) {
+        frame.set(slot, value);
+    }
+
+    public void setDouble(int slot, double value) {
+        frame.setDouble(slot, value);
+    }
+
+    public void setLong(int slot, long value) {
+        frame.setLong(slot, value);
+    }
+
+    /**
+     * Загрузка слота из общей карты при первом обращении
+     */
+    private int loaded(int slot) {
+        if (frame.state(slot) == VariableFrame.UNSET) {
+            String name = table.nameOf(slot);
+            Object value = shared.get(name);
+            frame.load(slot, value, value != null || shared.containsKey(name));
+        }
+        return slot;
+    }
+
+    private int slotOf(Object key) {
+        return frame != null && key instanceof String ? table.find((String) key) : -1;
+    }
+
+    // === ДОСТУП ПО ИМЕНИ ===
+
+    @Override
+    public Object get(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return getSlot(slot);
+        }
+        if (changes != null) {
+            Object value = changes.get(key);
+            if (value != null || changes.containsKey(key)) {
+                return value == REMOVED ? null : value;
+            }
+        }
+        return parent != null ? parent.get(key) : shared.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return frame.state(loaded(slot)) != VariableFrame.ABSENT;
+        }
+        if (changes != null) {
+            Object value = changes.get(key);
+            if (value != null || changes.containsKey(key)) {
+                return value != REMOVED;
+            }
+        }
+        return lowerContainsKey(key);
+    }
+
+    private boolean lowerContainsKey(Object key) {
+        return parent != null ? parent.containsKey(key) : shared.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = get(key);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            frame.set(slot, value);
+            return previous;
+        }
+        if (changes == null) {
+            changes = new HashMap<>();
+        }
+        changes.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        Object previous = get(key);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            frame.remove(slot);
+        } else if (lowerContainsKey(key)) {
+            if (changes == null) {
+                changes = new HashMap<>();
+            }
+            changes.put((String) key, REMOVED);
+        } else {
+            changes.remove(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (String key : flatten().keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Объединенное содержимое всех слоев (копия - только для отладки и старого API)
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableMap(flatten()).entrySet();
+    }
+
+    @Override
+    public int size() {
+        return flatten().size();
+    }
+
+    private Map<String, Object> flatten() {
+        Map<String, Object> result = parent != null ? parent.flatten() : new HashMap<>(shared);
+        if (changes != null) {
+            for (Entry<String, Object> entry : changes.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    result.remove(entry.getKey());
+                } else {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        if (frame != null) {
+            for (int slot = 0; slot < frame.capacity(); slot++) {
+                if (frame.isDirty(slot)) {
+                    Object value = frame.get(slot);
+                    if (value == null) {
+                        result.remove(table.nameOf(slot));
+                    } else {
+                        result.put(table.nameOf(slot), value);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Есть ли в слое несохраненные изменения
+     */
+    public boolean isDirty() {
+        return getChangeCount() > 0;
+    }
+
+    /**
+     * Количество измененных переменных
+     */
+    public int getChangeCount() {
+        int count = changes != null ? changes.size() : 0;
+        return frame != null ? count + frame.getDirtyCount() : count;
+    }
+
+    /**
+     * Запись только измененных переменных в целевую карту.
+     * Удаленные переменные и переменные со значением null удаляются из нее.
+     * После записи изменения слоя очищаются.
+     */
+    public void commitTo(Map<String, Object> target) {
+        if (frame != null && frame.getDirtyCount() > 0) {
+            for (int slot = 0; slot < frame.capacity(); slot++) {
+                if (frame.isDirty(slot)) {
+                    Object value = frame.get(slot);
+                    if (value == null) {
+                        target.remove(table.nameOf(slot));
+                    } else {
+                        target.put(table.nameOf(slot), value);
+                    }
+                }
+            }
+            frame.clearDirty();
+        }
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        for (Entry<String, Object> entry : changes.entrySet()) {
+            Object value = entry.getValue();
+            if (value == REMOVED || value == null) {
+                target.remove(entry.getKey());
+            } else {
+                target.put(entry.getKey(), value);
+            }
+        }
+        changes.clear();
+    }
+
+    /**
+     * Запись изменений корневого слоя в привязанную общую карту.
+     * Изменения дочернего слоя остаются локальными, как у вызова функции.
+     */
+    public void commitShared() {
+        if (parent != null) {
+            parent.commitShared();
+        } else if (bound) {
+            commitTo(shared);
+        }
+    }
+
+    public LayeredVariables getParent() {
+        return parent;
+    }
+}
@@ -0,0 +1,169 @@
+package ru.openhousing.coding.script;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Предзагрузка скриптов игроков до входа на сервер.
+ *
+ * Загрузка (запрос к базе и разбор скрипта) запускается из AsyncPlayerPreLoginEvent
+ * в собственном пуле потоков, результат ждет входа игрока в промежуточном кэше.
+ * При входе основной поток забирает готовый скрипт без обращения к базе; если загрузка
+ * еще идет, он получает ту же задачу и дожидается ее без блокировки.
+ * Незабранные результаты (вход отменен другим плагином) удаляются через ttlMillis.
+ */
+public class ScriptPrefetcher {
+
+    private static final long SHUTDOWN_WAIT_MS = 5000;
+
+    private final Logger logger;
+    private final Function<UUID, CodeScript> loader;
+    private final long ttlMillis;
+    private final ExecutorService executor;
+    private final Map<UUID, Staged> staged = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    /**
+     * @param loader загрузка скрипта из базы (null - скрипта нет), вызывается в потоках пула
+     */
+    public ScriptPrefetcher(Logger logger, Function<UUID, CodeScript> loader, int threads, long ttlMillis) {
+        this.logger = logger;
+        this.loader = loader;
+        this.ttlMillis = Math.max(0, ttlMillis);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "OpenHousing-ScriptLoader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запуск предзагрузки (повторный вызов для того же игрока не запускает вторую загрузку)
+     */
+    public CompletableFuture<CodeScript> prefetch(UUID playerId) {
+        evictExpired();
+        long now = System.currentTimeMillis();
+        Staged entry = staged.compute(playerId, (id, existing) ->
+                existing != null && !existing.isExpired(now, ttlMillis) ? existing : new Staged(load(id), now));
+        return entry.future;
+    }
+
+    /**
+     * Получение скрипта при входе игрока: предзагруженного или новой загрузки.
+     * Результат удаляется из кэша - повторный вход загрузит скрипт заново.
+     */
+    public CompletableFuture<CodeScript> take(UUID playerId) {
+        Staged entry = staged.remove(playerId);
+        if (entry != null && !entry.isExpired(System.currentTimeMillis(), ttlMillis)) {
+            hits.incrementAndGet();
+            return entry.future;
+        }
+        misses.incrementAndGet();
+        return load(playerId);
+    }
+
+    /**
+     * Сброс предзагруженного результата (игрок вышел - в базе может появиться более новая версия)
+     */
+    public void invalidate(UUID playerId) {
+        staged.remove(playerId);
+    }
+
+    /**
+     * Удаление незабранных результатов старше ttlMillis
+     */
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Staged> iterator = staged.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now, ttlMillis)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        expired.addAndGet(removed);
+        return removed;
+    }
+
+    /**
+     * Остановка пула загрузки
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        staged.clear();
+    }
+
+    private CompletableFuture<CodeScript> load(UUID playerId) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return loader.apply(playerId);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Failed to load code script for player: " + playerId, e);
+                    throw e;
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public int getStagedCount() {
+        return staged.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    /**
+     * Загрузка, ожидающая входа игрока
+     */
+    private static final class Staged {
+        private final CompletableFuture<CodeScript> future;
+        private final long createdAt;
+
+        Staged(CompletableFuture<CodeScript> future, long createdAt) {
+            this.future = future;
+            this.createdAt = createdAt;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - createdAt > ttlMillis;
+        }
+    }
+}
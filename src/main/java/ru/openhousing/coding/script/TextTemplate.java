@@ -0,0 +1,160 @@
+package ru.openhousing.coding.script;
+
+import ru.openhousing.coding.blocks.CodeBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разобранный текст с плейсхолдерами %переменная%.
+ *
+ * Текст разбирается один раз на литералы и плейсхолдеры, плейсхолдеры хранят ссылки
+ * на переменные (VariableRef), поэтому при выводе значения берутся из слотов.
+ * Вывод идет в переиспользуемый StringBuilder потока. Имя с пробелами не считается
+ * плейсхолдером ("50% и 20%"). Плейсхолдер без значения остается в тексте как есть.
+ */
+public final class TextTemplate {
+
+    /**
+     * Встроенные плейсхолдеры (%player%, %player_x% и т.п.)
+     */
+    @FunctionalInterface
+    public interface Resolver {
+        /**
+         * @return значение или null, если плейсхолдер неизвестен
+         */
+        Object resolve(String name);
+    }
+
+    private static final int MAX_BUFFER_SIZE = 8192;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final String source;
+    private final String[] literals;       // literals[i] идет перед плейсхолдером i, последний - после всех
+    private final VariableRef[] placeholders;
+
+    private TextTemplate(String source, String[] literals, VariableRef[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Разбор текста
+     */
+    public static TextTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<VariableRef> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int from = 0;
+
+        while (true) {
+            int open = text.indexOf('%', from);
+            if (open < 0) {
+                break;
+            }
+            int close = text.indexOf('%', open + 1);
+            if (close < 0) {
+                break;
+            }
+            if (!isPlaceholderName(text, open + 1, close)) {
+                from = close; // Закрывающий % может открывать следующий плейсхолдер
+                continue;
+            }
+            literals.add(text.substring(literalStart, open));
+            placeholders.add(new VariableRef(text.substring(open + 1, close)));
+            literalStart = close + 1;
+            from = literalStart;
+        }
+
+        literals.add(text.substring(literalStart));
+        return new TextTemplate(text, literals.toArray(new String[0]), placeholders.toArray(new VariableRef[0]));
+    }
+
+    private static boolean isPlaceholderName(String text, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    /**
+     * Подстановка переменных контекста
+     */
+    public String render(CodeBlock.ExecutionContext context) {
+        return render(context, null);
+    }
+
+    /**
+     * Подстановка встроенных плейсхолдеров и переменных контекста
+     *
+     * @param context контекст выполнения (может быть null)
+     * @param builtins встроенные плейсхолдеры, имеют приоритет над переменными (может быть null)
+     */
+    public String render(CodeBlock.ExecutionContext context, Resolver builtins) {
+        if (placeholders.length == 0) {
+            return source;
+        }
+
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            appendValue(out, placeholders[i], context, builtins);
+        }
+        out.append(literals[placeholders.length]);
+
+        String result = out.toString();
+        if (out.capacity() > MAX_BUFFER_SIZE) {
+            BUFFER.set(new StringBuilder(128));
+        }
+        return result;
+    }
+
+    private static void appendValue(StringBuilder out, VariableRef placeholder, CodeBlock.ExecutionContext context,
+                                    Resolver builtins) {
+        String name = placeholder.getName();
+        if (builtins != null) {
+            Object value = builtins.resolve(name);
+            if (value != null) {
+                out.append(value);
+                return;
+            }
+        }
+        if (context != null) {
+            Object value = context.getVariable(placeholder);
+            if (value != null) {
+                out.append(value);
+                return;
+            }
+            if (context.hasVariable(name)) {
+                return; // Переменная есть, но пустая
+            }
+        }
+        out.append('%').append(name).append('%');
+    }
+
+    /**
+     * Привязка переменных плейсхолдеров к уже назначенным слотам таблицы символов скрипта.
+     * Плейсхолдеры только читают переменные, поэтому новых слотов не назначают:
+     * неизвестное имя ищется по имени при выводе.
+     */
+    public void resolveVariables(VariableTable symbols) {
+        for (VariableRef placeholder : placeholders) {
+            placeholder.find(symbols);
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,157 @@
+package ru.openhousing.coding.script;
+
+import java.util.Arrays;
+
+/**
+ * Кадр переменных запуска, индексированный слотами таблицы символов.
+ *
+ * Числа хранятся без упаковки: целые - в long, дробные - в битах double.
+ * Упакованное значение создается только при чтении переменной по имени
+ * и запоминается до следующей записи.
+ */
+final class VariableFrame {
+
+    static final byte UNSET = 0;   // Еще не загружена из переменных скрипта
+    static final byte ABSENT = 1;  // Переменной нет (или удалена)
+    static final byte VALUE = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+
+    private byte[] states;
+    private Object[] values;
+    private long[] numbers;
+    private boolean[] dirty;
+    private int dirtyCount;
+
+    VariableFrame(int capacity) {
+        int size = Math.max(8, capacity);
+        states = new byte[size];
+        values = new Object[size];
+        numbers = new long[size];
+        dirty = new boolean[size];
+    }
+
+    void ensureCapacity(int slot) {
+        if (slot < states.length) {
+            return;
+        }
+        int size = Math.max(slot + 1, states.length * 2);
+        states = Arrays.copyOf(states, size);
+        values = Arrays.copyOf(values, size);
+        numbers = Arrays.copyOf(numbers, size);
+        dirty = Arrays.copyOf(dirty, size);
+    }
+
+    byte state(int slot) {
+        return slot < states.length ? states[slot] : UNSET;
+    }
+
+    /**
+     * Загрузка значения из переменных скрипта (не считается изменением)
+     */
+    void load(int slot, Object value, boolean present) {
+        ensureCapacity(slot);
+        store(slot, value, present);
+    }
+
+    void set(int slot, Object value) {
+        ensureCapacity(slot);
+        store(slot, value, true);
+        markDirty(slot);
+    }
+
+    void setLong(int slot, long value) {
+        ensureCapacity(slot);
+        states[slot] = LONG;
+        numbers[slot] = value;
+        values[slot] = null;
+        markDirty(slot);
+    }
+
+    void setDouble(int slot, double value) {
+        ensureCapacity(slot);
+        states[slot] = DOUBLE;
+        numbers[slot] = Double.doubleToRawLongBits(value);
+        values[slot] = null;
+        markDirty(slot);
+    }
+
+    void remove(int slot) {
+        ensureCapacity(slot);
+        states[slot] = ABSENT;
+        values[slot] = null;
+        markDirty(slot);
+    }
+
+    private void store(int slot, Object value, boolean present) {
+        if (!present || value == null) {
+            states[slot] = ABSENT;
+            values[slot] = null;
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            states[slot] = LONG;
+            numbers[slot] = ((Number) value).longValue();
+            values[slot] = value;
+        } else if (value instanceof Double || value instanceof Float) {
+            states[slot] = DOUBLE;
+            numbers[slot] = Double.doubleToRawLongBits(((Number) value).doubleValue());
+            values[slot] = value;
+        } else {
+            states[slot] = VALUE;
+            values[slot] = value;
+        }
+    }
+
+    private void markDirty(int slot) {
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtyCount++;
+        }
+    }
+
+    /**
+     * Значение слота (числа упаковываются один раз до следующей записи)
+     */
+    Object get(int slot) {
+        switch (state(slot)) {
+            case VALUE:
+                return values[slot];
+            case LONG:
+                if (values[slot] == null) {
+                    values[slot] = numbers[slot];
+                }
+                return values[slot];
+            case DOUBLE:
+                if (values[slot] == null) {
+                    values[slot] = Double.longBitsToDouble(numbers[slot]);
+                }
+                return values[slot];
+            default:
+                return null;
+        }
+    }
+
+    double getDouble(int slot) {
+        return states[slot] == LONG ? numbers[slot] : Double.longBitsToDouble(numbers[slot]);
+    }
+
+    long getLong(int slot) {
+        return states[slot] == LONG ? numbers[slot] : (long) Double.longBitsToDouble(numbers[slot]);
+    }
+
+    boolean isDirty(int slot) {
+        return slot < dirty.length && dirty[slot];
+    }
+
+    void clearDirty() {
+        Arrays.fill(dirty, false);
+        dirtyCount = 0;
+    }
+
+    int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    int capacity() {
+        return states.length;
+    }
+}
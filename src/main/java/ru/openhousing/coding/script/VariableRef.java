@@ -0,0 +1,79 @@
+package ru.openhousing.coding.script;
+
+/**
+ * Ссылка блока на переменную по имени с запомненным номером слота.
+ * Слот вычисляется один раз для таблицы символов скрипта; если блок выполняется
+ * с другой таблицей (или без нее), ссылка переразрешается или работает по имени.
+ */
+public final class VariableRef {
+
+    private final String name;
+    private volatile Binding binding; // Таблица и слот меняются вместе
+
+    public VariableRef(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Ссылка на переменную с указанным именем (текущая, если имя не изменилось)
+     */
+    public static VariableRef of(VariableRef current, String name) {
+        if (name == null) {
+            return null;
+        }
+        return current != null && current.name.equals(name) ? current : new VariableRef(name);
+    }
+
+    /**
+     * Номер слота в таблице символов
+     *
+     * @return номер слота или -1, если таблицы нет
+     */
+    public int resolve(VariableTable table) {
+        if (table == null) {
+            return -1;
+        }
+        Binding current = binding;
+        if (current != null && current.table == table) {
+            return current.slot;
+        }
+        int slot = table.slotOf(name);
+        binding = new Binding(table, slot);
+        return slot;
+    }
+
+    /**
+     * Номер уже назначенного слота, без назначения нового.
+     * Для чтения: имя, которому ничего не присваивается, не занимает слот в таблице.
+     *
+     * @return номер слота или -1, если таблицы или слота нет
+     */
+    public int find(VariableTable table) {
+        if (table == null) {
+            return -1;
+        }
+        Binding current = binding;
+        if (current != null && current.table == table) {
+            return current.slot;
+        }
+        int slot = table.find(name);
+        if (slot >= 0) {
+            binding = new Binding(table, slot); // Промах не запоминается: слот может появиться позже
+        }
+        return slot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static final class Binding {
+        private final VariableTable table;
+        private final int slot;
+
+        Binding(VariableTable table, int slot) {
+            this.table = table;
+            this.slot = slot;
+        }
+    }
+}
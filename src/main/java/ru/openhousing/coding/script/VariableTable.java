@@ -0,0 +1,64 @@
+package ru.openhousing.coding.script;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таблица символов переменных скрипта: имя переменной -> номер слота.
+ *
+ * Слоты назначаются при компиляции скрипта (блоки привязывают свои переменные)
+ * и не меняются до выгрузки скрипта, поэтому блок может один раз получить номер
+ * слота и дальше обращаться к переменной по индексу массива.
+ * Таблица только растет; чтение без блокировок, назначение слотов синхронизировано.
+ */
+public final class VariableTable {
+
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    /**
+     * Номер слота переменной (слот назначается при первом обращении)
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+        return assign(name);
+    }
+
+    private synchronized int assign(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+        int index = size;
+        if (index == names.length) {
+            names = Arrays.copyOf(names, index * 2);
+        }
+        names[index] = name;
+        size = index + 1;
+        slots.put(name, index);
+        return index;
+    }
+
+    /**
+     * Номер слота без назначения нового
+     *
+     * @return номер слота или -1, если у переменной нет слота
+     */
+    public int find(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    public String nameOf(int slot) {
+        return names[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,839 @@
+package ru.openhousing.coding.serialization;
+
+import com.google.gson.Gson;
+import ru.openhousing.coding.blocks.BlockType;
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.blocks.CodeBlockFactory;
+import ru.openhousing.coding.script.CodeLine;
+import ru.openhousing.coding.script.CodeScript;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Компактный двоичный формат кода.
+ *
+ * Заголовок: 'O' 'H' версия флаги. Далее (сжато Deflate, если установлен флаг) словарь строк
+ * и тело скрипта. Имена типов блоков, ключи параметров, имена переменных и enum-значения
+ * записываются в словарь один раз, а в теле - номером (varint). Значения параметров
+ * типизированы: числа, логические значения и enum хранятся без текстового представления.
+ * Неизвестные типы значений записываются в JSON, как и в старом формате.
+ *
+ * С версии 2 тело блока события (его дочерние блоки) записывается отдельным сегментом
+ * со своим словарем и длиной. При ленивой загрузке сегмент не разбирается: блок события
+ * получает отложенное тело (Body), которое разбирается при первом выполнении обработчика.
+ * Неизмененное отложенное тело при сохранении копируется без разбора.
+ *
+ * Для хранения в текстовой колонке данные кодируются в Base64 с префиксом TEXT_PREFIX.
+ */
+public final class ScriptBinaryCodec {
+
+    public static final String TEXT_PREFIX = "OHB:";
+
+    private static final byte MAGIC_0 = 'O';
+    private static final byte MAGIC_1 = 'H';
+    private static final int VERSION = 2;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int COMPRESS_THRESHOLD = 256;  // Меньшие данные не сжимаются
+    private static final int MAX_DEPTH = 64;            // Защита от испорченных данных
+
+    // Теги значений
+    private static final int T_NULL = 0;
+    private static final int T_STRING = 1;
+    private static final int T_INT = 2;
+    private static final int T_LONG = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_FALSE = 5;
+    private static final int T_TRUE = 6;
+    private static final int T_ENUM = 7;
+    private static final int T_LIST = 8;
+    private static final int T_MAP = 9;
+    private static final int T_JSON = 10;
+
+    // Способ записи дочерних блоков (версия 2)
+    private static final int CHILDREN_INLINE = 0;
+    private static final int CHILDREN_BODY = 1;
+
+    private static final Map<String, Class<?>> ENUM_CLASSES = new ConcurrentHashMap<>();
+
+    private final Gson gson;
+
+    public ScriptBinaryCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Является ли текст данными в двоичном формате
+     */
+    public static boolean isEncoded(String data) {
+        return data != null && data.startsWith(TEXT_PREFIX);
+    }
+
+    /**
+     * Кодирование в текст для хранения в колонке TEXT
+     */
+    public String encodeToString(CodeScript script) {
+        return TEXT_PREFIX + Base64.getEncoder().encodeToString(encode(script));
+    }
+
+    public CodeScript decodeFromString(String data, String playerName) throws IOException {
+        return decodeFromString(data, playerName, false);
+    }
+
+    /**
+     * @param lazyBodies не разбирать тела блоков событий до первого выполнения
+     */
+    public CodeScript decodeFromString(String data, String playerName, boolean lazyBodies) throws IOException {
+        if (!isEncoded(data)) {
+            throw new IOException("Not a binary script");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(data.substring(TEXT_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted script data", e);
+        }
+        return decode(bytes, playerName, lazyBodies);
+    }
+
+    // === ЗАПИСЬ ===
+
+    public byte[] encode(CodeScript script) {
+        Output body = new Output(1024);
+        Dictionary dictionary = new Dictionary();
+        writeScript(body, dictionary, script);
+
+        Output payload = new Output(body.size() + dictionary.names.size() * 8 + 8);
+        payload.writeVarInt(dictionary.names.size());
+        for (String name : dictionary.names) {
+            payload.writeString(name);
+        }
+        payload.write(body.buffer, 0, body.size());
+
+        int flags = 0;
+        byte[] data = payload.toByteArray();
+        if (data.length >= COMPRESS_THRESHOLD) {
+            byte[] compressed = deflate(data);
+            if (compressed.length < data.length) {
+                flags |= FLAG_DEFLATE;
+                data = compressed;
+            }
+        }
+
+        Output out = new Output(data.length + 8);
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        if ((flags & FLAG_DEFLATE) != 0) {
+            out.writeVarInt(payload.size());
+        }
+        out.write(data, 0, data.length);
+        return out.toByteArray();
+    }
+
+    private void writeScript(Output out, Dictionary dictionary, CodeScript script) {
+        out.writeLong(script.getPlayerId().getMostSignificantBits());
+        out.writeLong(script.getPlayerId().getLeastSignificantBits());
+        out.writeNullableString(script.getPlayerName());
+        out.writeByte(script.isEnabled() ? 1 : 0);
+        out.writeVarLong(script.getLastModified());
+        out.writeNullableString(script.getBoundWorld());
+
+        List<CodeLine> lines = script.getLines();
+        out.writeVarInt(lines.size());
+        for (CodeLine line : lines) {
+            out.writeNullableString(line.getName());
+            out.writeNullableString(line.getDescription());
+            out.writeByte(line.isEnabled() ? 1 : 0);
+            out.writeVarInt(line.getLineNumber());
+            writeBlocks(out, dictionary, line.getBlocks(), 0);
+        }
+
+        writeVariables(out, dictionary, script.getGlobalVariables(), 0);
+    }
+
+    private void writeBlocks(Output out, Dictionary dictionary, List<CodeBlock> blocks, int depth) {
+        if (depth > MAX_DEPTH) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(blocks.size());
+        writeBlockList(out, dictionary, blocks, depth);
+    }
+
+    private void writeBlockList(Output out, Dictionary dictionary, List<CodeBlock> blocks, int depth) {
+        for (CodeBlock block : blocks) {
+            out.writeVarInt(dictionary.indexOf(block.getType().name()));
+            writeVariables(out, dictionary, block.getParameters(), depth);
+            if (depth == 0 && isEventEntry(block)) {
+                out.writeByte(CHILDREN_BODY);
+                byte[] body = encodeBody(block);
+                out.writeVarInt(body.length);
+                out.write(body, 0, body.length);
+            } else {
+                out.writeByte(CHILDREN_INLINE);
+                writeBlocks(out, dictionary, block.getChildBlocks(), depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Сегмент тела блока события: количество блоков, свой словарь, блоки.
+     * Незагруженное тело копируется как есть.
+     */
+    private byte[] encodeBody(CodeBlock block) {
+        CodeBlock.DeferredChildren deferred = block.getDeferredChildren();
+        if (deferred instanceof Body) {
+            return ((Body) deferred).data;
+        }
+
+        List<CodeBlock> children = block.getChildBlocks();
+        Dictionary dictionary = new Dictionary();
+        Output blocks = new Output(256);
+        writeBlockList(blocks, dictionary, children, 1);
+
+        Output segment = new Output(blocks.size() + dictionary.names.size() * 8 + 8);
+        segment.writeVarInt(children.size());
+        segment.writeVarInt(dictionary.names.size());
+        for (String name : dictionary.names) {
+            segment.writeString(name);
+        }
+        segment.write(blocks.buffer, 0, blocks.size());
+        return segment.toByteArray();
+    }
+
+    /**
+     * Точка входа события: тело выполняется только при срабатывании события
+     */
+    private static boolean isEventEntry(CodeBlock block) {
+        return block.executesChildrenOnly() && block.getType().getCategory() == BlockType.BlockCategory.EVENT;
+    }
+
+    /**
+     * Карта имя -> значение; значения null не записываются
+     */
+    private void writeVariables(Output out, Dictionary dictionary, Map<String, Object> values, int depth) {
+        int count = 0;
+        for (Object value : values.values()) {
+            if (value != null) {
+                count++;
+            }
+        }
+        out.writeVarInt(count);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                out.writeVarInt(dictionary.indexOf(entry.getKey()));
+                writeValue(out, dictionary, entry.getValue(), depth);
+            }
+        }
+    }
+
+    private void writeValue(Output out, Dictionary dictionary, Object value, int depth) {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(T_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? T_TRUE : T_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(T_INT);
+            out.writeVarInt(zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            out.writeByte(T_LONG);
+            out.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(T_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Enum) {
+            Enum<?> constant = (Enum<?>) value;
+            out.writeByte(T_ENUM);
+            out.writeVarInt(dictionary.indexOf(constant.getDeclaringClass().getName()));
+            out.writeVarInt(dictionary.indexOf(constant.name()));
+        } else if (value instanceof List && depth < MAX_DEPTH) {
+            List<?> list = (List<?>) value;
+            out.writeByte(T_LIST);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, dictionary, element, depth + 1);
+            }
+        } else if (value instanceof Map && depth < MAX_DEPTH && hasStringKeys((Map<?, ?>) value)) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) value;
+            out.writeByte(T_MAP);
+            writeVariables(out, dictionary, map, depth + 1);
+        } else {
+            out.writeByte(T_JSON);
+            out.writeString(gson.toJson(value));
+        }
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // === ЧТЕНИЕ ===
+
+    /**
+     * Декодирование кода
+     *
+     * @param playerName актуальное имя игрока (null - взять из данных)
+     */
+    public CodeScript decode(byte[] bytes, String playerName) throws IOException {
+        return decode(bytes, playerName, false);
+    }
+
+    public CodeScript decode(byte[] bytes, String playerName, boolean lazyBodies) throws IOException {
+        if (bytes.length < 4 || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            throw new IOException("Not a binary script");
+        }
+        int version = bytes[2];
+        if (version > VERSION) {
+            throw new IOException("Unsupported script format version: " + version);
+        }
+        int flags = bytes[3];
+
+        Input in = new Input(bytes, 4, bytes.length);
+        if ((flags & FLAG_DEFLATE) != 0) {
+            int size = in.readVarInt();
+            in = new Input(inflate(bytes, in.position, size), 0, size);
+        }
+
+        int dictionarySize = in.readVarInt();
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = in.readString();
+        }
+        return readScript(in, new ReadState(dictionary, version, lazyBodies), playerName);
+    }
+
+    private CodeScript readScript(Input in, ReadState state, String playerName) throws IOException {
+        UUID playerId = new UUID(in.readLong(), in.readLong());
+        String storedName = in.readNullableString();
+        CodeScript script = new CodeScript(playerId, playerName != null ? playerName : storedName);
+        script.setEnabled(in.readByte() != 0);
+        in.readVarLong(); // lastModified: как и в JSON, при загрузке не восстанавливается
+        String boundWorld = in.readNullableString();
+        if (boundWorld != null) {
+            script.setBoundWorld(boundWorld);
+        }
+
+        int lineCount = in.readVarInt();
+        for (int i = 0; i < lineCount; i++) {
+            String name = in.readNullableString();
+            String description = in.readNullableString();
+            boolean enabled = in.readByte() != 0;
+            in.readVarInt(); // Номер строки назначается заново
+
+            CodeLine line = script.createLine(name);
+            line.setDescription(description != null ? description : "");
+            line.setEnabled(enabled);
+            for (CodeBlock block : readBlocks(in, state, 0)) {
+                line.addBlock(block);
+            }
+        }
+
+        Map<String, Object> variables = readVariables(in, state.dictionary, 0);
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            script.setGlobalVariable(entry.getKey(), entry.getValue());
+        }
+        state.script = script;
+        return script;
+    }
+
+    private List<CodeBlock> readBlocks(Input in, ReadState state, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Blocks nested too deep");
+        }
+        int count = in.readVarInt();
+        return readBlockList(in, state, count, depth);
+    }
+
+    private List<CodeBlock> readBlockList(Input in, ReadState state, int count, int depth) throws IOException {
+        List<CodeBlock> blocks = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            String typeName = lookup(state.dictionary, in.readVarInt());
+            Map<String, Object> parameters = readVariables(in, state.dictionary, depth);
+            CodeBlock block = createBlock(typeName);
+
+            int childrenMode = state.version >= 2 ? in.readByte() : CHILDREN_INLINE;
+            List<CodeBlock> children = null;
+            if (childrenMode == CHILDREN_BODY) {
+                int length = in.readVarInt();
+                byte[] data = in.readBytes(length);
+                if (block != null) {
+                    Body body = new Body(this, data, state, new Input(data, 0, data.length).readVarInt());
+                    if (state.lazyBodies) {
+                        block.deferChildren(body);
+                    } else {
+                        children = body.parse();
+                    }
+                }
+            } else if (childrenMode == CHILDREN_INLINE) {
+                children = readBlocks(in, state, depth + 1);
+            } else {
+                throw new IOException("Unknown children mode: " + childrenMode);
+            }
+
+            if (block == null) {
+                continue; // Блок удаленного типа пропускается, остальной код загружается
+            }
+            for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                block.setParameter(entry.getKey(), entry.getValue());
+            }
+            if (children != null) {
+                for (CodeBlock child : children) {
+                    block.addChild(child);
+                }
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    private static CodeBlock createBlock(String typeName) {
+        try {
+            return CodeBlockFactory.createBlock(BlockType.valueOf(typeName));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> readVariables(Input in, String[] dictionary, int depth) throws IOException {
+        int count = in.readVarInt();
+        Map<String, Object> values = new LinkedHashMap<>(Math.max(4, count * 2));
+        for (int i = 0; i < count; i++) {
+            String key = lookup(dictionary, in.readVarInt());
+            values.put(key, readValue(in, dictionary, depth));
+        }
+        return values;
+    }
+
+    private Object readValue(Input in, String[] dictionary, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Values nested too deep");
+        }
+        int tag = in.readByte();
+        switch (tag) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return in.readString();
+            case T_INT:
+                return unZigZag(in.readVarInt());
+            case T_LONG:
+                return unZigZag(in.readVarLong());
+            case T_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_ENUM:
+                return readEnum(lookup(dictionary, in.readVarInt()), lookup(dictionary, in.readVarInt()));
+            case T_LIST: {
+                int size = in.readVarInt();
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, dictionary, depth + 1));
+                }
+                return list;
+            }
+            case T_MAP:
+                return readVariables(in, dictionary, depth + 1);
+            case T_JSON:
+                return gson.fromJson(in.readString(), Object.class);
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * Восстановление enum; если класс или значение больше не существуют - строка, как в JSON
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(String className, String name) {
+        Class<?> type = ENUM_CLASSES.computeIfAbsent(className, ScriptBinaryCodec::findEnumClass);
+        if (type == Void.class) {
+            return name;
+        }
+        try {
+            return Enum.valueOf((Class) type, name);
+        } catch (IllegalArgumentException e) {
+            return name;
+        }
+    }
+
+    private static Class<?> findEnumClass(String className) {
+        try {
+            Class<?> type = Class.forName(className, false, ScriptBinaryCodec.class.getClassLoader());
+            return type.isEnum() ? type : Void.class;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Void.class;
+        }
+    }
+
+    private static String lookup(String[] dictionary, int index) throws IOException {
+        if (index < 0 || index >= dictionary.length) {
+            throw new IOException("Bad dictionary index: " + index);
+        }
+        return dictionary[index];
+    }
+
+    // === ОТЛОЖЕННЫЕ ТЕЛА ===
+
+    /**
+     * Выгрузка тел обработчиков событий, не выполнявшихся с момента idleBefore.
+     * Тело сериализуется из текущих блоков, поэтому изменения не теряются.
+     *
+     * @return количество выгруженных тел
+     */
+    public int unloadIdleBodies(CodeScript script, long idleBefore) {
+        ReadState state = new ReadState(null, VERSION, true);
+        state.script = script;
+        int unloaded = 0;
+        for (CodeLine line : script.getLines()) {
+            for (CodeBlock block : line.getBlocks()) {
+                if (!isEventEntry(block) || block.hasDeferredChildren()
+                        || block.getLastUsed() >= idleBefore || block.getChildCount() == 0) {
+                    continue;
+                }
+                int size = block.getChildCount();
+                block.deferChildren(new Body(this, encodeBody(block), state, size));
+                unloaded++;
+            }
+        }
+        if (unloaded > 0) {
+            // Программа ссылается на выгруженные блоки - компилируем заново
+            script.invalidateCompiledProgram();
+        }
+        return unloaded;
+    }
+
+    /**
+     * Параметры разбора: словарь скрипта, версия формата, режим загрузки тел
+     */
+    private static final class ReadState {
+        private final String[] dictionary;
+        private final int version;
+        private final boolean lazyBodies;
+        private volatile CodeScript script; // Заполняется после разбора скрипта
+
+        ReadState(String[] dictionary, int version, boolean lazyBodies) {
+            this.dictionary = dictionary;
+            this.version = version;
+            this.lazyBodies = lazyBodies;
+        }
+    }
+
+    /**
+     * Сериализованное тело блока события
+     */
+    private static final class Body implements CodeBlock.DeferredChildren {
+        private final ScriptBinaryCodec codec;
+        private final byte[] data;
+        private final ReadState state;
+        private final int size;
+
+        Body(ScriptBinaryCodec codec, byte[] data, ReadState state, int size) {
+            this.codec = codec;
+            this.data = data;
+            this.state = state;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public List<CodeBlock> load() {
+            try {
+                List<CodeBlock> children = parse();
+                CodeScript script = state.script;
+                if (script != null) {
+                    // Следующее событие скомпилирует загруженное тело в программу
+                    script.invalidateCompiledProgram();
+                }
+                return children;
+            } catch (IOException e) {
+                throw new IllegalStateException("Corrupted event body: " + e.getMessage(), e);
+            }
+        }
+
+        List<CodeBlock> parse() throws IOException {
+            Input in = new Input(data, 0, data.length);
+            int count = in.readVarInt();
+            int dictionarySize = in.readVarInt();
+            String[] dictionary = new String[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary[i] = in.readString();
+            }
+            ReadState bodyState = new ReadState(dictionary, VERSION, false);
+            return codec.readBlockList(in, bodyState, count, 1);
+        }
+    }
+
+    // === СЖАТИЕ ===
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int size) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] result = new byte[size];
+            int total = 0;
+            while (total < size) {
+                int length = inflater.inflate(result, total, size - total);
+                if (length == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += length;
+            }
+            if (total != size) {
+                throw new IOException("Truncated script data");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted script data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // === БУФЕРЫ ===
+
+    /**
+     * Словарь строк: номер присваивается при первом использовании
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        int indexOf(String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                index = names.size();
+                indexes.put(name, index);
+                names.add(name);
+            }
+            return index;
+        }
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, size + extra)];
+                System.arraycopy(buffer, 0, grown, 0, size);
+                buffer = grown;
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void write(byte[] data, int offset, int length) {
+            ensure(length);
+            System.arraycopy(data, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Длина + 1, 0 означает null
+         */
+        void writeNullableString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[size];
+            System.arraycopy(buffer, 0, result, 0, size);
+            return result;
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Input(byte[] buffer, int position, int limit) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        private void require(int length) throws IOException {
+            if (length < 0 || position + length > limit) {
+                throw new IOException("Unexpected end of script data");
+            }
+        }
+
+        int readByte() throws IOException {
+            require(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varlong");
+        }
+
+        long readLong() throws IOException {
+            require(8);
+            long result = 0;
+            for (int i = 0; i < 8; i++) {
+                result = (result << 8) | (buffer[position++] & 0xFF);
+            }
+            return result;
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            require(length);
+            byte[] result = new byte[length];
+            System.arraycopy(buffer, position, result, 0, length);
+            position += length;
+            return result;
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readNullableString() throws IOException {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
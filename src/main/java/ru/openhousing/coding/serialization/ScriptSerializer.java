@@ -11,22 +11,28 @@ import ru.openhousing.coding.blocks.variables.*;
 import ru.openhousing.coding.script.CodeScript;
 
 import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 /**
- * Сериализатор кода в JSON
+ * Сериализатор кода: JSON и компактный двоичный формат (ScriptBinaryCodec).
+ * При загрузке формат определяется автоматически, поэтому старые JSON-записи читаются как раньше.
  */
 public class ScriptSerializer {
     
     private final Gson gson;
+    private final ScriptBinaryCodec binaryCodec;
+    private volatile boolean lazyBodies; // Тела обработчиков событий разбираются при первом выполнении
     
     public ScriptSerializer() {
         this.gson = new GsonBuilder()
-            .setPrettyPrinting()
             .registerTypeAdapter(CodeBlock.class, new CodeBlockAdapter())
             .registerTypeAdapter(CodeScript.class, new CodeScriptAdapter())
             .create();
+        this.binaryCodec = new ScriptBinaryCodec(gson);
     }
     
     /**
@@ -42,7 +48,35 @@ public class ScriptSerializer {
     }
     
     /**
-     * Десериализация кода из JSON
+     * Ленивая загрузка тел обработчиков событий (только для двоичного формата)
+     */
+    public void setLazyBodies(boolean lazyBodies) {
+        this.lazyBodies = lazyBodies;
+    }
+    
+    /**
+     * Выгрузка тел обработчиков событий, не выполнявшихся с момента idleBefore
+     *
+     * @return количество выгруженных тел
+     */
+    public int unloadIdleBodies(CodeScript script, long idleBefore) {
+        return binaryCodec.unloadIdleBodies(script, idleBefore);
+    }
+    
+    /**
+     * Сериализация кода в двоичный формат (текст для колонки TEXT)
+     */
+    public String serializeBinary(CodeScript script) {
+        try {
+            return binaryCodec.encodeToString(script);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return serialize(script);
+        }
+    }
+    
+    /**
+     * Десериализация кода из JSON или двоичного формата
      */
     public CodeScript deserialize(String json, UUID playerId, String playerName) {
         try {
@@ -50,6 +84,10 @@ public class ScriptSerializer {
                 return new CodeScript(playerId, playerName);
             }
             
+            if (ScriptBinaryCodec.isEncoded(json)) {
+                return binaryCodec.decodeFromString(json, playerName, lazyBodies);
+            }
+            
             CodeScript script = gson.fromJson(json, CodeScript.class);
             if (script == null) {
                 return new CodeScript(playerId, playerName);
@@ -151,131 +189,83 @@ public class ScriptSerializer {
          * Десериализация enum значений на основе ключа и типа блока
          */
         private Object deserializeEnumValue(String key, JsonElement value, BlockType blockType, JsonDeserializationContext context) {
+            Class<? extends Enum> enumType = ENUM_PARAMETERS.get(blockType).get(key);
+            if (enumType == null || !value.isJsonPrimitive()) {
+                return null;
+            }
             try {
-                String stringValue = value.getAsString();
-                
-                // Обработка действий игрока
-                if (blockType.name().startsWith("PLAYER_") && blockType.getCategory() == BlockType.BlockCategory.ACTION) {
-                    if (key.equals("actionType")) {
-                        return ru.openhousing.coding.blocks.actions.PlayerActionBlock.PlayerActionType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка действий мира
-                if (blockType.name().startsWith("GAME_") && blockType.getCategory() == BlockType.BlockCategory.ACTION) {
-                    if (key.equals("actionType")) {
-                        return ru.openhousing.coding.blocks.actions.WorldActionBlock.WorldActionType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка событий игрока
-                if (blockType.name().startsWith("PLAYER_") && blockType.getCategory() == BlockType.BlockCategory.EVENT) {
-                    if (key.equals("eventType")) {
-                        return ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка событий существ
-                if (blockType.name().startsWith("ENTITY_") && blockType.getCategory() == BlockType.BlockCategory.EVENT) {
-                    if (key.equals("eventType")) {
-                        return ru.openhousing.coding.blocks.events.EntityEventBlock.EntityEventType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка событий мира
-                if (blockType.name().startsWith("WORLD_") && blockType.getCategory() == BlockType.BlockCategory.EVENT) {
-                    if (key.equals("eventType")) {
-                        return ru.openhousing.coding.blocks.events.WorldEventBlock.WorldEventType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка условий игрока
-                if (blockType.name().startsWith("IF_PLAYER")) {
-                    if (key.equals("conditionType")) {
-                        return ru.openhousing.coding.blocks.conditions.IfPlayerBlock.PlayerConditionType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка условий существ
-                if (blockType.name().startsWith("IF_ENTITY")) {
-                    if (key.equals("conditionType")) {
-                        return ru.openhousing.coding.blocks.conditions.IfEntityBlock.EntityConditionType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка условий переменных
-                if (blockType.name().startsWith("IF_VARIABLE")) {
-                    if (key.equals("conditionType")) {
-                        return ru.openhousing.coding.blocks.conditions.IfVariableBlock.VariableConditionType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка действий переменных
-                if (blockType.name().startsWith("VAR_")) {
-                    if (key.equals("actionType")) {
-                        return ru.openhousing.coding.blocks.variables.VariableActionBlock.VariableActionType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка математических операций
-                if (blockType == BlockType.MATH) {
-                    if (key.equals("operation")) {
-                        return ru.openhousing.coding.blocks.math.MathBlock.MathOperation.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка текстовых операций
-                if (blockType == BlockType.TEXT_OPERATION) {
-                    if (key.equals("operation")) {
-                        return ru.openhousing.coding.blocks.text.TextOperationBlock.TextOperation.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка повторений (AsyncRepeatBlock)
-                if (blockType == BlockType.REPEAT) {
-                    if (key.equals("repeatType")) {
-                        return ru.openhousing.coding.blocks.control.AsyncRepeatBlock.RepeatType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка целей
-                if (blockType == BlockType.TARGET) {
-                    if (key.equals("targetType")) {
-                        return ru.openhousing.coding.blocks.control.TargetBlock.TargetType.valueOf(stringValue);
-                    }
-                }
-                
-                // Обработка функций
-                if (blockType == BlockType.FUNCTION) {
-                    if (key.equals("functionType")) {
-                        // TODO: Добавить FunctionType когда будет создан
-                        return stringValue; // Пока возвращаем как строку
-                    }
-                }
-                
-                // Обработка вызовов функций
-                if (blockType == BlockType.CALL_FUNCTION) {
-                    if (key.equals("callType")) {
-                        // TODO: Добавить CallType когда будет создан
-                        return stringValue; // Пока возвращаем как строку
-                    }
-                }
-                
-                // Обработка контроля кода
-                if (blockType == BlockType.CODE_CONTROL) {
-                    if (key.equals("controlType")) {
-                        // TODO: Добавить ControlType когда будет создан
-                        return stringValue; // Пока возвращаем как строку
-                    }
-                }
-                
+                return Enum.valueOf(enumType, value.getAsString());
             } catch (IllegalArgumentException e) {
                 // Если enum значение не найдено, возвращаем null
                 return null;
             }
+        }
+    }
+    
+    /**
+     * Enum-параметры каждого типа блока: ключ параметра -> класс enum.
+     * Строится один раз, чтобы не проверять префиксы имен типов для каждого параметра.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final Map<BlockType, Map<String, Class<? extends Enum>>> ENUM_PARAMETERS = buildEnumParameters();
+    
+    @SuppressWarnings("rawtypes")
+    private static Map<BlockType, Map<String, Class<? extends Enum>>> buildEnumParameters() {
+        Map<BlockType, Map<String, Class<? extends Enum>>> result = new EnumMap<>(BlockType.class);
+        for (BlockType blockType : BlockType.values()) {
+            Map<String, Class<? extends Enum>> parameters = new HashMap<>();
+            String name = blockType.name();
+            BlockType.BlockCategory category = blockType.getCategory();
+            
+            // Действия
+            if (category == BlockType.BlockCategory.ACTION) {
+                if (name.startsWith("PLAYER_")) {
+                    parameters.put("actionType", ru.openhousing.coding.blocks.actions.PlayerActionBlock.PlayerActionType.class);
+                } else if (name.startsWith("GAME_")) {
+                    parameters.put("actionType", ru.openhousing.coding.blocks.actions.WorldActionBlock.WorldActionType.class);
+                }
+            }
+            
+            // События
+            if (category == BlockType.BlockCategory.EVENT) {
+                if (name.startsWith("PLAYER_")) {
+                    parameters.put("eventType", ru.openhousing.coding.blocks.events.PlayerEventBlock.PlayerEventType.class);
+                } else if (name.startsWith("ENTITY_")) {
+                    parameters.put("eventType", ru.openhousing.coding.blocks.events.EntityEventBlock.EntityEventType.class);
+                } else if (name.startsWith("WORLD_")) {
+                    parameters.put("eventType", ru.openhousing.coding.blocks.events.WorldEventBlock.WorldEventType.class);
+                }
+            }
+            
+            // Условия
+            if (name.startsWith("IF_PLAYER")) {
+                parameters.put("conditionType", ru.openhousing.coding.blocks.conditions.IfPlayerBlock.PlayerConditionType.class);
+            } else if (name.startsWith("IF_ENTITY")) {
+                parameters.put("conditionType", ru.openhousing.coding.blocks.conditions.IfEntityBlock.EntityConditionType.class);
+            } else if (name.startsWith("IF_VARIABLE")) {
+                parameters.put("conditionType", ru.openhousing.coding.blocks.conditions.IfVariableBlock.VariableConditionType.class);
+            }
+            
+            // Переменные, математика, текст, повторения, цели
+            if (name.startsWith("VAR_")) {
+                parameters.put("actionType", ru.openhousing.coding.blocks.variables.VariableActionBlock.VariableActionType.class);
+            }
+            if (blockType == BlockType.MATH) {
+                parameters.put("operation", ru.openhousing.coding.blocks.math.MathBlock.MathOperation.class);
+            }
+            if (blockType == BlockType.TEXT_OPERATION) {
+                parameters.put("operation", ru.openhousing.coding.blocks.text.TextOperationBlock.TextOperation.class);
+            }
+            if (blockType == BlockType.REPEAT) {
+                parameters.put("repeatType", ru.openhousing.coding.blocks.control.AsyncRepeatBlock.RepeatType.class);
+            }
+            if (blockType == BlockType.TARGET) {
+                parameters.put("targetType", ru.openhousing.coding.blocks.control.TargetBlock.TargetType.class);
+            }
             
-            return null;
+            result.put(blockType, parameters.isEmpty() ? Collections.emptyMap() : parameters);
         }
+        return result;
     }
     
     /**
@@ -0,0 +1,90 @@
+package ru.openhousing.coding.trace;
+
+import ru.openhousing.OpenHousing;
+import ru.openhousing.coding.blocks.CodeBlock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Трассировщик выполнения скриптов.
+ *
+ * Решение о трассировке принимается один раз на запуск скрипта: контекст в режиме
+ * отладки трассируется всегда, остальные запуски - с вероятностью, заданной для дома
+ * (дом определяется владельцем скрипта). Если запуск не трассируется, в контексте нет
+ * сессии и блоки не строят никаких строк.
+ */
+public class ScriptTracer {
+
+    private final TraceBuffer buffer;
+    private final double defaultSampleRate;
+    private final Map<UUID, Double> houseSampleRates = new ConcurrentHashMap<>();
+
+    public ScriptTracer(OpenHousing plugin) {
+        this(plugin.getConfigManager().getMainConfig().getInt("coding.trace.buffer-size", 1024),
+             plugin.getConfigManager().getMainConfig().getDouble("coding.trace.sample-rate", 0.0));
+    }
+
+    public ScriptTracer(int bufferSize, double defaultSampleRate) {
+        this.buffer = new TraceBuffer(bufferSize);
+        this.defaultSampleRate = defaultSampleRate;
+    }
+
+    /**
+     * Начало запуска скрипта: прикрепляет сессию к контексту, если запуск попал в выборку
+     */
+    public void begin(CodeBlock.ExecutionContext context, UUID ownerId) {
+        if (context.getTraceSession() != null) {
+            return;
+        }
+        if (context.isDebugMode() || isSampled(ownerId)) {
+            context.setTraceSession(new TraceSession(buffer, ownerId));
+        }
+    }
+
+    private boolean isSampled(UUID ownerId) {
+        double rate = houseSampleRates.getOrDefault(ownerId, defaultSampleRate);
+        if (rate <= 0.0) {
+            return false;
+        }
+        return rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * Установка доли трассируемых запусков для дома (0.0 - 1.0)
+     */
+    public void setSampleRate(UUID ownerId, double rate) {
+        houseSampleRates.put(ownerId, Math.max(0.0, Math.min(1.0, rate)));
+    }
+
+    /**
+     * Сброс доли трассируемых запусков дома к значению по умолчанию
+     */
+    public void resetSampleRate(UUID ownerId) {
+        houseSampleRates.remove(ownerId);
+    }
+
+    public double getSampleRate(UUID ownerId) {
+        return houseSampleRates.getOrDefault(ownerId, defaultSampleRate);
+    }
+
+    /**
+     * Последние записи трассировки
+     *
+     * @param ownerId владелец скрипта или null для всех домов
+     */
+    public List<TraceEvent> dump(UUID ownerId, int limit) {
+        return buffer.snapshot(ownerId, limit);
+    }
+
+    public void clear() {
+        buffer.clear();
+    }
+
+    public TraceBuffer getBuffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.openhousing.coding.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кольцевой буфер записей трассировки без блокировок.
+ * Запись занимает слот по номеру из общего счетчика и перезаписывает самую старую запись.
+ * Скрипты из асинхронных событий (чат) пишут в тот же буфер, поэтому используются только атомики.
+ */
+public final class TraceBuffer {
+
+    private final AtomicReferenceArray<TraceEvent> slots;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int mask;
+
+    /**
+     * @param capacity емкость, округляется вверх до степени двойки
+     */
+    public TraceBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void add(TraceEvent event) {
+        long index = sequence.getAndIncrement();
+        slots.set((int) (index & mask), event);
+    }
+
+    /**
+     * Последние записи в хронологическом порядке
+     *
+     * @param ownerId владелец скрипта или null для всех записей
+     * @param limit максимальное количество записей
+     */
+    public List<TraceEvent> snapshot(UUID ownerId, int limit) {
+        List<TraceEvent> result = new ArrayList<>(Math.min(limit, slots.length()));
+        long end = sequence.get();
+        long start = Math.max(0, end - slots.length());
+
+        for (long index = end - 1; index >= start && result.size() < limit; index--) {
+            TraceEvent event = slots.get((int) (index & mask));
+            if (event != null && (ownerId == null || ownerId.equals(event.getOwnerId()))) {
+                result.add(event);
+            }
+        }
+
+        Collections.reverse(result);
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Общее количество записей с момента запуска (включая перезаписанные)
+     */
+    public long getTotalRecorded() {
+        return sequence.get();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.openhousing.coding.trace;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Запись трассировки выполнения скрипта (неизменяемая)
+ */
+public final class TraceEvent {
+
+    private static final DateTimeFormatter TIME_FORMAT =
+        DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    public enum Type {
+        SCRIPT_START,
+        SCRIPT_END,
+        LINE,
+        LOOP,
+        CONDITION,
+        FUNCTION,
+        BUDGET,
+        ERROR
+    }
+
+    private final long timestamp;
+    private final UUID ownerId;
+    private final Type type;
+    private final int lineNumber;
+    private final String message;
+
+    public TraceEvent(long timestamp, UUID ownerId, Type type, int lineNumber, String message) {
+        this.timestamp = timestamp;
+        this.ownerId = ownerId;
+        this.type = type;
+        this.lineNumber = lineNumber;
+        this.message = message;
+    }
+
+    /**
+     * Строка для вывода в чат или консоль
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(TIME_FORMAT.format(Instant.ofEpochMilli(timestamp))).append(' ').append(type);
+        if (lineNumber > 0) {
+            builder.append(" #").append(lineNumber);
+        }
+        if (message != null && !message.isEmpty()) {
+            builder.append(": ").append(message);
+        }
+        return builder.toString();
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
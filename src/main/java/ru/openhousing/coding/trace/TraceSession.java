@@ -0,0 +1,31 @@
+package ru.openhousing.coding.trace;
+
+import java.util.UUID;
+
+/**
+ * Сессия трассировки одного запуска скрипта.
+ * Существует только у запусков, попавших в выборку, поэтому проверка
+ * context.getTraceSession() != null отсекает построение строк на горячем пути.
+ */
+public final class TraceSession {
+
+    private final TraceBuffer buffer;
+    private final UUID ownerId;
+
+    TraceSession(TraceBuffer buffer, UUID ownerId) {
+        this.buffer = buffer;
+        this.ownerId = ownerId;
+    }
+
+    public void record(TraceEvent.Type type, int lineNumber, String message) {
+        buffer.add(new TraceEvent(System.currentTimeMillis(), ownerId, type, lineNumber, message));
+    }
+
+    public void record(TraceEvent.Type type, String message) {
+        record(type, 0, message);
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+}
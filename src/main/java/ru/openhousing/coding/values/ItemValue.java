@@ -4,6 +4,7 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.TextTemplate;
 import ru.openhousing.utils.ItemBuilder;
 
 /**
@@ -14,10 +15,12 @@ public class ItemValue extends Value {
     private Material material;
     private int amount;
     private String displayName;
+    private TextTemplate displayNameTemplate; // null - в названии нет плейсхолдеров
     
     public ItemValue(String rawValue) {
         super(ValueType.ITEM, rawValue != null ? rawValue : "DIAMOND,1");
         parseItem();
+        compileDisplayName();
     }
     
     public ItemValue(ItemStack item) {
@@ -28,6 +31,7 @@ public class ItemValue extends Value {
             this.displayName = item.hasItemMeta() && item.getItemMeta().hasDisplayName() 
                 ? item.getItemMeta().getDisplayName() : null;
         }
+        compileDisplayName();
     }
     
     private void parseItem() {
@@ -49,36 +53,22 @@ public class ItemValue extends Value {
         }
     }
     
+    private void compileDisplayName() {
+        if (displayName != null && displayName.indexOf('%') >= 0) {
+            displayNameTemplate = TextTemplate.compile(displayName);
+        }
+    }
+    
     @Override
     public Object getValue(Player player, CodeBlock.ExecutionContext context) {
         if (material == null) {
             return null;
         }
         
-        int processedAmount = amount;
-        String processedDisplayName = displayName;
-        
-        // Обработка переменных
-        if (context != null) {
-            String amountStr = String.valueOf(amount);
-            
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    String strValue = String.valueOf(value);
-                    amountStr = amountStr.replace("%" + variable + "%", strValue);
-                    if (processedDisplayName != null) {
-                        processedDisplayName = processedDisplayName.replace("%" + variable + "%", strValue);
-                    }
-                }
-            }
-            
-            try {
-                processedAmount = Integer.parseInt(amountStr);
-            } catch (NumberFormatException ignored) {}
-        }
+        // Переменные возможны только в названии, количество разобрано в конструкторе
+        String processedDisplayName = displayNameTemplate != null ? displayNameTemplate.render(context) : displayName;
         
-        ItemBuilder builder = new ItemBuilder(material, processedAmount);
+        ItemBuilder builder = new ItemBuilder(material, amount);
         
         if (processedDisplayName != null && !processedDisplayName.trim().isEmpty()) {
             builder.name(processedDisplayName.replace("&", "§"));
@@ -5,6 +5,7 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.TextTemplate;
 
 /**
  * Значение местоположения
@@ -14,10 +15,14 @@ public class LocationValue extends Value {
     private String worldName;
     private double x, y, z;
     private float yaw, pitch;
+    private TextTemplate worldTemplate; // null - в имени мира нет плейсхолдеров
     
     public LocationValue(String rawValue) {
         super(ValueType.LOCATION, rawValue != null ? rawValue : "world,0,64,0,0,0");
         parseLocation();
+        if (worldName.indexOf('%') >= 0) {
+            worldTemplate = TextTemplate.compile(worldName);
+        }
     }
     
     public LocationValue(Location location) {
@@ -58,33 +63,8 @@ public class LocationValue extends Value {
     
     @Override
     public Object getValue(Player player, CodeBlock.ExecutionContext context) {
-        // Обработка специальных значений
-        String processedWorldName = worldName;
-        double processedX = x, processedY = y, processedZ = z;
-        
-        // Замена переменных
-        if (context != null) {
-            String rawX = String.valueOf(x);
-            String rawY = String.valueOf(y);
-            String rawZ = String.valueOf(z);
-            
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    String strValue = String.valueOf(value);
-                    processedWorldName = processedWorldName.replace("%" + variable + "%", strValue);
-                    rawX = rawX.replace("%" + variable + "%", strValue);
-                    rawY = rawY.replace("%" + variable + "%", strValue);
-                    rawZ = rawZ.replace("%" + variable + "%", strValue);
-                }
-            }
-            
-            try {
-                processedX = Double.parseDouble(rawX);
-                processedY = Double.parseDouble(rawY);
-                processedZ = Double.parseDouble(rawZ);
-            } catch (NumberFormatException ignored) {}
-        }
+        // Переменные возможны только в имени мира, координаты разобраны в конструкторе
+        String processedWorldName = worldTemplate != null ? worldTemplate.render(context) : worldName;
         
         // Специальные значения
         if (processedWorldName.equals("@player") && player != null) {
@@ -97,7 +77,7 @@ public class LocationValue extends Value {
         }
         
         if (world != null) {
-            return new Location(world, processedX, processedY, processedZ, yaw, pitch);
+            return new Location(world, x, y, z, yaw, pitch);
         }
         
         return null;
@@ -2,6 +2,7 @@ package ru.openhousing.coding.values;
 
 import org.bukkit.entity.Player;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.TextTemplate;
 
 /**
  * Числовое значение
@@ -20,6 +21,12 @@ public class NumberValue extends Value {
         this.numericValue = value;
     }
     
+    @Override
+    public void setRawValue(String rawValue) {
+        super.setRawValue(rawValue);
+        parseValue();
+    }
+    
     private void parseValue() {
         try {
             this.numericValue = Double.parseDouble(rawValue);
@@ -30,27 +37,13 @@ public class NumberValue extends Value {
     
     @Override
     public Object getValue(Player player, CodeBlock.ExecutionContext context) {
-        // Попытка парсинга значения с переменными
-        String processedValue = rawValue;
-        
-        // Замена переменных из контекста
-        if (context != null) {
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    processedValue = processedValue.replace("%" + variable + "%", String.valueOf(value));
-                }
-            }
+        TextTemplate template = getTemplate();
+        if (!template.hasPlaceholders()) {
+            return numericValue != null ? numericValue : 0.0; // Число разобрано в конструкторе
         }
         
-        // Замена встроенных плейсхолдеров
-        if (player != null) {
-            processedValue = processedValue.replace("%player_x%", String.valueOf(player.getLocation().getBlockX()));
-            processedValue = processedValue.replace("%player_y%", String.valueOf(player.getLocation().getBlockY()));
-            processedValue = processedValue.replace("%player_z%", String.valueOf(player.getLocation().getBlockZ()));
-            processedValue = processedValue.replace("%player_health%", String.valueOf(player.getHealth()));
-            processedValue = processedValue.replace("%player_food%", String.valueOf(player.getFoodLevel()));
-        }
+        // Подстановка переменных и встроенных плейсхолдеров за один проход
+        String processedValue = template.render(context, player != null ? name -> builtin(player, name) : null);
         
         try {
             return Double.parseDouble(processedValue);
@@ -59,6 +52,26 @@ public class NumberValue extends Value {
         }
     }
     
+    /**
+     * Значение встроенного плейсхолдера (null - не встроенный)
+     */
+    private static Object builtin(Player player, String name) {
+        switch (name) {
+            case "player_x":
+                return player.getLocation().getBlockX();
+            case "player_y":
+                return player.getLocation().getBlockY();
+            case "player_z":
+                return player.getLocation().getBlockZ();
+            case "player_health":
+                return player.getHealth();
+            case "player_food":
+                return player.getFoodLevel();
+            default:
+                return null;
+        }
+    }
+    
     @Override
     public String getDisplayValue() {
         if (numericValue != null && numericValue == numericValue.longValue()) {
@@ -81,41 +81,8 @@ public class ParticleValue extends Value {
             return null;
         }
         
-        int processedCount = count;
-        double processedOffsetX = offsetX, processedOffsetY = offsetY, processedOffsetZ = offsetZ;
-        double processedExtra = extra;
-        
-        // Обработка переменных
-        if (context != null) {
-            String countStr = String.valueOf(count);
-            String offsetXStr = String.valueOf(offsetX);
-            String offsetYStr = String.valueOf(offsetY);
-            String offsetZStr = String.valueOf(offsetZ);
-            String extraStr = String.valueOf(extra);
-            
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    String strValue = String.valueOf(value);
-                    countStr = countStr.replace("%" + variable + "%", strValue);
-                    offsetXStr = offsetXStr.replace("%" + variable + "%", strValue);
-                    offsetYStr = offsetYStr.replace("%" + variable + "%", strValue);
-                    offsetZStr = offsetZStr.replace("%" + variable + "%", strValue);
-                    extraStr = extraStr.replace("%" + variable + "%", strValue);
-                }
-            }
-            
-            try {
-                processedCount = Integer.parseInt(countStr);
-                processedOffsetX = Double.parseDouble(offsetXStr);
-                processedOffsetY = Double.parseDouble(offsetYStr);
-                processedOffsetZ = Double.parseDouble(offsetZStr);
-                processedExtra = Double.parseDouble(extraStr);
-            } catch (NumberFormatException ignored) {}
-        }
-        
-        return new ParticleData(particle, processedCount, 
-            processedOffsetX, processedOffsetY, processedOffsetZ, processedExtra, data);
+        // Числовые поля разобраны в конструкторе и не содержат плейсхолдеров
+        return new ParticleData(particle, count, offsetX, offsetY, offsetZ, extra, data);
     }
     
     @Override
@@ -64,30 +64,8 @@ public class PotionEffectValue extends Value {
             return null;
         }
         
-        int processedDuration = duration;
-        int processedAmplifier = amplifier;
-        
-        // Обработка переменных
-        if (context != null) {
-            String durationStr = String.valueOf(duration);
-            String amplifierStr = String.valueOf(amplifier);
-            
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    String strValue = String.valueOf(value);
-                    durationStr = durationStr.replace("%" + variable + "%", strValue);
-                    amplifierStr = amplifierStr.replace("%" + variable + "%", strValue);
-                }
-            }
-            
-            try {
-                processedDuration = Integer.parseInt(durationStr);
-                processedAmplifier = Integer.parseInt(amplifierStr);
-            } catch (NumberFormatException ignored) {}
-        }
-        
-        return new PotionEffect(effectType, processedDuration, processedAmplifier, ambient, particles);
+        // Числовые поля разобраны в конструкторе и не содержат плейсхолдеров
+        return new PotionEffect(effectType, duration, amplifier, ambient, particles);
     }
     
     @Override
@@ -50,30 +50,8 @@ public class SoundValue extends Value {
             return null;
         }
         
-        float processedVolume = volume;
-        float processedPitch = pitch;
-        
-        // Обработка переменных
-        if (context != null) {
-            String volumeStr = String.valueOf(volume);
-            String pitchStr = String.valueOf(pitch);
-            
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    String strValue = String.valueOf(value);
-                    volumeStr = volumeStr.replace("%" + variable + "%", strValue);
-                    pitchStr = pitchStr.replace("%" + variable + "%", strValue);
-                }
-            }
-            
-            try {
-                processedVolume = Float.parseFloat(volumeStr);
-                processedPitch = Float.parseFloat(pitchStr);
-            } catch (NumberFormatException ignored) {}
-        }
-        
-        return new SoundData(sound, processedVolume, processedPitch);
+        // Числовые поля разобраны в конструкторе и не содержат плейсхолдеров
+        return new SoundData(sound, volume, pitch);
     }
     
     @Override
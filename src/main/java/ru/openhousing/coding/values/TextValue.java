@@ -15,27 +15,8 @@ public class TextValue extends Value {
     
     @Override
     public Object getValue(Player player, CodeBlock.ExecutionContext context) {
-        String text = rawValue;
-        
-        // Замена встроенных плейсхолдеров
-        if (player != null) {
-            text = text.replace("%player%", player.getName());
-            text = text.replace("%player_uuid%", player.getUniqueId().toString());
-            text = text.replace("%player_world%", player.getWorld().getName());
-            text = text.replace("%player_x%", String.valueOf(player.getLocation().getBlockX()));
-            text = text.replace("%player_y%", String.valueOf(player.getLocation().getBlockY()));
-            text = text.replace("%player_z%", String.valueOf(player.getLocation().getBlockZ()));
-        }
-        
-        // Замена переменных из контекста
-        if (context != null) {
-            for (String variable : context.getVariables().keySet()) {
-                Object value = context.getVariable(variable);
-                if (value != null) {
-                    text = text.replace("%" + variable + "%", String.valueOf(value));
-                }
-            }
-        }
+        // Встроенные плейсхолдеры и переменные контекста подставляются за один проход
+        String text = getTemplate().render(context, player != null ? name -> builtin(player, name) : null);
         
         // PlaceholderAPI (если доступен)
         try {
@@ -52,6 +33,28 @@ public class TextValue extends Value {
         return text;
     }
     
+    /**
+     * Значение встроенного плейсхолдера (null - не встроенный)
+     */
+    private static Object builtin(Player player, String name) {
+        switch (name) {
+            case "player":
+                return player.getName();
+            case "player_uuid":
+                return player.getUniqueId().toString();
+            case "player_world":
+                return player.getWorld().getName();
+            case "player_x":
+                return player.getLocation().getBlockX();
+            case "player_y":
+                return player.getLocation().getBlockY();
+            case "player_z":
+                return player.getLocation().getBlockZ();
+            default:
+                return null;
+        }
+    }
+    
     @Override
     public String getDisplayValue() {
         if (rawValue.length() > 30) {
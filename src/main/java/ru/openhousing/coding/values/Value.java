@@ -2,6 +2,7 @@ package ru.openhousing.coding.values;
 
 import org.bukkit.entity.Player;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.TextTemplate;
 
 /**
  * Базовый класс для значений в системе кодинга
@@ -10,6 +11,7 @@ public abstract class Value {
     
     protected String rawValue;
     protected ValueType type;
+    private TextTemplate template; // Разобранный rawValue (сбрасывается при изменении)
     
     public Value(ValueType type, String rawValue) {
         this.type = type;
@@ -50,6 +52,19 @@ public abstract class Value {
      */
     public void setRawValue(String rawValue) {
         this.rawValue = rawValue;
+        this.template = null;
+    }
+    
+    /**
+     * Разобранный rawValue с плейсхолдерами %переменная%
+     */
+    protected TextTemplate getTemplate() {
+        TextTemplate current = template;
+        if (current == null) {
+            current = TextTemplate.compile(rawValue);
+            template = current;
+        }
+        return current;
     }
     
     /**
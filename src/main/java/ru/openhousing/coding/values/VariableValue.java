@@ -2,12 +2,15 @@ package ru.openhousing.coding.values;
 
 import org.bukkit.entity.Player;
 import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.VariableRef;
 
 /**
  * Значение переменной
  */
 public class VariableValue extends Value {
     
+    private VariableRef ref; // Имя без % и слот переменной
+    
     public VariableValue(String rawValue) {
         super(ValueType.VARIABLE, rawValue != null ? rawValue : "");
     }
@@ -18,14 +21,25 @@ public class VariableValue extends Value {
             return null;
         }
         
-        String variableName = rawValue;
-        
-        // Удаляем префикс % если есть
-        if (variableName.startsWith("%") && variableName.endsWith("%") && variableName.length() > 2) {
-            variableName = variableName.substring(1, variableName.length() - 1);
+        return context.getVariable(getRef());
+    }
+    
+    @Override
+    public void setRawValue(String rawValue) {
+        super.setRawValue(rawValue);
+        this.ref = null;
+    }
+    
+    /**
+     * Ссылка на переменную для доступа по слоту
+     */
+    public VariableRef getRef() {
+        VariableRef current = ref;
+        if (current == null) {
+            current = new VariableRef(getVariableName());
+            ref = current;
         }
-        
-        return context.getVariable(variableName);
+        return current;
     }
     
     @Override
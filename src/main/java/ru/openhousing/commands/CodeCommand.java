@@ -7,6 +7,8 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.coding.trace.ScriptTracer;
+import ru.openhousing.coding.trace.TraceEvent;
 import ru.openhousing.utils.MessageUtil;
 
 import java.util.ArrayList;
@@ -78,6 +80,10 @@ public class CodeCommand implements CommandExecutor, TabCompleter {
                 shareScript(player, args);
                 break;
                 
+            case "trace":
+                handleTrace(player, args);
+                break;
+                
             case "import":
                 importScript(player, args);
                 break;
@@ -240,6 +246,95 @@ public class CodeCommand implements CommandExecutor, TabCompleter {
         MessageUtil.send(player, "&aОтладчик кода открыт!");
     }
     
+    /**
+     * Трассировка выполнения кода
+     */
+    private void handleTrace(Player player, String[] args) {
+        ScriptTracer tracer = plugin.getCodeManager().getScriptTracer();
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        
+        switch (action) {
+            case "rate": {
+                if (args.length < 3) {
+                    MessageUtil.send(player, "&cИспользование: &e/code trace rate <0-100>");
+                    return;
+                }
+                double percent;
+                try {
+                    percent = Double.parseDouble(args[2]);
+                } catch (NumberFormatException e) {
+                    MessageUtil.send(player, "&cНеверное число: &e" + args[2]);
+                    return;
+                }
+                tracer.setSampleRate(player.getUniqueId(), percent / 100.0);
+                MessageUtil.send(player, "&aТрассируется &e" + formatPercent(tracer.getSampleRate(player.getUniqueId())) +
+                    " &aзапусков вашего кода");
+                break;
+            }
+            
+            case "off":
+                tracer.resetSampleRate(player.getUniqueId());
+                MessageUtil.send(player, "&aТрассировка сброшена к значению по умолчанию: &e" +
+                    formatPercent(tracer.getSampleRate(player.getUniqueId())));
+                break;
+                
+            case "dump": {
+                boolean all = args.length > 2 && args[2].equalsIgnoreCase("all");
+                if (all && !player.hasPermission("openhousing.admin.trace")) {
+                    MessageUtil.send(player, "&cУ вас нет разрешения на просмотр трассировки всех домов!");
+                    return;
+                }
+                int limit = 20;
+                String countArg = args.length > (all ? 3 : 2) ? args[all ? 3 : 2] : null;
+                if (countArg != null) {
+                    try {
+                        limit = Math.max(1, Math.min(200, Integer.parseInt(countArg)));
+                    } catch (NumberFormatException e) {
+                        MessageUtil.send(player, "&cНеверное число: &e" + countArg);
+                        return;
+                    }
+                }
+                
+                List<TraceEvent> events = tracer.dump(all ? null : player.getUniqueId(), limit);
+                if (events.isEmpty()) {
+                    MessageUtil.send(player, "&7Записей трассировки нет. Включите ее: &e/code trace rate 100");
+                    return;
+                }
+                MessageUtil.send(player, "&6&l=== Трассировка (" + events.size() + ") ===");
+                for (TraceEvent event : events) {
+                    MessageUtil.send(player, "&7" + event.format());
+                }
+                break;
+            }
+            
+            case "clear":
+                if (!player.hasPermission("openhousing.admin.trace")) {
+                    MessageUtil.send(player, "&cУ вас нет разрешения на очистку трассировки!");
+                    return;
+                }
+                tracer.clear();
+                MessageUtil.send(player, "&aБуфер трассировки очищен");
+                break;
+                
+            case "status":
+            default:
+                MessageUtil.send(player,
+                    "&6&l=== Трассировка кода ===",
+                    "&7Доля запусков: &f" + formatPercent(tracer.getSampleRate(player.getUniqueId())),
+                    "&7Размер буфера: &f" + tracer.getBuffer().getCapacity(),
+                    "&7Записано всего: &f" + tracer.getBuffer().getTotalRecorded(),
+                    "&e/code trace rate <0-100> &7- Доля трассируемых запусков",
+                    "&e/code trace off &7- Сбросить долю",
+                    "&e/code trace dump [количество] &7- Последние записи"
+                );
+                break;
+        }
+    }
+    
+    private String formatPercent(double rate) {
+        return String.format("%.1f%%", rate * 100.0);
+    }
+    
     /**
      * Показ справки
      */
@@ -252,6 +347,7 @@ public class CodeCommand implements CommandExecutor, TabCompleter {
             "&e/code clear &7- Очистить код",
             "&e/code info &7- Информация о коде",
             "&e/code share &7- Поделиться кодом",
+            "&e/code trace &7- Трассировка выполнения кода",
             "&e/code import <код> &7- Импортировать код",
             "&e/code help &7- Показать эту справку",
             ""
@@ -271,7 +367,7 @@ public class CodeCommand implements CommandExecutor, TabCompleter {
             String input = args[0].toLowerCase();
             
             List<String> subCommands = Arrays.asList(
-                "editor", "execute", "toggle", "clear", "info", "share", "import", "help"
+                "editor", "execute", "toggle", "clear", "info", "share", "import", "trace", "help"
             );
             
             for (String subCommand : subCommands) {
@@ -303,6 +399,16 @@ public class CodeCommand implements CommandExecutor, TabCompleter {
             return completions;
         }
         
+        if (args.length == 2 && args[0].equalsIgnoreCase("trace")) {
+            List<String> completions = new ArrayList<>();
+            for (String action : Arrays.asList("status", "rate", "off", "dump", "clear")) {
+                if (action.startsWith(args[1].toLowerCase())) {
+                    completions.add(action);
+                }
+            }
+            return completions;
+        }
+        
         return new ArrayList<>();
     }
 }
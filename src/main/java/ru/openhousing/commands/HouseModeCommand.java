@@ -72,7 +72,7 @@ public class HouseModeCommand implements CommandExecutor {
         if (debugMode) plugin.getLogger().info("[DEBUG] Setting PLAY mode for house: " + house.getId() + ", player: " + player.getName());
         
         house.setMode(HouseMode.PLAY);
-        plugin.getDatabaseManager().saveHouse(house);
+        plugin.getDatabaseManager().queueHouse(house);
         
         // КРИТИЧЕСКОЕ ИСПРАВЛЕНИЕ: Регистрируем код игрока в EventManager
         if (plugin.getCodeManager() != null) {
@@ -135,15 +135,15 @@ public class HouseModeCommand implements CommandExecutor {
                 // Создаем контекст выполнения
                 CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(player);
                 
-                // Передаем глобальные переменные в контекст
-                context.getVariables().putAll(script.getGlobalVariables());
+                // Привязываем переменные и функции скрипта к контексту
+                script.bindContext(context, script.getCompiledProgram());
                 
                 // Выполняем блок
                 MessageUtil.send(player, "&aЗапускаем ваш код...");
                 CodeBlock.ExecutionResult result = gameStartBlock.execute(context);
                 
                 // Сохраняем измененные переменные обратно в скрипт
-                script.getGlobalVariables().putAll(context.getVariables());
+                script.commitContext(context);
                 
                 if (result.isSuccess()) {
                     plugin.getLogger().info("[GAME START] Код игрока " + player.getName() + " успешно выполнен");
@@ -166,7 +166,7 @@ public class HouseModeCommand implements CommandExecutor {
      */
     private void setBuildMode(Player player, House house) {
         house.setMode(HouseMode.BUILD);
-        plugin.getDatabaseManager().saveHouse(house);
+        plugin.getDatabaseManager().queueHouse(house);
         
         // Устанавливаем игровой режим
         for (Player housePlayer : house.getPlayersInside()) {
@@ -377,8 +377,13 @@ public class HousingCommand implements CommandExecutor, TabCompleter {
             return;
         }
         
-        player.teleport(house.getSpawnLocation());
-        MessageUtil.send(player, "&aВы телепортированы в дом " + house.getName() + "!");
+        plugin.getHousingManager().getTeleporter().teleport(player, house, success -> {
+            if (success) {
+                MessageUtil.send(player, "&aВы телепортированы в дом " + house.getName() + "!");
+            } else {
+                MessageUtil.send(player, "&cНе удалось телепортироваться в дом!");
+            }
+        });
     }
     
     /**
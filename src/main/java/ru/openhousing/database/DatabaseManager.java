@@ -10,16 +10,56 @@ import ru.openhousing.coding.serialization.ScriptSerializer;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Менеджер базы данных
  */
 public class DatabaseManager {
     
+    private static final String SAVE_SCRIPT_SQL = "INSERT INTO code_scripts (player_id, player_name, script_data, enabled) " +
+                    "VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "player_name = VALUES(player_name), " +
+                    "script_data = VALUES(script_data), " +
+                    "enabled = VALUES(enabled), " +
+                    "updated_at = CURRENT_TIMESTAMP";
+    
+    private static final String SAVE_HOUSE_SQL = "INSERT INTO houses (id, owner_id, owner_name, name, world_name, x, y, z, width, height, length, public, visitors_allowed) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "owner_name = VALUES(owner_name), " +
+                    "name = VALUES(name), " +
+                    "public = VALUES(public), " +
+                    "visitors_allowed = VALUES(visitors_allowed), " +
+                    "updated_at = CURRENT_TIMESTAMP";
+    
+    private static final String LOAD_HOUSES_SQL = "SELECT id, owner_id, owner_name, name, world_name, x, y, z, " +
+                    "width, height, length, public, visitors_allowed FROM houses";
+    
+    private static final String DELETE_HOUSE_SQL = "DELETE FROM houses WHERE id = ?";
+    private static final String DELETE_MEMBERS_SQL = "DELETE FROM house_members WHERE house_id = ?";
+    private static final String UPSERT_MEMBER_SQL = "INSERT INTO house_members (house_id, player_id, banned) VALUES (?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE banned = VALUES(banned)";
+    private static final String DELETE_MEMBER_SQL = "DELETE FROM house_members WHERE house_id = ? AND player_id = ?";
+    
+    private static final String DELETE_SETTINGS_SQL = "DELETE FROM house_settings WHERE house_id = ?";
+    private static final String UPSERT_SETTING_SQL = "INSERT INTO house_settings (house_id, setting_key, value_type, setting_value) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE value_type = VALUES(value_type), setting_value = VALUES(setting_value)";
+    private static final String DELETE_SETTING_SQL = "DELETE FROM house_settings WHERE house_id = ? AND setting_key = ?";
+    
     private final OpenHousing plugin;
     private HikariDataSource dataSource;
     private ScriptSerializer scriptSerializer;
+    private boolean binaryScripts = true; // Формат сохранения кода (чтение поддерживает оба)
+    private int loadFetchSize = 500; // Строк за одно обращение к базе при загрузке домов
+    
+    // Отложенная запись: повторные сохранения объединяются и пишутся пачками
+    private WriteBehindQueue<UUID, CodeScript> scriptQueue;
+    private WriteBehindQueue<Integer, ru.openhousing.housing.House> houseQueue;
+    private final Map<Integer, HouseDelta> writingHouses = new ConcurrentHashMap<>(); // Изменения в незавершенной записи
     
     public DatabaseManager(OpenHousing plugin) {
         this.plugin = plugin;
@@ -37,6 +77,9 @@ public class DatabaseManager {
             
             FileConfiguration config = plugin.getConfigManager().getMainConfig();
             String dbType = config.getString("database.type", "h2");
+            binaryScripts = !"json".equalsIgnoreCase(config.getString("database.script-format", "binary"));
+            loadFetchSize = Math.max(1, config.getInt("database.load.fetch-size", 500));
+            scriptSerializer.setLazyBodies(binaryScripts && config.getBoolean("coding.lazy-loading.enabled", true));
             
             if (debugMode) plugin.getLogger().info("[DEBUG] Database type: " + dbType);
             
@@ -65,6 +108,8 @@ public class DatabaseManager {
             createTables();
             if (debugMode) plugin.getLogger().info("[DEBUG] Database tables created successfully");
             
+            setupWriteBehind(config);
+            
             plugin.getLogger().info("Database initialized successfully!");
         } catch (Exception e) {
             plugin.getLogger().severe("[CRITICAL] Database initialization failed: " + e.getMessage());
@@ -73,6 +118,48 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Настройка очередей отложенной записи
+     */
+    private void setupWriteBehind(FileConfiguration config) {
+        int batchSize = config.getInt("database.write-behind.batch-size", 100);
+        int maxPending = config.getInt("database.write-behind.max-pending", 5000);
+        long flushInterval = config.getLong("database.write-behind.flush-interval-ms", 500);
+        
+        scriptQueue = new WriteBehindQueue<>("scripts", plugin.getLogger(), this::getConnection,
+                this::writeScriptBatch, this::runCallback, batchSize, maxPending, flushInterval);
+        houseQueue = new WriteBehindQueue<>("houses", plugin.getLogger(), this::getConnection,
+                new WriteBehindQueue.BatchWriter<>() {
+                    @Override
+                    public void write(Connection connection, List<ru.openhousing.housing.House> houses) throws SQLException {
+                        writeHouseBatch(connection, houses);
+                    }
+                    
+                    @Override
+                    public void delete(Connection connection, List<Integer> houseIds) throws SQLException {
+                        deleteHouseBatch(connection, houseIds);
+                    }
+                    
+                    @Override
+                    public void completed(List<ru.openhousing.housing.House> houses, boolean committed) {
+                        completeHouseBatch(houses, committed);
+                    }
+                }, this::runCallback, batchSize, maxPending, flushInterval);
+        scriptQueue.start();
+        houseQueue.start();
+    }
+    
+    /**
+     * Callback сохранения выполняется в основном потоке (при выключении - сразу)
+     */
+    private void runCallback(Runnable callback) {
+        if (plugin.isEnabled()) {
+            org.bukkit.Bukkit.getScheduler().runTask(plugin, callback);
+        } else {
+            callback.run();
+        }
+    }
+    
     /**
      * Настройка MySQL
      */
@@ -84,7 +171,7 @@ public class DatabaseManager {
         String password = pluginConfig.getString("database.mysql.password", "");
         boolean ssl = pluginConfig.getBoolean("database.mysql.ssl", false);
         
-        config.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s?useSSL=%s&autoReconnect=true&useUnicode=true&characterEncoding=utf8",
+        config.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s?useSSL=%s&autoReconnect=true&useUnicode=true&characterEncoding=utf8&rewriteBatchedStatements=true&useCursorFetch=true",
             host, port, database, ssl));
         config.setUsername(username);
         config.setPassword(password);
@@ -113,6 +200,17 @@ public class DatabaseManager {
             // Таблица для домов
             createHousesTable(connection);
             
+            // Списки доступа и настройки домов
+            createHouseMembersTable(connection);
+            createHouseSettingsTable(connection);
+            
+            // Индексы для выборок по владельцу, миру и публичности
+            createIndex(connection, "houses", "idx_houses_owner_id", "owner_id");
+            createIndex(connection, "houses", "idx_houses_owner_name", "owner_name");
+            createIndex(connection, "houses", "idx_houses_world_name", "world_name");
+            createIndex(connection, "houses", "idx_houses_public", "public");
+            createIndex(connection, "house_members", "idx_house_members_player", "player_id");
+            
             // Таблица для игр
             createGamesTable(connection);
             
@@ -170,6 +268,55 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Создание таблицы участников домов (разрешенные и заблокированные игроки)
+     */
+    private void createHouseMembersTable(Connection connection) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS house_members (" +
+                    "house_id INT NOT NULL, " +
+                    "player_id VARCHAR(36) NOT NULL, " +
+                    "banned BOOLEAN DEFAULT FALSE, " +
+                    "PRIMARY KEY (house_id, player_id)" +
+                    ")";
+        
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.executeUpdate();
+        }
+    }
+    
+    /**
+     * Создание таблицы настроек домов
+     */
+    private void createHouseSettingsTable(Connection connection) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS house_settings (" +
+                    "house_id INT NOT NULL, " +
+                    "setting_key VARCHAR(64) NOT NULL, " +
+                    "value_type CHAR(1) NOT NULL, " +
+                    "setting_value TEXT, " +
+                    "PRIMARY KEY (house_id, setting_key)" +
+                    ")";
+        
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.executeUpdate();
+        }
+    }
+    
+    /**
+     * Создание индекса, если его еще нет (MySQL не поддерживает CREATE INDEX IF NOT EXISTS)
+     */
+    private void createIndex(Connection connection, String table, String index, String columns) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement("CREATE INDEX " + index + " ON " + table + " (" + columns + ")")) {
+            statement.executeUpdate();
+        }
+    }
+    
     /**
      * Создание таблицы игр
      */
@@ -220,25 +367,13 @@ public class DatabaseManager {
     }
     
     /**
-     * Сохранение кода игрока
+     * Сохранение кода игрока (синхронно, в текущем потоке)
      */
     public void saveCodeScript(CodeScript script) {
-        String sql = "INSERT INTO code_scripts (player_id, player_name, script_data, enabled) " +
-                    "VALUES (?, ?, ?, ?) " +
-                    "ON DUPLICATE KEY UPDATE " +
-                    "player_name = VALUES(player_name), " +
-                    "script_data = VALUES(script_data), " +
-                    "enabled = VALUES(enabled), " +
-                    "updated_at = CURRENT_TIMESTAMP";
-        
         try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            
-            statement.setString(1, script.getPlayerId().toString());
-            statement.setString(2, script.getPlayerName());
-            statement.setString(3, serializeScript(script));
-            statement.setBoolean(4, script.isEnabled());
+             PreparedStatement statement = connection.prepareStatement(SAVE_SCRIPT_SQL)) {
             
+            bindScript(statement, script);
             statement.executeUpdate();
             
         } catch (SQLException e) {
@@ -247,10 +382,43 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Постановка кода игрока в очередь записи
+     */
+    public void queueCodeScript(CodeScript script) {
+        saveCodeScriptAsync(script, null);
+    }
+    
+    private void bindScript(PreparedStatement statement, CodeScript script) throws SQLException {
+        statement.setString(1, script.getPlayerId().toString());
+        statement.setString(2, script.getPlayerName());
+        statement.setString(3, serializeScript(script));
+        statement.setBoolean(4, script.isEnabled());
+    }
+    
+    private void writeScriptBatch(Connection connection, List<CodeScript> scripts) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SAVE_SCRIPT_SQL)) {
+            for (CodeScript script : scripts) {
+                bindScript(statement, script);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+    
     /**
      * Загрузка кода игрока
      */
     public CodeScript loadCodeScript(UUID playerId) {
+        // Сохранение, еще не дошедшее до базы, новее строки в таблице
+        WriteBehindQueue<UUID, CodeScript> queue = scriptQueue;
+        if (queue != null) {
+            CodeScript pending = queue.peek(playerId);
+            if (pending != null) {
+                return pending;
+            }
+        }
+        
         String sql = "SELECT * FROM code_scripts WHERE player_id = ?";
         
         try (Connection connection = getConnection();
@@ -296,48 +464,189 @@ public class DatabaseManager {
      * Асинхронное сохранение кода игрока
      */
     public void saveCodeScriptAsync(CodeScript script, java.lang.Runnable callback) {
-        org.bukkit.Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        if (scriptQueue == null) {
             saveCodeScript(script);
-            // Вызываем callback в основном потоке
-            org.bukkit.Bukkit.getScheduler().runTask(plugin, callback);
-        });
+            if (callback != null) {
+                callback.run();
+            }
+            return;
+        }
+        // Callback вызывается в основном потоке после записи в базу
+        scriptQueue.enqueue(script.getPlayerId(), script, callback);
     }
     
     /**
-     * Сохранение дома
+     * Сохранение дома (синхронно, в текущем потоке)
      */
     public void saveHouse(ru.openhousing.housing.House house) {
-        String sql = "INSERT INTO houses (id, owner_id, owner_name, name, world_name, x, y, z, width, height, length, public, visitors_allowed) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                    "ON DUPLICATE KEY UPDATE " +
-                    "owner_name = VALUES(owner_name), " +
-                    "name = VALUES(name), " +
-                    "public = VALUES(public), " +
-                    "visitors_allowed = VALUES(visitors_allowed), " +
-                    "updated_at = CURRENT_TIMESTAMP";
-        
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            
-            statement.setInt(1, house.getId());
-            statement.setString(2, house.getOwnerId().toString());
-            statement.setString(3, house.getOwnerName());
-            statement.setString(4, house.getName());
-            statement.setString(5, house.getWorldName());
+        List<ru.openhousing.housing.House> houses = List.of(house);
+        boolean committed = false;
+        try (Connection connection = getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                writeHouseBatch(connection, houses);
+                connection.commit();
+                committed = true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to save house: " + house.getName());
+            e.printStackTrace();
+        } finally {
+            // Как и в очереди: несохраненные изменения снова помечаются для записи
+            completeHouseBatch(houses, committed);
+        }
+    }
+    
+    /**
+     * Постановка дома в очередь записи
+     */
+    public void queueHouse(ru.openhousing.housing.House house) {
+        saveHouseAsync(house, null);
+    }
+    
+    private void bindHouse(PreparedStatement statement, ru.openhousing.housing.House house) throws SQLException {
+        statement.setInt(1, house.getId());
+        statement.setString(2, house.getOwnerId().toString());
+        statement.setString(3, house.getOwnerName());
+        statement.setString(4, house.getName());
+        statement.setString(5, house.getWorldName());
+        if (house.isPlot()) {
+            // Угол участка в общем мире
+            statement.setInt(6, house.getOriginX());
+            statement.setInt(7, house.getOriginY());
+            statement.setInt(8, house.getOriginZ());
+        } else {
             statement.setInt(6, 0); // X координата (не используется для отдельных миров)
             statement.setInt(7, 65); // Y координата (стандартная высота спавна)
             statement.setInt(8, 0); // Z координата (не используется для отдельных миров)
-            statement.setInt(9, house.getSize().getWidth());
-            statement.setInt(10, house.getSize().getHeight());
-            statement.setInt(11, house.getSize().getLength());
-            statement.setBoolean(12, house.isPublic());
-            statement.setBoolean(13, house.isVisitorsAllowed());
+        }
+        statement.setInt(9, house.getSize().getWidth());
+        statement.setInt(10, house.getSize().getHeight());
+        statement.setInt(11, house.getSize().getLength());
+        statement.setBoolean(12, house.isPublic());
+        statement.setBoolean(13, house.isVisitorsAllowed());
+    }
+    
+    /**
+     * Запись изменений домов: строка дома, участники и настройки - только измененные,
+     * каждый вид записей одной пачкой на все дома. Забранные изменения хранятся
+     * до завершения транзакции (completeHouseBatch)
+     */
+    private void writeHouseBatch(Connection connection, List<ru.openhousing.housing.House> houses) throws SQLException {
+        List<HouseDelta> deltas = new ArrayList<>(houses.size());
+        for (ru.openhousing.housing.House house : houses) {
+            HouseDelta delta = new HouseDelta(house, house.takeCoreDirty(), house.takeDirtyMembers(), house.takeDirtySettings());
+            writingHouses.put(house.getId(), delta);
+            deltas.add(delta);
+        }
+        
+        try (PreparedStatement saveHouse = connection.prepareStatement(SAVE_HOUSE_SQL);
+             PreparedStatement upsertMember = connection.prepareStatement(UPSERT_MEMBER_SQL);
+             PreparedStatement deleteMember = connection.prepareStatement(DELETE_MEMBER_SQL);
+             PreparedStatement upsertSetting = connection.prepareStatement(UPSERT_SETTING_SQL);
+             PreparedStatement deleteSetting = connection.prepareStatement(DELETE_SETTING_SQL)) {
             
-            statement.executeUpdate();
+            for (HouseDelta delta : deltas) {
+                ru.openhousing.housing.House house = delta.house;
+                if (delta.core) {
+                    bindHouse(saveHouse, house);
+                    saveHouse.addBatch();
+                }
+                
+                for (UUID playerId : delta.members) {
+                    boolean banned = house.isBanned(playerId);
+                    if (banned || house.isAllowed(playerId)) {
+                        upsertMember.setInt(1, house.getId());
+                        upsertMember.setString(2, playerId.toString());
+                        upsertMember.setBoolean(3, banned);
+                        upsertMember.addBatch();
+                    } else {
+                        deleteMember.setInt(1, house.getId());
+                        deleteMember.setString(2, playerId.toString());
+                        deleteMember.addBatch();
+                    }
+                }
+                
+                for (String key : delta.settings) {
+                    Object value = house.getSetting(key);
+                    if (value != null) {
+                        upsertSetting.setInt(1, house.getId());
+                        upsertSetting.setString(2, key);
+                        upsertSetting.setString(3, settingType(value));
+                        upsertSetting.setString(4, String.valueOf(value));
+                        upsertSetting.addBatch();
+                    } else {
+                        deleteSetting.setInt(1, house.getId());
+                        deleteSetting.setString(2, key);
+                        deleteSetting.addBatch();
+                    }
+                }
+            }
             
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to save house: " + house.getName());
-            e.printStackTrace();
+            saveHouse.executeBatch();
+            upsertMember.executeBatch();
+            deleteMember.executeBatch();
+            upsertSetting.executeBatch();
+            deleteSetting.executeBatch();
+        }
+    }
+    
+    /**
+     * Завершение записи домов: если транзакция не зафиксирована (ошибка записи или commit),
+     * забранные изменения возвращаются в дом - пачка будет повторена
+     */
+    private void completeHouseBatch(List<ru.openhousing.housing.House> houses, boolean committed) {
+        for (ru.openhousing.housing.House house : houses) {
+            HouseDelta delta = writingHouses.remove(house.getId());
+            if (delta != null && !committed) {
+                house.restoreDirty(delta.core, delta.members, delta.settings);
+            }
+        }
+    }
+    
+    /**
+     * Изменения дома, забранные для одной записи
+     */
+    private static final class HouseDelta {
+        final ru.openhousing.housing.House house;
+        final boolean core;
+        final List<UUID> members;
+        final List<String> settings;
+        
+        HouseDelta(ru.openhousing.housing.House house, boolean core, List<UUID> members, List<String> settings) {
+            this.house = house;
+            this.core = core;
+            this.members = members;
+            this.settings = settings;
+        }
+    }
+    
+    /**
+     * Тип значения настройки: b, i, l, f, d или s (строка)
+     */
+    private static String settingType(Object value) {
+        if (value instanceof Boolean) return "b";
+        if (value instanceof Integer) return "i";
+        if (value instanceof Long) return "l";
+        if (value instanceof Float) return "f";
+        if (value instanceof Double) return "d";
+        return "s";
+    }
+    
+    private static Object parseSetting(String type, String value) {
+        switch (type) {
+            case "b": return Boolean.parseBoolean(value);
+            case "i": return Integer.parseInt(value);
+            case "l": return Long.parseLong(value);
+            case "f": return Float.parseFloat(value);
+            case "d": return Double.parseDouble(value);
+            default: return value;
         }
     }
     
@@ -345,60 +654,45 @@ public class DatabaseManager {
      * Асинхронное сохранение дома
      */
     public void saveHouseAsync(ru.openhousing.housing.House house, java.lang.Runnable callback) {
-        org.bukkit.Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        if (houseQueue == null) {
             saveHouse(house);
-            // Вызываем callback в основном потоке
-            org.bukkit.Bukkit.getScheduler().runTask(plugin, callback);
-        });
+            if (callback != null) {
+                callback.run();
+            }
+            return;
+        }
+        // Callback вызывается в основном потоке после записи в базу
+        houseQueue.enqueue(house.getId(), house, callback);
     }
     
     /**
-     * Загрузка всех домов
+     * Загрузка всех домов.
+     * Строки читаются потоком порциями по loadFetchSize, миры домов не затрагиваются
+     * (загружаются при первом обращении), списки доступа и настройки всех домов
+     * читаются одним запросом на таблицу.
      */
     public List<ru.openhousing.housing.House> loadAllHouses() {
         List<ru.openhousing.housing.House> houses = new ArrayList<>();
-        String sql = "SELECT * FROM houses";
+        java.util.Map<Integer, ru.openhousing.housing.House> byId = new java.util.HashMap<>();
         
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
-            
-            while (resultSet.next()) {
-                try {
-                    int id = resultSet.getInt("id");
-                    UUID ownerId = UUID.fromString(resultSet.getString("owner_id"));
-                    String ownerName = resultSet.getString("owner_name");
-                    String name = resultSet.getString("name");
-                    String worldName = resultSet.getString("world_name");
-                    int x = resultSet.getInt("x");
-                    int y = resultSet.getInt("y");
-                    int z = resultSet.getInt("z");
-                    int width = resultSet.getInt("width");
-                    int height = resultSet.getInt("height");
-                    int length = resultSet.getInt("length");
-                    boolean isPublic = resultSet.getBoolean("public");
-                    boolean visitorsAllowed = resultSet.getBoolean("visitors_allowed");
-                    
-                    org.bukkit.World world = org.bukkit.Bukkit.getWorld(worldName);
-                    if (world == null) {
-                        plugin.getLogger().warning("World not found for house: " + name + " (world: " + worldName + ")");
-                        continue;
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = prepareStreaming(connection, LOAD_HOUSES_SQL);
+                 ResultSet resultSet = statement.executeQuery()) {
+                
+                while (resultSet.next()) {
+                    try {
+                        ru.openhousing.housing.House house = readHouse(resultSet);
+                        houses.add(house);
+                        byId.put(house.getId(), house);
+                    } catch (Exception e) {
+                        plugin.getLogger().warning("Failed to load house from database: " + e.getMessage());
                     }
-                    
-                    org.bukkit.Location location = new org.bukkit.Location(world, x, y, z);
-                    ru.openhousing.housing.House.HouseSize size = new ru.openhousing.housing.House.HouseSize(width, height, length);
-                    
-                    ru.openhousing.housing.House house = new ru.openhousing.housing.House(id, ownerId, ownerName, name, worldName, size, plugin);
-                    house.setPublic(isPublic);
-                    house.setVisitorsAllowed(visitorsAllowed);
-                    
-                    houses.add(house);
-                    
-                } catch (Exception e) {
-                    plugin.getLogger().warning("Failed to load house from database: " + e.getMessage());
                 }
             }
             
+            loadHouseMembers(connection, byId);
+            loadHouseSettings(connection, byId);
+            
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to load houses from database!");
             e.printStackTrace();
@@ -407,6 +701,72 @@ public class DatabaseManager {
         return houses;
     }
     
+    private PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(loadFetchSize);
+        return statement;
+    }
+    
+    private ru.openhousing.housing.House readHouse(ResultSet resultSet) throws SQLException {
+        int id = resultSet.getInt("id");
+        UUID ownerId = UUID.fromString(resultSet.getString("owner_id"));
+        String ownerName = resultSet.getString("owner_name");
+        String name = resultSet.getString("name");
+        String worldName = resultSet.getString("world_name");
+        ru.openhousing.housing.House.HouseSize size = new ru.openhousing.housing.House.HouseSize(
+            resultSet.getInt("width"), resultSet.getInt("height"), resultSet.getInt("length"));
+        
+        ru.openhousing.housing.House house = new ru.openhousing.housing.House(id, ownerId, ownerName, name, worldName, size, plugin);
+        house.setPublic(resultSet.getBoolean("public"));
+        house.setVisitorsAllowed(resultSet.getBoolean("visitors_allowed"));
+        // Участком дом отмечает HousingManager по имени мира
+        house.setOrigin(resultSet.getInt("x"), resultSet.getInt("y"), resultSet.getInt("z"));
+        house.markClean();
+        return house;
+    }
+    
+    /**
+     * Списки доступа всех домов одним запросом
+     */
+    private void loadHouseMembers(Connection connection, java.util.Map<Integer, ru.openhousing.housing.House> byId) throws SQLException {
+        try (PreparedStatement statement = prepareStreaming(connection, "SELECT house_id, player_id, banned FROM house_members");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                ru.openhousing.housing.House house = byId.get(resultSet.getInt("house_id"));
+                if (house == null) {
+                    continue;
+                }
+                try {
+                    house.restoreMember(UUID.fromString(resultSet.getString("player_id")), resultSet.getBoolean("banned"));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Invalid member of house " + house.getId() + ": " + resultSet.getString("player_id"));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Настройки всех домов одним запросом
+     */
+    private void loadHouseSettings(Connection connection, java.util.Map<Integer, ru.openhousing.housing.House> byId) throws SQLException {
+        try (PreparedStatement statement = prepareStreaming(connection, "SELECT house_id, setting_key, value_type, setting_value FROM house_settings");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                ru.openhousing.housing.House house = byId.get(resultSet.getInt("house_id"));
+                String value = resultSet.getString("setting_value");
+                if (house == null || value == null) {
+                    continue;
+                }
+                String key = resultSet.getString("setting_key");
+                try {
+                    house.restoreSetting(key, parseSetting(resultSet.getString("value_type"), value));
+                } catch (NumberFormatException e) {
+                    plugin.getLogger().warning("Invalid setting '" + key + "' of house " + house.getId() + ": " + value);
+                }
+            }
+        }
+    }
+    
     /**
      * Асинхронная загрузка всех домов
      */
@@ -422,14 +782,24 @@ public class DatabaseManager {
      * Удаление дома
      */
     public void deleteHouse(int houseId) {
-        String sql = "DELETE FROM houses WHERE id = ?";
+        // Через очередь: удаление выполнится после идущей записи дома и заменит ожидающее сохранение
+        if (houseQueue != null) {
+            houseQueue.enqueueDelete(houseId, null);
+            return;
+        }
         
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            
-            statement.setInt(1, houseId);
-            statement.executeUpdate();
-            
+        try (Connection connection = getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                deleteHouseBatch(connection, List.of(houseId));
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to delete house: " + houseId);
             e.printStackTrace();
@@ -437,14 +807,36 @@ public class DatabaseManager {
     }
     
     /**
-     * Сериализация кода в JSON
+     * Удаление домов вместе с участниками и настройками в открытой транзакции
+     */
+    private void deleteHouseBatch(Connection connection, List<Integer> houseIds) throws SQLException {
+        for (String sql : new String[]{DELETE_HOUSE_SQL, DELETE_MEMBERS_SQL, DELETE_SETTINGS_SQL}) {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int houseId : houseIds) {
+                    statement.setInt(1, houseId);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+    
+    /**
+     * Сериализация кода (двоичный формат или JSON)
      */
     private String serializeScript(CodeScript script) {
-        return scriptSerializer.serialize(script);
+        return binaryScripts ? scriptSerializer.serializeBinary(script) : scriptSerializer.serialize(script);
     }
     
     /**
-     * Десериализация кода из JSON
+     * Сериализатор кода (выгрузка неиспользуемых тел обработчиков)
+     */
+    public ScriptSerializer getScriptSerializer() {
+        return scriptSerializer;
+    }
+    
+    /**
+     * Десериализация кода (формат определяется автоматически)
      */
     private CodeScript deserializeScript(UUID playerId, String playerName, String scriptData) {
         return scriptSerializer.deserialize(scriptData, playerId, playerName);
@@ -454,6 +846,13 @@ public class DatabaseManager {
      * Закрытие соединения с базой данных
      */
     public void closeConnection() {
+        // Дописываем очереди, пока пул еще открыт
+        if (scriptQueue != null) {
+            scriptQueue.shutdown();
+        }
+        if (houseQueue != null) {
+            houseQueue.shutdown();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             plugin.getLogger().info("Database connection closed!");
@@ -0,0 +1,528 @@
+package ru.openhousing.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Очередь отложенной записи в базу данных.
+ *
+ * Повторные сохранения одного ключа (игрок, дом) объединяются: в базу попадает только
+ * последнее значение. Отдельный поток записывает накопленное пачкой (executeBatch)
+ * в одной транзакции каждые flushIntervalMs или при накоплении batchSize записей.
+ *
+ * Сохраняющий поток (обычно основной) никогда не ждет базу и не пишет в нее сам.
+ * maxPending - мягкий предел: при его превышении значение все равно остается в очереди,
+ * запись пачки запрашивается сразу, а переполнение учитывается в статистике.
+ * Записи одного ключа не пересекаются: пока идет запись ключа, его новое значение
+ * ждет в очереди и не может быть перезаписано старым. Удаление ставится в ту же очередь
+ * как запись ключа, поэтому идущая запись не вернет удаленную строку.
+ *
+ * Значения не отбрасываются: неудачная пачка повторяется по одной записи, чтобы одна
+ * ошибочная строка не задерживала соседние, а каждая неудачная запись остается в очереди
+ * и повторяется с экспоненциально растущей паузой. При остановке очередь дописывается
+ * несколькими проходами без пауз; то, что записать так и не удалось, перечисляется в логе.
+ */
+public class WriteBehindQueue<K, V> {
+
+    /**
+     * Источник соединений (пул)
+     */
+    @FunctionalInterface
+    public interface ConnectionProvider {
+        Connection getConnection() throws SQLException;
+    }
+
+    /**
+     * Запись пачки значений в уже открытой транзакции
+     */
+    @FunctionalInterface
+    public interface BatchWriter<K, V> {
+        void write(Connection connection, List<V> items) throws SQLException;
+
+        /**
+         * Удаление строк ключей в той же транзакции (для очередей, поддерживающих enqueueDelete)
+         */
+        default void delete(Connection connection, List<K> keys) throws SQLException {
+            throw new UnsupportedOperationException("Deletes are not supported by this writer");
+        }
+
+        /**
+         * Завершение записи пачки: committed = false при любой ошибке, включая commit.
+         * Вызывается до возврата пачки в очередь
+         */
+        default void completed(List<V> items, boolean committed) {
+        }
+    }
+
+    private static final long MAX_RETRY_DELAY_MS = 60000;  // Предел паузы перед повтором записи
+    private static final int SHUTDOWN_ROUNDS = 3;            // Проходов записи при остановке
+    private static final long SHUTDOWN_JOIN_MS = 10000;
+
+    private final String name;
+    private final Logger logger;
+    private final ConnectionProvider connections;
+    private final BatchWriter<K, V> writer;
+    private final Consumer<Runnable> callbackExecutor;  // Где выполнять callback после записи
+    private final int batchSize;
+    private final int maxPending;
+    private final long flushIntervalMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition batchDone = lock.newCondition();  // Запись пачки завершена или отложена
+    private final LinkedHashMap<K, Pending<V>> pending = new LinkedHashMap<>();
+    private final Map<K, Pending<V>> inFlight = new HashMap<>();  // Извлечены из очереди, запись идет
+    private int flushRounds;  // Выданные номера проходов дописывания
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    public WriteBehindQueue(String name, Logger logger, ConnectionProvider connections, BatchWriter<K, V> writer,
+                            Consumer<Runnable> callbackExecutor, int batchSize, int maxPending,
+                            long flushIntervalMs) {
+        this.name = name;
+        this.logger = logger;
+        this.connections = connections;
+        this.writer = writer;
+        this.callbackExecutor = callbackExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = Math.max(this.batchSize, maxPending);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+    }
+
+    /**
+     * Запуск потока записи
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "OpenHousing-WriteBehind-" + name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Постановка значения в очередь записи
+     *
+     * @param callback выполняется после записи в базу (может быть null)
+     */
+    public void enqueue(K key, V value, Runnable callback) {
+        lock.lock();
+        try {
+            Pending<V> existing = pending.get(key);
+            if (existing != null) {
+                existing.value = value;
+                existing.deleted = false;
+                existing.attempts = 0;
+                existing.retryAt = 0;  // Новое значение пробуем записать сразу
+                existing.addCallback(callback);
+                coalesced.incrementAndGet();
+                return;
+            }
+
+            // Переполненная очередь не блокирует сохраняющий поток: значение остается в очереди
+            if (pending.size() >= maxPending && overflows.getAndIncrement() == 0) {
+                logger.warning("Write-behind queue " + name + " exceeded " + maxPending + " pending entries");
+            }
+            pending.put(key, new Pending<>(value, callback));
+            if (pending.size() >= batchSize) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Постановка удаления строки ключа в очередь. Заменяет ожидающее сохранение ключа
+     * и выполняется после уже идущей записи этого ключа
+     *
+     * @param callback выполняется после удаления из базы (может быть null)
+     */
+    public void enqueueDelete(K key, Runnable callback) {
+        lock.lock();
+        try {
+            Pending<V> item = pending.get(key);
+            if (item != null) {
+                item.value = null;
+                item.attempts = 0;
+                item.retryAt = 0;
+                item.addCallback(callback);
+                coalesced.incrementAndGet();
+            } else {
+                item = new Pending<>(null, callback);
+                pending.put(key, item);
+            }
+            item.deleted = true;
+            flushRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Последнее еще не записанное в базу значение ключа
+     *
+     * @return null, если записей ключа нет в очереди и не записывается сейчас или ключ удаляется
+     */
+    public V peek(K key) {
+        lock.lock();
+        try {
+            Pending<V> item = pending.get(key);
+            if (item == null) {
+                item = inFlight.get(key);
+            }
+            return item != null ? item.value : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Остановка потока записи и запись всех ожидающих значений в текущем потоке
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            flushRequested.signalAll();
+            batchDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        Thread thread = flusher;
+        if (thread != null) {
+            try {
+                thread.join(SHUTDOWN_JOIN_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+
+        flushAll();
+    }
+
+    /**
+     * Запись всех ожидающих значений в текущем потоке, без пауз перед повтором.
+     * Каждое значение пробуется не более SHUTDOWN_ROUNDS раз; незаписанные остаются в очереди
+     */
+    public void flushAll() {
+        List<K> keys = new ArrayList<>();
+        List<Pending<V>> items = new ArrayList<>();
+        int first;
+        lock.lock();
+        try {
+            first = flushRounds + 1;
+            flushRounds += SHUTDOWN_ROUNDS;
+        } finally {
+            lock.unlock();
+        }
+        for (int round = first; round < first + SHUTDOWN_ROUNDS; round++) {
+            while (takeBatch(keys, items, round)) {
+                writeBatch(keys, items);
+                keys.clear();
+                items.clear();
+            }
+        }
+
+        lock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                logger.severe("Could not write " + pending.size() + " " + name + " entries: " + pending.keySet());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        List<K> keys = new ArrayList<>(batchSize);
+        List<Pending<V>> items = new ArrayList<>(batchSize);
+        while (running) {
+            if (takeBatch(keys, items, 0)) {
+                writeBatch(keys, items);
+                keys.clear();
+                items.clear();
+            }
+        }
+    }
+
+    /**
+     * Извлечение пачки из очереди; ключи, запись которых еще идет, пропускаются
+     *
+     * @param round 0 - поток записи: ждать накопления пачки или истечения интервала,
+     *              пропускать значения, пауза перед повтором которых не истекла;
+     *              больше 0 - проход дописывания: брать значения, еще не пробованные в этом проходе
+     * @return true, если пачка не пустая
+     */
+    private boolean takeBatch(List<K> keys, List<Pending<V>> items, int round) {
+        boolean wait = round == 0;
+        lock.lock();
+        try {
+            if (wait && running && pending.size() < batchSize) {
+                flushRequested.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+            }
+
+            while (true) {
+                long now = System.currentTimeMillis();
+                boolean blocked = false;
+                Iterator<Map.Entry<K, Pending<V>>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && items.size() < batchSize) {
+                    Map.Entry<K, Pending<V>> entry = iterator.next();
+                    Pending<V> item = entry.getValue();
+                    if (inFlight.containsKey(entry.getKey())) {
+                        blocked = true;
+                        continue;
+                    }
+                    if (wait ? item.retryAt > now : item.round >= round) {
+                        continue;
+                    }
+                    item.round = round;
+                    keys.add(entry.getKey());
+                    items.add(item);
+                    inFlight.put(entry.getKey(), item);
+                    iterator.remove();
+                }
+                if (!items.isEmpty()) {
+                    return true;
+                }
+                if (!blocked) {
+                    if (wait && running && !pending.isEmpty()) {
+                        // Все ожидающие значения ждут повтора
+                        flushRequested.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    }
+                    return false;
+                }
+
+                // Остались ключи, предыдущая запись которых еще идет - ждем ее завершения
+                boolean done = batchDone.await(wait ? flushIntervalMs : SHUTDOWN_JOIN_MS, TimeUnit.MILLISECONDS);
+                if (!done || (wait && !running)) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !items.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Запись пачки в одной транзакции (сохранения, затем удаления). Если не удалась сама запись,
+     * значения пачки повторяются по одному; если недоступна база - пачка возвращается в очередь
+     */
+    private void writeBatch(List<K> keys, List<Pending<V>> items) {
+        List<V> values = new ArrayList<>(items.size());
+        List<K> deletes = new ArrayList<>(0);
+        for (int i = 0; i < items.size(); i++) {
+            Pending<V> item = items.get(i);
+            if (item.deleted) {
+                deletes.add(keys.get(i));
+            } else {
+                values.add(item.value);
+            }
+        }
+
+        final Connection connection;
+        try {
+            connection = connections.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            failed(keys, items, values, e);
+            return;
+        }
+
+        try (connection) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (!values.isEmpty()) {
+                    writer.write(connection, values);
+                }
+                if (!deletes.isEmpty()) {
+                    writer.delete(connection, deletes);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (items.size() == 1) {
+                failed(keys, items, values, e);
+                return;
+            }
+            failures.incrementAndGet();
+            logger.warning("Failed to write " + items.size() + " " + name + " entries, retrying one by one: "
+                    + e.getMessage());
+            notifyWriter(values, false);
+            for (int i = 0; i < items.size(); i++) {
+                writeBatch(List.of(keys.get(i)), List.of(items.get(i)));
+            }
+            return;
+        }
+
+        notifyWriter(values, true);
+        completeInFlight(keys, items);
+        written.addAndGet(items.size());
+        batches.incrementAndGet();
+        for (Pending<V> item : items) {
+            item.runCallbacks(callbackExecutor);
+        }
+    }
+
+    private void failed(List<K> keys, List<Pending<V>> items, List<V> values, Exception error) {
+        failures.incrementAndGet();
+        logger.log(Level.WARNING, "Failed to write " + items.size() + " " + name + " entries " + keys
+                + ": " + error.getMessage(), error);
+        notifyWriter(values, false);
+        requeue(keys, items);
+    }
+
+    private void notifyWriter(List<V> values, boolean committed) {
+        try {
+            writer.completed(values, committed);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to complete " + name + " batch: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Возврат неудачных значений в очередь с паузой перед повтором: flushIntervalMs,
+     * удваивающаяся с каждой попыткой до MAX_RETRY_DELAY_MS. Новое значение ключа,
+     * сохраненное во время записи, остается - от старого берутся только callback'и
+     */
+    private void requeue(List<K> keys, List<Pending<V>> items) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                Pending<V> item = items.get(i);
+                inFlight.remove(keys.get(i), item);
+                int shift = Math.min(item.attempts++, 16);
+                item.retryAt = now + Math.min(MAX_RETRY_DELAY_MS, flushIntervalMs << shift);
+                Pending<V> newer = pending.get(keys.get(i));
+                if (newer != null) {
+                    newer.mergeCallbacks(item);
+                } else {
+                    pending.put(keys.get(i), item);
+                }
+            }
+            batchDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void completeInFlight(List<K> keys, List<Pending<V>> items) {
+        lock.lock();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                inFlight.remove(keys.get(i), items.get(i));
+            }
+            batchDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Сколько значений было поставлено в очередь сверх maxPending
+     */
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+
+    /**
+     * Ожидающее значение ключа
+     */
+    private static final class Pending<V> {
+        private V value;
+        private List<Runnable> callbacks;
+        private boolean deleted;  // Удаление строки ключа вместо сохранения
+        private int attempts;
+        private long retryAt;  // Не повторять запись раньше (мс)
+        private int round;     // Последний проход дописывания при остановке
+
+        Pending(V value, Runnable callback) {
+            this.value = value;
+            addCallback(callback);
+        }
+
+        void addCallback(Runnable callback) {
+            if (callback == null) {
+                return;
+            }
+            if (callbacks == null) {
+                callbacks = new ArrayList<>(1);
+            }
+            callbacks.add(callback);
+        }
+
+        void mergeCallbacks(Pending<V> other) {
+            if (other.callbacks != null) {
+                for (Runnable callback : other.callbacks) {
+                    addCallback(callback);
+                }
+            }
+        }
+
+        void runCallbacks(Consumer<Runnable> executor) {
+            if (callbacks != null) {
+                for (Runnable callback : callbacks) {
+                    executor.accept(callback);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.openhousing.gui;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+
+/**
+ * Обработчик событий инвентаря конкретного GUI.
+ *
+ * GUI не регистрируется в Bukkit как листенер: события получает единый InventoryListener
+ * и передает их обработчику, найденному через держателя инвентаря (см. GuiHolder).
+ * Поэтому обработчик вызывается только для своих инвентарей и освобождается
+ * вместе с ними, без отписки.
+ */
+public interface GuiHandler {
+
+    void onInventoryClick(InventoryClickEvent event);
+
+    default void onInventoryDrag(InventoryDragEvent event) {}
+
+    default void onInventoryClose(InventoryCloseEvent event) {}
+}
@@ -0,0 +1,50 @@
+package ru.openhousing.gui;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+/**
+ * Держатель инвентаря GUI, связывающий инвентарь с его обработчиком
+ */
+public class GuiHolder implements InventoryHolder {
+
+    private final GuiHandler handler;
+    private Inventory inventory;
+
+    private GuiHolder(GuiHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Создание инвентаря, события которого будут переданы обработчику
+     */
+    public static Inventory createInventory(GuiHandler handler, int size, String title) {
+        GuiHolder holder = new GuiHolder(handler);
+        holder.inventory = Bukkit.createInventory(holder, size, title);
+        return holder.inventory;
+    }
+
+    /**
+     * Обработчик инвентаря или null, если инвентарь не принадлежит GUI плагина
+     */
+    public static GuiHandler handlerOf(Inventory inventory) {
+        InventoryHolder holder = inventory.getHolder(false);
+        if (holder instanceof GuiHolder) {
+            return ((GuiHolder) holder).handler;
+        }
+        if (holder instanceof GuiHandler) {
+            return (GuiHandler) holder;
+        }
+        return null;
+    }
+
+    public GuiHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
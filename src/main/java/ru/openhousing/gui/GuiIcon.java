@@ -0,0 +1,40 @@
+package ru.openhousing.gui;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.function.Supplier;
+
+/**
+ * Статичная иконка GUI, которая собирается один раз при первом обращении.
+ *
+ * Шаблон общий для всех GUI: Inventory.setItem копирует предмет, поэтому его можно
+ * класть в инвентарь напрямую, но изменять нельзя - для правок есть copy().
+ * Используется только из основного потока.
+ */
+public final class GuiIcon implements Supplier<ItemStack> {
+
+    private final Supplier<ItemStack> factory;
+    private ItemStack template;
+
+    public GuiIcon(Supplier<ItemStack> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Общий шаблон иконки
+     */
+    @Override
+    public ItemStack get() {
+        if (template == null) {
+            template = factory.get();
+        }
+        return template;
+    }
+
+    /**
+     * Копия шаблона, которую можно изменять
+     */
+    public ItemStack copy() {
+        return get().clone();
+    }
+}
@@ -3,10 +3,7 @@ package ru.openhousing.gui;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import ru.openhousing.OpenHousing;
@@ -21,7 +18,7 @@ import java.util.UUID;
 /**
  * GUI для настроек дома
  */
-public class HouseSettingsGUI implements Listener {
+public class HouseSettingsGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -32,10 +29,9 @@ public class HouseSettingsGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.house = house;
-        this.inventory = Bukkit.createInventory(null, 45, "§6Настройки дома");
+        this.inventory = GuiHolder.createInventory(this, 45, "§6Настройки дома");
         
         setupGUI();
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
     
     /**
@@ -174,7 +170,7 @@ public class HouseSettingsGUI implements Listener {
             .build());
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         String title = null;
         try {
@@ -377,7 +373,7 @@ public class HouseSettingsGUI implements Listener {
      * Сохранение дома
      */
     private void saveHouse() {
-        plugin.getDatabaseManager().saveHouse(house);
+        plugin.getDatabaseManager().queueHouse(house);
         MessageUtil.send(player, "&aНастройки дома сохранены!");
         player.closeInventory();
     }
@@ -410,20 +406,4 @@ public class HouseSettingsGUI implements Listener {
         });
     }
     
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        String title = null;
-        try {
-            title = event.getView().getTitle();
-        } catch (NoSuchMethodError e) {
-            return; // Пропускаем если не можем получить title
-        }
-        
-        if (title != null && title.equals("§6Настройки дома") && 
-            event.getPlayer().equals(player)) {
-            // Отменяем регистрацию листенера
-            InventoryClickEvent.getHandlerList().unregister(this);
-            InventoryCloseEvent.getHandlerList().unregister(this);
-        }
-    }
 }
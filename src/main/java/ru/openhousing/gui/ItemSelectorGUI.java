@@ -1,10 +1,7 @@
 package ru.openhousing.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -19,7 +16,7 @@ import java.util.function.Consumer;
 /**
  * GUI для выбора предметов
  */
-public class ItemSelectorGUI implements Listener {
+public class ItemSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -66,10 +63,9 @@ public class ItemSelectorGUI implements Listener {
         this.onItemSelect = onItemSelect;
         this.onCancel = onCancel;
         this.materials = Arrays.asList(Material.values());
-        this.inventory = Bukkit.createInventory(null, 54, "§6Выбор предмета");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Выбор предмета");
         
         setupGUI();
-        registerListener();
     }
     
     /**
@@ -179,13 +175,6 @@ public class ItemSelectorGUI implements Listener {
         return result.toString().trim();
     }
     
-    /**
-     * Регистрация слушателя
-     */
-    private void registerListener() {
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
     /**
      * Открытие GUI
      */
@@ -193,7 +182,7 @@ public class ItemSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getView().getTitle().equals("§6Выбор предмета") || 
             !event.getWhoClicked().equals(player)) {
@@ -334,6 +323,5 @@ public class ItemSelectorGUI implements Listener {
      */
     private void close() {
         player.closeInventory();
-        InventoryClickEvent.getHandlerList().unregister(this);
     }
 }
@@ -3,8 +3,6 @@ package ru.openhousing.gui;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -19,7 +17,7 @@ import java.util.function.Consumer;
 /**
  * GUI для выбора игроков
  */
-public class PlayerSelectorGUI implements Listener {
+public class PlayerSelectorGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -40,10 +38,9 @@ public class PlayerSelectorGUI implements Listener {
         this.onPlayerSelect = onPlayerSelect;
         this.onCancel = onCancel;
         this.onlinePlayers = Arrays.asList(Bukkit.getOnlinePlayers().toArray(new Player[0]));
-        this.inventory = Bukkit.createInventory(null, 54, "§6Выбор игрока");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Выбор игрока");
         
         setupGUI();
-        registerListener();
     }
     
     /**
@@ -119,13 +116,6 @@ public class PlayerSelectorGUI implements Listener {
             .build());
     }
     
-    /**
-     * Регистрация слушателя
-     */
-    private void registerListener() {
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
     /**
      * Открытие GUI
      */
@@ -133,7 +123,7 @@ public class PlayerSelectorGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getView().getTitle().equals("§6Выбор игрока") || 
             !event.getWhoClicked().equals(player)) {
@@ -235,6 +225,5 @@ public class PlayerSelectorGUI implements Listener {
      */
     private void close() {
         player.closeInventory();
-        InventoryClickEvent.getHandlerList().unregister(this);
     }
 }
@@ -1,10 +1,7 @@
 package ru.openhousing.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import ru.openhousing.OpenHousing;
@@ -18,7 +15,7 @@ import java.util.UUID;
 /**
  * GUI для настройки безопасности дома
  */
-public class SecuritySettingsGUI implements Listener {
+public class SecuritySettingsGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -29,10 +26,9 @@ public class SecuritySettingsGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.house = house;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройки безопасности");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройки безопасности");
         
         setupGUI();
-        registerListener();
     }
     
     /**
@@ -165,13 +161,6 @@ public class SecuritySettingsGUI implements Listener {
             .build());
     }
     
-    /**
-     * Регистрация слушателя
-     */
-    private void registerListener() {
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
     /**
      * Открытие GUI
      */
@@ -179,7 +168,7 @@ public class SecuritySettingsGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getView().getTitle().equals("§6Настройки безопасности") || 
             !event.getWhoClicked().equals(player)) {
@@ -320,7 +309,7 @@ public class SecuritySettingsGUI implements Listener {
      * Сохранение и закрытие
      */
     private void saveAndClose() {
-        plugin.getDatabaseManager().saveHouse(house);
+        plugin.getDatabaseManager().queueHouse(house);
         
         // Обновляем WorldGuard регион с новыми настройками
         if (plugin.getWorldGuardIntegration().isEnabled()) {
@@ -359,7 +348,6 @@ public class SecuritySettingsGUI implements Listener {
      */
     private void close() {
         player.closeInventory();
-        InventoryClickEvent.getHandlerList().unregister(this);
         
         // Возвращаемся к настройкам дома
         new HouseSettingsGUI(plugin, player, house).open();
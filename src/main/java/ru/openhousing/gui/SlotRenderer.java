@@ -0,0 +1,91 @@
+package ru.openhousing.gui;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Отрисовка инвентаря GUI с обновлением только измененных слотов.
+ *
+ * Рендерер помнит, что было выложено в каждый слот. Перерисовка выполняется кадром:
+ * begin() начинает пустой кадр, set() заполняет его, commit() записывает в инвентарь
+ * только слоты, содержимое которых отличается от предыдущего кадра, - сервер отправит
+ * клиенту пакеты только для них. Вне кадра set() сразу применяет одиночное изменение.
+ * Общие шаблоны (GuiIcon) сравниваются по ссылке, остальные предметы - через equals,
+ * поэтому переданный предмет после set() изменять нельзя.
+ */
+public class SlotRenderer {
+
+    private final Inventory inventory;
+    private final ItemStack[] rendered;
+    private final ItemStack[] frame;
+    private boolean drawing;
+
+    public SlotRenderer(Inventory inventory) {
+        this.inventory = inventory;
+        this.rendered = new ItemStack[inventory.getSize()];
+        this.frame = new ItemStack[inventory.getSize()];
+    }
+
+    /**
+     * Начало нового кадра: все слоты, не заданные до commit(), будут очищены
+     */
+    public void begin() {
+        Arrays.fill(frame, null);
+        drawing = true;
+    }
+
+    /**
+     * Установка предмета в слот текущего кадра (или сразу в инвентарь вне кадра)
+     */
+    public void set(int slot, ItemStack item) {
+        if (drawing) {
+            frame[slot] = item;
+        } else {
+            apply(slot, item);
+        }
+    }
+
+    /**
+     * Предмет слота с учетом текущего кадра
+     */
+    public ItemStack get(int slot) {
+        return drawing ? frame[slot] : rendered[slot];
+    }
+
+    /**
+     * Применение кадра к инвентарю
+     *
+     * @return количество измененных слотов
+     */
+    public int commit() {
+        drawing = false;
+        int changed = 0;
+        for (int slot = 0; slot < frame.length; slot++) {
+            if (apply(slot, frame[slot])) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Сброс запомненного состояния, если инвентарь меняли в обход рендерера
+     */
+    public void invalidate() {
+        for (int slot = 0; slot < rendered.length; slot++) {
+            rendered[slot] = inventory.getItem(slot);
+        }
+    }
+
+    private boolean apply(int slot, ItemStack item) {
+        ItemStack previous = rendered[slot];
+        if (previous == item || (previous != null && previous.equals(item))) {
+            return false;
+        }
+        rendered[slot] = item;
+        inventory.setItem(slot, item);
+        return true;
+    }
+}
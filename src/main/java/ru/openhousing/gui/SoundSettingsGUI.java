@@ -1,11 +1,8 @@
 package ru.openhousing.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import ru.openhousing.OpenHousing;
@@ -20,7 +17,7 @@ import java.util.Map;
 /**
  * GUI для настройки звука в доме
  */
-public class SoundSettingsGUI implements Listener {
+public class SoundSettingsGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -57,10 +54,9 @@ public class SoundSettingsGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.house = house;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройки звука");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройки звука");
         
         setupGUI();
-        registerListener();
     }
     
     /**
@@ -218,13 +214,6 @@ public class SoundSettingsGUI implements Listener {
         }
     }
     
-    /**
-     * Регистрация слушателя
-     */
-    private void registerListener() {
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
     /**
      * Открытие GUI
      */
@@ -232,7 +221,7 @@ public class SoundSettingsGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getView().getTitle().equals("§6Настройки звука") || 
             !event.getWhoClicked().equals(player)) {
@@ -298,7 +287,7 @@ public class SoundSettingsGUI implements Listener {
      * Открытие селектора музыки
      */
     private void openMusicSelector() {
-        Inventory selector = Bukkit.createInventory(null, 54, "§6Выбор музыки");
+        Inventory selector = new MusicSelector(player, "§6Выбор музыки", this::selectMusic).getInventory();
         
         int slot = 0;
         for (Map.Entry<String, Sound> entry : SOUND_MAP.entrySet()) {
@@ -312,17 +301,21 @@ public class SoundSettingsGUI implements Listener {
             }
         }
         
-        // Временный слушатель для селектора
-        new MusicSelector(plugin, player, selector, (selectedSlot) -> {
-            String[] musicNames = SOUND_MAP.keySet().toArray(new String[0]);
-            if (selectedSlot < musicNames.length && musicNames[selectedSlot].startsWith("MUSIC_DISC_")) {
-                String selectedMusic = musicNames[selectedSlot];
-                house.setSetting("selected_music", selectedMusic);
-                setupGUI();
-                open();
-                MessageUtil.send(player, "§aМузыка выбрана: §f" + getMusicDisplayName(selectedMusic));
-            }
-        });
+        player.openInventory(selector);
+    }
+    
+    /**
+     * Применение музыки, выбранной в селекторе
+     */
+    private void selectMusic(int selectedSlot) {
+        String[] musicNames = SOUND_MAP.keySet().toArray(new String[0]);
+        if (selectedSlot < musicNames.length && musicNames[selectedSlot].startsWith("MUSIC_DISC_")) {
+            String selectedMusic = musicNames[selectedSlot];
+            house.setSetting("selected_music", selectedMusic);
+            setupGUI();
+            open();
+            MessageUtil.send(player, "§aМузыка выбрана: §f" + getMusicDisplayName(selectedMusic));
+        }
     }
     
     /**
@@ -413,7 +406,7 @@ public class SoundSettingsGUI implements Listener {
      * Сохранение и закрытие
      */
     private void saveAndClose() {
-        plugin.getDatabaseManager().saveHouse(house);
+        plugin.getDatabaseManager().queueHouse(house);
         MessageUtil.send(player, "§aНастройки звука сохранены!");
         close();
     }
@@ -446,7 +439,6 @@ public class SoundSettingsGUI implements Listener {
      */
     private void close() {
         player.closeInventory();
-        InventoryClickEvent.getHandlerList().unregister(this);
         
         // Возвращаемся к настройкам дома
         new HouseSettingsGUI(plugin, player, house).open();
@@ -455,23 +447,22 @@ public class SoundSettingsGUI implements Listener {
     /**
      * Вспомогательный класс для селектора музыки
      */
-    private static class MusicSelector implements Listener {
-        private final OpenHousing plugin;
+    private static class MusicSelector implements GuiHandler {
         private final Player player;
         private final Inventory inventory;
         private final java.util.function.Consumer<Integer> callback;
         
-        public MusicSelector(OpenHousing plugin, Player player, Inventory inventory, java.util.function.Consumer<Integer> callback) {
-            this.plugin = plugin;
+        public MusicSelector(Player player, String title, java.util.function.Consumer<Integer> callback) {
             this.player = player;
-            this.inventory = inventory;
             this.callback = callback;
-            
-            Bukkit.getPluginManager().registerEvents(this, plugin);
-            player.openInventory(inventory);
+            this.inventory = GuiHolder.createInventory(this, 54, title);
+        }
+        
+        public Inventory getInventory() {
+            return inventory;
         }
         
-        @EventHandler
+        @Override
         public void onInventoryClick(InventoryClickEvent event) {
             if (!event.getView().getTitle().equals("§6Выбор музыки") || 
                 !event.getWhoClicked().equals(player)) {
@@ -484,7 +475,6 @@ public class SoundSettingsGUI implements Listener {
             if (slot < 45 && inventory.getItem(slot) != null) {
                 callback.accept(slot);
                 player.closeInventory();
-                InventoryClickEvent.getHandlerList().unregister(this);
             }
         }
     }
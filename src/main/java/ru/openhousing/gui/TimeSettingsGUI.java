@@ -1,10 +1,7 @@
 package ru.openhousing.gui;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import ru.openhousing.OpenHousing;
@@ -17,7 +14,7 @@ import java.util.Arrays;
 /**
  * GUI для настройки времени в доме
  */
-public class TimeSettingsGUI implements Listener {
+public class TimeSettingsGUI implements GuiHandler {
     
     private final OpenHousing plugin;
     private final Player player;
@@ -28,10 +25,9 @@ public class TimeSettingsGUI implements Listener {
         this.plugin = plugin;
         this.player = player;
         this.house = house;
-        this.inventory = Bukkit.createInventory(null, 54, "§6Настройки времени");
+        this.inventory = GuiHolder.createInventory(this, 54, "§6Настройки времени");
         
         setupGUI();
-        registerListener();
     }
     
     /**
@@ -165,13 +161,6 @@ public class TimeSettingsGUI implements Listener {
         return String.format("%02d:%02d (%d)", hours, minutes, time);
     }
     
-    /**
-     * Регистрация слушателя
-     */
-    private void registerListener() {
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
     /**
      * Открытие GUI
      */
@@ -179,7 +168,7 @@ public class TimeSettingsGUI implements Listener {
         player.openInventory(inventory);
     }
     
-    @EventHandler
+    @Override
     public void onInventoryClick(InventoryClickEvent event) {
         if (!event.getView().getTitle().equals("§6Настройки времени") || 
             !event.getWhoClicked().equals(player)) {
@@ -329,7 +318,7 @@ public class TimeSettingsGUI implements Listener {
      * Сохранение и закрытие
      */
     private void saveAndClose() {
-        plugin.getDatabaseManager().saveHouse(house);
+        plugin.getDatabaseManager().queueHouse(house);
         MessageUtil.send(player, "§aНастройки времени сохранены!");
         close();
     }
@@ -360,7 +349,6 @@ public class TimeSettingsGUI implements Listener {
      */
     private void close() {
         player.closeInventory();
-        InventoryClickEvent.getHandlerList().unregister(this);
         
         // Возвращаемся к настройкам дома
         new HouseSettingsGUI(plugin, player, house).open();
@@ -0,0 +1,185 @@
+package ru.openhousing.housing;
+
+import java.util.function.Consumer;
+
+/**
+ * Пошаговая очистка прямоугольной области блоков.
+ *
+ * Область обходится по чанкам (внутри чанка - слоями по Y), поэтому за шаг затрагивается
+ * как можно меньше чанков, а захват и освобождение чанка происходят один раз.
+ * Шаг обрабатывает не больше заданного числа блоков - вызывающий решает, сколько шагов
+ * уместить в тик. Операция не знает о мире: запись блоков выполняет BlockWriter.
+ */
+public class AreaOperation {
+
+    /**
+     * Запись блоков в мир
+     */
+    public interface BlockWriter {
+        void clear(int x, int y, int z);
+
+        /** Операция начала обрабатывать чанк */
+        default void enterChunk(int chunkX, int chunkZ) {}
+
+        /** Операция закончила (или прервала) обработку чанка */
+        default void leaveChunk(int chunkX, int chunkZ) {}
+    }
+
+    private final int houseId;
+    private final BlockWriter writer;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+    private final int[] chunks; // Пары (chunkX, chunkZ)
+    private final long total;
+
+    private int chunkIndex;
+    private boolean inChunk;
+    private int chunkMinX, chunkMaxX, chunkMinZ, chunkMaxZ;
+    private int x, y, z;
+    private long processed;
+    private boolean cancelled;
+
+    private Consumer<AreaOperation> progressListener;
+    private Consumer<AreaOperation> completionListener;
+
+    /**
+     * Границы включительные
+     */
+    public AreaOperation(int houseId, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, BlockWriter writer) {
+        this.houseId = houseId;
+        this.writer = writer;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+
+        if (maxX < minX || maxY < minY || maxZ < minZ) {
+            this.chunks = new int[0];
+            this.total = 0;
+            return;
+        }
+        int chunksX = (maxX >> 4) - (minX >> 4) + 1;
+        int chunksZ = (maxZ >> 4) - (minZ >> 4) + 1;
+        this.chunks = new int[chunksX * chunksZ * 2];
+        int i = 0;
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                chunks[i++] = chunkX;
+                chunks[i++] = chunkZ;
+            }
+        }
+        this.total = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    /**
+     * Обработка не больше maxBlocks блоков
+     *
+     * @return количество обработанных блоков
+     */
+    public int step(int maxBlocks) {
+        int done = 0;
+        while (done < maxBlocks && !cancelled && chunkIndex < chunks.length) {
+            if (!inChunk) {
+                enterChunk();
+            }
+            writer.clear(x, y, z);
+            done++;
+
+            if (++z > chunkMaxZ) {
+                z = chunkMinZ;
+                if (++x > chunkMaxX) {
+                    x = chunkMinX;
+                    if (++y > maxY) {
+                        leaveChunk();
+                    }
+                }
+            }
+        }
+        processed += done;
+        return done;
+    }
+
+    private void enterChunk() {
+        int chunkX = chunks[chunkIndex];
+        int chunkZ = chunks[chunkIndex + 1];
+        chunkMinX = Math.max(minX, chunkX << 4);
+        chunkMaxX = Math.min(maxX, (chunkX << 4) + 15);
+        chunkMinZ = Math.max(minZ, chunkZ << 4);
+        chunkMaxZ = Math.min(maxZ, (chunkZ << 4) + 15);
+        x = chunkMinX;
+        y = minY;
+        z = chunkMinZ;
+        inChunk = true;
+        writer.enterChunk(chunkX, chunkZ);
+    }
+
+    private void leaveChunk() {
+        inChunk = false;
+        writer.leaveChunk(chunks[chunkIndex], chunks[chunkIndex + 1]);
+        chunkIndex += 2;
+    }
+
+    /**
+     * Остановка операции; уже очищенные блоки остаются очищенными
+     */
+    public void cancel() {
+        if (cancelled || isFinished()) {
+            return;
+        }
+        cancelled = true;
+        if (inChunk) {
+            inChunk = false;
+            writer.leaveChunk(chunks[chunkIndex], chunks[chunkIndex + 1]);
+        }
+    }
+
+    public boolean isFinished() {
+        return !cancelled && chunkIndex >= chunks.length;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getHouseId() {
+        return houseId;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Доля выполненной работы от 0 до 1
+     */
+    public double getProgress() {
+        return total == 0 ? 1.0 : (double) processed / total;
+    }
+
+    public AreaOperation onProgress(Consumer<AreaOperation> listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    public AreaOperation onComplete(Consumer<AreaOperation> listener) {
+        this.completionListener = listener;
+        return this;
+    }
+
+    void fireProgress() {
+        if (progressListener != null) {
+            progressListener.accept(this);
+        }
+    }
+
+    void fireComplete() {
+        if (completionListener != null) {
+            completionListener.accept(this);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ru.openhousing.housing;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+import ru.openhousing.OpenHousing;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь операций с блоками, выполняемых частями в основном потоке.
+ *
+ * Каждый тик очередь тратит не больше tickBudgetNanos, обрабатывая головную операцию
+ * порциями по batchSize блоков. Блоки меняются без физики, уже пустые блоки пропускаются,
+ * а обрабатываемый чанк удерживается тикетом плагина, чтобы сервер не выгрузил его
+ * посреди операции. Таймер работает, только пока в очереди есть операции.
+ */
+public class AreaOperationQueue {
+
+    private static final int PROGRESS_INTERVAL_TICKS = 20;
+
+    private final OpenHousing plugin;
+    private final ArrayDeque<AreaOperation> queue = new ArrayDeque<>();
+
+    private long tickBudgetNanos;
+    private int batchSize;
+    private BukkitTask task;
+    private long ticks;
+
+    public AreaOperationQueue(OpenHousing plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Чтение лимитов из конфигурации
+     */
+    public void start() {
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(1L, config.getLong("housing.area-operations.tick-budget-ms", 10L)));
+        batchSize = Math.max(64, config.getInt("housing.area-operations.batch-size", 2048));
+    }
+
+    /**
+     * Постановка очистки области в очередь (границы включительные)
+     */
+    public AreaOperation clear(int houseId, World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        // Высота ограничивается миром: за его пределами блоков нет
+        int fromY = Math.max(minY, world.getMinHeight());
+        int toY = Math.min(maxY, world.getMaxHeight() - 1);
+        AreaOperation operation = new AreaOperation(houseId, minX, fromY, minZ, maxX, toY, maxZ, new WorldWriter(world));
+        queue.add(operation);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+        return operation;
+    }
+
+    private void tick() {
+        ticks++;
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        AreaOperation operation = null;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            operation = queue.peek();
+            operation.step(batchSize);
+            if (operation.isFinished() || operation.isCancelled()) {
+                queue.poll();
+                operation.fireComplete();
+                operation = null;
+            }
+        }
+        if (operation != null && ticks % PROGRESS_INTERVAL_TICKS == 0) {
+            operation.fireProgress();
+        }
+        if (queue.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Отмена всех операций дома
+     */
+    public void cancel(int houseId) {
+        Iterator<AreaOperation> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            AreaOperation operation = iterator.next();
+            if (operation.getHouseId() == houseId) {
+                iterator.remove();
+                operation.cancel();
+                operation.fireComplete();
+            }
+        }
+    }
+
+    /**
+     * Остановка очереди; незавершенные операции отменяются
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        AreaOperation operation;
+        while ((operation = queue.poll()) != null) {
+            plugin.getLogger().warning("Area operation for house " + operation.getHouseId() + " cancelled at "
+                    + Math.round(operation.getProgress() * 100) + "%");
+            operation.cancel();
+        }
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Запись в мир без физики с удержанием обрабатываемого чанка
+     */
+    private final class WorldWriter implements AreaOperation.BlockWriter {
+
+        private final World world;
+
+        WorldWriter(World world) {
+            this.world = world;
+        }
+
+        @Override
+        public void clear(int x, int y, int z) {
+            Block block = world.getBlockAt(x, y, z);
+            if (block.getType() != Material.AIR) {
+                block.setType(Material.AIR, false);
+            }
+        }
+
+        @Override
+        public void enterChunk(int chunkX, int chunkZ) {
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+
+        @Override
+        public void leaveChunk(int chunkX, int chunkZ) {
+            world.removePluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+    }
+}
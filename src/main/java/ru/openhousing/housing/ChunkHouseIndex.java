@@ -0,0 +1,230 @@
+package ru.openhousing.housing;
+
+import java.util.Arrays;
+
+/**
+ * Пространственный индекс участков общего мира: упакованный ключ чанка (long) -> дом.
+ *
+ * Открытая адресация с линейным пробированием на примитивных массивах, без упаковки ключей.
+ * Чанк, целиком лежащий внутри участка, хранит сам дом - поиск завершается без проверок.
+ * Граничный чанк хранит массив домов, пересекающих его, и поиск проверяет границы участков
+ * (AABB по X/Z). Участок занимает весь столбец блоков, высота на принадлежность не влияет.
+ *
+ * Индекс не потокобезопасен - изменяется и читается в основном потоке.
+ */
+public final class ChunkHouseIndex {
+
+    private static final long EMPTY = Long.MIN_VALUE; // Чанк (Integer.MIN_VALUE, 0) недостижим
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Object[] values; // House (внутренний чанк) или House[] (граничный чанк)
+    private int size;
+
+    public ChunkHouseIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Упаковка координат чанка в ключ
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Добавление участка дома во все чанки, которые он покрывает
+     */
+    public void add(House house) {
+        forEachChunk(house, (chunkX, chunkZ, interior) -> {
+            long key = chunkKey(chunkX, chunkZ);
+            Object current = get(key);
+            if (current == null) {
+                put(key, interior ? house : new House[]{house});
+            } else {
+                put(key, append(candidates(current), house));
+            }
+        });
+    }
+
+    /**
+     * Удаление участка дома
+     */
+    public void remove(House house) {
+        forEachChunk(house, (chunkX, chunkZ, interior) -> {
+            long key = chunkKey(chunkX, chunkZ);
+            Object current = get(key);
+            if (current == null) {
+                return;
+            }
+            House[] rest = without(candidates(current), house);
+            if (rest.length == 0) {
+                delete(key);
+            } else {
+                put(key, rest);
+            }
+        });
+    }
+
+    /**
+     * Дом, участку которого принадлежит блок (null - блок вне участков)
+     */
+    public House get(int blockX, int blockZ) {
+        Object value = get(chunkKey(blockX >> 4, blockZ >> 4));
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof House) {
+            return (House) value;
+        }
+        for (House house : (House[]) value) {
+            if (house.containsColumn(blockX, blockZ)) {
+                return house;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Одинакова ли принадлежность всех блоков чанка (чанк целиком внутри участка или вне участков).
+     * Перемещение внутри такого чанка не может сменить дом.
+     */
+    public boolean isUniform(int chunkX, int chunkZ) {
+        return !(get(chunkKey(chunkX, chunkZ)) instanceof House[]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // === ОБХОД ЧАНКОВ УЧАСТКА ===
+
+    @FunctionalInterface
+    private interface ChunkVisitor {
+        void visit(int chunkX, int chunkZ, boolean interior);
+    }
+
+    private static void forEachChunk(House house, ChunkVisitor visitor) {
+        int minX = house.getOriginX();
+        int minZ = house.getOriginZ();
+        int maxX = minX + house.getSize().getWidth() - 1;
+        int maxZ = minZ + house.getSize().getLength() - 1;
+        if (maxX < minX || maxZ < minZ) {
+            return;
+        }
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                int blockX = chunkX << 4;
+                int blockZ = chunkZ << 4;
+                boolean interior = blockX >= minX && blockX + 15 <= maxX && blockZ >= minZ && blockZ + 15 <= maxZ;
+                visitor.visit(chunkX, chunkZ, interior);
+            }
+        }
+    }
+
+    private static House[] candidates(Object value) {
+        return value instanceof House ? new House[]{(House) value} : (House[]) value;
+    }
+
+    private static House[] append(House[] houses, House house) {
+        House[] result = Arrays.copyOf(houses, houses.length + 1);
+        result[houses.length] = house;
+        return result;
+    }
+
+    private static House[] without(House[] houses, House house) {
+        int count = 0;
+        House[] result = new House[houses.length];
+        for (House candidate : houses) {
+            if (candidate != house) {
+                result[count++] = candidate;
+            }
+        }
+        return count == houses.length ? houses : Arrays.copyOf(result, count);
+    }
+
+    // === ОТКРЫТАЯ АДРЕСАЦИЯ ===
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        size = 0;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private Object get(long key) {
+        int index = slot(key);
+        return keys[index] == EMPTY ? null : values[index];
+    }
+
+    private void put(long key, Object value) {
+        int index = slot(key);
+        if (keys[index] == EMPTY) {
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                rehash(keys.length * 2);
+                index = slot(key);
+            }
+            keys[index] = key;
+            size++;
+        }
+        values[index] = value;
+    }
+
+    private void delete(long key) {
+        int mask = keys.length - 1;
+        int index = slot(key);
+        if (keys[index] == EMPTY) {
+            return;
+        }
+        keys[index] = EMPTY;
+        values[index] = null;
+        size--;
+
+        // Сдвиг следующих элементов цепочки, чтобы не оставлять дыр при пробировании
+        int next = (index + 1) & mask;
+        while (keys[next] != EMPTY) {
+            long movedKey = keys[next];
+            Object movedValue = values[next];
+            keys[next] = EMPTY;
+            values[next] = null;
+            int target = slot(movedKey);
+            keys[target] = movedKey;
+            values[target] = movedValue;
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldSize = size;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+        size = oldSize;
+    }
+}
@@ -27,9 +27,20 @@ public class House {
     private final Set<UUID> allowedPlayers;
     private final Set<UUID> bannedPlayers;
     private final Map<String, Object> settings;
+    private volatile int settingsVersion;  // Растет при каждом изменении настроек
     private HouseMode mode;
     private long createdAt;
     private long lastModified;
+    private volatile long lastActivity; // Последнее обращение к миру (для выгрузки простаивающих миров)
+    private boolean plot;               // Участок в общем мире (иначе весь мир принадлежит дому)
+    private int originX;                // Минимальный угол участка
+    private int originY;
+    private int originZ;
+    
+    // Несохраненные изменения: пишутся в базу только они, флаги сбрасывает поток записи
+    private volatile boolean coreDirty = true;         // Строка в houses (новый дом еще не записан)
+    private final Set<UUID> dirtyMembers = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtySettings = java.util.concurrent.ConcurrentHashMap.newKeySet();
     
     public House(int id, UUID ownerId, String ownerName, String name, String worldName, HouseSize size, ru.openhousing.OpenHousing plugin) {
         this.id = id;
@@ -42,24 +53,64 @@ public class House {
         this.plugin = plugin;
         this.isPublic = false;
         this.visitorsAllowed = true;
-        this.allowedPlayers = new HashSet<>();
-        this.bannedPlayers = new HashSet<>();
-        this.settings = new HashMap<>();
+        // Читаются потоком записи в базу, пока основной поток их меняет
+        this.allowedPlayers = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        this.bannedPlayers = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        this.settings = new java.util.concurrent.ConcurrentHashMap<>();
         this.mode = HouseMode.PLAY; // По умолчанию режим игры
         this.createdAt = System.currentTimeMillis();
         this.lastModified = createdAt;
+        this.lastActivity = createdAt;
     }
     
     /**
      * Получение мира дома с автозагрузкой
      */
     public World getWorld() {
-        if (world == null) {
+        if (getLoadedWorld() == null) {
             loadWorld();
         }
+        markActive();
+        return world;
+    }
+    
+    /**
+     * Мир дома, если он сейчас загружен (без загрузки)
+     */
+    public World getLoadedWorld() {
+        // Мир мог быть выгружен - ссылку на выгруженный мир не держим
+        world = Bukkit.getWorld(worldName);
         return world;
     }
     
+    public boolean isWorldLoaded() {
+        return getLoadedWorld() != null;
+    }
+    
+    /**
+     * Выгрузка мира дома с сохранением. Дом, его настройки и код остаются в памяти,
+     * мир загрузится заново при следующем обращении.
+     *
+     * @return false, если в мире есть игроки или сервер отказал в выгрузке
+     */
+    public boolean unloadWorld() {
+        if (plot) {
+            return false; // Общий мир участков не выгружается вместе с одним домом
+        }
+        World loaded = getLoadedWorld();
+        if (loaded == null) {
+            return true;
+        }
+        if (!loaded.getPlayers().isEmpty()) {
+            return false;
+        }
+        if (!Bukkit.unloadWorld(loaded, true)) {
+            return false;
+        }
+        world = null;
+        return true;
+    }
+    
     /**
      * Загрузка мира дома
      */
@@ -69,25 +120,26 @@ public class House {
         if (debugMode) plugin.getLogger().info("[DEBUG] Loading world for house '" + name + "': " + worldName);
         
         world = Bukkit.getWorld(worldName);
+        if (world == null && hasWorldOnDisk()) {
+            // Мир уже создан и был выгружен - просто загружаем его с диска
+            world = worldCreator(worldName).createWorld();
+            if (world != null) {
+                applyRuntimeSettings(world);
+                if (debugMode) plugin.getLogger().info("[DEBUG] World reloaded from disk: " + worldName);
+                return;
+            }
+        }
         if (world == null) {
             try {
                 if (debugMode) plugin.getLogger().info("[DEBUG] World not found, creating new world: " + worldName);
                 
                 // Создаем новый мир если не существует
-                WorldCreator creator = new WorldCreator(worldName);
-                creator.type(WorldType.FLAT);
-                creator.generateStructures(false);
-                creator.generator("OpenHousing"); // Используем наш генератор если есть
+                WorldCreator creator = worldCreator(worldName);
                 
                 world = creator.createWorld();
                 
                 if (world != null) {
-                    // Устанавливаем спавн в центре
-                    world.setSpawnLocation(0, 64, 0);
-                    world.setGameRuleValue("doDaylightCycle", "false");
-                    world.setGameRuleValue("doWeatherCycle", "false");
-                    world.setGameRuleValue("doMobSpawning", "false");
-                    world.setTime(6000); // Полдень
+                    applyInitialSettings(world);
                     
                     // Важно: сохраняем мир и перезагружаем его для стабильности
                     world.save();
@@ -99,6 +151,9 @@ public class House {
                         // Если не удалось перезагрузить, создаем заново
                         world = creator.createWorld();
                     }
+                    if (world != null) {
+                        applyRuntimeSettings(world);
+                    }
                     
                     plugin.getLogger().info("House world '" + name + "' created and saved successfully: " + worldName);
                     if (debugMode) plugin.getLogger().info("[DEBUG] World settings applied for: " + worldName);
@@ -114,6 +169,43 @@ public class House {
         }
     }
     
+    /**
+     * Параметры генерации мира дома
+     */
+    static WorldCreator worldCreator(String worldName) {
+        WorldCreator creator = new WorldCreator(worldName);
+        creator.type(WorldType.FLAT);
+        creator.generateStructures(false);
+        creator.generator("OpenHousing"); // Используем наш генератор если есть
+        return creator;
+    }
+    
+    /**
+     * Настройки нового мира дома (сохраняются в level.dat)
+     */
+    static void applyInitialSettings(World houseWorld) {
+        // Устанавливаем спавн в центре
+        houseWorld.setSpawnLocation(0, 64, 0);
+        houseWorld.setGameRuleValue("doDaylightCycle", "false");
+        houseWorld.setGameRuleValue("doWeatherCycle", "false");
+        houseWorld.setGameRuleValue("doMobSpawning", "false");
+        houseWorld.setTime(6000); // Полдень
+    }
+    
+    private boolean hasWorldOnDisk() {
+        return new java.io.File(new java.io.File(Bukkit.getWorldContainer(), worldName), "level.dat").exists();
+    }
+    
+    /**
+     * Настройки, которые не хранятся в level.dat и применяются при каждой загрузке мира
+     */
+    private void applyRuntimeSettings(World houseWorld) {
+        if (!plugin.getConfigManager().getMainConfig().getBoolean("housing.world-settings.keep-spawn-in-memory", false)) {
+            // Чанки спавна не держатся загруженными - мир без игроков ничего не стоит до выгрузки
+            houseWorld.setGameRule(org.bukkit.GameRule.SPAWN_CHUNK_RADIUS, 0);
+        }
+    }
+    
     /**
      * Получение точки спавна в доме
      */
@@ -122,6 +214,18 @@ public class House {
         if (houseWorld == null) {
             return null;
         }
+        return getSpawnLocation(houseWorld);
+    }
+    
+    /**
+     * Точка спавна в уже загруженном мире дома (без обращения к загрузке мира)
+     */
+    public Location getSpawnLocation(World houseWorld) {
+        if (plot) {
+            // Центр участка на уровне земли
+            return new Location(houseWorld, originX + size.getWidth() / 2 + 0.5, originY,
+                originZ + size.getLength() / 2 + 0.5);
+        }
         // Возвращаем центр дома на уровне земли
         return new Location(houseWorld, 0, 64, 0);
     }
@@ -131,11 +235,13 @@ public class House {
      */
     public List<Player> getPlayersInside() {
         List<Player> playersInside = new ArrayList<>();
-        World houseWorld = getWorld();
+        World houseWorld = getLoadedWorld(); // В незагруженном мире игроков нет
         
         if (houseWorld != null) {
             for (Player player : houseWorld.getPlayers()) {
-                playersInside.add(player);
+                if (!plot || isInside(player.getLocation())) {
+                    playersInside.add(player);
+                }
             }
         }
         
@@ -146,15 +252,27 @@ public class House {
      * Проверка, находится ли локация внутри дома
      */
     public boolean isInside(Location location) {
-        World houseWorld = getWorld();
-        if (houseWorld == null || location.getWorld() == null || !location.getWorld().equals(houseWorld)) {
+        // Сравнение по имени: проверка не должна загружать мир дома
+        World locationWorld = location.getWorld();
+        if (locationWorld == null || !locationWorld.getName().equals(worldName)) {
             return false;
         }
+        if (plot) {
+            return containsColumn(location.getBlockX(), location.getBlockZ());
+        }
         
         // Если игрок в мире дома, значит он внутри
         return true;
     }
     
+    /**
+     * Принадлежит ли столбец блоков участку (только координаты, без проверки мира)
+     */
+    public boolean containsColumn(int blockX, int blockZ) {
+        return blockX >= originX && blockX < originX + size.getWidth()
+            && blockZ >= originZ && blockZ < originZ + size.getLength();
+    }
+    
     /**
      * Проверка, может ли игрок посетить дом
      */
@@ -184,6 +302,7 @@ public class House {
     public void allowPlayer(UUID playerId) {
         allowedPlayers.add(playerId);
         bannedPlayers.remove(playerId); // Убираем из бана если был
+        dirtyMembers.add(playerId);
         updateModified();
     }
     
@@ -202,6 +321,7 @@ public class House {
      */
     public void disallowPlayer(UUID playerId) {
         allowedPlayers.remove(playerId);
+        dirtyMembers.add(playerId);
         updateModified();
     }
     
@@ -211,6 +331,7 @@ public class House {
     public void banPlayer(UUID playerId) {
         bannedPlayers.add(playerId);
         allowedPlayers.remove(playerId); // Убираем из разрешенных
+        dirtyMembers.add(playerId);
         
         // Кикаем игрока из дома если он там
         Player player = Bukkit.getPlayer(playerId);
@@ -228,6 +349,7 @@ public class House {
      */
     public void unbanPlayer(UUID playerId) {
         bannedPlayers.remove(playerId);
+        dirtyMembers.add(playerId);
         updateModified();
     }
     
@@ -254,6 +376,13 @@ public class House {
         this.lastModified = System.currentTimeMillis();
     }
     
+    /**
+     * Отметка использования мира дома (откладывает его выгрузку)
+     */
+    public void markActive() {
+        this.lastActivity = System.currentTimeMillis();
+    }
+    
     // Геттеры и сеттеры
     public int getId() {
         return id;
@@ -269,6 +398,7 @@ public class House {
     
     public void setOwnerName(String ownerName) {
         this.ownerName = ownerName;
+        coreDirty = true;
         updateModified();
     }
     
@@ -278,6 +408,7 @@ public class House {
     
     public void setName(String name) {
         this.name = name;
+        coreDirty = true;
         updateModified();
     }
     
@@ -294,8 +425,16 @@ public class House {
     }
     
     public void setPublic(boolean isPublic) {
+        if (this.isPublic == isPublic) {
+            return;
+        }
         this.isPublic = isPublic;
+        coreDirty = true;
         updateModified();
+        // Список публичных домов хранится в HousingManager
+        if (plugin != null && plugin.getHousingManager() != null) {
+            plugin.getHousingManager().updatePublicIndex(this);
+        }
     }
     
     public boolean isVisitorsAllowed() {
@@ -304,6 +443,7 @@ public class House {
     
     public void setVisitorsAllowed(boolean visitorsAllowed) {
         this.visitorsAllowed = visitorsAllowed;
+        coreDirty = true;
         updateModified();
     }
     
@@ -315,6 +455,14 @@ public class House {
         return new HashSet<>(bannedPlayers);
     }
     
+    public boolean isAllowed(UUID playerId) {
+        return allowedPlayers.contains(playerId);
+    }
+    
+    public boolean isBanned(UUID playerId) {
+        return bannedPlayers.contains(playerId);
+    }
+    
     public Map<String, Object> getSettings() {
         return new HashMap<>(settings);
     }
@@ -324,10 +472,100 @@ public class House {
     }
     
     public void setSetting(String key, Object value) {
-        settings.put(key, value);
+        if (value == null) {
+            settings.remove(key);
+        } else {
+            settings.put(key, value);
+        }
+        settingsVersion++;
+        dirtySettings.add(key);
         updateModified();
     }
     
+    /**
+     * Есть ли изменения, не записанные в базу
+     */
+    public boolean isDirty() {
+        return coreDirty || !dirtyMembers.isEmpty() || !dirtySettings.isEmpty();
+    }
+    
+    /**
+     * Дом совпадает с базой (после загрузки)
+     */
+    public void markClean() {
+        coreDirty = false;
+        dirtyMembers.clear();
+        dirtySettings.clear();
+    }
+    
+    /**
+     * Сброс флага изменения строки дома
+     *
+     * @return была ли строка изменена
+     */
+    public boolean takeCoreDirty() {
+        boolean dirty = coreDirty;
+        coreDirty = false;
+        return dirty;
+    }
+    
+    /**
+     * Забрать измененных участников (их текущее состояние читается после)
+     */
+    public List<UUID> takeDirtyMembers() {
+        return drain(dirtyMembers);
+    }
+    
+    /**
+     * Забрать измененные ключи настроек (отсутствующий ключ - настройка удалена)
+     */
+    public List<String> takeDirtySettings() {
+        return drain(dirtySettings);
+    }
+    
+    /**
+     * Вернуть изменения после неудачной записи
+     */
+    public void restoreDirty(boolean core, Collection<UUID> members, Collection<String> settingKeys) {
+        if (core) {
+            coreDirty = true;
+        }
+        dirtyMembers.addAll(members);
+        dirtySettings.addAll(settingKeys);
+    }
+    
+    private static <T> List<T> drain(Set<T> dirty) {
+        List<T> taken = new ArrayList<>();
+        for (T key : dirty) {
+            if (dirty.remove(key)) {
+                taken.add(key);
+            }
+        }
+        return taken;
+    }
+    
+    /**
+     * Восстановление участника из базы (без отметки изменения и кика из дома)
+     */
+    public void restoreMember(UUID playerId, boolean banned) {
+        (banned ? bannedPlayers : allowedPlayers).add(playerId);
+    }
+    
+    /**
+     * Восстановление настройки из базы (без отметки изменения)
+     */
+    public void restoreSetting(String key, Object value) {
+        settings.put(key, value);
+        settingsVersion++;
+    }
+    
+    /**
+     * Номер версии настроек: позволяет кэшировать вычисленное из них, не копируя карту
+     */
+    public int getSettingsVersion() {
+        return settingsVersion;
+    }
+    
     public long getCreatedAt() {
         return createdAt;
     }
@@ -336,6 +574,39 @@ public class House {
         return lastModified;
     }
     
+    public long getLastActivity() {
+        return lastActivity;
+    }
+    
+    public boolean isPlot() {
+        return plot;
+    }
+    
+    public void setPlot(boolean plot) {
+        this.plot = plot;
+    }
+    
+    /**
+     * Минимальный угол дома в мире (для отдельного мира - 0, 0, 0)
+     */
+    public void setOrigin(int x, int y, int z) {
+        this.originX = x;
+        this.originY = y;
+        this.originZ = z;
+    }
+    
+    public int getOriginX() {
+        return originX;
+    }
+    
+    public int getOriginY() {
+        return originY;
+    }
+    
+    public int getOriginZ() {
+        return originZ;
+    }
+    
     public HouseMode getMode() {
         return mode;
     }
@@ -367,8 +638,7 @@ public class House {
     }
     
     public void setDescription(String description) {
-        settings.put("description", description);
-        updateModified();
+        setSetting("description", description);
     }
     
     public void setSpawnLocation(Location location) {
@@ -376,6 +646,7 @@ public class House {
             settings.put("spawn_x", location.getX());
             settings.put("spawn_y", location.getY());
             settings.put("spawn_z", location.getZ());
+            dirtySettings.addAll(List.of("spawn_x", "spawn_y", "spawn_z"));
             updateModified();
         }
     }
@@ -387,6 +658,7 @@ public class House {
     public void addPlayer(UUID playerId) {
         // Track player entry - could be used for statistics
         settings.put("last_visitor", playerId.toString());
+        dirtySettings.add("last_visitor");
         updateModified();
     }
     
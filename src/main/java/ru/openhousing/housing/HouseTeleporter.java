@@ -0,0 +1,136 @@
+package ru.openhousing.housing;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import ru.openhousing.OpenHousing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Телепортация игроков в дома без синхронной загрузки чанков.
+ *
+ * Сначала мир дома дожидается загрузки через HouseWorldManager, затем чанки вокруг точки
+ * спавна загружаются асинхронно, и игрок перемещается через teleportAsync. Одновременные
+ * посетители одного дома ждут одну и ту же предзагрузку: после рассылки о популярном доме
+ * чанки его спавна загружаются один раз, а не для каждого игрока.
+ */
+public class HouseTeleporter {
+
+    private static final int MAX_PRELOAD_RADIUS = 4;
+
+    private final OpenHousing plugin;
+    private final HouseWorldManager worldManager;
+    private final Map<Integer, CompletableFuture<Location>> preparing = new HashMap<>();
+    private final TeleportMetrics metrics = new TeleportMetrics();
+
+    private int preloadRadius;
+
+    public HouseTeleporter(OpenHousing plugin, HouseWorldManager worldManager) {
+        this.plugin = plugin;
+        this.worldManager = worldManager;
+    }
+
+    /**
+     * Чтение радиуса предзагрузки из конфигурации
+     */
+    public void start() {
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        preloadRadius = Math.max(0, Math.min(MAX_PRELOAD_RADIUS, config.getInt("housing.teleport.preload-radius", 1)));
+    }
+
+    /**
+     * Телепортация игрока к точке спавна дома.
+     * Результат (true - игрок перемещен) передается в основном потоке; если игрок
+     * вышел с сервера до телепортации, результат не передается.
+     */
+    public void teleport(Player player, House house, Consumer<Boolean> callback) {
+        long startedAt = System.nanoTime();
+        worldManager.whenLoaded(house, player, world -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (world == null) {
+                finish(player, house, startedAt, false, callback);
+                return;
+            }
+
+            prepare(house, world).whenComplete((location, error) -> {
+                if (!player.isOnline()) {
+                    return;
+                }
+                if (error != null) {
+                    finish(player, house, startedAt, false, callback);
+                    return;
+                }
+                player.teleportAsync(location).whenComplete((success, teleportError) ->
+                        finish(player, house, startedAt, teleportError == null && Boolean.TRUE.equals(success), callback));
+            });
+        });
+    }
+
+    /**
+     * Асинхронная загрузка чанков вокруг спавна дома; повторный вызов во время загрузки
+     * возвращает уже идущую предзагрузку
+     */
+    private CompletableFuture<Location> prepare(House house, World world) {
+        CompletableFuture<Location> pending = preparing.get(house.getId());
+        if (pending != null) {
+            metrics.recordCoalesced();
+            return pending;
+        }
+
+        Location spawn = house.getSpawnLocation(world);
+        int centerX = spawn.getBlockX() >> 4;
+        int centerZ = spawn.getBlockZ() >> 4;
+        List<CompletableFuture<Chunk>> chunks = new ArrayList<>();
+        for (int dx = -preloadRadius; dx <= preloadRadius; dx++) {
+            for (int dz = -preloadRadius; dz <= preloadRadius; dz++) {
+                chunks.add(world.getChunkAtAsync(centerX + dx, centerZ + dz));
+            }
+        }
+
+        CompletableFuture<Location> ready = CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> spawn);
+        preparing.put(house.getId(), ready);
+        ready.whenComplete((location, error) -> {
+            preparing.remove(house.getId(), ready);
+            if (error != null) {
+                plugin.getLogger().warning("Failed to preload spawn chunks of house '" + house.getName() + "': "
+                        + error.getMessage());
+            }
+        });
+        return ready;
+    }
+
+    private void finish(Player player, House house, long startedAt, boolean success, Consumer<Boolean> callback) {
+        long latencyNanos = System.nanoTime() - startedAt;
+        metrics.record(latencyNanos, success);
+
+        boolean debugMode = plugin.getConfigManager().getMainConfig().getBoolean("general.debug", false);
+        if (debugMode) plugin.getLogger().info("[DEBUG] Teleport of " + player.getName() + " to house '"
+                + house.getName() + "' " + (success ? "completed" : "failed") + " in "
+                + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + " ms");
+
+        callback.accept(success);
+    }
+
+    /**
+     * Количество домов, для которых сейчас идет предзагрузка чанков
+     */
+    public int getPreparingCount() {
+        return preparing.size();
+    }
+
+    public TeleportMetrics getMetrics() {
+        return metrics;
+    }
+}
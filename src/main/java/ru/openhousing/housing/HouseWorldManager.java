@@ -0,0 +1,161 @@
+package ru.openhousing.housing;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import ru.openhousing.OpenHousing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Жизненный цикл миров домов.
+ *
+ * Миры домов без игроков выгружаются после unloadAfterMillis простоя, за одну проверку -
+ * не больше maxUnloadsPerCheck миров, чтобы сохранение на диск не занимало целый тик.
+ * Дом, его настройки и код остаются в памяти. При посещении выгруженного дома игрок видит
+ * экран загрузки, мир загружается с диска в следующем тике, одновременные посетители
+ * одного дома ждут одну загрузку.
+ */
+public class HouseWorldManager {
+
+    private static final long INITIAL_DELAY_TICKS = 20L * 60;
+
+    private final OpenHousing plugin;
+    private final HousingManager housingManager;
+    private final Map<Integer, List<Consumer<World>>> pendingLoads = new HashMap<>();
+
+    private boolean enabled;
+    private long unloadAfterMillis;
+    private int maxUnloadsPerCheck;
+    private BukkitTask checkTask;
+
+    private long unloadedCount;
+    private long reloadedCount;
+
+    public HouseWorldManager(OpenHousing plugin, HousingManager housingManager) {
+        this.plugin = plugin;
+        this.housingManager = housingManager;
+    }
+
+    /**
+     * Запуск периодической выгрузки простаивающих миров
+     */
+    public void start() {
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        enabled = config.getBoolean("housing.world-lifecycle.enabled", true);
+        unloadAfterMillis = config.getLong("housing.world-lifecycle.unload-after-minutes", 5) * 60_000L;
+        maxUnloadsPerCheck = Math.max(1, config.getInt("housing.world-lifecycle.max-unloads-per-check", 4));
+        long intervalTicks = Math.max(20L, config.getLong("housing.world-lifecycle.check-interval-seconds", 60) * 20L);
+
+        if (!enabled || unloadAfterMillis <= 0) {
+            enabled = false;
+            return;
+        }
+        checkTask = Bukkit.getScheduler().runTaskTimer(plugin, this::unloadIdleWorlds,
+                INITIAL_DELAY_TICKS, intervalTicks);
+    }
+
+    public void stop() {
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+    }
+
+    /**
+     * Выгружаются ли простаивающие миры (если нет - миры домов загружаются при старте, как раньше)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Выполнение действия, когда мир дома загружен.
+     * Загруженный мир передается сразу; иначе игроку показывается экран загрузки,
+     * а действие выполняется в следующем тике после загрузки (null - мир загрузить не удалось).
+     */
+    public void whenLoaded(House house, Player player, Consumer<World> action) {
+        World loaded = house.getLoadedWorld();
+        if (loaded != null) {
+            house.markActive();
+            action.accept(loaded);
+            return;
+        }
+
+        if (player != null) {
+            plugin.getSoundEffects().showHouseLoadingTitle(player, house.getName());
+        }
+
+        List<Consumer<World>> waiting = pendingLoads.get(house.getId());
+        if (waiting != null) {
+            waiting.add(action); // Загрузка уже запланирована другим посетителем
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(action);
+        pendingLoads.put(house.getId(), waiting);
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            List<Consumer<World>> callbacks = pendingLoads.remove(house.getId());
+            World world = house.getWorld();
+            if (world != null) {
+                reloadedCount++;
+            }
+            if (callbacks != null) {
+                for (Consumer<World> callback : callbacks) {
+                    callback.accept(world);
+                }
+            }
+        });
+    }
+
+    /**
+     * Выгрузка миров, в которых нет игроков дольше unloadAfterMillis
+     */
+    public int unloadIdleWorlds() {
+        boolean debugMode = plugin.getConfigManager().getMainConfig().getBoolean("general.debug", false);
+        long now = System.currentTimeMillis();
+        int unloaded = 0;
+
+        for (House house : housingManager.getAllHouses()) {
+            if (house.isPlot()) {
+                continue; // Общий мир участков не выгружается
+            }
+            World world = house.getLoadedWorld();
+            if (world == null || pendingLoads.containsKey(house.getId())) {
+                continue;
+            }
+            if (!world.getPlayers().isEmpty()) {
+                house.markActive(); // Отсчет простоя начинается с ухода последнего игрока
+                continue;
+            }
+            if (unloaded >= maxUnloadsPerCheck || now - house.getLastActivity() < unloadAfterMillis) {
+                continue;
+            }
+
+            if (house.unloadWorld()) {
+                unloaded++;
+                unloadedCount++;
+                if (debugMode) plugin.getLogger().info("[DEBUG] Unloaded idle house world: " + house.getWorldName());
+            } else {
+                house.markActive(); // Сервер отказал - повторим после следующего интервала простоя
+                plugin.getLogger().warning("Failed to unload idle house world: " + house.getWorldName());
+            }
+        }
+        return unloaded;
+    }
+
+    public long getUnloadedCount() {
+        return unloadedCount;
+    }
+
+    public long getReloadedCount() {
+        return reloadedCount;
+    }
+}
@@ -0,0 +1,155 @@
+package ru.openhousing.housing;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+import ru.openhousing.OpenHousing;
+
+import java.io.File;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Запас заранее сгенерированных пустых миров домов.
+ *
+ * Пул держит на диске poolSize готовых миров (плоский мир с платформой и спавном,
+ * сохранен и выгружен). Создание дома забирает готовый мир и переименовывает его папку
+ * в имя мира дома - генерация и первое сохранение мира не попадают в тик создания дома,
+ * а сам мир загрузится при первом посещении.
+ *
+ * Пополнение идет по одному миру за проверку и только когда средняя длительность тика
+ * меньше maxTickMs. Папка пул-мира исчезает при выдаче, поэтому каждая оставшаяся на диске
+ * папка с префиксом пула свободна и подхватывается после перезапуска.
+ */
+public class HouseWorldPool {
+
+    private static final String POOL_PREFIX = "house_pool_";
+    private static final long INITIAL_DELAY_TICKS = 20L * 30;
+
+    private final OpenHousing plugin;
+    private final Deque<String> ready = new ConcurrentLinkedDeque<>();
+
+    private boolean enabled;
+    private int poolSize;
+    private double maxTickMs;
+    private BukkitTask refillTask;
+
+    private long claimedCount;
+    private long generatedCount;
+
+    public HouseWorldPool(OpenHousing plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Поиск готовых миров на диске и запуск пополнения
+     */
+    public void start() {
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        enabled = config.getBoolean("housing.world-pool.enabled", true);
+        poolSize = Math.max(0, config.getInt("housing.world-pool.size", 3));
+        maxTickMs = config.getDouble("housing.world-pool.max-tick-ms", 40.0);
+        long intervalTicks = Math.max(20L, config.getLong("housing.world-pool.refill-interval-seconds", 10) * 20L);
+
+        if (!enabled || poolSize == 0) {
+            enabled = false;
+            return;
+        }
+
+        File[] folders = Bukkit.getWorldContainer().listFiles(file ->
+                file.isDirectory() && file.getName().startsWith(POOL_PREFIX) && new File(file, "level.dat").exists());
+        if (folders != null) {
+            for (File folder : folders) {
+                ready.add(folder.getName());
+            }
+        }
+        plugin.getLogger().info("House world pool: " + ready.size() + "/" + poolSize + " worlds ready");
+
+        refillTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refill, INITIAL_DELAY_TICKS, intervalTicks);
+    }
+
+    public void stop() {
+        if (refillTask != null) {
+            refillTask.cancel();
+            refillTask = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Выдача готового мира под имя мира нового дома
+     *
+     * @return true - папка мира worldName создана из пула; false - пул пуст, мир нужно создать обычным путем
+     */
+    public boolean claim(String worldName) {
+        if (!enabled) {
+            return false;
+        }
+        File container = Bukkit.getWorldContainer();
+        File target = new File(container, worldName);
+        if (target.exists()) {
+            return false;
+        }
+
+        String poolName;
+        while ((poolName = ready.poll()) != null) {
+            if (Bukkit.getWorld(poolName) != null) {
+                continue; // Загружен кем-то посторонним - не трогаем
+            }
+            File source = new File(container, poolName);
+            if (source.renameTo(target)) {
+                claimedCount++;
+                return true;
+            }
+            plugin.getLogger().warning("Failed to claim pooled house world: " + poolName);
+        }
+        return false;
+    }
+
+    /**
+     * Генерация одного мира, если пул неполон и сервер не нагружен
+     */
+    private void refill() {
+        if (ready.size() >= poolSize || plugin.getServer().getAverageTickTime() > maxTickMs) {
+            return;
+        }
+
+        String poolName = POOL_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        try {
+            World world = House.worldCreator(poolName).createWorld();
+            if (world == null) {
+                plugin.getLogger().warning("Failed to generate pooled house world: " + poolName);
+                return;
+            }
+            House.applyInitialSettings(world);
+            HousingManager.buildSpawnPlatform(world);
+            world.save();
+            if (Bukkit.unloadWorld(world, true)) {
+                ready.add(poolName);
+                generatedCount++;
+            } else {
+                plugin.getLogger().warning("Failed to unload pooled house world: " + poolName);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error generating pooled house world " + poolName + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    public long getClaimedCount() {
+        return claimedCount;
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount;
+    }
+}
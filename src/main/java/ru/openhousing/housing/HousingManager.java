@@ -6,8 +6,13 @@ import org.bukkit.entity.Player;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.utils.MessageUtil;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Менеджер системы Housing
@@ -18,6 +23,14 @@ public class HousingManager {
     private final Map<Integer, House> houses;
     private final Map<UUID, List<House>> playerHouses;
     private final Map<String, House> housesByName;
+    private final Map<String, House> housesByWorld;   // Имя мира -> дом (у каждого дома свой мир)
+    private final Map<String, UUID> ownersByName;      // Имя владельца (в нижнем регистре) -> UUID
+    private final java.util.concurrent.ConcurrentSkipListMap<Integer, House> publicHouses; // По ID
+    private final ChunkHouseIndex plotIndex;           // Участки общего мира по чанкам
+    private final HouseWorldManager worldManager;
+    private final HouseWorldPool worldPool;
+    private final AreaOperationQueue areaOperations;
+    private final HouseTeleporter teleporter;
     private World housingWorld;
     private int nextHouseId;
     private Location nextHouseLocation;
@@ -31,11 +44,26 @@ public class HousingManager {
     private double expansionCostPerBlock;
     private int houseSpacing;
     
+    // Режим участков: много домов в одном мире
+    private boolean plotMode;
+    private String plotWorldName;
+    private int plotColumns;
+    private int plotGroundY;
+    private int nextPlotIndex;
+    
     public HousingManager(OpenHousing plugin) {
         this.plugin = plugin;
         this.houses = new ConcurrentHashMap<>();
         this.playerHouses = new ConcurrentHashMap<>();
         this.housesByName = new ConcurrentHashMap<>();
+        this.housesByWorld = new ConcurrentHashMap<>();
+        this.ownersByName = new ConcurrentHashMap<>();
+        this.publicHouses = new java.util.concurrent.ConcurrentSkipListMap<>();
+        this.plotIndex = new ChunkHouseIndex();
+        this.worldManager = new HouseWorldManager(plugin, this);
+        this.worldPool = new HouseWorldPool(plugin);
+        this.areaOperations = new AreaOperationQueue(plugin);
+        this.teleporter = new HouseTeleporter(plugin, worldManager);
         this.nextHouseId = 1;
     }
     
@@ -44,20 +72,31 @@ public class HousingManager {
      */
     public void initialize() {
         loadConfiguration();
-        // Отдельные миры для каждого дома создаются по требованию
+        // Отдельные миры для каждого дома создаются по требованию и выгружаются при простое
+        worldManager.start();
+        areaOperations.start();
+        teleporter.start();
+        if (plotMode) {
+            // Мир участков должен быть загружен до загрузки домов из базы
+            housingWorld = loadPlotWorld();
+        } else {
+            worldPool.start();
+        }
         
         // Асинхронно загружаем дома из базы данных
         plugin.getDatabaseManager().loadAllHousesAsync(loadedHouses -> {
             for (House house : loadedHouses) {
-                houses.put(house.getId(), house);
-                housesByName.put(house.getName().toLowerCase(), house);
-                
-                playerHouses.computeIfAbsent(house.getOwnerId(), k -> new ArrayList<>()).add(house);
+                indexHouse(house);
                 
                 if (house.getId() >= nextHouseId) {
                     nextHouseId = house.getId() + 1;
                 }
                 
+                // Миры загружаются при первом посещении
+                if (worldManager.isEnabled()) {
+                    continue;
+                }
+                
                 // Предварительно загружаем мир дома
                 try {
                     World houseWorld = house.getWorld();
@@ -73,12 +112,71 @@ public class HousingManager {
                 }
             }
             
-            plugin.getLogger().info("Loaded " + houses.size() + " houses from database with world preloading");
+            plugin.getLogger().info("Loaded " + houses.size() + " houses from database"
+                + (worldManager.isEnabled() ? "" : " with world preloading"));
         });
         
         plugin.getLogger().info("HousingManager initialized successfully!");
     }
     
+    /**
+     * Добавление дома в индексы (по ID, имени, миру и владельцу)
+     */
+    private void indexHouse(House house) {
+        houses.put(house.getId(), house);
+        housesByName.put(house.getName().toLowerCase(), house);
+        if (house.getWorldName().equals(plotWorldName)) {
+            // Участок общего мира (в том числе созданный до переключения режима)
+            house.setPlot(true);
+            plotIndex.add(house);
+            nextPlotIndex = Math.max(nextPlotIndex, plotNumber(house) + 1);
+        } else {
+            housesByWorld.put(house.getWorldName(), house);
+        }
+        playerHouses.computeIfAbsent(house.getOwnerId(), k -> new ArrayList<>()).add(house);
+        ownersByName.put(house.getOwnerName().toLowerCase(), house.getOwnerId());
+        if (house.isPublic()) {
+            publicHouses.put(house.getId(), house);
+        }
+    }
+    
+    /**
+     * Удаление дома из индексов
+     */
+    private void unindexHouse(House house) {
+        houses.remove(house.getId());
+        housesByName.remove(house.getName().toLowerCase());
+        publicHouses.remove(house.getId());
+        if (house.isPlot()) {
+            plotIndex.remove(house);
+        } else {
+            housesByWorld.remove(house.getWorldName(), house);
+        }
+        
+        List<House> playerHouseList = playerHouses.get(house.getOwnerId());
+        if (playerHouseList != null) {
+            playerHouseList.remove(house);
+            if (playerHouseList.isEmpty()) {
+                playerHouses.remove(house.getOwnerId());
+                ownersByName.remove(house.getOwnerName().toLowerCase(), house.getOwnerId());
+            }
+        }
+    }
+    
+    /**
+     * Обновление списка публичных домов при смене видимости дома
+     */
+    public void updatePublicIndex(House house) {
+        if (houses.get(house.getId()) != house) {
+            return; // Дом еще загружается или уже удален
+        }
+        if (house.isPublic()) {
+            publicHouses.put(house.getId(), house);
+        } else {
+            publicHouses.remove(house.getId());
+        }
+    }
+    
     /**
      * Загрузка конфигурации
      */
@@ -109,6 +207,32 @@ public class HousingManager {
         creationCost = config.getDouble("creation-cost", 10000.0);
         expansionCostPerBlock = config.getDouble("expansion-cost-per-block", 100.0);
         houseSpacing = config.getInt("house-spacing", 200);
+        
+        plotMode = "plots".equalsIgnoreCase(config.getString("layout", "worlds"));
+        plotWorldName = config.getString("world-name", "housing_world");
+        plotColumns = Math.max(1, config.getInt("plots.columns", 100));
+        plotGroundY = config.getInt("plots.ground-y", 64);
+    }
+    
+    /**
+     * Загрузка (или создание) общего мира участков
+     */
+    private World loadPlotWorld() {
+        World world = Bukkit.getWorld(plotWorldName);
+        if (world != null) {
+            return world;
+        }
+        boolean created = !new java.io.File(Bukkit.getWorldContainer(), plotWorldName).exists();
+        world = House.worldCreator(plotWorldName).createWorld();
+        if (world == null) {
+            plugin.getLogger().severe("Failed to load plot world: " + plotWorldName);
+            return null;
+        }
+        if (created) {
+            House.applyInitialSettings(world);
+        }
+        plugin.getLogger().info("Plot world loaded: " + plotWorldName);
+        return world;
     }
     
 
@@ -120,10 +244,7 @@ public class HousingManager {
         List<House> loadedHouses = plugin.getDatabaseManager().loadAllHouses();
         
         for (House house : loadedHouses) {
-            houses.put(house.getId(), house);
-            housesByName.put(house.getName().toLowerCase(), house);
-            
-            playerHouses.computeIfAbsent(house.getOwnerId(), k -> new ArrayList<>()).add(house);
+            indexHouse(house);
             
             if (house.getId() >= nextHouseId) {
                 nextHouseId = house.getId() + 1;
@@ -171,8 +292,12 @@ public class HousingManager {
             plugin.getEconomy().withdrawPlayer(player, creationCost);
         }
         
-        // Создание уникального имени мира
-        String worldName = "house_" + player.getUniqueId().toString().replace("-", "") + "_" + nextHouseId;
+        // Создание уникального имени мира (в режиме участков - общий мир).
+        // Папка удаленного дома может еще удаляться - номер с таким миром пропускаем
+        String worldName = plotMode ? plotWorldName : houseWorldName(player, nextHouseId);
+        while (!plotMode && new File(Bukkit.getWorldContainer(), worldName).exists()) {
+            worldName = houseWorldName(player, ++nextHouseId);
+        }
         
         // Создание дома
         House house = new House(
@@ -184,23 +309,29 @@ public class HousingManager {
             new House.HouseSize(defaultSize.getWidth(), defaultSize.getHeight(), defaultSize.getLength()),
             plugin
         );
+        if (plotMode) {
+            allocatePlot(house);
+        }
         
         // Сохранение в память
-        houses.put(house.getId(), house);
-        housesByName.put(houseName.toLowerCase(), house);
-        playerHouses.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>()).add(house);
+        indexHouse(house);
         
         // Сохранение в базу данных
-        plugin.getDatabaseManager().saveHouse(house);
-        
-        // Создание и подготовка мира дома
-        prepareHouseWorld(house);
+        plugin.getDatabaseManager().queueHouse(house);
+        
+        // Мир из пула уже подготовлен (платформа, спавн) и загрузится при первом посещении,
+        // иначе создаем и подготавливаем мир сразу
+        if (house.isPlot()) {
+            preparePlot(house);
+        } else if (!worldPool.claim(worldName)) {
+            prepareHouseWorld(house);
+        }
         
         // Привязываем код игрока к миру дома и сохраняем асинхронно
         try {
             ru.openhousing.coding.script.CodeScript script = plugin.getCodeManager().getOrCreateScript(player);
             script.setBoundWorld(worldName);
-            plugin.getDatabaseManager().saveCodeScriptAsync(script, () -> {});
+            plugin.getDatabaseManager().queueCodeScript(script);
         } catch (Exception ignored) {}
         
         // Создание WorldGuard региона
@@ -216,6 +347,10 @@ public class HousingManager {
         return new CreateHouseResult(true, "Дом '" + houseName + "' успешно создан!", house);
     }
     
+    private static String houseWorldName(Player owner, int houseId) {
+        return "house_" + owner.getUniqueId().toString().replace("-", "") + "_" + houseId;
+    }
+    
     /**
      * Подготовка мира дома
      */
@@ -223,22 +358,8 @@ public class HousingManager {
         try {
             World world = house.getWorld();
             if (world != null) {
-                // Создаем базовую платформу
-                Location spawnLoc = house.getSpawnLocation();
-                if (spawnLoc != null) {
-                    // Создаем платформу 5x5 из травы
-                    for (int x = -2; x <= 2; x++) {
-                        for (int z = -2; z <= 2; z++) {
-                            Location blockLoc = spawnLoc.clone().add(x, -1, z);
-                            blockLoc.getBlock().setType(org.bukkit.Material.GRASS_BLOCK);
-                        }
-                    }
-                    
-                    // Устанавливаем спавн мира
-                    world.setSpawnLocation(spawnLoc);
-                    
-                    plugin.getLogger().info("Мир дома '" + house.getName() + "' создан: " + world.getName());
-                }
+                buildSpawnPlatform(world);
+                plugin.getLogger().info("Мир дома '" + house.getName() + "' создан: " + world.getName());
             }
         } catch (Exception e) {
             plugin.getLogger().severe("Ошибка создания мира дома: " + e.getMessage());
@@ -246,6 +367,55 @@ public class HousingManager {
         }
     }
     
+    /**
+     * Подготовка участка: платформа в центре (мир участков уже загружен)
+     */
+    private void preparePlot(House house) {
+        Location spawnLoc = house.getSpawnLocation();
+        if (spawnLoc != null) {
+            buildPlatform(spawnLoc);
+        }
+    }
+    
+    /**
+     * Выделение следующего участка сетки: plotColumns участков в ряд, шаг houseSpacing
+     */
+    private void allocatePlot(House house) {
+        int number = nextPlotIndex++;
+        int column = number % plotColumns;
+        int row = number / plotColumns;
+        house.setOrigin(column * houseSpacing, plotGroundY, row * houseSpacing);
+    }
+    
+    /**
+     * Номер участка в сетке по его углу
+     */
+    private int plotNumber(House house) {
+        int column = Math.floorDiv(house.getOriginX(), houseSpacing);
+        int row = Math.floorDiv(house.getOriginZ(), houseSpacing);
+        return row * plotColumns + column;
+    }
+    
+    /**
+     * Платформа 5x5 из травы под точкой спавна и установка спавна мира
+     */
+    static void buildSpawnPlatform(World world) {
+        Location spawnLoc = new Location(world, 0, 64, 0);
+        buildPlatform(spawnLoc);
+        
+        // Устанавливаем спавн мира
+        world.setSpawnLocation(spawnLoc);
+    }
+    
+    private static void buildPlatform(Location center) {
+        for (int x = -2; x <= 2; x++) {
+            for (int z = -2; z <= 2; z++) {
+                Location blockLoc = center.clone().add(x, -1, z);
+                blockLoc.getBlock().setType(org.bukkit.Material.GRASS_BLOCK);
+            }
+        }
+    }
+    
     /**
      * Удаление дома
      */
@@ -260,16 +430,7 @@ public class HousingManager {
         house.kickAllPlayers("Дом удален");
         
         // Удаление из памяти
-        houses.remove(house.getId());
-        housesByName.remove(house.getName().toLowerCase());
-        
-        List<House> playerHouseList = playerHouses.get(house.getOwnerId());
-        if (playerHouseList != null) {
-            playerHouseList.remove(house);
-            if (playerHouseList.isEmpty()) {
-                playerHouses.remove(house.getOwnerId());
-            }
-        }
+        unindexHouse(house);
         
         // Удаление из базы данных
         plugin.getDatabaseManager().deleteHouse(house.getId());
@@ -279,53 +440,114 @@ public class HousingManager {
             plugin.getWorldGuardIntegration().deleteHouseRegion(house);
         }
         
-        // Очистка территории
-        clearHouseArea(house);
+        // Очистка территории (частями в следующих тиках)
+        clearHouseArea(house, deleter);
         
         return true;
     }
     
     /**
-     * Очистка территории дома
+     * Очистка территории дома через очередь операций с блоками.
+     * Отдельный мир дома не очищается, а удаляется целиком (deleteHouseWorld).
      */
-    private void clearHouseArea(House house) {
+    private void clearHouseArea(House house, Player viewer) {
+        if (!house.isPlot()) {
+            deleteHouseWorld(house);
+            return;
+        }
         World world = house.getWorld();
         if (world == null) return;
         
         House.HouseSize size = house.getSize();
-        
-        for (int x = 0; x < size.getWidth(); x++) {
-            for (int z = 0; z < size.getLength(); z++) {
-                for (int y = 0; y < size.getHeight(); y++) {
-                    Location blockLoc = new Location(world, x, y, z);
-                    world.getBlockAt(blockLoc).setType(Material.AIR);
+        int originX = house.getOriginX();
+        int originY = house.getOriginY();
+        int originZ = house.getOriginZ();
+        
+        AreaOperation operation = areaOperations.clear(house.getId(), world,
+            originX, originY, originZ,
+            originX + size.getWidth() - 1, originY + size.getHeight() - 1, originZ + size.getLength() - 1);
+        if (viewer != null) {
+            operation.onProgress(op -> {
+                if (viewer.isOnline()) {
+                    MessageUtil.sendActionBar(viewer, "&7Очистка дома '" + house.getName() + "': &e"
+                        + Math.round(op.getProgress() * 100) + "%");
                 }
+            });
+            operation.onComplete(op -> {
+                if (viewer.isOnline() && op.isFinished()) {
+                    MessageUtil.sendActionBar(viewer, "&aТерритория дома '" + house.getName() + "' очищена");
+                }
+            });
+        }
+    }
+    
+    /**
+     * Удаление отдельного мира дома: выгрузка без сохранения и удаление папки асинхронно.
+     * Обычно мир выгружен (загружается только при посещении), но папка на диске остается -
+     * ее нужно удалить, иначе новый дом с тем же именем мира загрузил бы старые постройки.
+     */
+    private void deleteHouseWorld(House house) {
+        World loaded = house.getLoadedWorld();
+        if (loaded != null) {
+            // Владелец не выгоняется kickAllPlayers - переносим всех, кто остался в мире
+            Location spawn = Bukkit.getWorlds().get(0).getSpawnLocation();
+            for (Player player : loaded.getPlayers()) {
+                player.teleport(spawn);
+            }
+            if (!Bukkit.unloadWorld(loaded, false)) {
+                plugin.getLogger().warning("Failed to unload world of deleted house: " + house.getWorldName());
+                return;
+            }
+        }
+        
+        File folder = new File(Bukkit.getWorldContainer(), house.getWorldName());
+        if (!folder.exists()) {
+            return;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                deleteDirectory(folder.toPath());
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to delete world folder of deleted house "
+                    + house.getWorldName() + ": " + e.getMessage());
+            }
+        });
+    }
+    
+    private static void deleteDirectory(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
             }
         }
     }
     
     /**
-     * Телепортация в дом
+     * Телепортация в дом (после загрузки мира и чанков спавна)
      */
     public boolean teleportToHouse(Player player, House house) {
         if (!house.canVisit(player)) {
             return false;
         }
         
-        Location spawnLocation = house.getSpawnLocation();
-        player.teleport(spawnLocation);
-        
-        // Приветственное сообщение
-        if (house.getOwnerId().equals(player.getUniqueId())) {
-            MessageUtil.send(player, "&aДобро пожаловать домой!");
-            plugin.getSoundEffects().playTeleport(player);
-        } else {
-            MessageUtil.send(player, "&aВы посетили дом игрока &e" + house.getOwnerName());
-            plugin.getSoundEffects().playTeleport(player);
-        }
-        
-        // Показываем информацию о доме
-        plugin.getSoundEffects().showDetailedHouseScoreboard(player, house);
+        teleporter.teleport(player, house, success -> {
+            if (!success) {
+                MessageUtil.send(player, "&cНе удалось телепортироваться в дом!");
+                return;
+            }
+            
+            // Приветственное сообщение
+            if (house.getOwnerId().equals(player.getUniqueId())) {
+                MessageUtil.send(player, "&aДобро пожаловать домой!");
+                plugin.getSoundEffects().playTeleport(player);
+            } else {
+                MessageUtil.send(player, "&aВы посетили дом игрока &e" + house.getOwnerName());
+                plugin.getSoundEffects().playTeleport(player);
+            }
+            
+            // Показываем информацию о доме
+            plugin.getSoundEffects().showDetailedHouseScoreboard(player, house);
+        });
         
         return true;
     }
@@ -356,30 +578,45 @@ public class HousingManager {
      */
     public List<House> getPlayerHouses(String playerName) {
         // Поиск по имени владельца
-        return houses.values().stream()
-            .filter(house -> house.getOwnerName().equalsIgnoreCase(playerName))
-            .collect(java.util.stream.Collectors.toList());
+        UUID ownerId = ownersByName.get(playerName.toLowerCase());
+        return ownerId != null ? getPlayerHouses(ownerId) : new ArrayList<>();
     }
     
     /**
      * Получение дома по локации
      */
     public House getHouseAt(Location location) {
-        for (House house : houses.values()) {
-            if (house.isInside(location)) {
-                return house;
-            }
+        World world = location.getWorld();
+        if (world == null) {
+            return null;
+        }
+        if (world.getName().equals(plotWorldName)) {
+            return plotIndex.get(location.getBlockX(), location.getBlockZ());
         }
-        return null;
+        House house = housesByWorld.get(world.getName());
+        return house != null && house.isInside(location) ? house : null;
+    }
+    
+    /**
+     * Может ли перемещение внутри чанка сменить дом игрока.
+     * В отдельных мирах дом определяется миром, в мире участков - только в граничных чанках.
+     */
+    public boolean isUniformChunk(World world, int chunkX, int chunkZ) {
+        return !world.getName().equals(plotWorldName) || plotIndex.isUniform(chunkX, chunkZ);
+    }
+    
+    /**
+     * Получение дома по имени его мира (только для домов с отдельным миром)
+     */
+    public House getHouseByWorld(String worldName) {
+        return housesByWorld.get(worldName);
     }
     
     /**
      * Получение всех публичных домов
      */
     public List<House> getPublicHouses() {
-        return houses.values().stream()
-            .filter(House::isPublic)
-            .toList();
+        return List.copyOf(publicHouses.values());
     }
     
     /**
@@ -387,7 +624,9 @@ public class HousingManager {
      */
     public void saveAll() {
         for (House house : houses.values()) {
-            plugin.getDatabaseManager().saveHouse(house);
+            if (house.isDirty()) { // Неизмененные дома уже совпадают с базой
+                plugin.getDatabaseManager().queueHouse(house);
+            }
         }
         plugin.getLogger().info("All housing data saved!");
     }
@@ -423,6 +662,11 @@ public class HousingManager {
     public double getCreationCost() { return creationCost; }
     public double getExpansionCostPerBlock() { return expansionCostPerBlock; }
     public World getHousingWorld() { return housingWorld; }
+    public HouseWorldManager getWorldManager() { return worldManager; }
+    public HouseWorldPool getWorldPool() { return worldPool; }
+    public AreaOperationQueue getAreaOperations() { return areaOperations; }
+    public HouseTeleporter getTeleporter() { return teleporter; }
+    public boolean isPlotMode() { return plotMode; }
     
     // Missing methods needed by other classes
     public List<House> getAllHouses() {
@@ -0,0 +1,66 @@
+package ru.openhousing.housing;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Статистика телепортаций в дома.
+ *
+ * Задержка считается от запроса телепортации до ее завершения и включает загрузку мира
+ * и предзагрузку чанков спавна. Присоединившиеся посетители - те, кто дождался уже
+ * начатой другим игроком подготовки того же дома.
+ */
+public class TeleportMetrics {
+
+    private long completed;
+    private long failed;
+    private long coalesced;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Учет завершенной телепортации
+     */
+    public void record(long latencyNanos, boolean success) {
+        if (!success) {
+            failed++;
+            return;
+        }
+        completed++;
+        totalNanos += latencyNanos;
+        maxNanos = Math.max(maxNanos, latencyNanos);
+    }
+
+    /**
+     * Учет посетителя, присоединившегося к уже идущей подготовке дома
+     */
+    public void recordCoalesced() {
+        coalesced++;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public double getAverageMillis() {
+        return completed == 0 ? 0.0 : (double) totalNanos / completed / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxMillis() {
+        return (double) maxNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "teleports=%d, failed=%d, coalesced=%d, avg=%.1fms, max=%.1fms",
+                completed, failed, coalesced, getAverageMillis(), getMaxMillis());
+    }
+}
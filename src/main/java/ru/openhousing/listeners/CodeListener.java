@@ -11,7 +11,6 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.player.*;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import ru.openhousing.OpenHousing;
-import ru.openhousing.coding.script.CodeScript;
 
 /**
  * Листенер для обработки событий кода
@@ -28,13 +27,8 @@ public class CodeListener implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         
-        // Асинхронно загружаем код игрока
-        plugin.getDatabaseManager().loadCodeScriptAsync(player.getUniqueId(), script -> {
-            if (script != null) {
-                // Регистрируем обработчики событий в основном потоке
-                plugin.getCodeManager().registerScript(player, script);
-            }
-        });
+        // Регистрируем предзагруженный код (или дожидаемся загрузки без блокировки)
+        plugin.getCodeManager().loadScript(player);
         
         // Обрабатываем событие в коде
         plugin.getCodeManager().handleEvent(event, player);
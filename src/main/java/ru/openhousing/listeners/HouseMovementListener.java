@@ -1,11 +1,16 @@
 package ru.openhousing.listeners;
 
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import ru.openhousing.OpenHousing;
+import ru.openhousing.housing.ChunkHouseIndex;
 import ru.openhousing.housing.House;
 import ru.openhousing.notifications.NotificationType;
 
@@ -20,6 +25,9 @@ public class HouseMovementListener implements Listener {
     
     private final OpenHousing plugin;
     private final Map<UUID, String> playerLastHouse = new HashMap<>();
+    // Чанк и мир последней проверки дома: внутри однородного чанка дом смениться не может
+    private final Map<UUID, Long> playerLastChunk = new HashMap<>();
+    private final Map<UUID, String> playerLastWorld = new HashMap<>();
     
     public HouseMovementListener(OpenHousing plugin) {
         this.plugin = plugin;
@@ -29,6 +37,9 @@ public class HouseMovementListener implements Listener {
     public void onPlayerMove(PlayerMoveEvent event) {
         Player player = event.getPlayer();
         
+        // Ожидающая телепортация отменяется при движении (сдвиг меньше блока тоже считается)
+        plugin.getTeleportationManager().handleMove(player, event.getTo());
+        
         // Проверяем только если игрок действительно переместился в новый блок
         if (event.getFrom().getBlockX() == event.getTo().getBlockX() &&
             event.getFrom().getBlockY() == event.getTo().getBlockY() &&
@@ -36,7 +47,20 @@ public class HouseMovementListener implements Listener {
             return;
         }
         
-        House currentHouse = plugin.getHousingManager().getHouseAt(event.getTo());
+        Location to = event.getTo();
+        UUID playerId = player.getUniqueId();
+        int chunkX = to.getBlockX() >> 4;
+        int chunkZ = to.getBlockZ() >> 4;
+        long chunkKey = ChunkHouseIndex.chunkKey(chunkX, chunkZ);
+        String worldName = to.getWorld().getName();
+        Long lastChunk = playerLastChunk.put(playerId, chunkKey);
+        String lastWorld = playerLastWorld.put(playerId, worldName);
+        if (lastChunk != null && lastChunk == chunkKey && worldName.equals(lastWorld)
+            && plugin.getHousingManager().isUniformChunk(to.getWorld(), chunkX, chunkZ)) {
+            return;
+        }
+        
+        House currentHouse = plugin.getHousingManager().getHouseAt(to);
         String currentHouseId = currentHouse != null ? String.valueOf(currentHouse.getId()) : null;
         String lastHouseId = playerLastHouse.get(player.getUniqueId());
         
@@ -84,11 +108,31 @@ public class HouseMovementListener implements Listener {
         }
     }
     
+    /**
+     * PlayerTeleportEvent не доходит до onPlayerMove (свой список обработчиков):
+     * телепорт другой командой или плагином тоже отменяет ожидающую телепортацию
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        plugin.getTeleportationManager().handleTeleport(event.getPlayer());
+    }
+    
+    /**
+     * Смена мира без PlayerTeleportEvent (портал, возрождение в другом мире)
+     */
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        plugin.getTeleportationManager().handleTeleport(event.getPlayer());
+    }
+    
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
         
+        playerLastChunk.remove(playerId);
+        playerLastWorld.remove(playerId);
+        
         // Убираем игрока из всех домов
         String lastHouseId = playerLastHouse.remove(playerId);
         if (lastHouseId != null) {
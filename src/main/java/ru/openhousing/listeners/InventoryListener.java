@@ -3,10 +3,14 @@ package ru.openhousing.listeners;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.InventoryHolder;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.coding.gui.CodeEditorGUI;
+import ru.openhousing.gui.GuiHandler;
+import ru.openhousing.gui.GuiHolder;
 
 /**
  * Листенер для обработки событий инвентаря
@@ -19,14 +23,36 @@ public class InventoryListener implements Listener {
         this.plugin = plugin;
     }
     
-    // Удален старый обработчик кликов, так как теперь каждый GUI имеет собственный обработчик
+    // GUI не регистрируются как листенеры: события передаются обработчику,
+    // найденному по держателю инвентаря, без перебора всех открытых GUI
+    
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        GuiHandler handler = GuiHolder.handlerOf(event.getInventory());
+        if (handler != null) {
+            handler.onInventoryClick(event);
+        }
+    }
+    
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        GuiHandler handler = GuiHolder.handlerOf(event.getInventory());
+        if (handler != null) {
+            handler.onInventoryDrag(event);
+        }
+    }
     
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
+        GuiHandler handler = GuiHolder.handlerOf(event.getInventory());
+        if (handler != null) {
+            handler.onInventoryClose(event);
+        }
+        
         if (!(event.getPlayer() instanceof Player)) return;
         
         Player player = (Player) event.getPlayer();
-        InventoryHolder holder = event.getInventory().getHolder();
+        InventoryHolder holder = event.getInventory().getHolder(false);
         
         // Обработка закрытия редактора кода
         if (holder instanceof CodeEditorGUI) {
@@ -2,7 +2,9 @@ package ru.openhousing.listeners;
 
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import ru.openhousing.OpenHousing;
@@ -18,17 +20,20 @@ public class PlayerListener implements Listener {
         this.plugin = plugin;
     }
     
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Начинаем загрузку кода, пока игрок подключается
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            plugin.getCodeManager().prefetchScript(event.getUniqueId());
+        }
+    }
+    
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         
-        // Асинхронно загружаем данные игрока
-        plugin.getDatabaseManager().loadCodeScriptAsync(player.getUniqueId(), script -> {
-            if (script != null) {
-                // Регистрируем обработчики событий в основном потоке
-                plugin.getCodeManager().registerScript(player, script);
-            }
-        });
+        // Регистрируем предзагруженный код (или дожидаемся загрузки без блокировки)
+        plugin.getCodeManager().loadScript(player);
         
         // Приветственное сообщение (если первый заход)
         if (!player.hasPlayedBefore()) {
@@ -1,24 +1,35 @@
 package ru.openhousing.teleportation;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 import ru.openhousing.OpenHousing;
 import ru.openhousing.housing.House;
 import ru.openhousing.utils.MessageUtil;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
- * Менеджер телепортации между домами
+ * Менеджер телепортации между домами.
+ *
+ * Все ожидающие телепортации обслуживает одна задача планировщика, которая работает,
+ * только пока есть прогревы. Движение проверяется по событиям перемещения, а истекшие
+ * кулдауны удаляются при обращении к ним.
  */
 public class TeleportationManager {
     
+    private static final double MAX_WARMUP_MOVEMENT = 0.5;
+    
     private final OpenHousing plugin;
     private final Map<UUID, Long> teleportCooldowns = new HashMap<>();
-    private final Map<UUID, BukkitRunnable> pendingTeleports = new HashMap<>();
+    private final WarmupQueue pendingTeleports = new WarmupQueue();
+    private final Set<UUID> teleporting = new HashSet<>(); // Телепортация начата, мир и чанки еще загружаются
+    private BukkitTask warmupTask;
     
     // Настройки телепортации
     private int teleportDelay = 3; // секунды
@@ -88,92 +99,117 @@ public class TeleportationManager {
             return;
         }
         
+        // Кулдаун ставится после завершения - до него повторный запрос не запускает вторую телепортацию
+        if (teleporting.contains(player.getUniqueId())) {
+            MessageUtil.send(player, "&cТелепортация уже выполняется!");
+            return;
+        }
+        
         // Отменяем предыдущую телепортацию если есть
         cancelPendingTeleport(player);
         
-        Location targetLocation = house.getSpawnLocation() != null ? 
-            house.getSpawnLocation() : house.getLocation();
-        
         if (teleportDelay <= 0) {
             // Мгновенная телепортация
-            performTeleport(player, targetLocation, destination);
+            performTeleport(player, house, destination);
         } else {
             // Телепортация с задержкой
-            startDelayedTeleport(player, targetLocation, destination);
+            startDelayedTeleport(player, house, destination);
         }
     }
     
     /**
      * Запуск телепортации с задержкой
      */
-    private void startDelayedTeleport(Player player, Location target, String destination) {
-        Location startLocation = player.getLocation().clone();
-        
+    private void startDelayedTeleport(Player player, House house, String destination) {
         MessageUtil.send(player, "&eТелепортация " + destination + " через &c" + teleportDelay + " &eсекунд...");
         if (!allowMovementDuringTeleport) {
             MessageUtil.send(player, "&7Не двигайтесь во время телепортации!");
         }
         
-        BukkitRunnable teleportTask = new BukkitRunnable() {
-            int countdown = teleportDelay;
-            
-            @Override
-            public void run() {
-                if (!player.isOnline()) {
-                    cancel();
-                    return;
-                }
-                
-                // Проверяем движение игрока
-                if (!allowMovementDuringTeleport && 
-                    startLocation.distance(player.getLocation()) > 0.5) {
-                    MessageUtil.send(player, "&cТелепортация отменена - вы двигались!");
-                    cancel();
-                    return;
-                }
-                
-                countdown--;
-                
-                if (countdown <= 0) {
-                    performTeleport(player, target, destination);
-                    cancel();
-                } else if (countdown <= 3) {
-                    MessageUtil.send(player, "&e" + countdown + "...");
-                }
+        pendingTeleports.add(new WarmupQueue.Warmup(player.getUniqueId(), house, destination,
+            player.getLocation().clone(), Bukkit.getCurrentTick(), teleportDelay));
+        if (warmupTask == null) {
+            warmupTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tickWarmups, 1L, 1L);
+        }
+    }
+    
+    /**
+     * Обработка наступивших событий прогрева (один раз за тик для всех игроков)
+     */
+    private void tickWarmups() {
+        long now = Bukkit.getCurrentTick();
+        WarmupQueue.Warmup warmup;
+        while ((warmup = pendingTeleports.poll(now)) != null) {
+            Player player = Bukkit.getPlayer(warmup.getPlayerId());
+            if (player == null) {
+                pendingTeleports.remove(warmup.getPlayerId());
+            } else if (warmup.isReady()) {
+                performTeleport(player, warmup.getHouse(), warmup.getDestination());
+            } else {
+                MessageUtil.send(player, "&e" + warmup.getRemainingSeconds() + "...");
+                pendingTeleports.advance(warmup);
             }
-        };
+        }
         
-        pendingTeleports.put(player.getUniqueId(), teleportTask);
-        teleportTask.runTaskTimer(plugin, 0L, 20L);
+        if (pendingTeleports.isEmpty() && warmupTask != null) {
+            warmupTask.cancel();
+            warmupTask = null;
+        }
+    }
+    
+    /**
+     * Отмена телепортации, если игрок сдвинулся во время прогрева
+     */
+    public void handleMove(Player player, Location to) {
+        if (allowMovementDuringTeleport || pendingTeleports.isEmpty()) {
+            return;
+        }
+        WarmupQueue.Warmup warmup = pendingTeleports.get(player.getUniqueId());
+        if (warmup != null && warmup.hasMoved(to, MAX_WARMUP_MOVEMENT)) {
+            pendingTeleports.remove(player.getUniqueId());
+            MessageUtil.send(player, "&cТелепортация отменена - вы двигались!");
+        }
+    }
+    
+    /**
+     * Отмена прогрева, если игрока переместили телепортом, порталом или сменой мира.
+     * Такие перемещения не вызывают PlayerMoveEvent; собственная телепортация плагина
+     * убирает прогрев раньше и сюда не попадает
+     */
+    public void handleTeleport(Player player) {
+        if (!pendingTeleports.isEmpty() && pendingTeleports.remove(player.getUniqueId()) != null) {
+            MessageUtil.send(player, "&cТелепортация отменена - вас переместили!");
+        }
     }
     
     /**
-     * Выполнение телепортации
+     * Выполнение телепортации (мир и чанки спавна загружаются асинхронно)
      */
-    private void performTeleport(Player player, Location target, String destination) {
-        try {
-            player.teleport(target);
+    private void performTeleport(Player player, House house, String destination) {
+        // Убираем из ожидающих
+        pendingTeleports.remove(player.getUniqueId());
+        if (!teleporting.add(player.getUniqueId())) {
+            return;
+        }
+        
+        plugin.getHousingManager().getTeleporter().teleport(player, house, success -> {
+            teleporting.remove(player.getUniqueId());
+            if (!success) {
+                MessageUtil.send(player, "&cОшибка телепортации " + destination + "!");
+                return;
+            }
             MessageUtil.send(player, "&aТелепортация " + destination + " выполнена!");
             
             // Устанавливаем кулдаун
             teleportCooldowns.put(player.getUniqueId(), System.currentTimeMillis() + (teleportCooldown * 1000L));
-            
-            // Убираем из ожидающих
-            pendingTeleports.remove(player.getUniqueId());
-            
-        } catch (Exception e) {
-            MessageUtil.send(player, "&cОшибка телепортации: " + e.getMessage());
-            plugin.getLogger().warning("Ошибка телепортации игрока " + player.getName() + ": " + e.getMessage());
-        }
+        });
     }
     
     /**
      * Отмена ожидающей телепортации
      */
     public void cancelPendingTeleport(Player player) {
-        BukkitRunnable task = pendingTeleports.remove(player.getUniqueId());
-        if (task != null) {
-            task.cancel();
+        if (pendingTeleports.remove(player.getUniqueId()) != null) {
             MessageUtil.send(player, "&7Телепортация отменена");
         }
     }
@@ -186,19 +222,22 @@ public class TeleportationManager {
             return false;
         }
         
-        Long cooldownEnd = teleportCooldowns.get(player.getUniqueId());
-        return cooldownEnd != null && System.currentTimeMillis() < cooldownEnd;
+        return getRemainingCooldown(player) > 0;
     }
     
     /**
-     * Получение оставшегося времени кулдауна
+     * Получение оставшегося времени кулдауна (истекший кулдаун удаляется)
      */
     private long getRemainingCooldown(Player player) {
         Long cooldownEnd = teleportCooldowns.get(player.getUniqueId());
         if (cooldownEnd == null) return 0;
         
-        long remaining = (cooldownEnd - System.currentTimeMillis()) / 1000;
-        return Math.max(0, remaining);
+        long remainingMillis = cooldownEnd - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+            teleportCooldowns.remove(player.getUniqueId());
+            return 0;
+        }
+        return (remainingMillis + 999) / 1000;
     }
     
     /**
@@ -262,6 +301,7 @@ public class TeleportationManager {
      */
     public void cleanupPlayer(Player player) {
         teleportCooldowns.remove(player.getUniqueId());
+        teleporting.remove(player.getUniqueId()); // Результат телепортации вышедшему игроку не передается
         cancelPendingTeleport(player);
     }
     
@@ -280,10 +320,7 @@ public class TeleportationManager {
             return;
         }
         
-        Location target = house.getSpawnLocation() != null ? 
-            house.getSpawnLocation() : house.getLocation();
-        
-        performTeleport(player, target, "к дому " + targetPlayerName + " (принудительно)");
+        performTeleport(player, house, "к дому " + targetPlayerName + " (принудительно)");
     }
     
     // Геттеры и сеттеры для настроек
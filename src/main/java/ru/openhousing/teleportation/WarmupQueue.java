@@ -0,0 +1,139 @@
+package ru.openhousing.teleportation;
+
+import org.bukkit.Location;
+import ru.openhousing.housing.House;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Ожидающие телепортации (прогрев), упорядоченные по тику следующего события.
+ *
+ * Событие прогрева - отсчет последних секунд или сама телепортация. Очередь опрашивается
+ * одной задачей планировщика: за тик извлекаются только наступившие события, остальные
+ * прогревы не затрагиваются. Отмененный прогрев убирается из индекса по игроку сразу,
+ * а из кучи - когда до него дойдет очередь.
+ */
+public class WarmupQueue {
+
+    public static final int TICKS_PER_SECOND = 20;
+    /** Сколько последних секунд отсчитывается сообщениями */
+    public static final int COUNTDOWN_SECONDS = 3;
+
+    /**
+     * Прогрев телепортации одного игрока
+     */
+    public static class Warmup {
+        private final UUID playerId;
+        private final House house;
+        private final String destination;
+        private final Location start;
+        private final long fireTick;
+        private long nextTick;
+
+        public Warmup(UUID playerId, House house, String destination, Location start, long startTick, int delaySeconds) {
+            this.playerId = playerId;
+            this.house = house;
+            this.destination = destination;
+            this.start = start;
+            this.fireTick = startTick + (long) delaySeconds * TICKS_PER_SECOND;
+            int countdown = Math.max(0, Math.min(COUNTDOWN_SECONDS, delaySeconds - 1));
+            this.nextTick = fireTick - (long) countdown * TICKS_PER_SECOND;
+        }
+
+        /**
+         * Пора телепортировать (иначе следующее событие - отсчет)
+         */
+        public boolean isReady() {
+            return nextTick >= fireTick;
+        }
+
+        /**
+         * Сколько секунд осталось до телепортации в момент следующего события
+         */
+        public int getRemainingSeconds() {
+            return (int) ((fireTick - nextTick) / TICKS_PER_SECOND);
+        }
+
+        /**
+         * Отошел ли игрок от точки начала дальше maxDistance
+         */
+        public boolean hasMoved(Location to, double maxDistance) {
+            if (start.getWorld() != to.getWorld()) {
+                return true;
+            }
+            return start.distanceSquared(to) > maxDistance * maxDistance;
+        }
+
+        public UUID getPlayerId() { return playerId; }
+        public House getHouse() { return house; }
+        public String getDestination() { return destination; }
+        public long getFireTick() { return fireTick; }
+        public long getNextTick() { return nextTick; }
+    }
+
+    private final PriorityQueue<Warmup> queue = new PriorityQueue<>(Comparator.comparingLong(Warmup::getNextTick));
+    private final Map<UUID, Warmup> active = new HashMap<>();
+
+    /**
+     * Добавление прогрева; предыдущий прогрев игрока заменяется
+     *
+     * @return замененный прогрев или null
+     */
+    public Warmup add(Warmup warmup) {
+        Warmup previous = active.put(warmup.getPlayerId(), warmup);
+        queue.add(warmup);
+        return previous;
+    }
+
+    /**
+     * Отмена прогрева игрока
+     *
+     * @return отмененный прогрев или null
+     */
+    public Warmup remove(UUID playerId) {
+        Warmup removed = active.remove(playerId);
+        if (active.isEmpty()) {
+            queue.clear(); // В куче остались только отмененные прогревы
+        }
+        return removed;
+    }
+
+    public Warmup get(UUID playerId) {
+        return active.get(playerId);
+    }
+
+    /**
+     * Следующий прогрев, событие которого наступило к тику now, или null.
+     * Извлеченный прогрев остается активным: его нужно либо завершить через remove,
+     * либо вернуть в очередь через advance.
+     */
+    public Warmup poll(long now) {
+        while (!queue.isEmpty() && queue.peek().getNextTick() <= now) {
+            Warmup warmup = queue.poll();
+            if (active.get(warmup.getPlayerId()) == warmup) {
+                return warmup;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Перенос прогрева на следующую секунду отсчета
+     */
+    public void advance(Warmup warmup) {
+        warmup.nextTick = Math.min(warmup.fireTick, warmup.nextTick + TICKS_PER_SECOND);
+        queue.add(warmup);
+    }
+
+    public boolean isEmpty() {
+        return active.isEmpty();
+    }
+
+    public int size() {
+        return active.size();
+    }
+}
@@ -99,6 +99,17 @@ public class SoundEffects {
         );
     }
     
+    /**
+     * Показать титл загрузки мира дома перед телепортацией
+     */
+    public void showHouseLoadingTitle(Player player, String houseName) {
+        player.sendTitle(
+            "§e§lЗагрузка дома...",
+            "§7" + houseName,
+            0, 40, 10
+        );
+    }
+    
     /**
      * Показать титл сохранения кода
      */
@@ -0,0 +1,86 @@
+package ru.openhousing.coding.tests;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.coding.scheduler.ExecutionBudget;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты бюджета выполнения скриптов
+ */
+class ExecutionBudgetTest {
+
+    @Test
+    @DisplayName("Лимит блоков прерывает выполнение")
+    void testBlockLimit() {
+        ExecutionBudget budget = new ExecutionBudget.Limits(3, 100, 10, 0).newBudget();
+
+        assertTrue(budget.consumeBlock());
+        assertTrue(budget.consumeBlock());
+        assertTrue(budget.consumeBlock());
+        assertFalse(budget.consumeBlock());
+        assertTrue(budget.isExhausted());
+
+        // Исчерпанный бюджет не восстанавливается сам
+        assertFalse(budget.consumeIteration());
+    }
+
+    @Test
+    @DisplayName("Лимит итераций циклов")
+    void testIterationLimit() {
+        ExecutionBudget budget = new ExecutionBudget.Limits(100, 2, 10, 0).newBudget();
+
+        assertTrue(budget.consumeIteration());
+        assertTrue(budget.consumeIteration());
+        assertFalse(budget.consumeIteration());
+        assertNotNull(budget.getExhaustedReason());
+    }
+
+    @Test
+    @DisplayName("Глубина вызовов функций")
+    void testCallDepth() {
+        ExecutionBudget budget = new ExecutionBudget.Limits(100, 100, 2, 0).newBudget();
+
+        assertTrue(budget.enterCall());
+        assertTrue(budget.enterCall());
+        assertFalse(budget.enterCall());
+        assertEquals(2, budget.getCallDepth());
+
+        budget.exitCall();
+        assertEquals(1, budget.getCallDepth());
+    }
+
+    @Test
+    @DisplayName("Новый отрезок выполнения сбрасывает счетчики")
+    void testStartSlice() {
+        ExecutionBudget budget = new ExecutionBudget.Limits(1, 100, 10, 0).newBudget();
+        budget.consumeBlock();
+        assertFalse(budget.consumeBlock());
+
+        budget.startSlice();
+
+        assertFalse(budget.isExhausted());
+        assertTrue(budget.consumeBlock());
+    }
+
+    @Test
+    @DisplayName("Настройки дома только ужесточают лимиты")
+    void testHouseOverrides() {
+        ExecutionBudget.Limits server = new ExecutionBudget.Limits(1000, 1000, 20, 50);
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("max-blocks-per-execution", 100);
+        settings.put("max-loop-iterations", 5000);
+        settings.put("max-execution-time", "10");
+
+        ExecutionBudget.Limits house = server.withOverrides(settings);
+
+        assertEquals(100, house.getMaxBlocks());
+        assertEquals(1000, house.getMaxLoopIterations());
+        assertEquals(20, house.getMaxCallDepth());
+        assertEquals(10, house.getMaxTimeMs());
+    }
+}
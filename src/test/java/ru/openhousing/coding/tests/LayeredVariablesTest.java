@@ -0,0 +1,163 @@
+package ru.openhousing.coding.tests;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.coding.script.LayeredVariables;
+import ru.openhousing.coding.script.VariableTable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты слоев переменных контекста выполнения
+ */
+class LayeredVariablesTest {
+
+    @Test
+    @DisplayName("Запись не меняет общую карту до сохранения")
+    void testWritesStayInLayer() {
+        Map<String, Object> script = new HashMap<>();
+        script.put("score", 1);
+        LayeredVariables variables = new LayeredVariables();
+        variables.bindShared(script);
+
+        variables.put("score", 2);
+
+        assertEquals(2, variables.get("score"));
+        assertEquals(1, script.get("score"));
+        assertEquals(1, variables.getChangeCount());
+    }
+
+    @Test
+    @DisplayName("Сохраняются только измененные переменные")
+    void testCommitWritesOnlyChanges() {
+        Map<String, Object> script = new HashMap<>();
+        script.put("a", 1);
+        script.put("b", 2);
+        LayeredVariables variables = new LayeredVariables();
+        variables.bindShared(script);
+
+        variables.put("c", 3);
+        variables.remove("a");
+        variables.commitTo(script);
+
+        assertFalse(script.containsKey("a"));
+        assertEquals(2, script.get("b"));
+        assertEquals(3, script.get("c"));
+        assertFalse(variables.isDirty());
+    }
+
+    @Test
+    @DisplayName("Удаление скрывает переменную нижнего слоя")
+    void testRemoveHidesLowerLayer() {
+        Map<String, Object> script = new HashMap<>();
+        script.put("name", "test");
+        LayeredVariables variables = new LayeredVariables();
+        variables.bindShared(script);
+
+        assertEquals("test", variables.remove("name"));
+
+        assertFalse(variables.containsKey("name"));
+        assertNull(variables.get("name"));
+        assertTrue(script.containsKey("name"));
+    }
+
+    @Test
+    @DisplayName("Дочерний слой видит родителя и не меняет его")
+    void testChildLayerReadsParent() {
+        Map<String, Object> script = new HashMap<>();
+        script.put("x", 1);
+        LayeredVariables parent = new LayeredVariables();
+        parent.bindShared(script);
+        parent.put("y", 2);
+
+        LayeredVariables child = new LayeredVariables(parent);
+        child.put("x", 10);
+
+        assertEquals(10, child.get("x"));
+        assertEquals(2, child.get("y"));
+        assertEquals(1, parent.get("x"));
+        assertEquals(2, child.size());
+    }
+
+    @Test
+    @DisplayName("Числа в слотах доступны по имени и сохраняются в скрипт")
+    void testSlotNumbersVisibleByName() {
+        Map<String, Object> script = new HashMap<>();
+        script.put("score", 5);
+        VariableTable symbols = new VariableTable();
+        int score = symbols.slotOf("score");
+        int counter = symbols.slotOf("counter");
+        LayeredVariables variables = new LayeredVariables();
+        variables.bindShared(script, symbols);
+
+        assertTrue(variables.isNumber(score));
+        assertEquals(5.0, variables.getDouble(score));
+        variables.setDouble(score, 7.5);
+        variables.setLong(counter, 3);
+
+        assertEquals(7.5, variables.get("score"));
+        assertEquals(3L, variables.get("counter"));
+        assertEquals(5, script.get("score"));
+
+        variables.commitTo(script);
+
+        assertEquals(7.5, script.get("score"));
+        assertEquals(3L, script.get("counter"));
+        assertFalse(variables.isDirty());
+    }
+
+    @Test
+    @DisplayName("Запись по имени попадает в слот переменной")
+    void testNameWritesUseSlot() {
+        Map<String, Object> script = new HashMap<>();
+        VariableTable symbols = new VariableTable();
+        int slot = symbols.slotOf("level");
+        LayeredVariables variables = new LayeredVariables();
+        variables.put("level", 1);
+        variables.bindShared(script, symbols);
+
+        assertEquals(1, variables.getSlot(slot));
+        variables.put("level", 2);
+        assertEquals(2, variables.getLong(slot));
+
+        variables.remove("level");
+        assertFalse(variables.containsKey("level"));
+        assertNull(variables.getSlot(slot));
+    }
+
+    @Test
+    @DisplayName("Повторное сохранение в привязанную карту записывает изменения каждого шага")
+    void testCommitSharedAfterEachStep() {
+        Map<String, Object> script = new HashMap<>();
+        VariableTable symbols = new VariableTable();
+        int slot = symbols.slotOf("counter");
+        LayeredVariables variables = new LayeredVariables();
+        variables.bindShared(script, symbols);
+
+        variables.setLong(slot, 1);
+        variables.commitShared();
+        assertEquals(1L, script.get("counter"));
+
+        variables.setLong(slot, 2);
+        variables.put("name", "loop");
+        variables.commitShared();
+        assertEquals(2L, script.get("counter"));
+        assertEquals("loop", script.get("name"));
+        assertEquals(0, variables.getChangeCount());
+    }
+
+    @Test
+    @DisplayName("Без привязанной карты сохранение ничего не делает")
+    void testCommitSharedUnbound() {
+        LayeredVariables variables = new LayeredVariables();
+        variables.put("x", 1);
+
+        variables.commitShared();
+
+        assertEquals(1, variables.get("x"));
+        assertEquals(1, variables.getChangeCount());
+    }
+}
@@ -0,0 +1,298 @@
+package ru.openhousing.coding.tests;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.coding.blocks.BlockType;
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.blocks.control.ElseBlock;
+import ru.openhousing.coding.blocks.events.PlayerEventBlock;
+import ru.openhousing.coding.compiler.CompiledScript;
+import ru.openhousing.coding.compiler.Continuation;
+import ru.openhousing.coding.scheduler.ExecutionBudget;
+import ru.openhousing.coding.script.CodeLine;
+import ru.openhousing.coding.script.CodeScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты компилятора скриптов
+ */
+@ExtendWith(MockitoExtension.class)
+class ScriptCompilerTest {
+
+    @Mock
+    private Player mockPlayer;
+
+    private CodeBlock.ExecutionContext context;
+    private List<String> trace;
+
+    @BeforeEach
+    void setUp() {
+        context = new CodeBlock.ExecutionContext(mockPlayer);
+        trace = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("ELSE выполняется только при ложном условии")
+    void testIfElseSemantics() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+        line.addBlock(new TraceBlock(BlockType.IF_VARIABLE, "if", CodeBlock.ExecutionResult.continueLoop()));
+        ElseBlock elseBlock = new ElseBlock();
+        elseBlock.addChild(new TraceBlock(BlockType.PLAYER_ACTION, "else-body", CodeBlock.ExecutionResult.success()));
+        line.addBlock(elseBlock);
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "after", CodeBlock.ExecutionResult.success()));
+
+        CodeBlock.ExecutionResult result = script.getCompiledProgram().executeLine(line, context);
+
+        assertTrue(result.isSuccess());
+        assertEquals(Arrays.asList("if", "else-body", "after"), trace);
+    }
+
+    @Test
+    @DisplayName("Ошибка блока завершает строку")
+    void testErrorStopsLine() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "error", CodeBlock.ExecutionResult.error("fail")));
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "after", CodeBlock.ExecutionResult.success()));
+
+        script.getCompiledProgram().executeLine(line, context);
+
+        assertEquals(Arrays.asList("error"), trace);
+    }
+
+    @Test
+    @DisplayName("Истинное условие пропускает ELSE")
+    void testTrueConditionSkipsElse() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+        line.addBlock(new TraceBlock(BlockType.IF_VARIABLE, "if", CodeBlock.ExecutionResult.success()));
+        ElseBlock elseBlock = new ElseBlock();
+        elseBlock.addChild(new TraceBlock(BlockType.PLAYER_ACTION, "else-body", CodeBlock.ExecutionResult.success()));
+        line.addBlock(elseBlock);
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "after", CodeBlock.ExecutionResult.success()));
+
+        script.getCompiledProgram().executeLine(line, context);
+
+        assertEquals(Arrays.asList("if", "after"), trace);
+    }
+
+    @Test
+    @DisplayName("Точка входа события повторяет executeChildren")
+    void testEventEntryStopsOnBreak() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+        PlayerEventBlock eventBlock = new PlayerEventBlock();
+        eventBlock.addChild(new TraceBlock(BlockType.PLAYER_ACTION, "first", CodeBlock.ExecutionResult.success()));
+        eventBlock.addChild(new TraceBlock(BlockType.PLAYER_ACTION, "break", CodeBlock.ExecutionResult.breakLoop()));
+        eventBlock.addChild(new TraceBlock(BlockType.PLAYER_ACTION, "never", CodeBlock.ExecutionResult.success()));
+        line.addBlock(eventBlock);
+
+        CodeBlock.ExecutionResult result = script.getCompiledProgram().executeEvent(eventBlock, context);
+
+        assertEquals(CodeBlock.ExecutionResult.Type.BREAK, result.getType());
+        assertEquals(Arrays.asList("first", "break"), trace);
+    }
+
+    @Test
+    @DisplayName("Программа перекомпилируется только после изменения скрипта")
+    void testRecompileOnModification() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+
+        CompiledScript first = script.getCompiledProgram();
+        assertSame(first, script.getCompiledProgram());
+
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "added", CodeBlock.ExecutionResult.success()));
+        CompiledScript second = script.getCompiledProgram();
+
+        assertNotSame(first, second);
+        second.executeLine(line, context);
+        assertEquals(Arrays.asList("added"), trace);
+    }
+
+    @Test
+    @DisplayName("Исчерпанный бюджет прерывает выполнение скрипта")
+    void testBudgetAbortsScript() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine first = script.createLine("First");
+        first.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "a", CodeBlock.ExecutionResult.success()));
+        first.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "b", CodeBlock.ExecutionResult.success()));
+        first.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "c", CodeBlock.ExecutionResult.success()));
+        CodeLine second = script.createLine("Second");
+        second.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "d", CodeBlock.ExecutionResult.success()));
+
+        context.setBudget(new ExecutionBudget.Limits(2, 100, 10, 0).newBudget());
+        CodeBlock.ExecutionResult result = script.getCompiledProgram().executeLine(first, context);
+
+        assertTrue(result.isError());
+        assertEquals(Arrays.asList("a", "b"), trace);
+
+        script.getCompiledProgram().executeLine(second, context);
+        assertEquals(Arrays.asList("a", "b"), trace);
+    }
+
+    @Test
+    @DisplayName("Блоки после приостановленного блока ждут его завершения")
+    void testSuspendedBlockDefersRestOfLine() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+        SuspendingBlock loop = new SuspendingBlock("loop");
+        line.addBlock(new TraceBlock(BlockType.IF_VARIABLE, "if", CodeBlock.ExecutionResult.continueLoop()));
+        ElseBlock elseBlock = new ElseBlock();
+        elseBlock.addChild(loop);
+        elseBlock.addChild(new TraceBlock(BlockType.PLAYER_ACTION, "else-after", CodeBlock.ExecutionResult.success()));
+        line.addBlock(elseBlock);
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "after", CodeBlock.ExecutionResult.success()));
+
+        CodeBlock.ExecutionResult result = script.getCompiledProgram().executeLine(line, context);
+
+        assertTrue(result.isSuspended());
+        assertEquals(Arrays.asList("if", "loop"), trace);
+
+        CodeBlock.ExecutionResult resumed = loop.continuation.resume(CodeBlock.ExecutionResult.success());
+
+        assertTrue(resumed.isSuccess());
+        assertEquals(Arrays.asList("if", "loop", "else-after", "after"), trace);
+    }
+
+    @Test
+    @DisplayName("Следующие строки скрипта выполняются после продолжения")
+    void testScriptResumesRemainingLines() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine first = script.createLine("First");
+        SuspendingBlock loop = new SuspendingBlock("loop");
+        first.addBlock(loop);
+        first.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "after", CodeBlock.ExecutionResult.success()));
+        CodeLine second = script.createLine("Second");
+        second.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "second", CodeBlock.ExecutionResult.success()));
+
+        CodeBlock.ExecutionResult result = script.execute(context);
+
+        assertTrue(result.isSuspended());
+        assertEquals(Arrays.asList("loop"), trace);
+
+        CodeBlock.ExecutionResult resumed = loop.continuation.resume(CodeBlock.ExecutionResult.success());
+
+        assertTrue(resumed.isSuccess());
+        assertEquals(Arrays.asList("loop", "after", "second"), trace);
+    }
+
+    @Test
+    @DisplayName("Вложенный в обычный контейнер блок не приостанавливает строку")
+    void testNestedBlockCannotSuspend() {
+        CodeScript script = new CodeScript(UUID.randomUUID(), "TestPlayer");
+        CodeLine line = script.createLine("Test");
+        SuspendingBlock loop = new SuspendingBlock("loop");
+        ContainerBlock container = new ContainerBlock();
+        container.addChild(loop);
+        line.addBlock(container);
+        line.addBlock(new TraceBlock(BlockType.PLAYER_ACTION, "after", CodeBlock.ExecutionResult.success()));
+
+        CodeBlock.ExecutionResult result = script.getCompiledProgram().executeLine(line, context);
+
+        // Цикл внутри условия или функции идет параллельно остатку строки
+        assertTrue(result.isSuccess());
+        assertNull(loop.continuation);
+        assertEquals(Arrays.asList("loop", "after"), trace);
+    }
+
+    /**
+     * Блок, записывающий свое выполнение
+     */
+    private class TraceBlock extends CodeBlock {
+        private final String name;
+        private final ExecutionResult result;
+
+        TraceBlock(BlockType type, String name, ExecutionResult result) {
+            super(type);
+            this.name = name;
+            this.result = result;
+        }
+
+        @Override
+        public ExecutionResult execute(ExecutionContext context) {
+            trace.add(name);
+            return result;
+        }
+
+        @Override
+        public boolean validate() {
+            return true;
+        }
+
+        @Override
+        public List<String> getDescription() {
+            return Arrays.asList(name);
+        }
+    }
+
+    /**
+     * Блок, продолжающий выполнение в планировщике (как цикл с задержкой)
+     */
+    private class SuspendingBlock extends CodeBlock {
+        private final String name;
+        private Continuation continuation;
+
+        SuspendingBlock(String name) {
+            super(BlockType.REPEAT);
+            this.name = name;
+        }
+
+        @Override
+        public ExecutionResult execute(ExecutionContext context) {
+            trace.add(name);
+            if (!context.canSuspend(this)) {
+                return ExecutionResult.success();
+            }
+            continuation = new Continuation(context);
+            return ExecutionResult.suspended(continuation);
+        }
+
+        @Override
+        public boolean validate() {
+            return true;
+        }
+
+        @Override
+        public List<String> getDescription() {
+            return Arrays.asList(name);
+        }
+    }
+
+    /**
+     * Контейнер, который компилятор не разворачивает (как условие)
+     */
+    private static class ContainerBlock extends CodeBlock {
+
+        ContainerBlock() {
+            super(BlockType.IF_VARIABLE);
+        }
+
+        @Override
+        public ExecutionResult execute(ExecutionContext context) {
+            return executeChildren(context);
+        }
+
+        @Override
+        public boolean validate() {
+            return true;
+        }
+
+        @Override
+        public List<String> getDescription() {
+            return Arrays.asList("container");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.openhousing.coding.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.coding.script.ScriptPrefetcher;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты предзагрузки скриптов при входе игрока
+ */
+class ScriptPrefetcherTest {
+
+    private Logger logger;
+    private AtomicInteger loads;
+    private ScriptPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        logger = Logger.getLogger("ScriptPrefetcherTest");
+        logger.setUseParentHandlers(false);
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (prefetcher != null) {
+            prefetcher.shutdown();
+        }
+    }
+
+    private ScriptPrefetcher prefetcher(long ttlMillis) {
+        prefetcher = new ScriptPrefetcher(logger, id -> {
+            loads.incrementAndGet();
+            return new CodeScript(id, "Player");
+        }, 2, ttlMillis);
+        return prefetcher;
+    }
+
+    @Test
+    @DisplayName("Вход забирает предзагруженный скрипт без повторной загрузки")
+    void testTakeReturnsPrefetchedScript() throws Exception {
+        ScriptPrefetcher prefetcher = prefetcher(30000);
+        UUID playerId = UUID.randomUUID();
+
+        CompletableFuture<CodeScript> prefetched = prefetcher.prefetch(playerId);
+        prefetcher.prefetch(playerId);
+        CodeScript script = prefetched.get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<CodeScript> taken = prefetcher.take(playerId);
+        assertTrue(taken.isDone());
+        assertSame(script, taken.get());
+        assertEquals(1, loads.get());
+        assertEquals(1, prefetcher.getHitCount());
+        assertEquals(0, prefetcher.getStagedCount());
+    }
+
+    @Test
+    @DisplayName("Без предзагрузки скрипт загружается при входе")
+    void testTakeWithoutPrefetchLoads() throws Exception {
+        ScriptPrefetcher prefetcher = prefetcher(30000);
+        UUID playerId = UUID.randomUUID();
+
+        CodeScript script = prefetcher.take(playerId).get(5, TimeUnit.SECONDS);
+
+        assertEquals(playerId, script.getPlayerId());
+        assertEquals(1, loads.get());
+        assertEquals(1, prefetcher.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Незабранный результат удаляется по истечении времени жизни")
+    void testExpiredEntriesAreEvicted() throws Exception {
+        ScriptPrefetcher prefetcher = prefetcher(0);
+        UUID playerId = UUID.randomUUID();
+
+        prefetcher.prefetch(playerId).get(5, TimeUnit.SECONDS);
+        Thread.sleep(5);
+
+        assertEquals(1, prefetcher.evictExpired());
+        assertEquals(0, prefetcher.getStagedCount());
+        prefetcher.take(playerId).get(5, TimeUnit.SECONDS);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("После выхода игрока предзагруженный скрипт не используется")
+    void testInvalidateForcesReload() throws Exception {
+        ScriptPrefetcher prefetcher = prefetcher(30000);
+        UUID playerId = UUID.randomUUID();
+
+        CodeScript stale = prefetcher.prefetch(playerId).get(5, TimeUnit.SECONDS);
+        prefetcher.invalidate(playerId);
+        CodeScript fresh = prefetcher.take(playerId).get(5, TimeUnit.SECONDS);
+
+        assertNotSame(stale, fresh);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Ошибка загрузки завершает задачу исключением")
+    void testLoaderFailure() {
+        prefetcher = new ScriptPrefetcher(logger, id -> {
+            throw new IllegalStateException("database is down");
+        }, 1, 30000);
+
+        CompletableFuture<CodeScript> future = prefetcher.take(UUID.randomUUID());
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+}
@@ -0,0 +1,120 @@
+package ru.openhousing.coding.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.coding.scheduler.ScriptFrame;
+import ru.openhousing.coding.scheduler.ScriptScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты кооперативного планировщика скриптов
+ */
+class ScriptSchedulerTest {
+
+    private ScriptScheduler scheduler;
+    private List<String> trace;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ScriptScheduler(TimeUnit.SECONDS.toNanos(1), 3);
+        trace = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("Задержка кадра отсчитывается в тиках")
+    void testDelayInTicks() {
+        UUID player = UUID.randomUUID();
+        scheduler.submit(new TraceFrame(player, "a", 3, 2));
+
+        scheduler.tick(); // tick 1: первый шаг
+        scheduler.tick(); // tick 2: ожидание
+        assertEquals(1, trace.size());
+
+        scheduler.tick(); // tick 3: второй шаг
+        assertEquals(2, trace.size());
+
+        scheduler.tick();
+        scheduler.tick(); // tick 5: третий шаг, кадр завершен
+        assertEquals(3, trace.size());
+        assertEquals(0, scheduler.getActiveFrameCount(player));
+    }
+
+    @Test
+    @DisplayName("Игроки выполняются по очереди")
+    void testRoundRobinBetweenPlayers() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        scheduler.submit(new TraceFrame(first, "a", 2, ScriptFrame.CONTINUE));
+        scheduler.submit(new TraceFrame(first, "b", 2, ScriptFrame.CONTINUE));
+        scheduler.submit(new TraceFrame(second, "c", 2, ScriptFrame.CONTINUE));
+
+        scheduler.tick();
+
+        assertEquals(Arrays.asList("a", "c", "b", "c", "a", "b"), trace);
+    }
+
+    @Test
+    @DisplayName("Лимит кадров на игрока")
+    void testFrameLimitPerPlayer() {
+        UUID player = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(scheduler.submit(new TraceFrame(player, "x", 1, ScriptFrame.CONTINUE)));
+        }
+        assertFalse(scheduler.submit(new TraceFrame(player, "x", 1, ScriptFrame.CONTINUE)));
+        assertTrue(scheduler.submit(new TraceFrame(UUID.randomUUID(), "y", 1, ScriptFrame.CONTINUE)));
+    }
+
+    @Test
+    @DisplayName("Отмена снимает ожидающие кадры игрока")
+    void testCancelAll() {
+        UUID player = UUID.randomUUID();
+        TraceFrame frame = new TraceFrame(player, "a", 10, 5);
+        scheduler.submit(frame);
+        scheduler.tick();
+
+        scheduler.cancelAll(player);
+        for (int i = 0; i < 10; i++) {
+            scheduler.tick();
+        }
+
+        assertEquals(1, trace.size());
+        assertTrue(frame.cancelled);
+        assertEquals(0, scheduler.getActiveFrameCount());
+    }
+
+    /**
+     * Кадр, записывающий свои шаги
+     */
+    private class TraceFrame extends ScriptFrame {
+        private final String name;
+        private final long delay;
+        private int remaining;
+        private boolean cancelled;
+
+        TraceFrame(UUID owner, String name, int steps, long delay) {
+            super(owner);
+            this.name = name;
+            this.remaining = steps;
+            this.delay = delay;
+        }
+
+        @Override
+        public long resume() {
+            trace.add(name);
+            return --remaining > 0 ? delay : DONE;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -9,11 +9,13 @@ import ru.openhousing.coding.blocks.CodeBlock;
 import ru.openhousing.coding.blocks.BlockType;
 import ru.openhousing.coding.blocks.control.AsyncRepeatBlock;
 import ru.openhousing.coding.blocks.control.TargetBlock;
+import ru.openhousing.coding.blocks.events.PlayerEventBlock;
 import ru.openhousing.coding.blocks.math.MathBlock;
 import ru.openhousing.coding.blocks.math.MathBlock.MathOperation;
 import ru.openhousing.coding.blocks.control.AsyncRepeatBlock.RepeatType;
 import ru.openhousing.coding.blocks.control.TargetBlock.TargetType;
 import ru.openhousing.coding.script.CodeScript;
+import ru.openhousing.coding.serialization.ScriptBinaryCodec;
 import ru.openhousing.coding.serialization.ScriptSerializer;
 
 import java.util.UUID;
@@ -209,4 +211,127 @@ public class ScriptSerializerTest {
         assertEquals(testPlayerId, deserializedScript.getPlayerId());
         assertEquals(0, deserializedScript.getLines().size());
     }
+    
+    @Test
+    void testBinaryRoundTrip() {
+        CodeScript script = new CodeScript(testPlayerId, testPlayerName);
+        script.setBoundWorld("house_1");
+        
+        AsyncRepeatBlock repeatBlock = new AsyncRepeatBlock();
+        repeatBlock.setParameter("repeatType", RepeatType.TIMES);
+        repeatBlock.setParameter("value", "10");
+        MathBlock mathBlock = new MathBlock();
+        mathBlock.setParameter("operation", MathOperation.DIVIDE);
+        mathBlock.setParameter("operand1", 7);
+        mathBlock.setParameter("operand2", 2.5);
+        mathBlock.setParameter("enabled", true);
+        repeatBlock.addChild(mathBlock);
+        script.createLine("Binary Line").addBlock(repeatBlock);
+        
+        script.setGlobalVariable("counter", 42);
+        script.setGlobalVariable("big", 1L << 40);
+        script.setGlobalVariable("message", "Привет");
+        
+        String data = serializer.serializeBinary(script);
+        assertTrue(ScriptBinaryCodec.isEncoded(data));
+        
+        CodeScript restored = serializer.deserialize(data, testPlayerId, "Renamed");
+        assertEquals("Renamed", restored.getPlayerName());
+        assertEquals(testPlayerId, restored.getPlayerId());
+        assertEquals("house_1", restored.getBoundWorld());
+        
+        CodeBlock restoredRepeat = restored.getLines().get(0).getBlocks().get(0);
+        assertEquals(BlockType.REPEAT, restoredRepeat.getType());
+        assertEquals(RepeatType.TIMES, restoredRepeat.getParameter("repeatType"));
+        assertEquals("10", restoredRepeat.getParameter("value"));
+        
+        CodeBlock restoredMath = restoredRepeat.getChildBlocks().get(0);
+        assertEquals(MathOperation.DIVIDE, restoredMath.getParameter("operation"));
+        assertEquals(7, restoredMath.getParameter("operand1"));
+        assertEquals(2.5, restoredMath.getParameter("operand2"));
+        assertEquals(true, restoredMath.getParameter("enabled"));
+        
+        assertEquals(42, restored.getGlobalVariables().get("counter"));
+        assertEquals(1L << 40, restored.getGlobalVariables().get("big"));
+        assertEquals("Привет", restored.getGlobalVariables().get("message"));
+    }
+    
+    @Test
+    void testBinaryIsSmallerThanJson() {
+        CodeScript script = new CodeScript(testPlayerId, testPlayerName);
+        for (int i = 0; i < 50; i++) {
+            MathBlock mathBlock = new MathBlock();
+            mathBlock.setParameter("operation", MathOperation.ADD);
+            mathBlock.setParameter("operand1", "x" + i);
+            mathBlock.setParameter("operand2", "1");
+            mathBlock.setParameter("resultVariable", "sum");
+            script.createLine("Line " + i).addBlock(mathBlock);
+        }
+        
+        String json = serializer.serialize(script);
+        String binary = serializer.serializeBinary(script);
+        
+        assertTrue(binary.length() * 2 < json.length());
+        assertEquals(50, serializer.deserialize(binary, testPlayerId, testPlayerName).getLines().size());
+    }
+    
+    @Test
+    void testCorruptedBinaryDeserialization() {
+        CodeScript deserializedScript = serializer.deserialize(ScriptBinaryCodec.TEXT_PREFIX + "AAAA", testPlayerId, testPlayerName);
+        assertNotNull(deserializedScript);
+        assertEquals(testPlayerId, deserializedScript.getPlayerId());
+        assertEquals(0, deserializedScript.getLines().size());
+    }
+    
+    @Test
+    void testLazyEventBodyLoading() {
+        CodeScript script = new CodeScript(testPlayerId, testPlayerName);
+        PlayerEventBlock eventBlock = new PlayerEventBlock();
+        MathBlock mathBlock = new MathBlock();
+        mathBlock.setParameter("operand1", "x");
+        eventBlock.addChild(mathBlock);
+        script.createLine("Event Line").addBlock(eventBlock);
+        String data = serializer.serializeBinary(script);
+        
+        serializer.setLazyBodies(true);
+        CodeScript lazy = serializer.deserialize(data, testPlayerId, testPlayerName);
+        CodeBlock lazyEvent = lazy.getLines().get(0).getBlocks().get(0);
+        
+        // Блок события и его параметры загружены, тело - нет
+        assertTrue(lazyEvent.hasDeferredChildren());
+        assertEquals(1, lazyEvent.getChildCount());
+        assertEquals(PlayerEventBlock.PlayerEventType.JOIN,
+            lazyEvent.getParameter(ru.openhousing.coding.constants.BlockParams.EVENT_TYPE));
+        
+        // Компиляция не загружает тело
+        lazy.getCompiledProgram();
+        assertTrue(lazyEvent.hasDeferredChildren());
+        
+        // Незагруженное тело сохраняется без потерь
+        serializer.setLazyBodies(false);
+        CodeScript resaved = serializer.deserialize(serializer.serializeBinary(lazy), testPlayerId, testPlayerName);
+        assertEquals("x", resaved.getLines().get(0).getBlocks().get(0).getChildBlocks().get(0).getParameter("operand1"));
+        
+        // Первое обращение загружает тело
+        assertEquals("x", lazyEvent.getChildBlocks().get(0).getParameter("operand1"));
+        assertFalse(lazyEvent.hasDeferredChildren());
+    }
+    
+    @Test
+    void testUnloadIdleBodyKeepsChanges() {
+        CodeScript script = new CodeScript(testPlayerId, testPlayerName);
+        PlayerEventBlock eventBlock = new PlayerEventBlock();
+        MathBlock mathBlock = new MathBlock();
+        mathBlock.setParameter("operand1", "x");
+        eventBlock.addChild(mathBlock);
+        script.createLine("Event Line").addBlock(eventBlock);
+        
+        mathBlock.setParameter("operand1", "y");
+        assertEquals(0, serializer.unloadIdleBodies(script, System.currentTimeMillis() - 60000));
+        assertEquals(1, serializer.unloadIdleBodies(script, Long.MAX_VALUE));
+        
+        assertTrue(eventBlock.hasDeferredChildren());
+        assertEquals(1, eventBlock.getChildCount());
+        assertEquals("y", eventBlock.getChildBlocks().get(0).getParameter("operand1"));
+    }
 }
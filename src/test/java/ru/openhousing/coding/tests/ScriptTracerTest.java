@@ -0,0 +1,94 @@
+package ru.openhousing.coding.tests;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.trace.ScriptTracer;
+import ru.openhousing.coding.trace.TraceBuffer;
+import ru.openhousing.coding.trace.TraceEvent;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты трассировки выполнения скриптов
+ */
+@ExtendWith(MockitoExtension.class)
+class ScriptTracerTest {
+
+    @Mock
+    private Player mockPlayer;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Без выборки и отладки сессия не создается")
+    void testNoSessionWhenNotSampled() {
+        ScriptTracer tracer = new ScriptTracer(16, 0.0);
+        CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(mockPlayer);
+
+        tracer.begin(context, ownerId);
+
+        assertNull(context.getTraceSession());
+    }
+
+    @Test
+    @DisplayName("Режим отладки трассируется всегда")
+    void testDebugModeAlwaysTraced() {
+        ScriptTracer tracer = new ScriptTracer(16, 0.0);
+        CodeBlock.ExecutionContext context = new CodeBlock.ExecutionContext(mockPlayer);
+        context.setDebugMode(true);
+
+        tracer.begin(context, ownerId);
+
+        assertNotNull(context.getTraceSession());
+    }
+
+    @Test
+    @DisplayName("Доля запусков задается для дома")
+    void testPerHouseSampleRate() {
+        ScriptTracer tracer = new ScriptTracer(16, 0.0);
+        tracer.setSampleRate(ownerId, 1.0);
+
+        CodeBlock.ExecutionContext traced = new CodeBlock.ExecutionContext(mockPlayer);
+        tracer.begin(traced, ownerId);
+        CodeBlock.ExecutionContext other = new CodeBlock.ExecutionContext(mockPlayer);
+        tracer.begin(other, UUID.randomUUID());
+
+        assertNotNull(traced.getTraceSession());
+        assertNull(other.getTraceSession());
+
+        traced.getTraceSession().record(TraceEvent.Type.LINE, 3, "test");
+        List<TraceEvent> events = tracer.dump(ownerId, 10);
+        assertEquals(1, events.size());
+        assertEquals(3, events.get(0).getLineNumber());
+    }
+
+    @Test
+    @DisplayName("Кольцевой буфер хранит последние записи по порядку")
+    void testRingBufferOverwritesOldest() {
+        TraceBuffer buffer = new TraceBuffer(4);
+        for (int i = 1; i <= 6; i++) {
+            buffer.add(new TraceEvent(i, ownerId, TraceEvent.Type.LINE, i, null));
+        }
+
+        List<TraceEvent> events = buffer.snapshot(null, 10);
+
+        assertEquals(4, events.size());
+        assertEquals(3, events.get(0).getLineNumber());
+        assertEquals(6, events.get(3).getLineNumber());
+        assertEquals(6, buffer.getTotalRecorded());
+    }
+}
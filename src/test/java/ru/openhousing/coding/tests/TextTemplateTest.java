@@ -0,0 +1,101 @@
+package ru.openhousing.coding.tests;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.coding.blocks.CodeBlock;
+import ru.openhousing.coding.script.TextTemplate;
+import ru.openhousing.coding.script.VariableRef;
+import ru.openhousing.coding.script.VariableTable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты подстановки переменных в тексты
+ */
+@ExtendWith(MockitoExtension.class)
+class TextTemplateTest {
+
+    @Mock
+    private Player mockPlayer;
+
+    private CodeBlock.ExecutionContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new CodeBlock.ExecutionContext(mockPlayer);
+    }
+
+    @Test
+    @DisplayName("Переменные подставляются, неизвестные плейсхолдеры остаются")
+    void testRenderVariables() {
+        context.setVariable("name", "Steve");
+        context.setVariable("coins", 15);
+
+        TextTemplate template = TextTemplate.compile("Привет, %name%! Монет: %coins%, ранг: %rank%");
+
+        assertEquals("Привет, Steve! Монет: 15, ранг: %rank%", template.render(context));
+    }
+
+    @Test
+    @DisplayName("Проценты в тексте не считаются плейсхолдерами")
+    void testPercentLiterals() {
+        context.setVariable("discount", 20);
+
+        TextTemplate template = TextTemplate.compile("Скидка 50% и еще %discount%%");
+
+        assertEquals("Скидка 50% и еще 20%", template.render(context));
+        assertFalse(TextTemplate.compile("без переменных").hasPlaceholders());
+    }
+
+    @Test
+    @DisplayName("Встроенные плейсхолдеры имеют приоритет над переменными")
+    void testBuiltinsFirst() {
+        context.setVariable("player", "переменная");
+
+        TextTemplate template = TextTemplate.compile("%player%: %player_x%");
+
+        assertEquals("Alex: 10", template.render(context, name -> {
+            switch (name) {
+                case "player": return "Alex";
+                case "player_x": return 10;
+                default: return null;
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("Значение из слота видно в тексте")
+    void testSlotValue() {
+        Map<String, Object> scriptVariables = new HashMap<>();
+        VariableTable symbols = new VariableTable();
+        context.bindScript(scriptVariables, new HashMap<>(), symbols);
+        TextTemplate template = TextTemplate.compile("Счет: %score%");
+        template.resolveVariables(symbols);
+
+        context.setLong(new VariableRef("score"), 42);
+
+        assertEquals("Счет: 42", template.render(context));
+    }
+
+    @Test
+    @DisplayName("Плейсхолдеры без присваивания не занимают слоты")
+    void testPlaceholdersDoNotAllocateSlots() {
+        Map<String, Object> scriptVariables = new HashMap<>();
+        scriptVariables.put("coins", 7);
+        VariableTable symbols = new VariableTable();
+        context.bindScript(scriptVariables, new HashMap<>(), symbols);
+        TextTemplate template = TextTemplate.compile("%a% %b% %coins%");
+        template.resolveVariables(symbols);
+
+        assertEquals("%a% %b% 7", template.render(context));
+        assertEquals(0, symbols.size());
+    }
+}
@@ -0,0 +1,335 @@
+package ru.openhousing.database.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.database.WriteBehindQueue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты очереди отложенной записи
+ */
+class WriteBehindQueueTest {
+
+    private static final long NEVER = 60000;
+
+    private Logger logger;
+    private AtomicInteger commits;
+    private AtomicInteger rollbacks;
+    private AtomicInteger failingCommits;
+    private List<List<String>> batches;
+
+    @BeforeEach
+    void setUp() {
+        logger = Logger.getLogger("WriteBehindQueueTest");
+        logger.setUseParentHandlers(false);
+        commits = new AtomicInteger();
+        rollbacks = new AtomicInteger();
+        failingCommits = new AtomicInteger();
+        batches = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * Соединение, считающее commit и rollback
+     */
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "commit" -> {
+                        if (failingCommits.getAndDecrement() > 0) {
+                            throw new SQLException("commit failed");
+                        }
+                        commits.incrementAndGet();
+                    }
+                    case "rollback" -> rollbacks.incrementAndGet();
+                    case "getAutoCommit" -> {
+                        return true;
+                    }
+                    default -> { }
+                }
+                return null;
+            });
+    }
+
+    private WriteBehindQueue<String, String> queue(WriteBehindQueue.BatchWriter<String, String> writer,
+                                                   int batchSize, int maxPending) {
+        return new WriteBehindQueue<>("test", logger, this::connection, writer, Runnable::run,
+                batchSize, maxPending, NEVER);
+    }
+
+    /**
+     * Запись, которая в потоке очереди ждет release после отметки busy.
+     * Удаленные ключи записываются в batches с префиксом "-"
+     */
+    private WriteBehindQueue.BatchWriter<String, String> blockingWriter(CountDownLatch busy, CountDownLatch release) {
+        return new WriteBehindQueue.BatchWriter<>() {
+            @Override
+            public void write(Connection connection, List<String> items) {
+                if (Thread.currentThread().getName().startsWith("OpenHousing-WriteBehind")) {
+                    busy.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                batches.add(new ArrayList<>(items));
+            }
+
+            @Override
+            public void delete(Connection connection, List<String> keys) {
+                List<String> deleted = new ArrayList<>();
+                for (String key : keys) {
+                    deleted.add("-" + key);
+                }
+                batches.add(deleted);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Повторные сохранения ключа объединяются в одну запись")
+    void testCoalescesByKey() {
+        WriteBehindQueue<String, String> queue = queue((c, items) -> batches.add(new ArrayList<>(items)), 100, 1000);
+        AtomicInteger callbacks = new AtomicInteger();
+        queue.start();
+
+        queue.enqueue("a", "a1", callbacks::incrementAndGet);
+        queue.enqueue("b", "b1", null);
+        queue.enqueue("a", "a2", callbacks::incrementAndGet);
+        queue.shutdown();
+
+        assertEquals(List.of(List.of("a2", "b1")), batches);
+        assertEquals(1, queue.getCoalescedCount());
+        assertEquals(2, queue.getWrittenCount());
+        assertEquals(2, callbacks.get());
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    @DisplayName("Пачка записывается сразу при накоплении batchSize")
+    void testFlushesWhenBatchIsFull() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        WriteBehindQueue<String, String> queue = queue((c, items) -> {
+            batches.add(new ArrayList<>(items));
+            written.countDown();
+        }, 2, 1000);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        queue.enqueue("b", "b1", null);
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a1", "b1")), batches);
+        queue.shutdown();
+    }
+
+    @Test
+    @DisplayName("Ошибка откатывает транзакцию, значение записывается повторно")
+    void testRetriesAfterFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        WriteBehindQueue<String, String> queue = queue((c, items) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLException("deadlock");
+            }
+            batches.add(new ArrayList<>(items));
+        }, 100, 1000);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        queue.shutdown();
+
+        assertEquals(1, rollbacks.get());
+        assertEquals(1, queue.getFailureCount());
+        assertEquals(List.of(List.of("a1")), batches);
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Удаление заменяет ожидающее сохранение ключа")
+    void testDeleteReplacesPending() {
+        WriteBehindQueue<String, String> queue = queue(blockingWriter(new CountDownLatch(1), new CountDownLatch(0)), 100, 1000);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        queue.enqueue("b", "b1", null);
+        queue.enqueueDelete("a", null);
+        assertNull(queue.peek("a"));
+        queue.shutdown();
+
+        assertEquals(List.of(List.of("b1"), List.of("-a")), batches);
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    @DisplayName("Удаление выполняется после идущей записи того же ключа")
+    void testDeleteWaitsForInFlightWrite() throws InterruptedException {
+        CountDownLatch flusherBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String, String> queue = queue(blockingWriter(flusherBusy, release), 1, 1000);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        assertTrue(flusherBusy.await(5, TimeUnit.SECONDS));
+        queue.enqueueDelete("a", null);
+
+        Thread flushing = new Thread(queue::flushAll);
+        flushing.start();
+        flushing.join(200);
+        assertTrue(batches.isEmpty());
+
+        release.countDown();
+        flushing.join(5000);
+        queue.shutdown();
+        assertEquals(List.of(List.of("a1"), List.of("-a")), batches);
+    }
+
+    @Test
+    @DisplayName("Еще не записанное значение доступно для чтения до записи в базу")
+    void testPeekReturnsUnwrittenValue() {
+        WriteBehindQueue<String, String> queue = queue((c, items) -> batches.add(new ArrayList<>(items)), 100, 1000);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        queue.enqueue("a", "a2", null);
+        assertEquals("a2", queue.peek("a"));
+        assertNull(queue.peek("b"));
+
+        queue.shutdown();
+        assertNull(queue.peek("a"));
+    }
+
+    @Test
+    @DisplayName("При переполнении значение остается в очереди, сохраняющий поток не пишет в базу")
+    void testOverflowDoesNotBlockCaller() throws InterruptedException {
+        CountDownLatch flusherBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String, String> queue = queue(blockingWriter(flusherBusy, release), 1, 1);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        assertTrue(flusherBusy.await(5, TimeUnit.SECONDS));
+        queue.enqueue("b", "b1", null);
+        queue.enqueue("c", "c1", null);
+
+        assertEquals(1, queue.getOverflowCount());
+        assertEquals(2, queue.getPendingCount());
+        assertTrue(batches.isEmpty());
+
+        release.countDown();
+        queue.shutdown();
+        assertEquals(3, queue.getWrittenCount());
+    }
+
+    @Test
+    @DisplayName("Новое значение ключа не пишется, пока идет запись старого")
+    void testSerializesWritesPerKey() throws InterruptedException {
+        CountDownLatch flusherBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String, String> queue = queue(blockingWriter(flusherBusy, release), 1, 1000);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        assertTrue(flusherBusy.await(5, TimeUnit.SECONDS));
+        queue.enqueue("a", "a2", null);
+        queue.enqueue("b", "b1", null);
+
+        Thread flushing = new Thread(queue::flushAll);
+        flushing.start();
+        flushing.join(200);
+        assertEquals(List.of(List.of("b1")), batches);
+        assertEquals("a2", queue.peek("a"));
+
+        release.countDown();
+        flushing.join(5000);
+        queue.shutdown();
+        assertEquals(List.of(List.of("b1"), List.of("a1"), List.of("a2")), batches);
+    }
+
+    @Test
+    @DisplayName("Ошибка commit сообщается записи до повтора пачки")
+    void testReportsFailedCommit() {
+        List<String> completions = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", logger, this::connection,
+            new WriteBehindQueue.BatchWriter<>() {
+                @Override
+                public void write(Connection connection, List<String> items) {
+                    completions.add("write " + items);
+                }
+
+                @Override
+                public void completed(List<String> items, boolean committed) {
+                    completions.add((committed ? "committed " : "failed ") + items);
+                }
+            }, Runnable::run, 100, 1000, NEVER);
+        failingCommits.set(1);
+        queue.start();
+
+        queue.enqueue("a", "a1", null);
+        queue.shutdown();
+
+        assertEquals(List.of("write [a1]", "failed [a1]", "write [a1]", "committed [a1]"), completions);
+        assertEquals(1, rollbacks.get());
+        assertEquals(1, queue.getWrittenCount());
+    }
+
+    @Test
+    @DisplayName("Ошибочная строка не мешает записи соседних значений пачки")
+    void testIsolatesFailingRow() {
+        WriteBehindQueue<String, String> queue = queue((c, items) -> {
+            if (items.contains("bad")) {
+                throw new SQLException("data too long");
+            }
+            batches.add(new ArrayList<>(items));
+        }, 100, 1000);
+        AtomicInteger callbacks = new AtomicInteger();
+        queue.start();
+
+        queue.enqueue("a", "a1", callbacks::incrementAndGet);
+        queue.enqueue("b", "bad", callbacks::incrementAndGet);
+        queue.enqueue("c", "c1", callbacks::incrementAndGet);
+        queue.shutdown();
+
+        assertEquals(List.of(List.of("a1"), List.of("c1")), batches);
+        assertEquals(2, callbacks.get());
+        assertEquals(1, queue.getPendingCount());
+        assertEquals("bad", queue.peek("b"));
+    }
+
+    @Test
+    @DisplayName("Значение не отбрасывается после повторных ошибок записи")
+    void testKeepsEntryAfterRepeatedFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        WriteBehindQueue<String, String> queue = queue((c, items) -> {
+            if (attempts.incrementAndGet() <= 5) {
+                throw new SQLException("connection reset");
+            }
+            batches.add(new ArrayList<>(items));
+        }, 100, 1000);
+        AtomicInteger callbacks = new AtomicInteger();
+
+        queue.enqueue("a", "a1", callbacks::incrementAndGet);
+        queue.flushAll();
+        assertEquals(1, queue.getPendingCount());
+        assertEquals(0, callbacks.get());
+
+        queue.flushAll();
+        assertEquals(List.of(List.of("a1")), batches);
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(1, callbacks.get());
+        assertEquals(5, queue.getFailureCount());
+    }
+}
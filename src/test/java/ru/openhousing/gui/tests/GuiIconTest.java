@@ -0,0 +1,49 @@
+package ru.openhousing.gui.tests;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.gui.GuiIcon;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты кэшируемых иконок GUI
+ */
+@ExtendWith(MockitoExtension.class)
+class GuiIconTest {
+
+    @Mock private ItemStack template;
+    @Mock private ItemStack copy;
+
+    @Test
+    @DisplayName("Иконка собирается один раз при первом обращении")
+    void testBuiltOnce() {
+        AtomicInteger builds = new AtomicInteger();
+        GuiIcon icon = new GuiIcon(() -> {
+            builds.incrementAndGet();
+            return template;
+        });
+
+        assertEquals(0, builds.get());
+        assertSame(template, icon.get());
+        assertSame(template, icon.get());
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    @DisplayName("Копия для изменений не затрагивает общий шаблон")
+    void testCopy() {
+        lenient().when(template.clone()).thenReturn(copy);
+        GuiIcon icon = new GuiIcon(() -> template);
+
+        assertSame(copy, icon.copy());
+        assertSame(template, icon.get());
+    }
+}
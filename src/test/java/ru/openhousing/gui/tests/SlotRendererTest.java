@@ -0,0 +1,90 @@
+package ru.openhousing.gui.tests;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.gui.SlotRenderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты отрисовки GUI с обновлением измененных слотов
+ */
+@ExtendWith(MockitoExtension.class)
+class SlotRendererTest {
+
+    @Mock private Inventory inventory;
+    @Mock private ItemStack back;
+    @Mock private ItemStack line;
+    @Mock private ItemStack otherLine;
+
+    private SlotRenderer slots;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(inventory.getSize()).thenReturn(54);
+        slots = new SlotRenderer(inventory);
+    }
+
+    @Test
+    @DisplayName("Повторный кадр записывает только изменившиеся слоты")
+    void testOnlyChangedSlotsWritten() {
+        slots.begin();
+        slots.set(0, back);
+        slots.set(18, line);
+        assertEquals(2, slots.commit());
+
+        slots.begin();
+        slots.set(0, back);
+        slots.set(18, otherLine);
+        assertEquals(1, slots.commit());
+
+        verify(inventory, times(1)).setItem(0, back);
+        verify(inventory).setItem(18, line);
+        verify(inventory).setItem(18, otherLine);
+        verify(inventory, times(3)).setItem(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Слоты, не заданные в новом кадре, очищаются")
+    void testMissingSlotsCleared() {
+        slots.begin();
+        slots.set(53, line);
+        slots.commit();
+
+        slots.begin();
+        assertEquals(1, slots.commit());
+
+        verify(inventory).setItem(53, null);
+        assertNull(slots.get(53));
+    }
+
+    @Test
+    @DisplayName("Вне кадра изменение применяется сразу, повторное - пропускается")
+    void testImmediateSet() {
+        slots.set(10, line);
+        slots.set(10, line);
+
+        verify(inventory, times(1)).setItem(10, line);
+        assertSame(line, slots.get(10));
+    }
+
+    @Test
+    @DisplayName("Во время кадра инвентарь не меняется до commit")
+    void testFrameIsBuffered() {
+        slots.begin();
+        slots.set(4, back);
+
+        assertSame(back, slots.get(4));
+        verify(inventory, never()).setItem(anyInt(), any());
+
+        slots.commit();
+        verify(inventory).setItem(4, back);
+    }
+}
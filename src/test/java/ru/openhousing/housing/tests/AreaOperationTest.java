@@ -0,0 +1,117 @@
+package ru.openhousing.housing.tests;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.housing.AreaOperation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты пошаговой очистки области
+ */
+class AreaOperationTest {
+
+    /**
+     * Запись, запоминающая очищенные блоки и захваченные чанки
+     */
+    private static class RecordingWriter implements AreaOperation.BlockWriter {
+        final Set<String> cleared = new HashSet<>();
+        final List<String> chunkEvents = new ArrayList<>();
+        int writes;
+        int heldChunks;
+
+        @Override
+        public void clear(int x, int y, int z) {
+            writes++;
+            cleared.add(x + "," + y + "," + z);
+            assertEquals(1, heldChunks, "Блок записан вне захваченного чанка");
+        }
+
+        @Override
+        public void enterChunk(int chunkX, int chunkZ) {
+            heldChunks++;
+            chunkEvents.add("enter " + chunkX + "," + chunkZ);
+        }
+
+        @Override
+        public void leaveChunk(int chunkX, int chunkZ) {
+            heldChunks--;
+            chunkEvents.add("leave " + chunkX + "," + chunkZ);
+        }
+    }
+
+    @Test
+    @DisplayName("Каждый блок области очищается ровно один раз")
+    void testEveryBlockClearedOnce() {
+        RecordingWriter writer = new RecordingWriter();
+        AreaOperation operation = new AreaOperation(1, -5, 60, 10, 20, 63, 40, writer);
+        assertEquals(26L * 4 * 31, operation.getTotal());
+
+        while (!operation.isFinished()) {
+            assertTrue(operation.step(100) > 0);
+        }
+
+        assertEquals(operation.getTotal(), writer.writes);
+        assertEquals(operation.getTotal(), writer.cleared.size());
+        assertTrue(writer.cleared.contains("-5,60,10"));
+        assertTrue(writer.cleared.contains("20,63,40"));
+        assertFalse(writer.cleared.contains("21,63,40"));
+        assertEquals(1.0, operation.getProgress());
+    }
+
+    @Test
+    @DisplayName("Область обходится по чанкам, каждый чанк захватывается один раз")
+    void testChunkOrder() {
+        RecordingWriter writer = new RecordingWriter();
+        AreaOperation operation = new AreaOperation(1, 0, 0, 0, 31, 1, 15, writer);
+
+        operation.step(Integer.MAX_VALUE);
+
+        assertEquals(List.of("enter 0,0", "leave 0,0", "enter 1,0", "leave 1,0"), writer.chunkEvents);
+        assertEquals(0, writer.heldChunks);
+    }
+
+    @Test
+    @DisplayName("Шаг не превышает заданное число блоков")
+    void testStepLimit() {
+        RecordingWriter writer = new RecordingWriter();
+        AreaOperation operation = new AreaOperation(1, 0, 0, 0, 15, 15, 15, writer);
+
+        assertEquals(1000, operation.step(1000));
+        assertEquals(1000, operation.getProcessed());
+        assertFalse(operation.isFinished());
+        assertEquals(4096 - 1000, operation.step(10_000));
+        assertTrue(operation.isFinished());
+    }
+
+    @Test
+    @DisplayName("Отмена останавливает операцию и освобождает чанк")
+    void testCancelReleasesChunk() {
+        RecordingWriter writer = new RecordingWriter();
+        AreaOperation operation = new AreaOperation(1, 0, 0, 0, 15, 15, 15, writer);
+
+        operation.step(10);
+        operation.cancel();
+
+        assertTrue(operation.isCancelled());
+        assertFalse(operation.isFinished());
+        assertEquals(0, writer.heldChunks);
+        assertEquals(0, operation.step(100));
+        assertEquals(10, writer.writes);
+    }
+
+    @Test
+    @DisplayName("Пустая область сразу завершена")
+    void testEmptyArea() {
+        AreaOperation operation = new AreaOperation(1, 0, 10, 0, 15, 5, 15, new RecordingWriter());
+
+        assertTrue(operation.isFinished());
+        assertEquals(0, operation.getTotal());
+        assertEquals(0, operation.step(100));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.openhousing.housing.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.housing.ChunkHouseIndex;
+import ru.openhousing.housing.House;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты пространственного индекса участков
+ */
+class ChunkHouseIndexTest {
+
+    private ChunkHouseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ChunkHouseIndex();
+    }
+
+    private House plot(int id, int originX, int originZ, int width, int length) {
+        House house = new House(id, UUID.randomUUID(), "Owner" + id, "Plot" + id, "housing_world",
+                new House.HouseSize(width, 64, length), null);
+        house.setPlot(true);
+        house.setOrigin(originX, 64, originZ);
+        return house;
+    }
+
+    @Test
+    @DisplayName("Блок внутри участка находит дом, блок за границей - нет")
+    void testLookupInsideAndOutside() {
+        House house = plot(1, 0, 0, 40, 40);
+        index.add(house);
+
+        assertSame(house, index.get(0, 0));
+        assertSame(house, index.get(39, 39));
+        assertSame(house, index.get(20, 5));
+        assertNull(index.get(40, 10));
+        assertNull(index.get(-1, 0));
+        assertNull(index.get(500, 500));
+    }
+
+    @Test
+    @DisplayName("Внутренние чанки однородны, граничные - нет")
+    void testUniformChunks() {
+        index.add(plot(1, 0, 0, 40, 40));
+
+        assertTrue(index.isUniform(0, 0));   // Блоки 0..15 целиком внутри
+        assertTrue(index.isUniform(1, 1));   // Блоки 16..31 целиком внутри
+        assertFalse(index.isUniform(2, 0));  // Блоки 32..47, участок заканчивается на 39
+        assertTrue(index.isUniform(10, 10)); // Чанк вне участков
+    }
+
+    @Test
+    @DisplayName("Соседние участки в одном чанке различаются по границам")
+    void testSharedBoundaryChunk() {
+        House left = plot(1, 0, 0, 20, 20);
+        House right = plot(2, 24, 0, 20, 20);
+        index.add(left);
+        index.add(right);
+
+        assertSame(left, index.get(19, 5));
+        assertNull(index.get(22, 5));
+        assertSame(right, index.get(24, 5));
+    }
+
+    @Test
+    @DisplayName("Удаленный участок больше не находится, соседние остаются")
+    void testRemove() {
+        House left = plot(1, 0, 0, 20, 20);
+        House right = plot(2, 24, 0, 20, 20);
+        index.add(left);
+        index.add(right);
+
+        index.remove(left);
+
+        assertNull(index.get(5, 5));
+        assertSame(right, index.get(30, 5));
+    }
+
+    @Test
+    @DisplayName("Индекс растет и сохраняет все участки сетки")
+    void testManyPlots() {
+        House[] houses = new House[200];
+        for (int i = 0; i < houses.length; i++) {
+            houses[i] = plot(i, (i % 20) * 150, (i / 20) * 150, 64, 64);
+            index.add(houses[i]);
+        }
+        for (int i = 0; i < houses.length; i++) {
+            assertSame(houses[i], index.get((i % 20) * 150 + 10, (i / 20) * 150 + 63));
+        }
+        for (int i = 0; i < houses.length; i += 2) {
+            index.remove(houses[i]);
+        }
+        for (int i = 0; i < houses.length; i++) {
+            House expected = i % 2 == 0 ? null : houses[i];
+            assertSame(expected, index.get((i % 20) * 150 + 32, (i / 20) * 150 + 32));
+        }
+    }
+}
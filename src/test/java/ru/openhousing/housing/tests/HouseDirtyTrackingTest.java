@@ -0,0 +1,107 @@
+package ru.openhousing.housing.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.housing.House;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты отслеживания несохраненных изменений дома
+ */
+class HouseDirtyTrackingTest {
+
+    private House house;
+
+    @BeforeEach
+    void setUp() {
+        house = new House(1, UUID.randomUUID(), "Owner", "TestHouse", "house_test_1",
+                new House.HouseSize(64, 64, 64), null);
+    }
+
+    @Test
+    @DisplayName("Новый дом требует записи, загруженный из базы - нет")
+    void testNewAndLoadedHouse() {
+        assertTrue(house.isDirty());
+        assertTrue(house.takeCoreDirty());
+        assertFalse(house.takeCoreDirty());
+
+        house.markClean();
+        house.restoreSetting("music_volume", 0.5f);
+        house.restoreMember(UUID.randomUUID(), false);
+        assertFalse(house.isDirty());
+    }
+
+    @Test
+    @DisplayName("Записываются только измененные участники и настройки")
+    void testOnlyChangedKeysAreTaken() {
+        house.markClean();
+        UUID allowed = UUID.randomUUID();
+        house.allowPlayer(allowed);
+        house.setSetting("ambient_sounds", true);
+        house.setSetting("ambient_sounds", false);
+
+        assertFalse(house.takeCoreDirty());
+        assertEquals(List.of(allowed), house.takeDirtyMembers());
+        assertEquals(List.of("ambient_sounds"), house.takeDirtySettings());
+        assertFalse(house.isDirty());
+    }
+
+    @Test
+    @DisplayName("Смена публичности отмечает строку дома, повторная установка - нет")
+    void testCoreFlags() {
+        house.markClean();
+        house.setPublic(false);
+        assertFalse(house.isDirty());
+
+        house.setPublic(true);
+        assertTrue(house.takeCoreDirty());
+    }
+
+    @Test
+    @DisplayName("После неудачной записи изменения возвращаются")
+    void testRestoreAfterFailedWrite() {
+        house.markClean();
+        UUID member = UUID.randomUUID();
+        house.allowPlayer(member);
+        house.setSetting("description", "Дом");
+
+        boolean core = house.takeCoreDirty();
+        List<UUID> members = house.takeDirtyMembers();
+        List<String> settings = house.takeDirtySettings();
+        assertFalse(house.isDirty());
+
+        house.restoreDirty(core, members, settings);
+        assertEquals(List.of(member), house.takeDirtyMembers());
+        assertEquals(List.of("description"), house.takeDirtySettings());
+    }
+
+    @Test
+    @DisplayName("Удаленная настройка остается в списке изменений")
+    void testRemovedSettingIsTracked() {
+        house.restoreSetting("selected_music", "MUSIC_DISC_13");
+        house.markClean();
+
+        house.setSetting("selected_music", null);
+
+        assertNull(house.getSetting("selected_music"));
+        assertEquals(List.of("selected_music"), house.takeDirtySettings());
+    }
+
+    @Test
+    @DisplayName("Любое изменение настроек меняет их версию")
+    void testSettingsVersion() {
+        int initial = house.getSettingsVersion();
+
+        house.restoreSetting("max-blocks-per-execution", 500);
+        int restored = house.getSettingsVersion();
+        house.setSetting("max-blocks-per-execution", 100);
+
+        assertNotEquals(initial, restored);
+        assertNotEquals(restored, house.getSettingsVersion());
+    }
+}
@@ -0,0 +1,118 @@
+package ru.openhousing.housing.tests;
+
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.OpenHousing;
+import ru.openhousing.config.ConfigManager;
+import ru.openhousing.housing.House;
+import ru.openhousing.housing.HouseWorldManager;
+import ru.openhousing.housing.HousingManager;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты выгрузки простаивающих миров домов
+ */
+@ExtendWith(MockitoExtension.class)
+class HouseWorldManagerTest {
+
+    private static final long IDLE = 10 * 60_000L;
+
+    @Mock
+    private OpenHousing plugin;
+
+    @Mock
+    private HousingManager housingManager;
+
+    @Mock
+    private ConfigManager configManager;
+
+    @Mock
+    private FileConfiguration config;
+
+    private HouseWorldManager worldManager;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(plugin.getConfigManager()).thenReturn(configManager);
+        lenient().when(configManager.getMainConfig()).thenReturn(config);
+        lenient().when(plugin.getLogger()).thenReturn(java.util.logging.Logger.getLogger("TestLogger"));
+        lenient().when(config.getBoolean("housing.world-lifecycle.enabled", true)).thenReturn(false);
+        lenient().when(config.getLong("housing.world-lifecycle.unload-after-minutes", 5)).thenReturn(5L);
+        lenient().when(config.getInt("housing.world-lifecycle.max-unloads-per-check", 4)).thenReturn(1);
+
+        worldManager = new HouseWorldManager(plugin, housingManager);
+        worldManager.start(); // Выключено в конфиге - таймер не запускается, читаются только лимиты
+    }
+
+    private House house(World world, long idleMillis) {
+        House house = mock(House.class);
+        lenient().when(house.getLoadedWorld()).thenReturn(world);
+        lenient().when(house.getLastActivity()).thenReturn(System.currentTimeMillis() - idleMillis);
+        lenient().when(house.unloadWorld()).thenReturn(true);
+        return house;
+    }
+
+    private World world(Player... players) {
+        World world = mock(World.class);
+        lenient().when(world.getPlayers()).thenReturn(List.of(players));
+        return world;
+    }
+
+    @Test
+    @DisplayName("Мир без игроков выгружается после периода простоя")
+    void testIdleWorldIsUnloaded() {
+        House idle = house(world(), IDLE);
+        when(housingManager.getAllHouses()).thenReturn(List.of(idle));
+
+        assertEquals(1, worldManager.unloadIdleWorlds());
+        verify(idle).unloadWorld();
+        assertEquals(1, worldManager.getUnloadedCount());
+    }
+
+    @Test
+    @DisplayName("Недавно посещенный мир и мир с игроками не выгружаются")
+    void testActiveWorldsStayLoaded() {
+        House recent = house(world(), 1000);
+        House occupied = house(world(mock(Player.class)), IDLE);
+        when(housingManager.getAllHouses()).thenReturn(List.of(recent, occupied));
+
+        assertEquals(0, worldManager.unloadIdleWorlds());
+        verify(recent, never()).unloadWorld();
+        verify(occupied, never()).unloadWorld();
+        verify(occupied).markActive();
+    }
+
+    @Test
+    @DisplayName("За одну проверку выгружается не больше заданного числа миров")
+    void testUnloadsPerCheckAreLimited() {
+        House first = house(world(), IDLE);
+        House second = house(world(), IDLE);
+        when(housingManager.getAllHouses()).thenReturn(List.of(first, second));
+
+        assertEquals(1, worldManager.unloadIdleWorlds());
+        verify(first).unloadWorld();
+        verify(second, never()).unloadWorld();
+    }
+
+    @Test
+    @DisplayName("Незагруженные миры пропускаются")
+    void testUnloadedWorldsAreSkipped() {
+        House unloaded = house(null, IDLE);
+        when(housingManager.getAllHouses()).thenReturn(Collections.singletonList(unloaded));
+
+        assertEquals(0, worldManager.unloadIdleWorlds());
+        verify(unloaded, never()).unloadWorld();
+    }
+}
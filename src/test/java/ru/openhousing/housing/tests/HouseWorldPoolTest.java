@@ -0,0 +1,107 @@
+package ru.openhousing.housing.tests;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.openhousing.OpenHousing;
+import ru.openhousing.config.ConfigManager;
+import ru.openhousing.housing.HouseWorldPool;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты запаса заранее сгенерированных миров домов
+ */
+@ExtendWith(MockitoExtension.class)
+class HouseWorldPoolTest {
+
+    @Mock
+    private OpenHousing plugin;
+
+    @Mock
+    private ConfigManager configManager;
+
+    @Mock
+    private FileConfiguration config;
+
+    @TempDir
+    File container;
+
+    private MockedStatic<Bukkit> mockedBukkit;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(plugin.getConfigManager()).thenReturn(configManager);
+        lenient().when(configManager.getMainConfig()).thenReturn(config);
+        lenient().when(plugin.getLogger()).thenReturn(java.util.logging.Logger.getLogger("TestLogger"));
+        lenient().when(config.getBoolean("housing.world-pool.enabled", true)).thenReturn(true);
+        lenient().when(config.getInt("housing.world-pool.size", 3)).thenReturn(3);
+
+        mockedBukkit = mockStatic(Bukkit.class);
+        mockedBukkit.when(Bukkit::getWorldContainer).thenReturn(container);
+        mockedBukkit.when(Bukkit::getScheduler).thenReturn(mock(BukkitScheduler.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockedBukkit.close();
+    }
+
+    private void poolWorld(String name) throws IOException {
+        File folder = new File(container, name);
+        assertTrue(folder.mkdirs());
+        assertTrue(new File(folder, "level.dat").createNewFile());
+    }
+
+    @Test
+    @DisplayName("Готовый мир с диска выдается под имя мира дома")
+    void testClaimRenamesPooledWorld() throws IOException {
+        poolWorld("house_pool_a");
+        HouseWorldPool pool = new HouseWorldPool(plugin);
+        pool.start();
+        assertEquals(1, pool.getReadyCount());
+
+        assertTrue(pool.claim("house_owner_1"));
+
+        assertTrue(new File(container, "house_owner_1/level.dat").exists());
+        assertFalse(new File(container, "house_pool_a").exists());
+        assertEquals(0, pool.getReadyCount());
+        assertEquals(1, pool.getClaimedCount());
+    }
+
+    @Test
+    @DisplayName("Пустой пул не выдает мир")
+    void testEmptyPool() {
+        HouseWorldPool pool = new HouseWorldPool(plugin);
+        pool.start();
+
+        assertFalse(pool.claim("house_owner_1"));
+        assertFalse(new File(container, "house_owner_1").exists());
+    }
+
+    @Test
+    @DisplayName("Существующий мир дома не перезаписывается миром из пула")
+    void testExistingTargetIsNotReplaced() throws IOException {
+        poolWorld("house_pool_a");
+        poolWorld("house_owner_1");
+        HouseWorldPool pool = new HouseWorldPool(plugin);
+        pool.start();
+
+        assertFalse(pool.claim("house_owner_1"));
+        assertTrue(new File(container, "house_pool_a").exists());
+        assertEquals(1, pool.getReadyCount());
+    }
+}
@@ -6,6 +6,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.Bukkit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -196,6 +197,27 @@ class HousingSystemTest {
         assertTrue(true); // Placeholder test
     }
 
+    @Test
+    @DisplayName("Дом находится по миру локации без перебора всех домов")
+    void testHouseLookupByWorld() {
+        mockedBukkit.when(Bukkit::getWorlds).thenReturn(java.util.List.of(world));
+        HousingManager.CreateHouseResult result = housingManager.createHouse(player, "Lookup");
+        assertTrue(result.isSuccess());
+        House house = result.getHouse();
+        
+        World houseWorld = mock(World.class);
+        when(houseWorld.getName()).thenReturn(house.getWorldName());
+        Location inside = mock(Location.class);
+        when(inside.getWorld()).thenReturn(houseWorld);
+        
+        assertSame(house, housingManager.getHouseAt(inside));
+        assertSame(house, housingManager.getHouseByWorld(house.getWorldName()));
+        assertNull(housingManager.getHouseAt(location));
+        
+        assertTrue(housingManager.deleteHouse(house, player));
+        assertNull(housingManager.getHouseAt(inside));
+    }
+
     @Test
     void testHouseSettingsDefaultValues() {
         // Временно закомментировано из-за проблем с созданием миров в тестовой среде
@@ -0,0 +1,55 @@
+package ru.openhousing.housing.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.housing.TeleportMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты статистики телепортаций в дома
+ */
+class TeleportMetricsTest {
+
+    private TeleportMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new TeleportMetrics();
+    }
+
+    @Test
+    @DisplayName("Без телепортаций задержка нулевая")
+    void testEmpty() {
+        assertEquals(0, metrics.getCompleted());
+        assertEquals(0.0, metrics.getAverageMillis());
+        assertEquals(0.0, metrics.getMaxMillis());
+    }
+
+    @Test
+    @DisplayName("Средняя и максимальная задержка считаются по успешным телепортациям")
+    void testLatency() {
+        metrics.record(TimeUnit.MILLISECONDS.toNanos(10), true);
+        metrics.record(TimeUnit.MILLISECONDS.toNanos(30), true);
+        metrics.record(TimeUnit.MILLISECONDS.toNanos(500), false);
+
+        assertEquals(2, metrics.getCompleted());
+        assertEquals(1, metrics.getFailed());
+        assertEquals(20.0, metrics.getAverageMillis(), 1e-9);
+        assertEquals(30.0, metrics.getMaxMillis(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Присоединившиеся посетители учитываются отдельно")
+    void testCoalesced() {
+        metrics.recordCoalesced();
+        metrics.recordCoalesced();
+        metrics.record(TimeUnit.MILLISECONDS.toNanos(4), true);
+
+        assertEquals(2, metrics.getCoalesced());
+        assertEquals("teleports=1, failed=0, coalesced=2, avg=4.0ms, max=4.0ms", metrics.toString());
+    }
+}
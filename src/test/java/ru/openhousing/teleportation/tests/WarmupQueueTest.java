@@ -0,0 +1,109 @@
+package ru.openhousing.teleportation.tests;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.openhousing.teleportation.WarmupQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Тесты очереди прогрева телепортаций
+ */
+class WarmupQueueTest {
+
+    private WarmupQueue queue;
+    private World world;
+
+    @BeforeEach
+    void setUp() {
+        queue = new WarmupQueue();
+        world = mock(World.class);
+    }
+
+    private WarmupQueue.Warmup warmup(long startTick, int delaySeconds) {
+        return new WarmupQueue.Warmup(UUID.randomUUID(), null, "домой",
+                new Location(world, 0, 64, 0), startTick, delaySeconds);
+    }
+
+    /**
+     * Прогон очереди до тика toTick: отсчет или телепортация в формате "тик:событие"
+     */
+    private List<String> run(long fromTick, long toTick) {
+        List<String> events = new ArrayList<>();
+        for (long tick = fromTick; tick <= toTick; tick++) {
+            WarmupQueue.Warmup due;
+            while ((due = queue.poll(tick)) != null) {
+                if (due.isReady()) {
+                    events.add(tick + ":tp");
+                    queue.remove(due.getPlayerId());
+                } else {
+                    events.add(tick + ":" + due.getRemainingSeconds());
+                    queue.advance(due);
+                }
+            }
+        }
+        return events;
+    }
+
+    @Test
+    @DisplayName("Последние секунды отсчитываются, телепортация - через задержку")
+    void testCountdown() {
+        queue.add(warmup(100, 5));
+
+        assertEquals(List.of("140:3", "160:2", "180:1", "200:tp"), run(100, 300));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Короткая задержка отсчитывается целиком")
+    void testShortDelay() {
+        queue.add(warmup(0, 2));
+        queue.add(warmup(5, 1));
+
+        assertEquals(List.of("20:1", "25:tp", "40:tp"), run(0, 100));
+    }
+
+    @Test
+    @DisplayName("До наступления события прогрев не извлекается")
+    void testNothingDueEarly() {
+        queue.add(warmup(0, 3));
+
+        assertNull(queue.poll(19));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    @DisplayName("Отмененный прогрев не срабатывает, новый прогрев игрока заменяет старый")
+    void testCancelAndReplace() {
+        WarmupQueue.Warmup cancelled = warmup(0, 1);
+        WarmupQueue.Warmup first = warmup(0, 3);
+        queue.add(cancelled);
+        queue.add(first);
+        assertSame(cancelled, queue.remove(cancelled.getPlayerId()));
+
+        WarmupQueue.Warmup replacement = new WarmupQueue.Warmup(first.getPlayerId(), null, "домой",
+                new Location(world, 0, 64, 0), 30, 1);
+        assertSame(first, queue.add(replacement));
+
+        assertEquals(List.of("50:tp"), run(0, 200));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Движение дальше порога или в другой мир отменяет прогрев")
+    void testMovement() {
+        WarmupQueue.Warmup warmup = warmup(0, 3);
+
+        assertFalse(warmup.hasMoved(new Location(world, 0.3, 64, 0.3), 0.5));
+        assertTrue(warmup.hasMoved(new Location(world, 0.6, 64, 0), 0.5));
+        assertTrue(warmup.hasMoved(new Location(mock(World.class), 0, 64, 0), 0.5));
+    }
+}